@@ -0,0 +1,66 @@
+package io.piveau.hub.benchmarks;
+
+import io.piveau.hub.dataobjects.DatasetHelper;
+import org.apache.jena.rdf.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and canonical hashing of a dataset, and the renaming of its references when it is created or updated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatasetHelperBenchmark {
+
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE, Fixtures.HUGE})
+    public String size;
+
+    private String content;
+    private Model oldModel;
+    private String recordUriRef;
+
+    private DatasetHelper helper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.init();
+        content = Fixtures.dataset(size);
+
+        DatasetHelper stored = Fixtures.parse(content);
+        stored.init(Fixtures.DATASET_ID);
+        stored.catalogueId(Fixtures.CATALOGUE_ID);
+        oldModel = stored.model();
+        recordUriRef = stored.recordUriRef();
+    }
+
+    /**
+     * Both init and update modify the model, every invocation needs a fresh one.
+     */
+    @Setup(Level.Invocation)
+    public void parsed() {
+        helper = Fixtures.parse(content);
+    }
+
+    @Benchmark
+    public DatasetHelper create() {
+        return Fixtures.parse(content);
+    }
+
+    @Benchmark
+    public Model init() {
+        helper.init(Fixtures.DATASET_ID);
+        return helper.model();
+    }
+
+    @Benchmark
+    public Model update() {
+        helper.update(oldModel, recordUriRef);
+        return helper.model();
+    }
+
+}
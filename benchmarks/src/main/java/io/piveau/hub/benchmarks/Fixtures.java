@@ -0,0 +1,168 @@
+package io.piveau.hub.benchmarks;
+
+import io.piveau.dcatap.DCATAPUriSchema;
+import io.piveau.hub.dataobjects.DatasetHelper;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Locale;
+
+/**
+ * Generated DCAT-AP datasets, shaped like harvested metadata: multilingual titles and descriptions, keywords, themes,
+ * contact points, a publisher, spatial and temporal coverage and a number of distributions.
+ * <p>
+ * The sizes range from a small dataset with one distribution to a huge one with 2000 distributions, as some portals
+ * publish them for time series.
+ */
+public final class Fixtures {
+
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String LARGE = "large";
+    public static final String HUGE = "huge";
+
+    public static final String CATALOGUE_ID = "benchmark-catalogue";
+    public static final String DATASET_ID = "benchmark-dataset";
+
+    private static final String[] LANGUAGES = {"en", "de", "fr", "es", "it", "pl", "nl", "sv"};
+
+    private static final String PREFIXES = "@prefix dcat: <http://www.w3.org/ns/dcat#> .\n" +
+            "@prefix dct: <http://purl.org/dc/terms/> .\n" +
+            "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+            "@prefix locn: <http://www.w3.org/ns/locn#> .\n" +
+            "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n" +
+            "@prefix schema: <http://schema.org/> .\n" +
+            "@prefix spdx: <http://spdx.org/rdf/terms#> .\n" +
+            "@prefix vcard: <http://www.w3.org/2006/vcard/ns#> .\n" +
+            "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n\n";
+
+    private Fixtures() {
+    }
+
+    /**
+     * The hub URI schema, as set up by the main verticle.
+     */
+    public static void init() {
+        DCATAPUriSchema.INSTANCE.setConfig(new JsonObject().put("baseUri", "https://piveau.io/"));
+    }
+
+    /**
+     * Parses Turtle content, the helper reports synchronously.
+     */
+    public static DatasetHelper parse(String content) {
+        Promise<DatasetHelper> promise = Promise.promise();
+        DatasetHelper.create(content, "text/turtle", promise);
+        if (promise.future().failed()) {
+            throw new IllegalStateException(promise.future().cause());
+        }
+        return promise.future().result();
+    }
+
+    public static String dataset(String size) {
+        switch (size) {
+            case SMALL:
+                return dataset(1, 2, 5);
+            case MEDIUM:
+                return dataset(10, 4, 20);
+            case LARGE:
+                return dataset(200, 8, 50);
+            case HUGE:
+                return dataset(2000, 8, 200);
+            default:
+                throw new IllegalArgumentException("Unknown fixture size " + size);
+        }
+    }
+
+    /**
+     * @param distributions number of distributions
+     * @param languages number of languages of titles and descriptions
+     * @param keywords number of keywords
+     */
+    public static String dataset(int distributions, int languages, int keywords) {
+        StringBuilder ttl = new StringBuilder(PREFIXES);
+        String dataset = "<https://data.example.org/dataset/air-quality-measurements>";
+
+        ttl.append(dataset).append("\n    a dcat:Dataset ;\n");
+        for (int i = 0; i < Math.min(languages, LANGUAGES.length); i++) {
+            String lang = LANGUAGES[i];
+            ttl.append("    dct:title \"Air quality measurements of the monitoring network (").append(lang).append(")\"@").append(lang).append(" ;\n");
+            ttl.append("    dct:description \"Hourly measurements of nitrogen dioxide, ozone and particulate matter at all stations of the ")
+                    .append("state monitoring network. The data is validated once a month and published under an open licence (")
+                    .append(lang).append(").\"@").append(lang).append(" ;\n");
+        }
+        for (int i = 0; i < keywords; i++) {
+            ttl.append("    dcat:keyword \"keyword ").append(i).append("\"@en ;\n");
+        }
+        ttl.append("    dcat:theme <http://publications.europa.eu/resource/authority/data-theme/ENVI>, <http://publications.europa.eu/resource/authority/data-theme/HEAL> ;\n")
+                .append("    dct:language <http://publications.europa.eu/resource/authority/language/ENG>, <http://publications.europa.eu/resource/authority/language/DEU> ;\n")
+                .append("    dct:issued \"2015-08-28T00:00:00\"^^xsd:dateTime ;\n")
+                .append("    dct:modified \"2020-04-03T13:48:21\"^^xsd:dateTime ;\n")
+                .append("    dct:identifier \"air-quality-measurements\" ;\n")
+                .append("    dct:accrualPeriodicity <http://publications.europa.eu/resource/authority/frequency/DAILY> ;\n")
+                .append("    dct:accessRights <http://publications.europa.eu/resource/authority/access-right/PUBLIC> ;\n")
+                .append("    dcat:landingPage <https://data.example.org/air-quality> ;\n")
+                .append("    dct:publisher [ a foaf:Organization ; foaf:name \"State Environment Agency\" ; foaf:homepage <https://environment.example.org> ] ;\n")
+                .append("    dcat:contactPoint [ a vcard:Organization ; vcard:fn \"Open Data Team\" ; vcard:hasEmail <mailto:opendata@example.org> ] ;\n")
+                .append("    dct:spatial [ a dct:Location ; locn:geometry \"POLYGON((12.915 53.1485, 12.9983 53.1485, 12.9983 53.1985, 12.915 53.1985, 12.915 53.1485))\"^^<http://www.opengis.net/ont/geosparql#wktLiteral> ] ;\n")
+                .append("    dct:temporal [ a dct:PeriodOfTime ; schema:startDate \"2015-01-01T00:00:00\"^^xsd:dateTime ; schema:endDate \"2020-12-31T00:00:00\"^^xsd:dateTime ] ;\n")
+                .append("    dct:provenance [ a dct:ProvenanceStatement ; rdfs:label \"Measured by certified stations\"@en ] ;\n")
+                .append("    foaf:page <https://data.example.org/air-quality/documentation>");
+        for (int i = 0; i < distributions; i++) {
+            ttl.append(" ;\n    dcat:distribution <https://data.example.org/distribution/air-quality-").append(i).append(">");
+        }
+        ttl.append(" .\n\n");
+
+        for (int i = 0; i < distributions; i++) {
+            String format = i % 3 == 0 ? "CSV" : i % 3 == 1 ? "JSON" : "XML";
+            ttl.append("<https://data.example.org/distribution/air-quality-").append(i).append(">\n")
+                    .append("    a dcat:Distribution ;\n")
+                    .append("    dct:title \"Measurements ").append(2000 + i / 12).append("-").append(i % 12 + 1).append(" (").append(format).append(")\"@en ;\n")
+                    .append("    dct:description \"Validated hourly measurements of one month as ").append(format).append("\"@en ;\n")
+                    .append("    dcat:accessURL <https://data.example.org/files/air-quality-").append(i).append(".").append(format.toLowerCase()).append("> ;\n")
+                    .append("    dcat:downloadURL <https://data.example.org/files/air-quality-").append(i).append(".").append(format.toLowerCase()).append("> ;\n")
+                    .append("    dct:format <http://publications.europa.eu/resource/authority/file-type/").append(format).append("> ;\n")
+                    .append("    dcat:mediaType \"").append(format.equals("CSV") ? "text/csv" : "application/" + format.toLowerCase()).append("\" ;\n")
+                    .append("    dct:license <http://dcat-ap.de/def/licenses/dl-by-de/2.0> ;\n")
+                    .append("    dcat:byteSize \"").append(100000 + i * 37).append("\"^^xsd:decimal ;\n")
+                    .append("    spdx:checksum [ a spdx:Checksum ; spdx:algorithm spdx:checksumAlgorithm_sha1 ; spdx:checksumValue \"")
+                    .append(String.format("%040x", i)).append("\" ] ;\n")
+                    .append("    dct:issued \"2016-01-01T00:00:00\"^^xsd:dateTime .\n\n");
+        }
+        return ttl.toString();
+    }
+
+    public static final String WKT_POLYGON = "POLYGON((12.915 53.1485, 12.9983 53.1485, 12.9983 53.1985, 12.915 53.1985, 12.915 53.1485))";
+
+    public static final String WKT_MULTIPOLYGON = multiPolygon(50, 40);
+
+    public static final String GML2_BOX = "<gml:Box xmlns:gml=\"http://www.opengis.net/gml\" srsName=\"EPSG:4326\">" +
+            "<gml:coordinates>12.915,53.1485 12.9983,53.1985</gml:coordinates></gml:Box>";
+
+    public static final String GML3_ENVELOPE = "<gml:Envelope xmlns:gml=\"http://www.opengis.net/gml/3.2\" srsName=\"http://www.opengis.net/def/EPSG/0/4326\">" +
+            "<gml:lowerCorner>53.1485 12.915</gml:lowerCorner><gml:upperCorner>53.1985 12.9983</gml:upperCorner></gml:Envelope>";
+
+    /**
+     * A multipolygon like an administrative boundary, with many vertices.
+     */
+    private static String multiPolygon(int polygons, int vertices) {
+        StringBuilder wkt = new StringBuilder("MULTIPOLYGON(");
+        for (int p = 0; p < polygons; p++) {
+            if (p > 0) {
+                wkt.append(", ");
+            }
+            double x = 5 + p * 0.1;
+            double y = 47 + p * 0.1;
+            wkt.append("((");
+            for (int v = 0; v <= vertices; v++) {
+                double angle = 2 * Math.PI * (v % vertices) / vertices;
+                if (v > 0) {
+                    wkt.append(", ");
+                }
+                wkt.append(String.format(Locale.ROOT, "%.5f %.5f", x + 0.04 * Math.cos(angle), y + 0.04 * Math.sin(angle)));
+            }
+            wkt.append("))");
+        }
+        return wkt.append(")").toString();
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.piveau.hub.benchmarks;
+
+import io.piveau.hub.util.rdf.GeoParser;
+import io.piveau.hub.util.rdf.GeoParsingException;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting the spatial coverage of a dataset to GeoJSON for the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoParserBenchmark {
+
+    private final GeoParser parser = new GeoParser();
+
+    @Benchmark
+    public JsonObject wktPolygon() throws GeoParsingException {
+        return parser.WKTtoGeoJSON(Fixtures.WKT_POLYGON);
+    }
+
+    @Benchmark
+    public JsonObject wktMultiPolygon() throws GeoParsingException {
+        return parser.WKTtoGeoJSON(Fixtures.WKT_MULTIPOLYGON);
+    }
+
+    @Benchmark
+    public JsonObject gml2() throws GeoParsingException {
+        return parser.GML2toGeoJSON(Fixtures.GML2_BOX);
+    }
+
+    @Benchmark
+    public JsonObject gml3() throws GeoParsingException {
+        return parser.GML3toGeoJSON(Fixtures.GML3_ENVELOPE);
+    }
+
+}
@@ -0,0 +1,38 @@
+package io.piveau.hub.benchmarks;
+
+import io.piveau.hub.dataobjects.DatasetHelper;
+import io.piveau.indexing.Indexing;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a dataset to its search index document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexingBenchmark {
+
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE, Fixtures.HUGE})
+    public String size;
+
+    private DatasetHelper helper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.init();
+        helper = Fixtures.parse(Fixtures.dataset(size));
+        helper.init(Fixtures.DATASET_ID);
+    }
+
+    @Benchmark
+    public JsonObject indexingDataset() {
+        return Indexing.indexingDataset(helper.resource(), Fixtures.CATALOGUE_ID, "en");
+    }
+
+}
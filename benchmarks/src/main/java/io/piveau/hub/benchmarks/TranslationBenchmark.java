@@ -0,0 +1,44 @@
+package io.piveau.hub.benchmarks;
+
+import io.piveau.hub.dataobjects.DatasetHelper;
+import io.piveau.hub.services.translation.TranslationServiceUtils;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the body of a translation request. The service builds it from the available languages and the data dict of
+ * the dataset, both are measured together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslationBenchmark {
+
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE, Fixtures.HUGE})
+    public String size;
+
+    private DatasetHelper helper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.init();
+        helper = Fixtures.parse(Fixtures.dataset(size));
+        helper.init(Fixtures.DATASET_ID);
+    }
+
+    @Benchmark
+    public void requestBody(Blackhole blackhole) {
+        List<String> languages = TranslationServiceUtils.getAvailableLanguages(helper.resource(), "en");
+        JsonObject dataDict = TranslationServiceUtils.getDataDict(helper.resource(), "en");
+        blackhole.consume(languages);
+        blackhole.consume(dataDict);
+    }
+
+}
@@ -0,0 +1,48 @@
+package io.piveau.hub.benchmarks;
+
+import io.piveau.dcatap.Prefixes;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The re-serialisation of a stored dataset to pretty Turtle with the DCAT-AP prefixes, as the dataset handler does it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurtleSerializationBenchmark {
+
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE, Fixtures.HUGE})
+    public String size;
+
+    private byte[] stored;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.init();
+        stored = Fixtures.parse(Fixtures.dataset(size)).stringify(Lang.TURTLE).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String reserialize() {
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(stored), Lang.TURTLE);
+        model.setNsPrefixes(Prefixes.DCATAP_PREFIXES);
+        StringWriter writer = new StringWriter();
+        RDFDataMgr.write(writer, model, RDFFormat.TURTLE);
+        return writer.toString();
+    }
+
+}
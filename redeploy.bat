@@ -1,6 +1,6 @@
 @echo off
 
-SET LAUNCHER="io.vertx.core.Launcher"
+SET LAUNCHER="io.piveau.hub.HubLauncher"
 SET VERTICLE="io.piveau.hub.MainVerticle"
 SET CMD="mvn compile"
 SET VERTX_CMD="run"
@@ -1,6 +1,6 @@
 #!/usr/bin/env bash
 
-export LAUNCHER="io.vertx.core.Launcher"
+export LAUNCHER="io.piveau.hub.HubLauncher"
 export VERTICLE="io.piveau.hub.MainVerticle"
 export CMD="mvn compile"
 export VERTX_CMD="run"
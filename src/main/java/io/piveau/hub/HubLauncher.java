@@ -0,0 +1,28 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.vertx.core.Launcher;
+import io.vertx.core.VertxOptions;
+import io.vertx.micrometer.Label;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+
+/**
+ * Launcher enabling the Vert.x metrics, published with the hub metrics on <code>/prometheus</code>.
+ * <p>
+ * Event bus metrics are labeled by address, so the pending messages per service show up as queue depths.
+ */
+public class HubLauncher extends Launcher {
+
+    @Override
+    public void beforeStartingVertx(VertxOptions options) {
+        options.setMetricsOptions(new MicrometerMetricsOptions()
+                .setMicrometerRegistry(Telemetry.registry())
+                .addLabels(Label.EB_ADDRESS)
+                .setEnabled(true));
+    }
+
+    public static void main(String[] args) {
+        new HubLauncher().dispatch(args);
+    }
+
+}
@@ -4,6 +4,7 @@ import io.piveau.hub.handler.*;
 import io.piveau.hub.services.DatasetHelperMessageCodec;
 import io.piveau.hub.services.catalogues.CataloguesService;
 import io.piveau.hub.services.catalogues.CataloguesServiceVerticle;
+import io.piveau.hub.services.changes.ChangeFeedVerticle;
 import io.piveau.hub.services.datasets.DatasetsService;
 import io.piveau.hub.services.datasets.DatasetsServiceVerticle;
 import io.piveau.hub.services.distributions.DistributionsService;
@@ -13,10 +14,13 @@ import io.piveau.hub.services.metrics.MetricsService;
 import io.piveau.hub.services.metrics.MetricsServiceVerticle;
 import io.piveau.hub.services.translation.TranslationService;
 import io.piveau.hub.services.translation.TranslationServiceVerticle;
+import io.piveau.hub.util.CatalogueCache;
 import io.piveau.hub.util.Constants;
 import io.piveau.hub.dataobjects.DatasetHelper;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.piveau.hub.util.telemetry.Tracing;
 import io.piveau.hub.shell.ShellVerticle;
 import io.piveau.json.ConfigHelper;
 import io.piveau.dcatap.DCATAPUriSchema;
@@ -165,44 +169,51 @@ public class MainVerticle extends AbstractVerticle {
                 authorizationHandler = new AuthorizationHandler(authorizationProcessData, config.getString(Constants.ENV_PIVEAU_HUB_BASE_URI, "https://io.piveau/"));
                 routerFactory.addSecurityHandler("Authorize", authorizationHandler::handleAuthorization);
 
-                routerFactory.addHandlerByOperationId("listDatasets", datasetHandler::handleListDatasets);
-                routerFactory.addHandlerByOperationId("postDataset", datasetHandler::handlePostDataset);
-                routerFactory.addHandlerByOperationId("putDataset", datasetHandler::handlePutDataset);
-                routerFactory.addHandlerByOperationId("putDatasetQuery", datasetHandler::handlePutDataset);
-                routerFactory.addHandlerByOperationId("getDataset", datasetHandler::handleGetDataset);
-                routerFactory.addHandlerByOperationId("deleteDataset", datasetHandler::handleDeleteDataset);
-                routerFactory.addHandlerByOperationId("deleteDatasetQuery", datasetHandler::handleDeleteDataset);
-                routerFactory.addHandlerByOperationId("indexDataset", datasetHandler::handleIndexDataset);
+                operation(routerFactory, "listDatasets", datasetHandler::handleListDatasets);
+                operation(routerFactory, "postDataset", datasetHandler::handlePostDataset);
+                operation(routerFactory, "putDataset", datasetHandler::handlePutDataset);
+                operation(routerFactory, "putDatasetQuery", datasetHandler::handlePutDataset);
+                operation(routerFactory, "putDatasets", datasetHandler::handlePutDatasets);
+                operation(routerFactory, "importDatasets", datasetHandler::handleImportDatasets);
+                operation(routerFactory, "getDataset", datasetHandler::handleGetDataset);
+                operation(routerFactory, "deleteDataset", datasetHandler::handleDeleteDataset);
+                operation(routerFactory, "deleteDatasetQuery", datasetHandler::handleDeleteDataset);
+                operation(routerFactory, "indexDataset", datasetHandler::handleIndexDataset);
 
-                routerFactory.addHandlerByOperationId("getRecord", datasetHandler::handleGetRecord);
+                operation(routerFactory, "getRecord", datasetHandler::handleGetRecord);
 
 
-                routerFactory.addHandlerByOperationId("listCatalogues", catalogueHandler::handleListCatalogues);
+                operation(routerFactory, "listCatalogues", catalogueHandler::handleListCatalogues);
                 //routerFactory.addHandlerByOperationId("postCatalogue", catalogueHandler::handlePostCatalog);
-                routerFactory.addHandlerByOperationId("putCatalogue", catalogueHandler::handlePutCatalogue);
-                routerFactory.addHandlerByOperationId("getCatalogue", catalogueHandler::handleGetCatalogue);
-                routerFactory.addHandlerByOperationId("deleteCatalogue", catalogueHandler::handleDeleteCatalogue);
+                operation(routerFactory, "putCatalogue", catalogueHandler::handlePutCatalogue);
+                operation(routerFactory, "getCatalogue", catalogueHandler::handleGetCatalogue);
+                operation(routerFactory, "deleteCatalogue", catalogueHandler::handleDeleteCatalogue);
 
-                routerFactory.addHandlerByOperationId("getDistribution", distributionHandler::handleGetDistribution);
-                routerFactory.addHandlerByOperationId("postDistribution", distributionHandler::handlePostDistribution);
-                routerFactory.addHandlerByOperationId("deleteDistribution", distributionHandler::handleDeleteDistribution);
-                routerFactory.addHandlerByOperationId("putDistribution", distributionHandler::handlePutDistribution);
+                operation(routerFactory, "getDistribution", distributionHandler::handleGetDistribution);
+                operation(routerFactory, "postDistribution", distributionHandler::handlePostDistribution);
+                operation(routerFactory, "deleteDistribution", distributionHandler::handleDeleteDistribution);
+                operation(routerFactory, "putDistribution", distributionHandler::handlePutDistribution);
 
-                routerFactory.addHandlerByOperationId("getMetric", metricHandler::handleGetMetric);
-                routerFactory.addHandlerByOperationId("deleteMetric", metricHandler::handleDeleteMetric);
-                routerFactory.addHandlerByOperationId("deleteMetricQuery", metricHandler::handleDeleteMetric);
-                routerFactory.addHandlerByOperationId("putMetric", metricHandler::handlePutMetric);
-                routerFactory.addHandlerByOperationId("putMetricQuery", metricHandler::handlePutMetric);
-                routerFactory.addHandlerByOperationId("putMeasurement", metricHandler::handlePutMeasurement);
+                operation(routerFactory, "getMetric", metricHandler::handleGetMetric);
+                operation(routerFactory, "deleteMetric", metricHandler::handleDeleteMetric);
+                operation(routerFactory, "deleteMetricQuery", metricHandler::handleDeleteMetric);
+                operation(routerFactory, "putMetric", metricHandler::handlePutMetric);
+                operation(routerFactory, "putMetricQuery", metricHandler::handlePutMetric);
+                operation(routerFactory, "putMeasurement", metricHandler::handlePutMeasurement);
 
 
-                routerFactory.addHandlerByOperationId("postTranslationRequest", translationServiceHandler::handlePostTranslationRequest);
-                routerFactory.addHandlerByOperationId("postTranslation", translationServiceHandler::handlePostTranslation);
+                operation(routerFactory, "postTranslationRequest", translationServiceHandler::handlePostTranslationRequest);
+                operation(routerFactory, "postTranslation", translationServiceHandler::handlePostTranslation);
 
                 Router router = routerFactory.getRouter();
 
                 router.route("/*").handler(StaticHandler.create());
                 router.route("/info").handler(context -> healthHandler(context, greeting));
+                // /metrics is taken by the data quality metrics
+                JsonObject metricsConfig = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_METRICS);
+                if (metricsConfig.getBoolean("enabled", true)) {
+                    router.get(metricsConfig.getString("path", "/prometheus")).handler(Telemetry::scrape);
+                }
 
                 HttpServer server = vertx.createHttpServer(new HttpServerOptions().setPort(port));
                 server.requestHandler(router).listen();
@@ -220,6 +231,13 @@ public class MainVerticle extends AbstractVerticle {
         return promise.future();
     }
 
+    /**
+     * Registers the handler of an operation, measuring its latency and tracing it
+     */
+    private void operation(OpenAPI3RouterFactory routerFactory, String operationId, Handler<RoutingContext> handler) {
+        routerFactory.addHandlerByOperationId(operationId, Telemetry.timed(operationId, Tracing.traced(operationId, handler)));
+    }
+
     /**
      * Loads the configuration file
      *
@@ -243,6 +261,16 @@ public class MainVerticle extends AbstractVerticle {
                         .add(Constants.ENV_PIVEAU_CLUSTER_CONFIG)
                         .add(Constants.ENV_PIVEAU_HUB_ELASTICSEARCH_ADDRESS)
                         .add(Constants.ENV_PIVEAU_HUB_CORS_DOMAINS)
+                        .add(Constants.ENV_PIVEAU_HUB_CHANGE_FEED)
+                        .add(Constants.ENV_PIVEAU_HUB_GRAPH_CACHE)
+                        .add(Constants.ENV_PIVEAU_HUB_CATALOGUE_CACHE)
+                        .add(Constants.ENV_PIVEAU_HUB_HASH_INDEX)
+                        .add(Constants.ENV_PIVEAU_HUB_BULK_IMPORT)
+                        .add(Constants.ENV_PIVEAU_HUB_CATALOGUE_LINKS)
+                        .add(Constants.ENV_PIVEAU_HUB_HTTP_CLIENTS)
+                        .add(Constants.ENV_PIVEAU_HUB_METRICS)
+                        .add(Constants.ENV_PIVEAU_HUB_TRACING)
+                        .add(Constants.ENV_PIVEAU_HUB_SCALING)
                         .add("PIVEAU_HUB_SHELL_CONFIG")
                 ));
 
@@ -270,33 +298,44 @@ public class MainVerticle extends AbstractVerticle {
 
         Promise<JsonObject> promise = Promise.promise();
 
+        CatalogueCache.init(vertx, ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_CATALOGUE_CACHE));
+        Tracing.init(vertx, ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_TRACING));
+
         PiveauCluster.create(
                 vertx,
                 ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_CLUSTER_CONFIG)).onComplete(cr -> {
 
             DeploymentOptions options = new DeploymentOptions().setConfig(config).setWorker(true);
+            JsonObject scaling = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_SCALING);
 
             DeploymentOptions shellOptions = new DeploymentOptions().setConfig(config);
             Promise<String> shellPromise = Promise.promise();
             vertx.deployVerticle(ShellVerticle.class.getName(), shellOptions, shellPromise);
 
             Promise<String> indexPromise = Promise.promise();
-            vertx.deployVerticle(IndexServiceVerticle.class.getName(), options, indexPromise);
+            vertx.deployVerticle(IndexServiceVerticle.class.getName(), instances(options, scaling, "index"), indexPromise);
 
             Promise<String> datasetsPromise = Promise.promise();
-            vertx.deployVerticle(DatasetsServiceVerticle.class.getName(), new DeploymentOptions().setConfig(config).setWorker(true), datasetsPromise);
+            vertx.deployVerticle(DatasetsServiceVerticle.class.getName(), instances(options, scaling, "datasets"), datasetsPromise);
 
             Promise<String> distributionsPromise = Promise.promise();
-            vertx.deployVerticle(DistributionsServiceVerticle.class.getName(), options, distributionsPromise);
+            vertx.deployVerticle(DistributionsServiceVerticle.class.getName(), instances(options, scaling, "distributions"), distributionsPromise);
 
             Promise<String> metricPromise = Promise.promise();
-            vertx.deployVerticle(MetricsServiceVerticle.class.getName(), options, metricPromise);
+            vertx.deployVerticle(MetricsServiceVerticle.class.getName(), instances(options, scaling, "metrics"), metricPromise);
 
             Promise<String> catalogsPromise = Promise.promise();
-            vertx.deployVerticle(CataloguesServiceVerticle.class.getName(), options, catalogsPromise);
+            vertx.deployVerticle(CataloguesServiceVerticle.class.getName(), instances(options, scaling, "catalogues"), catalogsPromise);
 
             Promise<String> translationSevicePromise = Promise.promise();
-            vertx.deployVerticle(TranslationServiceVerticle.class.getName(), options, translationSevicePromise);
+            vertx.deployVerticle(TranslationServiceVerticle.class.getName(), instances(options, scaling, "translation"), translationSevicePromise);
+
+            Promise<String> changeFeedPromise = Promise.promise();
+            if (ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_CHANGE_FEED).getBoolean("enabled", false)) {
+                vertx.deployVerticle(ChangeFeedVerticle.class.getName(), options, changeFeedPromise);
+            } else {
+                changeFeedPromise.complete();
+            }
 
             CompositeFuture.all(Arrays.asList(
                     shellPromise.future(),
@@ -305,9 +344,11 @@ public class MainVerticle extends AbstractVerticle {
                     distributionsPromise.future(),
                     metricPromise.future(),
                     catalogsPromise.future(),
-                    translationSevicePromise.future())).onComplete(ar -> {
+                    translationSevicePromise.future(),
+                    changeFeedPromise.future())).onComplete(ar -> {
                 if (ar.succeeded()) {
-                    datasetHandler = new DatasetHandler(vertx, DatasetsService.SERVICE_ADDRESS);
+                    long maxBulkSize = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_BULK_IMPORT).getLong("maxRequestSize", 16777216L);
+                    datasetHandler = new DatasetHandler(vertx, DatasetsService.SERVICE_ADDRESS, maxBulkSize);
                     metricHandler = new MetricHandler(vertx, MetricsService.SERVICE_ADDRESS);
                     distributionHandler = new DistributionHandler(vertx, DistributionsService.SERVICE_ADDRESS);
                     catalogueHandler = new CatalogueHandler(vertx, CataloguesService.SERVICE_ADDRESS);
@@ -323,6 +364,14 @@ public class MainVerticle extends AbstractVerticle {
         return promise.future();
     }
 
+    /**
+     * The number of instances of a service verticle. The worker instances run in parallel and share the service
+     * address, requests are distributed round robin.
+     */
+    private DeploymentOptions instances(DeploymentOptions options, JsonObject scaling, String service) {
+        return new DeploymentOptions(options).setInstances(scaling.getInteger(service, 1));
+    }
+
     /**
      * Creates the health and info endpoint
      *
@@ -342,7 +391,7 @@ public class MainVerticle extends AbstractVerticle {
     public static void main(String[] args) {
         String[] params = Arrays.copyOf(args, args.length + 1);
         params[params.length - 1] = MainVerticle.class.getName();
-        Launcher.executeCommand("run", params);
+        new HubLauncher().execute("run", params);
     }
 
 }
@@ -3,6 +3,8 @@ package io.piveau.hub.dataobjects;
 import io.piveau.hub.util.DataUploadConnector;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
+import io.piveau.hub.util.rdf.GraphHash;
+import io.piveau.hub.util.rdf.Serialization;
 import io.piveau.rdf.RdfExtensionsKt;
 import io.piveau.utils.JenaUtils;
 import io.piveau.dcatap.DCATAPUriRef;
@@ -13,10 +15,10 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonObject;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.jena.arq.querybuilder.ConstructBuilder;
 import org.apache.jena.datatypes.xsd.XSDDatatype;
 import org.apache.jena.query.QueryExecution;
@@ -28,6 +30,7 @@ import org.apache.jena.vocabulary.DCAT;
 import org.apache.jena.vocabulary.DCTerms;
 import org.apache.jena.vocabulary.RDF;
 
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -50,6 +53,9 @@ public class DatasetHelper {
 
     private Model model;
 
+    private DatasetHelper() {
+    }
+
     public DatasetHelper(JsonObject json) {
         id = json.getString("id");
         hash = json.getString("hash");
@@ -60,8 +66,9 @@ public class DatasetHelper {
         if(content != null) {
             model = JenaUtils.read(content.getBytes(), Lang.NTRIPLES.getContentType().toString());
         }
-        if(id != null) {
-            uriSchema = DCATAPUriSchema.applyFor(id);
+        String normalized = json.getString("normalizedId", id);
+        if(normalized != null) {
+            uriSchema = DCATAPUriSchema.applyFor(normalized);
         }
     }
 
@@ -82,10 +89,21 @@ public class DatasetHelper {
 
 
 
-    private DatasetHelper(String content, String contentType, Handler<AsyncResult<DatasetHelper>> handler) {
+    private DatasetHelper(String content, String contentType, String hash, Handler<AsyncResult<DatasetHelper>> handler) {
         try {
             model = JenaUtils.read(content.getBytes(), contentType);
-            hash = JenaUtils.canonicalHash(model);
+            this.hash = hash != null && !hash.isEmpty() ? hash : GraphHash.hash(model);
+            extractId();
+            handler.handle(Future.succeededFuture(this));
+        } catch(Exception e) {
+            handler.handle(Future.failedFuture(e));
+        }
+    }
+
+    private DatasetHelper(Model model, String hash, Handler<AsyncResult<DatasetHelper>> handler) {
+        try {
+            this.model = model;
+            this.hash = hash != null && !hash.isEmpty() ? hash : GraphHash.hash(model);
             extractId();
             handler.handle(Future.succeededFuture(this));
         } catch(Exception e) {
@@ -94,7 +112,15 @@ public class DatasetHelper {
     }
 
     private DatasetHelper(String id, String content, String contentType, String hash, String catalogueId, Handler<AsyncResult<DatasetHelper>> handler) {
-        this(content, contentType, ar -> {
+        this(content, contentType, hash, identified(id, catalogueId, handler));
+    }
+
+    private DatasetHelper(String id, Model model, String hash, String catalogueId, Handler<AsyncResult<DatasetHelper>> handler) {
+        this(model, hash, identified(id, catalogueId, handler));
+    }
+
+    private static Handler<AsyncResult<DatasetHelper>> identified(String id, String catalogueId, Handler<AsyncResult<DatasetHelper>> handler) {
+        return ar -> {
             if(ar.succeeded()) {
                 DatasetHelper helper = ar.result();
                 helper.id = id;
@@ -104,25 +130,28 @@ public class DatasetHelper {
                 }
 
                 helper.catalogueId = catalogueId;
-                if(hash != null && !hash.isEmpty()) {
-                    helper.hash = hash;
-                }
                 handler.handle(Future.succeededFuture(helper));
             } else {
                 handler.handle(Future.failedFuture(ar.cause()));
             }
-        });
-
+        };
     }
 
     public static void create(String content, String contentType, Handler<AsyncResult<DatasetHelper>> handler) {
-        new DatasetHelper(content, contentType, handler);
+        new DatasetHelper(content, contentType, null, handler);
     }
 
     public static void create(String id, String content, String contentType, String hash, String catalogueId, Handler<AsyncResult<DatasetHelper>> handler) {
         new DatasetHelper(id, content, contentType, hash, catalogueId, handler);
     }
 
+    /**
+     * Create a DatasetHelper from an already parsed model, e.g. one graph of a bulk upload
+     */
+    public static void create(String id, Model model, String hash, String catalogueId, Handler<AsyncResult<DatasetHelper>> handler) {
+        new DatasetHelper(id, model, hash, catalogueId, handler);
+    }
+
     public JsonObject toJson() {
         return new JsonObject()
                 .put("id", id)
@@ -130,9 +159,63 @@ public class DatasetHelper {
                 .put("catalogueId", catalogueId)
                 .put("sourceType", sourceType)
                 .put("sourceLang", sourceLang)
+                .put("normalizedId", uriSchema != null ? uriSchema.getId() : null)
                 .put("model", JenaUtils.write(model, Lang.NTRIPLES));
     }
 
+    /**
+     * Appends the helper in its wire format: the fields as length-prefixed strings, then the model as RDF Thrift. The
+     * normalized id is written as well, as it may differ from the original id, e.g. with a <code>_1</code> suffix.
+     */
+    public void writeToBuffer(Buffer buffer) {
+        appendString(buffer, id);
+        appendString(buffer, hash);
+        appendString(buffer, catalogueId);
+        appendString(buffer, sourceType);
+        appendString(buffer, sourceLang);
+        appendString(buffer, uriSchema != null ? uriSchema.getId() : null);
+        Serialization.appendBinary(buffer, model);
+    }
+
+    /**
+     * Reads a helper written by {@link #writeToBuffer(Buffer)} at the position.
+     */
+    public static DatasetHelper readFromBuffer(int pos, Buffer buffer) {
+        DatasetHelper helper = new DatasetHelper();
+        int[] position = {pos};
+        helper.id = readString(buffer, position);
+        helper.hash = readString(buffer, position);
+        helper.catalogueId = readString(buffer, position);
+        helper.sourceType = readString(buffer, position);
+        helper.sourceLang = readString(buffer, position);
+        String normalized = readString(buffer, position);
+        helper.model = Serialization.readBinary(buffer, position[0]);
+        if (normalized != null) {
+            helper.uriSchema = DCATAPUriSchema.applyFor(normalized);
+        }
+        return helper;
+    }
+
+    private static void appendString(Buffer buffer, String value) {
+        if (value == null) {
+            buffer.appendInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.appendInt(bytes.length).appendBytes(bytes);
+        }
+    }
+
+    private static String readString(Buffer buffer, int[] position) {
+        int length = buffer.getInt(position[0]);
+        position[0] += 4;
+        if (length < 0) {
+            return null;
+        }
+        String value = buffer.getString(position[0], position[0] + length, StandardCharsets.UTF_8.name());
+        position[0] += length;
+        return value;
+    }
+
     public String id() {
         return id;
     }
@@ -301,7 +384,7 @@ public class DatasetHelper {
 
             renameReferences(distIds);
 
-            hash = DigestUtils.md5Hex(JenaUtils.write(model, Lang.NTRIPLES));
+            hash = GraphHash.hash(model);
             updateRecord(recordResource(), hash);
             helperPromise.complete(this);
 
@@ -2,6 +2,7 @@ package io.piveau.hub.handler;
 
 import io.piveau.hub.services.catalogues.CataloguesService;
 import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.EventBusStream;
 import io.piveau.hub.util.RTPTokenHelper;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
@@ -13,10 +14,12 @@ import io.vertx.ext.web.client.WebClient;
 public class CatalogueHandler {
 
 
+    private Vertx vertx;
     private CataloguesService cataloguesService;
     private WebClient client;
 
     public CatalogueHandler(Vertx vertx, String address) {
+        this.vertx = vertx;
         this.cataloguesService = CataloguesService.createProxy(vertx, address);
         this.client = WebClient.create(vertx);
     }
@@ -107,23 +110,8 @@ public class CatalogueHandler {
     public void handleGetCatalogue(RoutingContext context) {
         String id = context.pathParam("id");
         String acceptType = context.getAcceptableContentType();
-        cataloguesService.getCatalogue(id, acceptType, ar -> {
-            if (ar.succeeded()) {
-                JsonObject result = ar.result();
-                switch (result.getString("status")) {
-                    case "success":
-                        context.response().putHeader("Content-Type", result.getString("contentType")).end(result.getString("content"));
-                        break;
-                    case "not found":
-                        context.response().setStatusCode(404).end();
-                        break;
-                    default:
-                        context.response().setStatusCode(400).end();
-                }
-            } else {
-                context.response().setStatusCode(500).end(ar.cause().getMessage());
-            }
-        });
+        EventBusStream.respond(vertx, context, acceptType, (address, started) ->
+                cataloguesService.streamCatalogue(id, acceptType, address, started));
 
     }
 
@@ -1,35 +1,56 @@
 package io.piveau.hub.handler;
 
-import io.piveau.dcatap.Prefixes;
 import io.piveau.hub.services.datasets.DatasetsService;
 import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.EventBusStream;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
-import io.vertx.core.AsyncResult;
-import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import org.apache.http.HttpHeaders;
-import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
-import org.apache.jena.riot.RDFFormat;
-
-import java.io.ByteArrayInputStream;
-import java.io.StringWriter;
+
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 public class DatasetHandler {
 
+    /**
+     * Bulk requests write many datasets, far longer than the default event bus timeout.
+     */
+    private static final long BULK_TIMEOUT = 60 * 60 * 1000L;
+
+    /**
+     * Writes of a single dataset are forwarded to the instance of its partition, which may be redeployed meanwhile.
+     */
+    private static final long WRITE_TIMEOUT = 2 * 60 * 1000L;
 
+    private final Vertx vertx;
     private final DatasetsService datasetsService;
+    private final DatasetsService writeService;
+    private final DatasetsService bulkService;
 
-    public DatasetHandler(Vertx vertx, String address) {
+    private final long maxBulkSize;
+
+    /**
+     * @param maxBulkSize maximum size of a bulk request body in bytes, larger requests are rejected with 413
+     */
+    public DatasetHandler(Vertx vertx, String address, long maxBulkSize) {
+        this.vertx = vertx;
+        this.maxBulkSize = maxBulkSize;
         datasetsService = DatasetsService.createProxy(vertx, address);
+        writeService = DatasetsService.createProxy(vertx, address, new DeliveryOptions().setSendTimeout(WRITE_TIMEOUT));
+        bulkService = DatasetsService.createProxy(vertx, address, new DeliveryOptions().setSendTimeout(BULK_TIMEOUT));
+    }
+
+    /**
+     * @return whether the write failed because no instance serves the dataset partition
+     */
+    private static boolean unavailable(Throwable cause) {
+        return cause instanceof ReplyException && ((ReplyException) cause).failureCode() == 503;
     }
 
     public void handleGetDataset(RoutingContext context) {
@@ -65,68 +86,18 @@ public class DatasetHandler {
 
         boolean normalized = !context.queryParam("useNormalizedID").isEmpty() && !context.queryParam("useNormalizedID").get(0).equals("false");
 
-        Handler<AsyncResult<JsonObject>> har = getHandler(context, acceptType);
-
-        if (normalized) {
-            datasetsService.getDatasetByNormalizedId(id, acceptType, har);
-        } else {
-            datasetsService.getDataset(id, catalogueId, acceptType, har);
-        }
+        String datasetId = id;
+        EventBusStream.respond(vertx, context, acceptType, (address, started) ->
+                datasetsService.streamDataset(datasetId, catalogueId, normalized, acceptType, address, started));
     }
 
 
-    private Handler<AsyncResult<JsonObject>> getHandler(RoutingContext context, String acceptType) {
-        return ar -> {
-            if (ar.succeeded()) {
-                JsonObject result = ar.result();
-                switch (result.getString("status")) {
-                    case "success":
-                        // JUST A WORKAROUND FOR NOW TO GET BETTER STRUCTURE FOR DEBUGGING
-                        if (acceptType.equals(Lang.TURTLE.getHeaderString())) {
-                            String payload = result.getString("content");
-                            Model resultModel = ModelFactory.createDefaultModel();
-                            RDFDataMgr.read(resultModel, new ByteArrayInputStream(payload.getBytes()), Lang.TURTLE);
-                            resultModel.setNsPrefixes(Prefixes.DCATAP_PREFIXES);
-                            StringWriter out = new StringWriter();
-                            RDFDataMgr.write(out, resultModel, RDFFormat.TURTLE);
-                            context.response().putHeader("Content-Type", result.getString("contentType")).end(out.toString());
-                        } else {
-                            context.response().putHeader("Content-Type", result.getString("contentType")).end(result.getString("content"));
-                        }
-                        break;
-                    case "not found":
-                        context.response().setStatusCode(404).end();
-                        break;
-                    default:
-                        context.response().setStatusCode(400).end();
-                }
-            } else {
-                context.response().setStatusCode(500).end(ar.cause().getMessage());
-            }
-        };
-    }
-
     public void handleGetRecord(RoutingContext context) {
         String datasetId = URLDecoder.decode(context.pathParam("id"), StandardCharsets.UTF_8);
         String catalogueId = context.queryParam("catalogue").get(0);
         String acceptType = context.getAcceptableContentType();
-        datasetsService.getRecord(datasetId, catalogueId, acceptType, ar -> {
-            if (ar.succeeded()) {
-                JsonObject result = ar.result();
-                switch (result.getString("status")) {
-                    case "success":
-                        context.response().putHeader("Content-Type", result.getString("contentType")).end(result.getString("content"));
-                        break;
-                    case "not found":
-                        context.response().setStatusCode(404).end();
-                        break;
-                    default:
-                        context.response().setStatusCode(400).end();
-                }
-            } else {
-                context.response().setStatusCode(500).end(ar.cause().getMessage());
-            }
-        });
+        EventBusStream.respond(vertx, context, acceptType, (address, started) ->
+                datasetsService.streamRecord(datasetId, catalogueId, acceptType, address, started));
     }
 
 
@@ -144,7 +115,7 @@ public class DatasetHandler {
         String contentType = context.parsedHeaders().contentType().value();
 
         String content = context.getBodyAsString();
-        datasetsService.putDataset(id, content, contentType, catalogueId, hash, dataUpload, ar -> {
+        writeService.putDataset(id, content, contentType, catalogueId, hash, dataUpload, ar -> {
             if (ar.succeeded()) {
                 JsonObject status = ar.result();
                 switch (status.getString("status")) {
@@ -176,6 +147,8 @@ public class DatasetHandler {
                         // should not happen, succeeded path should only respond with 2xx codes
                         context.response().setStatusCode(400).end();
                 }
+            } else if (unavailable(ar.cause())) {
+                context.response().setStatusCode(503).end(ar.cause().getMessage());
             } else {
                 if (ar.cause().getMessage() != null) {
                     switch (ar.cause().getMessage()) {
@@ -195,17 +168,73 @@ public class DatasetHandler {
         });
     }
 
+    /**
+     * Rejects a bulk body that is too large to be sent to the service as one message.
+     */
+    private boolean tooLarge(RoutingContext context) {
+        if (context.getBody() != null && context.getBody().length() > maxBulkSize) {
+            context.response().setStatusCode(413).end("Request body exceeds " + maxBulkSize + " bytes, split it or use the import command");
+            return true;
+        }
+        return false;
+    }
+
+    public void handlePutDatasets(RoutingContext context) {
+        if (tooLarge(context)) {
+            return;
+        }
+        String catalogueId = context.queryParam("catalogue").get(0);
+        String contentType = context.parsedHeaders().contentType().value();
+
+        bulkService.putDatasets(context.getBodyAsString(), contentType, catalogueId, ar -> {
+            if (ar.succeeded()) {
+                context.response()
+                        .setStatusCode(200)
+                        .putHeader("Content-Type", "application/json")
+                        .end(ar.result().encodePrettily());
+            } else if (ar.cause().getMessage() != null) {
+                context.response().setStatusCode(400).end(ar.cause().getMessage());
+            } else {
+                context.response().setStatusCode(500).end();
+            }
+        });
+    }
+
+    public void handleImportDatasets(RoutingContext context) {
+        if (tooLarge(context)) {
+            return;
+        }
+        String catalogueId = context.queryParam("catalogue").get(0);
+        String contentType = context.parsedHeaders().contentType().value();
+
+        Boolean dataUpload = !context.queryParam("data").isEmpty() && context.queryParam("data").get(0).equals("true");
+
+        bulkService.importDatasets(context.getBodyAsString(), contentType, catalogueId, dataUpload, ar -> {
+            if (ar.succeeded()) {
+                context.response()
+                        .setStatusCode(200)
+                        .putHeader("Content-Type", "application/json")
+                        .end(ar.result().encodePrettily());
+            } else if (ar.cause().getMessage() != null) {
+                context.response().setStatusCode(400).end(ar.cause().getMessage());
+            } else {
+                context.response().setStatusCode(500).end();
+            }
+        });
+    }
+
     public void handleDeleteDataset(RoutingContext context) {
         String id = context.pathParam("id");
         if (id == null) {
             id = context.queryParam("id").get(0);
         }
+        String datasetId = id;
         String catalogueId = context.queryParam("catalogue").get(0);
-        datasetsService.deleteDataset(id, catalogueId, ar -> {
+        writeService.deleteDataset(datasetId, catalogueId, ar -> {
             if (ar.succeeded()) {
                 context.response().setStatusCode(200).end();
             } else {
-                context.response().setStatusCode(500).setStatusMessage(ar.cause().getMessage()).end();
+                context.response().setStatusCode(unavailable(ar.cause()) ? 503 : 500).setStatusMessage(ar.cause().getMessage()).end();
             }
         });
     }
@@ -234,7 +263,7 @@ public class DatasetHandler {
 
 
         // Handle Post Dataset
-        datasetsService.postDataset(dataset, contentType, catalogueId, dataUpload, ar -> {
+        writeService.postDataset(dataset, contentType, catalogueId, dataUpload, ar -> {
             // Post Dataset Succeded
             if (ar.succeeded()) {
                 JsonObject result = ar.result();
@@ -254,7 +283,7 @@ public class DatasetHandler {
                 log.error("Post Dataset failed.", ar.cause());
                 Optional<String> message = Optional.ofNullable(ar.cause().getMessage());
                 message.ifPresentOrElse(mes -> {
-                            context.response().setStatusCode(400).end(mes);
+                            context.response().setStatusCode(unavailable(ar.cause()) ? 503 : 400).end(mes);
                         }, () -> {
                             context.response().setStatusCode(500).end();
                         }
@@ -298,13 +327,13 @@ public class DatasetHandler {
         String catalogueId = context.queryParam("catalogue").get(0);
         String defaultLanguage = context.queryParam("language").get(0);
 
-        datasetsService.indexDataset(datasetId, catalogueId, defaultLanguage, ar -> {
+        writeService.indexDataset(datasetId, catalogueId, defaultLanguage, ar -> {
             if (ar.succeeded()) {
                 context.response().putHeader("Content-Type", "application/json").setStatusCode(200).end();
             } else {
                 context.response().
                         putHeader("Content-Type", "application/json")
-                        .setStatusCode(500)
+                        .setStatusCode(unavailable(ar.cause()) ? 503 : 500)
                         .end(new JsonObject().put("status", "error").put("message", ar.cause().getMessage()).toString());
             }
         });
@@ -4,15 +4,22 @@ import io.piveau.hub.dataobjects.DatasetHelper;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
 
+/**
+ * Sends a {@link DatasetHelper} as it is within the instance. Between clustered instances it is sent in the binary wire
+ * format of the helper, with the model as RDF Thrift.
+ */
 public class DatasetHelperMessageCodec implements MessageCodec<DatasetHelper, DatasetHelper> {
 
     @Override
-    public void encodeToWire(Buffer buffer, DatasetHelper entries) {
+    public void encodeToWire(Buffer buffer, DatasetHelper helper) {
+        Buffer content = Buffer.buffer();
+        helper.writeToBuffer(content);
+        buffer.appendInt(content.length()).appendBuffer(content);
     }
 
     @Override
-    public DatasetHelper decodeFromWire(int i, Buffer buffer) {
-        return null;
+    public DatasetHelper decodeFromWire(int pos, Buffer buffer) {
+        return DatasetHelper.readFromBuffer(pos + 4, buffer);
     }
 
     @Override
@@ -27,6 +27,13 @@ public interface CataloguesService {
     @Fluent
     CataloguesService getCatalogue(String id, String consumes, Handler<AsyncResult<JsonObject>> handler);
 
+    /**
+     * Streams a catalogue with all its members in chunks to a {@link io.piveau.hub.util.EventBusStream.Receiver}. The
+     * reply only confirms the start, the outcome is reported through the stream.
+     */
+    @Fluent
+    CataloguesService streamCatalogue(String id, String consumes, String address, Handler<AsyncResult<JsonObject>> handler);
+
     @Fluent
     CataloguesService putCatalogue(String id, String catalogue, String contentType, String hash, Handler<AsyncResult<JsonObject>> handler);
 
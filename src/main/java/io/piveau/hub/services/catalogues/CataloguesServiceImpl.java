@@ -2,10 +2,12 @@ package io.piveau.hub.services.catalogues;
 
 //import io.piveau.hub.converters.CatalogToIndexConverter;
 
+import io.piveau.hub.services.changes.ChangeFeed;
 import io.piveau.hub.services.index.IndexService;
 import io.piveau.hub.util.*;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
+import io.piveau.hub.util.rdf.NTriplesTranscoder;
 import io.piveau.indexing.Indexing;
 import io.piveau.utils.JenaUtils;
 import io.piveau.dcatap.TripleStore;
@@ -14,12 +16,19 @@ import io.piveau.dcatap.DCATAPUriSchema;
 import io.vertx.core.*;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.web.client.HttpResponse;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.query.ResultSetFactory;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.vocabulary.DCAT;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,12 +39,15 @@ public class CataloguesServiceImpl implements CataloguesService {
 
     private Logger logger = LoggerFactory.getLogger(getClass());
 
+    private Vertx vertx;
+
     private TripleStore tripleStore;
 
     private TSConnector connector;
     private IndexService indexService;
 
     CataloguesServiceImpl(TripleStore tripleStore, TSConnector connector, Vertx vertx, Handler<AsyncResult<CataloguesService>> readyHandler) {
+        this.vertx = vertx;
         this.tripleStore = tripleStore;
         this.connector = connector;
         this.indexService = IndexService.createProxy(vertx, IndexService.SERVICE_ADDRESS);
@@ -66,17 +78,12 @@ public class CataloguesServiceImpl implements CataloguesService {
         String graphName = DCATAPUriSchema.applyFor(catalogueId).getCatalogueGraphName();
         connector.getGraph(graphName, ar -> {
             if (ar.succeeded()) {
-                connector.getDatasetsAndRecords(graphName, h -> {
+                Model model = ar.result();
+                Resource catalog = model.getResource(graphName);
+                Future<Void> datasets = StreamProcessor.forEach(connector.streamCatalogueMembers(graphName, DCAT.dataset), resource -> catalog.addProperty(DCAT.dataset, resource));
+                Future<Void> records = StreamProcessor.forEach(connector.streamCatalogueMembers(graphName, DCAT.record), resource -> catalog.addProperty(DCAT.record, resource));
+                CompositeFuture.all(datasets, records).onComplete(h -> {
                     if (h.succeeded()) {
-                        Model model = ar.result();
-                        Resource catalog = model.getResource(graphName);
-                        h.result().get("dataset").forEach(resource -> {
-                            catalog.addProperty(DCAT.dataset, resource);
-                        });
-                        h.result().get("record").forEach(resource -> {
-                            catalog.addProperty(DCAT.record, resource);
-                        });
-
                         String output = JenaUtils.write(model, consumes);
                         log.debug("handle return");
                         handler.handle(Future.succeededFuture(new JsonObject()
@@ -115,6 +122,57 @@ public class CataloguesServiceImpl implements CataloguesService {
         return this;
     }
 
+    @Override
+    public CataloguesService streamCatalogue(String catalogueId, String consumes, String address, Handler<AsyncResult<JsonObject>> handler) {
+        EventBusStream.Sender sender = EventBusStream.sender(vertx, address);
+        RDFFormat format = NTriplesTranscoder.streamingFormat(consumes);
+        if (format == null) {
+            // the whole graph is needed for the format
+            getCatalogue(catalogueId, consumes, ar -> {
+                if (ar.failed()) {
+                    sender.fail(ar.cause());
+                } else if ("success".equals(ar.result().getString("status"))) {
+                    sender.send(Buffer.buffer(ar.result().getString("content")));
+                } else {
+                    sender.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, 404, "not found"));
+                }
+            });
+        } else {
+            String graphName = DCATAPUriSchema.applyFor(catalogueId).getCatalogueGraphName();
+            Node catalogue = NodeFactory.createURI(graphName);
+            NTriplesTranscoder transcoder = new NTriplesTranscoder(sender, format).exceptionHandler(sender::fail);
+            // the members are streamed separately below
+            String query = "CONSTRUCT { ?s ?p ?o } WHERE { GRAPH <" + graphName + "> { ?s ?p ?o MINUS { ?s <" + DCAT.record + "> ?o } MINUS { ?s <" + DCAT.dataset + "> ?o } } }";
+            Promise<Void> graph = Promise.promise();
+            connector.streamConstruct(query, transcoder.input(graph), graph::tryFail);
+            graph.future()
+                    .compose(v -> streamMembers(transcoder, catalogue, DCAT.dataset))
+                    .compose(v -> streamMembers(transcoder, catalogue, DCAT.record))
+                    .onSuccess(v -> transcoder.end())
+                    .onFailure(sender::fail);
+        }
+        handler.handle(Future.succeededFuture(new JsonObject().put("status", "success")));
+        return this;
+    }
+
+    /**
+     * Adds the members of a catalogue to the output, paused while the receiver does not keep up.
+     */
+    private Future<Void> streamMembers(NTriplesTranscoder transcoder, Node catalogue, Property property) {
+        Promise<Void> promise = Promise.promise();
+        ReadStream<Resource> members = connector.streamCatalogueMembers(catalogue.getURI(), property);
+        members.exceptionHandler(promise::tryFail)
+                .endHandler(v -> promise.tryComplete())
+                .handler(member -> {
+                    transcoder.triple(Triple.create(catalogue, property.asNode(), member.asNode()));
+                    if (transcoder.writeQueueFull()) {
+                        members.pause();
+                        transcoder.drainHandler(v -> members.resume());
+                    }
+                });
+        return promise.future();
+    }
+
     @Override
     public CataloguesService putCatalogue(String catalogueId, String catalogue, String contentType, String hash, Handler<AsyncResult<JsonObject>> handler) {
         logger.debug("Put catalogue");
@@ -179,6 +237,7 @@ public class CataloguesServiceImpl implements CataloguesService {
                     Resource dataset = querySolution.getResource("dataset");
                     DCATAPUriRef datasetSchema = DCATAPUriSchema.parseUriRef(dataset.getURI());
                     connector.deleteGraph(datasetSchema.getDatasetGraphName(), dr -> {
+                        GraphCache.publishInvalidation(vertx, datasetSchema.getDatasetGraphName());
                         if (dr.failed()) {
                             log.error("Delete dataset graph", dr.cause());
                         }
@@ -189,6 +248,7 @@ public class CataloguesServiceImpl implements CataloguesService {
                         }
                     });
 
+                    ChangeFeed.emit(vertx, ChangeFeed.DELETE, datasetSchema.getId(), catalogueId, null);
                     indexService.deleteDataset(datasetSchema.getId(), dd -> {
                         if (dd.failed()) {
                             log.error("Delete dataset index", dd.cause());
@@ -196,6 +256,8 @@ public class CataloguesServiceImpl implements CataloguesService {
                     });
                 });
                 connector.deleteGraph(schema.getCatalogueGraphName(), gr -> {
+                    CatalogueCache.invalidate(vertx, schema.getCatalogueUriRef());
+                    GraphCache.publishIdentityInvalidation(vertx, null, schema.getId());
                     if (gr.succeeded()) {
                         indexService.deleteCatalog(schema.getId(), dc -> {
                             if (dc.failed()) {
@@ -232,6 +294,7 @@ public class CataloguesServiceImpl implements CataloguesService {
     private void store(CatalogueHelper helper, Handler<AsyncResult<JsonObject>> handler) {
         logger.debug("Store graph");
         tripleStore.getCatalogueManager().setGraph(helper.uriRef(), helper.getModel()).onComplete(ar -> {
+            CatalogueCache.invalidate(vertx, helper.uriRef());
             if (ar.succeeded()) {
                 handler.handle(Future.succeededFuture(new JsonObject().put("status", ar.result())));
             } else {
@@ -1,10 +1,13 @@
 package io.piveau.hub.services.catalogues;
 
+import io.piveau.hub.util.ClientProfiles;
 import io.piveau.hub.util.Constants;
 import io.piveau.hub.util.TSConnector;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
 import io.piveau.json.ConfigHelper;
 import io.piveau.dcatap.TripleStore;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.piveau.hub.util.telemetry.Tracing;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AbstractVerticle;
@@ -19,21 +22,22 @@ public class CataloguesServiceVerticle extends AbstractVerticle {
     public void start(Promise<Void> startPromise) {
         PiveauLoggerFactory.getLogger(getClass()).info("Starting CataloguesService Verticle");
 
-        WebClient client = WebClient.create(vertx);
+        WebClient client = ClientProfiles.create(vertx, config(), ClientProfiles.TRIPLESTORE);
 
         ConfigHelper configHelper = ConfigHelper.forConfig(config());
         JsonObject conf = configHelper.forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG);
 
         CircuitBreaker breaker = CircuitBreaker.create("virtuoso-breaker", vertx, new CircuitBreakerOptions().setMaxRetries(5))
                 .retryPolicy(count -> count * 1000L);
+        Telemetry.monitor("catalogues", breaker);
 
         TSConnector connector = TSConnector.create(client, breaker, conf);
 
-        TripleStore tripleStore = new TripleStore(vertx, conf, null);
+        TripleStore tripleStore = new TripleStore(vertx, conf, client);
 
         CataloguesService.create(tripleStore, connector, vertx, ready -> {
             if (ready.succeeded()) {
-                new ServiceBinder(vertx).setAddress(CataloguesService.SERVICE_ADDRESS).register(CataloguesService.class, ready.result());
+                new ServiceBinder(vertx).setAddress(CataloguesService.SERVICE_ADDRESS).register(CataloguesService.class, Tracing.traced(CataloguesService.class, ready.result()));
                 startPromise.complete();
             } else {
                 startPromise.fail(ready.cause());
@@ -0,0 +1,49 @@
+package io.piveau.hub.services.changes;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+
+/**
+ * Entry point for emitting dataset changes into the change feed.
+ * <p>
+ * Events are sent to the {@link ChangeFeedVerticle} keeping the feed of the cluster, which assigns the sequence number,
+ * appends them to the change log and publishes them on {@link #FEED_ADDRESS}. Without a deployed change feed, or while
+ * another node takes the feed over, the events are dropped.
+ */
+public final class ChangeFeed {
+
+    public static final String ADDRESS = "io.piveau.hub.changes";
+    public static final String FEED_ADDRESS = "io.piveau.hub.changes.feed";
+    public static final String STATUS_ADDRESS = "io.piveau.hub.changes.status";
+    public static final String REINDEX_ADDRESS = "io.piveau.hub.changes.reindex";
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private ChangeFeed() {
+    }
+
+    /**
+     * @param type        one of {@link #CREATE}, {@link #UPDATE} or {@link #DELETE}
+     * @param datasetId   the dataset id
+     * @param catalogueId the catalogue id, may be <code>null</code> for deletes
+     * @param language    the default language of the catalogue, if known
+     */
+    public static void emit(Vertx vertx, String type, String datasetId, String catalogueId, String language) {
+        JsonObject event = new JsonObject()
+                .put("type", type)
+                .put("dataset", datasetId)
+                .put("time", Instant.now().toString());
+        if (catalogueId != null) {
+            event.put("catalogue", catalogueId);
+        }
+        if (language != null) {
+            event.put("language", language);
+        }
+        vertx.eventBus().send(ADDRESS, event);
+    }
+
+}
@@ -0,0 +1,313 @@
+package io.piveau.hub.services.changes;
+
+import io.piveau.dcatap.DCATAPUriSchema;
+import io.piveau.hub.services.datasets.DatasetsService;
+import io.piveau.hub.services.index.IndexService;
+import io.piveau.hub.util.ClientProfiles;
+import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.Journal;
+import io.piveau.hub.util.Partitions;
+import io.piveau.hub.util.StreamProcessor;
+import io.piveau.hub.util.TSConnector;
+import io.piveau.hub.util.logger.PiveauLogger;
+import io.piveau.hub.util.logger.PiveauLoggerFactory;
+import io.piveau.json.ConfigHelper;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the ordered change log of datasets and reindexes the datasets changed since the stored watermark.
+ * <p>
+ * The watermark file stores the watermark and the log offset of the first change after it, so a pass reads the log
+ * from there on only. The log is truncated to the changes after the watermark once at least half of it is behind.
+ * Without passes, the older half of the log is dropped whenever it exceeds <code>maxEntries</code>.
+ * <p>
+ * Deployed as a single worker instance per node. Only the instance holding the cluster wide lock of
+ * {@link ChangeFeed#ADDRESS} keeps the feed, the others stand by and try to take over every
+ * {@link #CLAIM_RETRY_INTERVAL} milliseconds.
+ */
+public class ChangeFeedVerticle extends AbstractVerticle {
+
+    private static final long CLAIM_RETRY_INTERVAL = 10000;
+
+    private final PiveauLogger log = PiveauLoggerFactory.getLogger(getClass());
+
+    private Partitions.Claim claim;
+
+    private Journal journal;
+    private Path watermarkFile;
+
+    private long sequence;
+    private long watermark;
+    private long offset;
+
+    private int concurrency;
+    private long maxEntries;
+
+    private Future<JsonObject> running;
+
+    private DatasetsService datasetsService;
+    private IndexService indexService;
+    private TSConnector connector;
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        ConfigHelper configHelper = ConfigHelper.forConfig(config());
+        JsonObject conf = configHelper.forceJsonObject(Constants.ENV_PIVEAU_HUB_CHANGE_FEED);
+
+        datasetsService = DatasetsService.createProxy(vertx, DatasetsService.SERVICE_ADDRESS);
+        indexService = IndexService.createProxy(vertx, IndexService.SERVICE_ADDRESS);
+        connector = TSConnector.create(ClientProfiles.create(vertx, config(), ClientProfiles.TRIPLESTORE), null, configHelper.forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG));
+
+        Partitions.claim(vertx, ChangeFeed.ADDRESS, 1, cl -> {
+            if (cl.result() == null) {
+                log.info("Change feed kept by another node, standing by");
+                vertx.setPeriodic(CLAIM_RETRY_INTERVAL, id -> {
+                    if (claim == null) {
+                        Partitions.claim(vertx, ChangeFeed.ADDRESS, 1, retry -> {
+                            if (retry.result() != null && claim == null) {
+                                vertx.cancelTimer(id);
+                                try {
+                                    activate(retry.result(), conf);
+                                } catch (IOException | NumberFormatException e) {
+                                    retry.result().release();
+                                    log.error("Taking over the change feed failed", e);
+                                }
+                            }
+                        });
+                    }
+                });
+                startPromise.complete();
+                return;
+            }
+            try {
+                activate(cl.result(), conf);
+                startPromise.complete();
+            } catch (IOException | NumberFormatException e) {
+                cl.result().release();
+                startPromise.fail(e);
+            }
+        });
+    }
+
+    /**
+     * Opens the log of the claimed feed and starts receiving changes.
+     */
+    private void activate(Partitions.Claim claim, JsonObject conf) throws IOException {
+        Path logFile = Paths.get(conf.getString("log", "changes/changes.jsonl"));
+        watermarkFile = logFile.resolveSibling(logFile.getFileName() + ".watermark");
+        concurrency = conf.getInteger("concurrency", 10);
+        maxEntries = conf.getLong("maxEntries", 1000000L);
+
+        journal = new Journal(logFile);
+        if (Files.exists(watermarkFile)) {
+            String[] stored = Files.readString(watermarkFile, StandardCharsets.UTF_8).trim().split("\\s+");
+            watermark = Long.parseLong(stored[0]);
+            offset = stored.length > 1 ? Long.parseLong(stored[1]) : 0;
+        }
+        sequence = watermark;
+        journal.read(offset, (position, event) -> sequence = Math.max(sequence, event.getLong("seq", 0L)));
+        this.claim = claim;
+
+        vertx.eventBus().<JsonObject>consumer(ChangeFeed.ADDRESS, message -> append(message.body()));
+        vertx.eventBus().consumer(ChangeFeed.STATUS_ADDRESS, message -> message.reply(status()));
+        vertx.eventBus().consumer(ChangeFeed.REINDEX_ADDRESS, message -> reindex().onComplete(ar -> {
+            if (ar.succeeded()) {
+                message.reply(ar.result());
+            } else {
+                message.fail(500, ar.cause().getMessage());
+            }
+        }));
+
+        long interval = conf.getLong("reindexInterval", 0L);
+        if (interval > 0) {
+            vertx.setPeriodic(interval, id -> reindex());
+        }
+
+        log.info("Change feed started at sequence {}, watermark {}", sequence, watermark);
+    }
+
+    private void append(JsonObject event) {
+        event.put("seq", ++sequence);
+        try {
+            journal.append(event);
+            vertx.eventBus().publish(ChangeFeed.FEED_ADDRESS, event);
+        } catch (IOException e) {
+            log.error("Appending change " + event.encode(), e);
+        }
+        if (maxEntries > 0 && journal.size() > maxEntries && running == null) {
+            trim();
+        }
+    }
+
+    /**
+     * Drops the older half of the log without reindexing it, so the log stays bounded when no passes run.
+     */
+    private void trim() {
+        long drop = journal.size() - maxEntries / 2;
+        long[] cut = {0, 0};
+        long[] index = {0};
+        try {
+            journal.read(0, (position, event) -> {
+                if (index[0]++ == drop) {
+                    cut[0] = position;
+                    cut[1] = event.getLong("seq", 0L);
+                }
+            });
+            if (cut[0] == 0) {
+                return;
+            }
+            log.warn("Change log exceeds {} entries, dropping the changes up to sequence {} without reindexing", maxEntries, cut[1] - 1);
+            watermark = Math.max(watermark, cut[1] - 1);
+            storeWatermark(0);
+            journal.truncate(cut[0]);
+            offset = 0;
+        } catch (IOException e) {
+            log.error("Trimming change log", e);
+        }
+    }
+
+    private JsonObject status() {
+        return new JsonObject()
+                .put("sequence", sequence)
+                .put("watermark", watermark)
+                .put("pending", sequence - watermark)
+                .put("running", running != null)
+                .put("log", journal.path().toString());
+    }
+
+    /**
+     * Reprocesses every dataset changed after the watermark, only its last change counts. The watermark is advanced
+     * up to the first change that could not be processed.
+     * <p>
+     * The log is read from the offset of the watermark on, keeping the last change of every dataset only.
+     */
+    private Future<JsonObject> reindex() {
+        if (running != null) {
+            return running;
+        }
+
+        Map<String, JsonObject> changes = new LinkedHashMap<>();
+        Map<String, Long> firstSeq = new LinkedHashMap<>();
+        Map<String, Long> firstOffset = new LinkedHashMap<>();
+        long limit;
+        long end;
+        try {
+            end = journal.read(offset, (position, event) -> {
+                long seq = event.getLong("seq", 0L);
+                if (seq > watermark) {
+                    String dataset = event.getString("dataset");
+                    changes.remove(dataset);
+                    changes.put(dataset, event);
+                    firstSeq.putIfAbsent(dataset, seq);
+                    firstOffset.putIfAbsent(dataset, position);
+                }
+            });
+            limit = sequence;
+        } catch (IOException e) {
+            return Future.failedFuture(e);
+        }
+
+        if (changes.isEmpty()) {
+            advance(limit, end);
+            return Future.succeededFuture(status().put("processed", 0).put("failed", 0));
+        }
+
+        log.info("Reindexing {} changed datasets up to sequence {}", changes.size(), limit);
+        List<String> failed = new ArrayList<>();
+
+        running = StreamProcessor.process(changes.values().iterator(), concurrency, event ->
+                process(event).onFailure(cause -> {
+                    String dataset = event.getString("dataset");
+                    log.warn("Reindexing changed dataset {} failed: {}", dataset, cause.getMessage());
+                    failed.add(dataset);
+                })
+        ).map(v -> {
+            String lowest = failed.stream().min(Comparator.comparing(firstSeq::get)).orElse(null);
+            if (lowest == null) {
+                advance(limit, end);
+            } else {
+                advance(firstSeq.get(lowest) - 1, firstOffset.get(lowest));
+            }
+            running = null;
+            return status().put("processed", changes.size()).put("failed", failed.size());
+        });
+        return running;
+    }
+
+    private Future<Void> process(JsonObject event) {
+        String datasetId = event.getString("dataset");
+        if (ChangeFeed.DELETE.equals(event.getString("type"))) {
+            Promise<JsonObject> promise = Promise.promise();
+            indexService.deleteDataset(datasetId, promise);
+            return promise.future().mapEmpty();
+        }
+
+        String catalogueId = event.getString("catalogue");
+        if (catalogueId == null) {
+            return Future.failedFuture("Change without catalogue");
+        }
+
+        Future<String> language;
+        if (event.containsKey("language")) {
+            language = Future.succeededFuture(event.getString("language"));
+        } else {
+            Promise<JsonObject> catalogue = Promise.promise();
+            connector.catalogueExists(DCATAPUriSchema.applyFor(catalogueId).getCatalogueUriRef(), catalogue);
+            language = catalogue.future().map(info -> info.getString("lang"));
+        }
+
+        return language.compose(lang -> {
+            Promise<JsonObject> promise = Promise.promise();
+            datasetsService.indexDataset(datasetId, catalogueId, lang, promise);
+            return promise.future().mapEmpty();
+        });
+    }
+
+    /**
+     * @param newOffset the log offset of the first change after the new watermark
+     */
+    private void advance(long newWatermark, long newOffset) {
+        if (newWatermark <= watermark && newOffset <= offset) {
+            return;
+        }
+        watermark = Math.max(watermark, newWatermark);
+        offset = Math.max(offset, newOffset);
+        try {
+            if (offset > 0 && offset * 2 >= Files.size(journal.path())) {
+                // offset 0 is stored first, it stays valid whether the truncation completes or not
+                storeWatermark(0);
+                journal.truncate(offset);
+                offset = 0;
+            }
+            storeWatermark(offset);
+        } catch (IOException e) {
+            log.error("Storing change feed watermark", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (claim != null) {
+            claim.release();
+        }
+    }
+
+    private void storeWatermark(long offset) throws IOException {
+        Files.writeString(watermarkFile, watermark + " " + offset, StandardCharsets.UTF_8);
+    }
+
+}
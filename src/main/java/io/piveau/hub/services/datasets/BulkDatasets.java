@@ -0,0 +1,143 @@
+package io.piveau.hub.services.datasets;
+
+import io.vertx.core.json.JsonObject;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+
+import java.io.ByteArrayInputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a bulk upload into its datasets.
+ * <p>
+ * Quad formats (N-Quads, TriG) carry one dataset per named graph. The dataset id is the last segment of the graph name,
+ * see {@link #datasetId(String)}, so <code>&lt;https://example.org/datasets/air-quality&gt;</code>,
+ * <code>&lt;urn:dataset:air-quality&gt;</code> and the relative <code>&lt;air-quality&gt;</code> all name the dataset
+ * <code>air-quality</code>. NDJSON carries one object per line with <code>id</code>, <code>content</code>, optional <code>contentType</code> (default
+ * N-Triples) and optional <code>hash</code>. A malformed NDJSON line only fails its own entry.
+ */
+public class BulkDatasets {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Base of relative graph names, instead of the location of the upload.
+     */
+    public static final String BASE = "https://piveau.io/bulk/";
+
+    private BulkDatasets() {
+    }
+
+    /**
+     * Maps a graph name to a dataset id: the last segment after <code>/</code>, <code>#</code> or <code>:</code>,
+     * percent decoded.
+     *
+     * @return the dataset id, or <code>null</code> if the graph name ends with a separator
+     */
+    public static String datasetId(String graphName) {
+        int separator = Math.max(graphName.lastIndexOf('/'), Math.max(graphName.lastIndexOf('#'), graphName.lastIndexOf(':')));
+        String segment = graphName.substring(separator + 1);
+        if (segment.isEmpty()) {
+            return null;
+        }
+        try {
+            return URLDecoder.decode(segment, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return segment;
+        }
+    }
+
+    public static List<Entry> parse(String content, String contentType) {
+        List<Entry> entries = new ArrayList<>();
+        if (NDJSON.equals(contentType)) {
+            String[] lines = content.split("\r?\n");
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i].trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    JsonObject item = new JsonObject(line);
+                    String id = item.getString("id");
+                    if (id == null || !item.containsKey("content")) {
+                        entries.add(Entry.failed(id != null ? id : "line " + (i + 1), "Missing id or content"));
+                    } else {
+                        entries.add(new Entry(id, item.getString("content"), item.getString("contentType", Lang.NTRIPLES.getHeaderString()), item.getString("hash"), null, null));
+                    }
+                } catch (Exception e) {
+                    entries.add(Entry.failed("line " + (i + 1), e.getMessage()));
+                }
+            }
+        } else {
+            Lang lang = RDFLanguages.contentTypeToLang(contentType);
+            if (lang == null || !RDFLanguages.isQuads(lang)) {
+                throw new IllegalArgumentException("Unsupported bulk content type " + contentType);
+            }
+            Dataset dataset = DatasetFactory.create();
+            RDFParser.source(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))).lang(lang).base(BASE).parse(dataset.asDatasetGraph());
+            dataset.listNames().forEachRemaining(name -> {
+                String id = datasetId(name);
+                if (id == null) {
+                    entries.add(Entry.failed(name, "No dataset id in graph name"));
+                } else {
+                    entries.add(new Entry(id, null, null, null, dataset.getNamedModel(name), null));
+                }
+            });
+        }
+        return entries;
+    }
+
+    public static class Entry {
+        private final String id;
+        private final String content;
+        private final String contentType;
+        private final String hash;
+        private final Model model;
+        private final String error;
+
+        private Entry(String id, String content, String contentType, String hash, Model model, String error) {
+            this.id = id;
+            this.content = content;
+            this.contentType = contentType;
+            this.hash = hash;
+            this.model = model;
+            this.error = error;
+        }
+
+        private static Entry failed(String id, String error) {
+            return new Entry(id, null, null, null, null, error);
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public String content() {
+            return content;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String hash() {
+            return hash;
+        }
+
+        public Model model() {
+            return model;
+        }
+
+        public String error() {
+            return error;
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package io.piveau.hub.services.datasets;
+
+import io.piveau.hub.dataobjects.DatasetHelper;
+import io.piveau.hub.util.TSConnector;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.client.HttpResponse;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.vocabulary.DCAT;
+
+import java.util.List;
+
+/**
+ * Writes a chunk of new datasets of one catalogue with a single update request.
+ * <p>
+ * The request drops and inserts all dataset graphs of the chunk and adds all <code>dcat:dataset</code> and
+ * <code>dcat:record</code> links to the catalogue graph in the same <code>INSERT DATA</code>. It is sent as form POST,
+ * so its size is not limited by the query string. Triples are written in N-Triples term syntax with blank node labels
+ * unique to the process, as labels must not be shared between the graphs of one request.
+ */
+class BulkLoader {
+
+    private final TSConnector connector;
+
+    BulkLoader(TSConnector connector) {
+        this.connector = connector;
+    }
+
+    Future<Void> write(String catalogueUriRef, String catalogueGraphName, List<DatasetHelper> chunk) {
+        StringBuilder update = new StringBuilder();
+        chunk.forEach(helper -> update.append("DROP SILENT GRAPH <").append(helper.graphName()).append("> ;\n"));
+
+        update.append("INSERT DATA {\n");
+        chunk.forEach(helper -> {
+            update.append("GRAPH <").append(helper.graphName()).append("> {\n");
+            helper.model().getGraph().find().forEachRemaining(triple -> update.append(NodeFmtLib.str(triple)).append(" .\n"));
+            update.append("}\n");
+        });
+        update.append("GRAPH <").append(catalogueGraphName).append("> {\n");
+        chunk.forEach(helper -> update.append("<").append(catalogueUriRef).append("> <").append(DCAT.dataset).append("> <").append(helper.uriRef()).append("> ; <")
+                .append(DCAT.record).append("> <").append(helper.recordUriRef()).append("> .\n"));
+        update.append("}\n}");
+
+        Promise<HttpResponse<Buffer>> promise = Promise.promise();
+        connector.postUpdate(update.toString(), promise);
+        return promise.future().mapEmpty();
+    }
+
+}
@@ -0,0 +1,218 @@
+package io.piveau.hub.services.datasets;
+
+import io.piveau.hub.util.Journal;
+import io.piveau.hub.util.TSConnector;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import org.apache.jena.vocabulary.DCAT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind accumulator for the <code>dcat:dataset</code> and <code>dcat:record</code> links of catalogues.
+ * <p>
+ * Link and unlink operations are keyed by catalogue and dataset, a later operation replaces a pending earlier one of the
+ * same catalogue. Operations of different catalogues are kept, e.g. moving a dataset unlinks it from one catalogue and
+ * links it to another. The queue is
+ * flushed when it reaches the batch size or when the flush interval elapses, with at most one flush in flight. A flush
+ * is one update request with one <code>DELETE DATA</code> and one <code>INSERT DATA</code> per catalogue. Failed
+ * operations are queued again, up to a retry limit, unless they were superseded in the meantime.
+ * <p>
+ * If a journal is configured, every operation is appended to it before it is queued and replayed on start, like the
+ * index queue does. The returned futures complete when the operation was written to the triplestore.
+ */
+class CatalogueLinker {
+
+    private static final String LINK = "link";
+    private static final String UNLINK = "unlink";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final TSConnector connector;
+
+    private final int batchSize;
+    private final int maxRetries;
+
+    private final LinkedHashMap<String, Operation> pending = new LinkedHashMap<>();
+    private final Map<String, Operation> inFlight = new LinkedHashMap<>();
+
+    private Journal journal;
+
+    /**
+     * @param instance the dataset partition of the owning instance, see {@link Journal#path(String, int)},
+     *                 <code>-1</code> for no journal
+     */
+    CatalogueLinker(Vertx vertx, TSConnector connector, JsonObject config, int instance) {
+        this.connector = connector;
+        this.batchSize = config.getInteger("batchSize", 1000);
+        this.maxRetries = config.getInteger("maxRetries", 10);
+
+        String journalPath = config.getString("journal");
+        if (journalPath != null && !journalPath.isBlank() && instance < 0) {
+            log.warn("Datasets instance without partition, catalogue links are not persistent");
+        } else if (journalPath != null && !journalPath.isBlank()) {
+            try {
+                journal = new Journal(Journal.path(journalPath, instance), config.getBoolean("journalSync", true));
+                journal.read().forEach(entry -> pending.put(key(entry), new Operation(entry)));
+                if (!pending.isEmpty()) {
+                    log.info("Replayed {} pending catalogue link updates from {}", pending.size(), journalPath);
+                }
+                compact();
+            } catch (IOException e) {
+                log.error("Opening catalogue link journal " + journalPath + " failed, links are not persistent", e);
+                journal = null;
+            }
+        }
+
+        Telemetry.queue("cataloguelinks", this, linker -> linker.pending.size() + linker.inFlight.size());
+        vertx.setPeriodic(config.getLong("flushInterval", 500L), id -> flush());
+    }
+
+    /**
+     * Adds a dataset and its record to a catalogue.
+     */
+    Future<Void> link(String catalogueGraphName, String catalogueUriRef, String datasetUriRef, String recordUriRef) {
+        return enqueue(LINK, catalogueGraphName, catalogueUriRef, datasetUriRef, recordUriRef);
+    }
+
+    /**
+     * Removes a dataset and its record from a catalogue.
+     */
+    Future<Void> unlink(String catalogueGraphName, String catalogueUriRef, String datasetUriRef, String recordUriRef) {
+        return enqueue(UNLINK, catalogueGraphName, catalogueUriRef, datasetUriRef, recordUriRef);
+    }
+
+    private Future<Void> enqueue(String type, String catalogueGraphName, String catalogueUriRef, String datasetUriRef, String recordUriRef) {
+        JsonObject entry = new JsonObject()
+                .put("type", type)
+                .put("graph", catalogueGraphName)
+                .put("catalogue", catalogueUriRef)
+                .put("dataset", datasetUriRef)
+                .put("record", recordUriRef);
+        if (journal != null) {
+            try {
+                journal.append(entry);
+            } catch (IOException e) {
+                return Future.failedFuture(e);
+            }
+        }
+        Operation operation = new Operation(entry);
+        Operation previous = pending.put(key(entry), operation);
+        if (previous != null) {
+            operation.waiters.addAll(previous.waiters);
+        }
+        Promise<Void> promise = Promise.promise();
+        operation.waiters.add(promise);
+
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+        if (journal != null && journal.size() > 4 * Math.max(batchSize, pending.size() + inFlight.size())) {
+            compact();
+        }
+        return promise.future();
+    }
+
+    private void flush() {
+        if (!inFlight.isEmpty() || pending.isEmpty()) {
+            return;
+        }
+
+        Iterator<Map.Entry<String, Operation>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && inFlight.size() < batchSize) {
+            Map.Entry<String, Operation> entry = iterator.next();
+            inFlight.put(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+
+        Promise<HttpResponse<Buffer>> promise = Promise.promise();
+        connector.postUpdate(update(inFlight.values()), promise);
+        promise.future().onComplete(ar -> {
+            if (ar.succeeded()) {
+                inFlight.values().forEach(operation -> operation.waiters.forEach(Promise::complete));
+            } else {
+                log.error("Flushing " + inFlight.size() + " catalogue link updates failed", ar.cause());
+                inFlight.forEach((key, operation) -> {
+                    Operation newer = pending.get(key);
+                    if (newer != null) {
+                        // superseded, the newer operation decides
+                        newer.waiters.addAll(operation.waiters);
+                    } else if (++operation.attempts <= maxRetries) {
+                        pending.put(key, operation);
+                    } else {
+                        log.error("Dropping catalogue {} of {} after {} attempts", operation.entry.getString("type"), key, operation.attempts);
+                        operation.waiters.forEach(waiter -> waiter.fail(ar.cause()));
+                    }
+                });
+            }
+            inFlight.clear();
+
+            if (pending.isEmpty()) {
+                compact();
+            } else if (ar.succeeded()) {
+                flush();
+            }
+        });
+    }
+
+    private String update(Iterable<Operation> operations) {
+        Map<String, StringBuilder> deletes = new LinkedHashMap<>();
+        Map<String, StringBuilder> inserts = new LinkedHashMap<>();
+        operations.forEach(operation -> {
+            JsonObject entry = operation.entry;
+            Map<String, StringBuilder> target = LINK.equals(entry.getString("type")) ? inserts : deletes;
+            target.computeIfAbsent(entry.getString("graph"), graph -> new StringBuilder())
+                    .append("<").append(entry.getString("catalogue")).append("> <").append(DCAT.dataset).append("> <").append(entry.getString("dataset"))
+                    .append("> ; <").append(DCAT.record).append("> <").append(entry.getString("record")).append("> .\n");
+        });
+
+        List<String> requests = new ArrayList<>();
+        deletes.forEach((graph, triples) -> requests.add("DELETE DATA { GRAPH <" + graph + "> {\n" + triples + "} }"));
+        inserts.forEach((graph, triples) -> requests.add("INSERT DATA { GRAPH <" + graph + "> {\n" + triples + "} }"));
+        return String.join(" ;\n", requests);
+    }
+
+    private void compact() {
+        if (journal != null) {
+            try {
+                List<JsonObject> content = new ArrayList<>();
+                inFlight.forEach((key, operation) -> {
+                    if (!pending.containsKey(key)) {
+                        content.add(operation.entry);
+                    }
+                });
+                pending.values().forEach(operation -> content.add(operation.entry));
+                journal.rewrite(content);
+            } catch (IOException e) {
+                log.error("Compacting catalogue link journal", e);
+            }
+        }
+    }
+
+    private static String key(JsonObject entry) {
+        return entry.getString("catalogue") + " " + entry.getString("dataset");
+    }
+
+    private static class Operation {
+        private final JsonObject entry;
+        private final List<Promise<Void>> waiters = new ArrayList<>();
+        private int attempts;
+
+        private Operation(JsonObject entry) {
+            this.entry = entry;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package io.piveau.hub.services.datasets;
 
 import io.piveau.hub.util.DataUploadConnector;
+import io.piveau.hub.util.DatasetWrites;
 import io.piveau.hub.util.TSConnector;
 import io.piveau.pipe.PipeLauncher;
 import io.piveau.dcatap.TripleStore;
@@ -9,32 +10,50 @@ import io.vertx.codegen.annotations.ProxyGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonObject;
 
 @ProxyGen
 public interface DatasetsService {
     String SERVICE_ADDRESS = "io.piveau.hub.datasets.queue";
 
-    static DatasetsService create(TripleStore tripleStore, TSConnector connector, DataUploadConnector dataUploadConnector, JsonObject config, PipeLauncher launcher, Vertx vertx, Handler<AsyncResult<DatasetsService>> readyHandler) {
-        return new DatasetsServiceImpl(tripleStore, connector, dataUploadConnector, config, launcher, vertx, readyHandler);
+    static DatasetsService create(TripleStore tripleStore, TSConnector connector, DataUploadConnector dataUploadConnector, JsonObject config, PipeLauncher launcher, DatasetWrites routing, Vertx vertx, Handler<AsyncResult<DatasetsService>> readyHandler) {
+        return new DatasetsServiceImpl(tripleStore, connector, dataUploadConnector, config, launcher, routing, vertx, readyHandler);
     }
 
     static DatasetsService createProxy(Vertx vertx, String address) {
         return new DatasetsServiceVertxEBProxy(vertx, address);
     }
 
+    static DatasetsService createProxy(Vertx vertx, String address, DeliveryOptions options) {
+        return new DatasetsServiceVertxEBProxy(vertx, address, options);
+    }
+
     @Fluent
     DatasetsService listDatasets(String consumes, String catalogueId, Integer limit, Integer offset, Boolean sourceIds, Handler<AsyncResult<JsonObject>> handler);
 
     @Fluent
     DatasetsService getDataset(String datasetId, String catalogueId, String consumes, Handler<AsyncResult<JsonObject>> handler);
 
+    /**
+     * Streams a dataset in chunks to a {@link io.piveau.hub.util.EventBusStream.Receiver}. The reply only confirms
+     * the start, the outcome is reported through the stream.
+     */
+    @Fluent
+    DatasetsService streamDataset(String datasetId, String catalogueId, Boolean normalized, String consumes, String address, Handler<AsyncResult<JsonObject>> handler);
+
     @Fluent
     DatasetsService getDatasetByNormalizedId(String datasetSuffix, String consumes, Handler<AsyncResult<JsonObject>> handler);
 
     @Fluent
     DatasetsService putDataset(String datasetId, String dataset, String contentType, String catalogueId, String hash, Boolean createAccessURLs, Handler<AsyncResult<JsonObject>> handler);
 
+    @Fluent
+    DatasetsService putDatasets(String content, String contentType, String catalogueId, Handler<AsyncResult<JsonObject>> handler);
+
+    @Fluent
+    DatasetsService importDatasets(String content, String contentType, String catalogueId, Boolean createAccessURLs, Handler<AsyncResult<JsonObject>> handler);
+
     @Fluent
     DatasetsService postDataset(String dataset, String contentType, String catalogueId, Boolean createAccessURLs, Handler<AsyncResult<JsonObject>> handler);
 
@@ -44,6 +63,12 @@ public interface DatasetsService {
     @Fluent
     DatasetsService getRecord(String datasetId, String catalogueId, String consumes, Handler<AsyncResult<JsonObject>> handler);
 
+    /**
+     * Streams a record in chunks to a {@link io.piveau.hub.util.EventBusStream.Receiver}, like {@link #streamDataset}.
+     */
+    @Fluent
+    DatasetsService streamRecord(String datasetId, String catalogueId, String consumes, String address, Handler<AsyncResult<JsonObject>> handler);
+
     @Fluent
     DatasetsService indexDataset(String datasetId, String catalogueId, String defaultLang, Handler<AsyncResult<JsonObject>> handler);
 
@@ -3,9 +3,14 @@ package io.piveau.hub.services.datasets;
 import io.piveau.dcatap.*;
 import io.piveau.dqv.PiveauMetrics;
 import io.piveau.hub.dataobjects.DatasetHelper;
+import io.piveau.hub.services.changes.ChangeFeed;
 import io.piveau.hub.services.index.IndexService;
 import io.piveau.hub.services.translation.TranslationService;
 import io.piveau.hub.util.*;
+import io.piveau.hub.util.rdf.GraphHash;
+import io.piveau.hub.util.rdf.NTriplesTranscoder;
+import io.piveau.hub.util.rdf.Serialization;
+import io.piveau.hub.util.telemetry.Telemetry;
 import io.piveau.indexing.Indexing;
 import io.piveau.json.ConfigHelper;
 import io.piveau.pipe.PipeLauncher;
@@ -17,34 +22,62 @@ import io.piveau.vocabularies.vocabulary.PV;
 import io.piveau.vocabularies.vocabulary.SPDX;
 import io.vertx.core.*;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.core.streams.WriteStream;
 import org.apache.http.HttpHeaders;
 import org.apache.jena.query.*;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.vocabulary.DCAT;
 import org.apache.jena.vocabulary.DCTerms;
 import org.apache.jena.vocabulary.RDF;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 public class DatasetsServiceImpl implements DatasetsService {
 
+    private static final int BULK_CONCURRENCY = 8;
+    private static final int HASH_QUERY_BATCH = 500;
+
+    /**
+     * Writes forwarded to the owner of their partition may be bulk uploads.
+     */
+    private static final DeliveryOptions FORWARD_OPTIONS = new DeliveryOptions().setSendTimeout(60 * 60 * 1000L);
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private final Vertx vertx;
+
     private final TripleStore tripleStore;
     private final CatalogueManager catalogueManager;
     private final DatasetManager datasetManager;
     private final MetricsManager metricsManager;
 
     private final TSConnector connector;
+    private final GraphCache graphCache;
+    private final HashIndex hashIndex;
+    private final BulkLoader bulkLoader;
+    private final CatalogueLinker catalogueLinker;
+    private final DatasetWrites routing;
     private final DataUploadConnector dataUploadConnector;
     private final IndexService indexService;
     private final TranslationService translationService;
@@ -55,9 +88,19 @@ public class DatasetsServiceImpl implements DatasetsService {
     private final JsonObject translationConfig;
     private final JsonObject indexConfig;
 
-    DatasetsServiceImpl(TripleStore tripleStore, TSConnector connector, DataUploadConnector dataUploadConnector, JsonObject config, PipeLauncher launcher, Vertx vertx, Handler<AsyncResult<DatasetsService>> readyHandler) {
+    private final int importChunkSize;
+    private final int importConcurrency;
+
+    DatasetsServiceImpl(TripleStore tripleStore, TSConnector connector, DataUploadConnector dataUploadConnector, JsonObject config, PipeLauncher launcher, DatasetWrites routing, Vertx vertx, Handler<AsyncResult<DatasetsService>> readyHandler) {
+        this.vertx = vertx;
+        this.routing = routing;
         this.launcher = launcher;
         this.connector = connector;
+        this.graphCache = GraphCache.create(vertx, ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_GRAPH_CACHE));
+        this.hashIndex = HashIndex.create(vertx, connector, routing, ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_HASH_INDEX),
+                graphCache != null ? graphCache.origin() : null);
+        this.bulkLoader = new BulkLoader(connector);
+        this.catalogueLinker = new CatalogueLinker(vertx, connector, ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_CATALOGUE_LINKS), routing.partition());
 
         this.tripleStore = tripleStore;
         catalogueManager = tripleStore.getCatalogueManager();
@@ -70,6 +113,10 @@ public class DatasetsServiceImpl implements DatasetsService {
         validationConfig = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_VALIDATOR);
         translationConfig = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_TRANSLATION_SERVICE);
         indexConfig = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_SEARCH_SERVICE);
+        JsonObject importConfig = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_BULK_IMPORT);
+        importChunkSize = importConfig.getInteger("chunkSize", 100);
+        importConcurrency = importConfig.getInteger("concurrency", 2);
+        Telemetry.queue("datasetwrites", routing, DatasetWrites::pending);
         readyHandler.handle(Future.succeededFuture(this));
     }
 
@@ -108,35 +155,48 @@ public class DatasetsServiceImpl implements DatasetsService {
 
     @Override
     public DatasetsService getDataset(String datasetId, String catalogueId, String consumes, Handler<AsyncResult<JsonObject>> handler) {
+        if (graphCache != null) {
+            identify(datasetId, catalogueId)
+                    .compose(datasetUriRef -> cachedGraph(DCATAPUriSchema.parseUriRef(datasetUriRef).getDatasetGraphName(), consumes))
+                    .onSuccess(content -> handler.handle(Future.succeededFuture(new JsonObject()
+                            .put("status", "success")
+                            .put("content", content))))
+                    .onFailure(throwable -> handleReadFailure(throwable, handler));
+            return this;
+        }
+
         datasetManager.get(datasetId, catalogueId).onSuccess(model ->
                 handler.handle(Future.succeededFuture(new JsonObject()
                         .put("status", "success")
-                        .put("content", JenaUtils.write(model, consumes))
-                ))).onFailure(throwable -> {
-            if (throwable.getMessage() != null && throwable.getMessage().startsWith("not found")) {
-                handler.handle(Future.succeededFuture(new JsonObject().put("status", "not found")));
-            } else {
-                handler.handle(Future.failedFuture(throwable));
-            }
-        });
+                        .put("content", Serialization.render(model, consumes))
+                ))).onFailure(throwable -> handleReadFailure(throwable, handler));
+        return this;
+    }
+
+    @Override
+    public DatasetsService streamDataset(String datasetId, String catalogueId, Boolean normalized, String consumes, String address, Handler<AsyncResult<JsonObject>> handler) {
+        EventBusStream.Sender sender = EventBusStream.sender(vertx, address);
+        Future<String> graphName = Boolean.TRUE.equals(normalized)
+                ? Future.succeededFuture(DCATAPUriSchema.applyFor(datasetId).getDatasetGraphName())
+                : identify(datasetId, catalogueId).map(datasetUriRef -> DCATAPUriSchema.parseUriRef(datasetUriRef).getDatasetGraphName());
+        graphName.onSuccess(name -> streamGraph(name, consumes, sender)).onFailure(sender::fail);
+        handler.handle(Future.succeededFuture(new JsonObject().put("status", "success")));
         return this;
     }
 
     @Override
     public DatasetsService getDatasetByNormalizedId(String datasetSuffix, String consumes, Handler<AsyncResult<JsonObject>> handler) {
-        Promise<Model> graphFuture = Promise.promise();
         DCATAPUriRef dcatapSchema = DCATAPUriSchema.applyFor(datasetSuffix);
-        datasetManager.getGraph(dcatapSchema.getDatasetGraphName(), graphFuture);
 
-        graphFuture.future().onComplete(ar -> {
+        cachedGraph(dcatapSchema.getDatasetGraphName(), consumes).onComplete(ar -> {
             if (ar.succeeded()) {
 
                 // we could remove record here
 
                 handler.handle(Future.succeededFuture(new JsonObject()
                         .put("status", "success")
-                        .put("content", JenaUtils.write(ar.result(), consumes)
-                        )));
+                        .put("content", ar.result())
+                ));
             } else {
                 try {
                     ReplyException s = (io.vertx.core.eventbus.ReplyException) ar.cause();
@@ -163,6 +223,40 @@ public class DatasetsServiceImpl implements DatasetsService {
     }
 
 
+    @Override
+    public DatasetsService streamRecord(String datasetId, String catalogueId, String consumes, String address, Handler<AsyncResult<JsonObject>> handler) {
+        EventBusStream.Sender sender = EventBusStream.sender(vertx, address);
+        RDFFormat format = NTriplesTranscoder.streamingFormat(consumes);
+        if (format == null) {
+            getRecord(datasetId, catalogueId, consumes, ar -> {
+                if (ar.failed()) {
+                    sender.fail(ar.cause());
+                } else if ("success".equals(ar.result().getString("status"))) {
+                    sender.send(Buffer.buffer(ar.result().getString("content")));
+                } else {
+                    sender.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, 404, "not found"));
+                }
+            });
+        } else {
+            connector.getDatasetUriRefs(datasetId, catalogueId, ar -> {
+                if (ar.succeeded()) {
+                    String graphName = DCATAPUriSchema.parseUriRef(ar.result().getString("datasetUriRef")).getDatasetGraphName();
+                    String recordUriRef = ar.result().getString("recordUriRef");
+                    String query = "CONSTRUCT { <" + recordUriRef + "> ?p ?o . ?o ?q ?v } WHERE { GRAPH <" + graphName + "> { <" + recordUriRef + "> ?p ?o OPTIONAL { ?o ?q ?v FILTER(isBlank(?o)) } } }";
+                    if (graphCache != null) {
+                        long generation = graphCache.generation();
+                        sender.capture(graphCache.maxEntryLength(), content -> graphCache.put(graphName, "record " + consumes, content.toString(), generation));
+                    }
+                    transcode(format, sender, (sink, failed) -> connector.streamConstruct(query, sink, failed));
+                } else {
+                    sender.fail(ar.cause());
+                }
+            });
+        }
+        handler.handle(Future.succeededFuture(new JsonObject().put("status", "success")));
+        return this;
+    }
+
     @Override
     public DatasetsService getRecord(String datasetId, String catalogueId, String consumes, Handler<AsyncResult<JsonObject>> handler) {
         connector.getDatasetUriRefs(datasetId, catalogueId, ar -> {
@@ -171,8 +265,21 @@ public class DatasetsServiceImpl implements DatasetsService {
                 String datasetUriRef = result.getString("datasetUriRef");
                 String recordUriRef = result.getString("recordUriRef");
                 DCATAPUriRef uriSchema = DCATAPUriSchema.parseUriRef(datasetUriRef);
+                String variant = "record " + consumes;
+                String cached = graphCache != null ? graphCache.get(uriSchema.getDatasetGraphName(), variant) : null;
+                if (cached != null) {
+                    handler.handle(Future.succeededFuture(new JsonObject()
+                            .put("status", "success")
+                            .put("content", cached)
+                    ));
+                    return;
+                }
+                long generation = graphCache != null ? graphCache.generation() : 0;
                 connector.getRecord(uriSchema.getDatasetGraphName(), recordUriRef, consumes, rr -> {
                     if (rr.succeeded()) {
+                        if (graphCache != null) {
+                            graphCache.put(uriSchema.getDatasetGraphName(), variant, rr.result(), generation);
+                        }
                         handler.handle(Future.succeededFuture(new JsonObject()
                                 .put("status", "success")
                                 .put("content", rr.result())
@@ -190,116 +297,414 @@ public class DatasetsServiceImpl implements DatasetsService {
 
     @Override
     public DatasetsService putDataset(String datasetId, String content, String contentType, String catalogueId, String hash, Boolean createAccessURLs, Handler<AsyncResult<JsonObject>> handler) {
+        String key = DatasetWrites.key(datasetId, catalogueId);
+        routing.<JsonObject>route(key, () -> {
+            String contentHash = contentHash(content, contentType, hash);
+            if (hashIndex != null && contentHash != null && hashIndex.unchanged(DCATAPUriSchema.applyFor(catalogueId).getCatalogueUriRef(), datasetId, contentHash)) {
+                return Future.failedFuture("skipped");
+            }
 
-        DatasetHelper.create(datasetId, content, contentType, hash, catalogueId, dr -> {
-            if (dr.succeeded()) {
-                DatasetHelper datasetHelper = dr.result();
-                AtomicReference<DatasetHelper> oldDataset = new AtomicReference<>();
+            Promise<DatasetHelper> datasetPromise = Promise.promise();
+            DatasetHelper.create(datasetId, content, contentType, contentHash, catalogueId, datasetPromise);
+            return datasetPromise.future().compose(datasetHelper -> {
                 Promise<JsonObject> existsPromise = Promise.promise();
                 connector.catalogueExists(datasetHelper.catalogueUriRef(), existsPromise);
-                existsPromise.future().compose(cat -> {
+                return existsPromise.future().compose(cat -> {
                     Promise<JsonObject> hashPromise = Promise.promise();
                     datasetHelper.sourceType(cat.getString("type"));
                     datasetHelper.sourceLang(cat.getString("lang"));
                     getHash(datasetHelper, hashPromise);
                     return hashPromise.future();
-                }).compose(hr -> {
-                    Promise<Void> createOrUpdatePromise = Promise.promise();
-                    if (hr.getBoolean("success") && hr.getString("hash").equals(datasetHelper.hash())) {
-                        logger.debug("hash equal, skipping");
-                        createOrUpdatePromise.fail("skipped");
-                    } else {
-                        if (hr.getBoolean("success")) {
-                            logger.debug("update");
-                            String recordUriRef = hr.getString("recordUriRef");
-                            datasetManager.getGraph(DCATAPUriSchema.parseUriRef(recordUriRef).getDatasetGraphName(), ar -> {
-                                if (ar.succeeded()) {
-                                    datasetHelper.update(ar.result(), recordUriRef);
-                                    DatasetHelper.create(datasetId,JenaUtils.write(ar.result(), Lang.NTRIPLES), Lang.NTRIPLES.getContentType().getContentType(),hr.getString("hash"),catalogueId,res-> oldDataset.set(res.result()));
-                                    createOrUpdatePromise.complete();
-                                } else {
-                                    createOrUpdatePromise.fail(ar.cause());
+                }).compose(hr -> createOrUpdate(datasetHelper, hr, createAccessURLs));
+            });
+        }, partition -> {
+            Promise<JsonObject> promise = Promise.promise();
+            partition(partition).putDataset(datasetId, content, contentType, catalogueId, hash, createAccessURLs, promise);
+            return promise.future();
+        }).onComplete(handler);
+        return this;
+    }
+
+    @Override
+    public DatasetsService putDatasets(String content, String contentType, String catalogueId, Handler<AsyncResult<JsonObject>> handler) {
+        String catalogueUriRef = DCATAPUriSchema.applyFor(catalogueId).getCatalogueUriRef();
+        JsonArray results = new JsonArray();
+        Map<String, DatasetHelper> helpers = new LinkedHashMap<>();
+
+        Promise<JsonObject> existsPromise = Promise.promise();
+        connector.catalogueExists(catalogueUriRef, existsPromise);
+        existsPromise.future().compose(cat -> {
+            collectBulk(content, contentType, catalogueId, cat, results, helpers);
+            Future<Void> forwarded = forwardForeign(catalogueId, helpers, results, false, false);
+            return createOrUpdateAll(catalogueUriRef, helpers.values(), results, false)
+                    .compose(v -> forwarded);
+        }).onSuccess(v -> handler.handle(Future.succeededFuture(bulkSummary(catalogueId, results))))
+                .onFailure(cause -> handler.handle(Future.failedFuture(cause)));
+        return this;
+    }
+
+    @Override
+    public DatasetsService importDatasets(String content, String contentType, String catalogueId, Boolean createAccessURLs, Handler<AsyncResult<JsonObject>> handler) {
+        DCATAPUriRef catalogueSchema = DCATAPUriSchema.applyFor(catalogueId);
+        String catalogueUriRef = catalogueSchema.getCatalogueUriRef();
+        JsonArray results = new JsonArray();
+        Map<String, DatasetHelper> helpers = new LinkedHashMap<>();
+        Set<String> candidates = new HashSet<>();
+        List<DatasetHelper> existing = new ArrayList<>();
+
+        AtomicReference<Future<Void>> forwarded = new AtomicReference<>(Future.succeededFuture());
+
+        Promise<JsonObject> existsPromise = Promise.promise();
+        connector.catalogueExists(catalogueUriRef, existsPromise);
+        existsPromise.future().compose(cat -> {
+            collectBulk(content, contentType, catalogueId, cat, results, helpers);
+            forwarded.set(forwardForeign(catalogueId, helpers, results, true, createAccessURLs));
+
+            Map<String, JsonObject> byId = pendingResults(results);
+            List<DatasetHelper> all = new ArrayList<>(helpers.values());
+            List<List<DatasetHelper>> chunks = new ArrayList<>();
+            for (int i = 0; i < all.size(); i += importChunkSize) {
+                chunks.add(all.subList(i, Math.min(all.size(), i + importChunkSize)));
+            }
+            // the datasets are only found fresh while their writes are queued, so no other write comes in between
+            return StreamProcessor.process(chunks.iterator(), importConcurrency, chunk ->
+                    routing.submit(chunk.stream().map(helper -> DatasetWrites.key(helper.id(), catalogueId)).collect(Collectors.toList()), () ->
+                            fresh(catalogueUriRef, chunk, candidates).compose(created -> {
+                                chunk.stream().filter(helper -> !created.contains(helper)).forEach(existing::add);
+                                if (created.isEmpty()) {
+                                    return Future.<Void>succeededFuture();
                                 }
-                            });
-                        } else {
-                            logger.debug("create");
-                            connector.findFreeNormalized(datasetHelper, new AtomicInteger(0), ar -> {
+                                return importChunk(catalogueSchema, created, createAccessURLs).onComplete(ar -> created.forEach(helper -> {
+                                    JsonObject result = byId.get(helper.id());
+                                    if (ar.succeeded()) {
+                                        result.put("status", "created").put("location", helper.uriRef());
+                                    } else {
+                                        result.put("status", "failed").put("message", ar.cause().getMessage());
+                                    }
+                                }));
+                            })).onFailure(cause -> chunk.stream()
+                            .filter(helper -> !byId.get(helper.id()).containsKey("status"))
+                            .forEach(helper -> byId.get(helper.id()).put("status", "failed").put("message", cause.getMessage())))
+            ).compose(v -> createOrUpdateAll(catalogueUriRef, existing, results, createAccessURLs));
+        }).compose(v -> forwarded.get()).onSuccess(v -> handler.handle(Future.succeededFuture(bulkSummary(catalogueId, results))))
+                .onFailure(cause -> handler.handle(Future.failedFuture(cause)));
+        return this;
+    }
+
+    /**
+     * Finds the datasets of a chunk without a stored hash whose normalized uriRef is neither used in any catalogue nor
+     * claimed by another dataset of the import. The others take the regular path, which finds a free uriRef.
+     *
+     * @param candidates the uriRefs claimed by the import so far
+     */
+    private Future<List<DatasetHelper>> fresh(String catalogueUriRef, List<DatasetHelper> chunk, Set<String> candidates) {
+        return getHashes(catalogueUriRef, chunk).compose(hashes -> {
+            List<DatasetHelper> unknown = chunk.stream().filter(helper -> !hashes.containsKey(helper.id())).collect(Collectors.toList());
+            return getOccupied(unknown).map(occupied -> unknown.stream()
+                    .filter(helper -> !occupied.contains(helper.uriRef()) && candidates.add(helper.uriRef()))
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    /**
+     * Parses a bulk upload into dataset helpers, keyed by dataset id. Every entry gets a result object, entries which
+     * can not be processed get their final status right away.
+     */
+    private void collectBulk(String content, String contentType, String catalogueId, JsonObject cat, JsonArray results, Map<String, DatasetHelper> helpers) {
+        BulkDatasets.parse(content, contentType).forEach(entry -> {
+            JsonObject result = new JsonObject().put("id", entry.id());
+            results.add(result);
+            Handler<AsyncResult<DatasetHelper>> created = dr -> {
+                if (dr.succeeded()) {
+                    DatasetHelper helper = dr.result();
+                    helper.sourceType(cat.getString("type"));
+                    helper.sourceLang(cat.getString("lang"));
+                    if (helpers.put(helper.id(), helper) != null) {
+                        result.put("status", "failed").put("message", "Duplicate dataset id in batch");
+                    }
+                } else {
+                    result.put("status", "failed").put("message", dr.cause().getMessage());
+                }
+            };
+            if (entry.error() != null) {
+                result.put("status", "failed").put("message", entry.error());
+            } else if (entry.model() != null) {
+                DatasetHelper.create(entry.id(), entry.model(), entry.hash(), catalogueId, created);
+            } else {
+                DatasetHelper.create(entry.id(), entry.content(), entry.contentType(), entry.hash(), catalogueId, created);
+            }
+        });
+    }
+
+    /**
+     * Takes the datasets of partitions owned by other instances out of a bulk upload and sends them to their owners as
+     * NDJSON, one request per partition. Their result objects are completed with the results of the owners.
+     *
+     * @param create           whether the datasets are imported or put
+     * @param createAccessURLs whether imported datasets get access URLs of the data upload
+     */
+    private Future<Void> forwardForeign(String catalogueId, Map<String, DatasetHelper> helpers, JsonArray results, boolean create, Boolean createAccessURLs) {
+        Map<Integer, List<DatasetHelper>> foreign = new HashMap<>();
+        helpers.values().removeIf(helper -> {
+            String key = DatasetWrites.key(helper.id(), catalogueId);
+            if (routing.owns(key)) {
+                return false;
+            }
+            foreign.computeIfAbsent(routing.partition(key), p -> new ArrayList<>()).add(helper);
+            return true;
+        });
+        if (foreign.isEmpty()) {
+            return Future.succeededFuture();
+        }
+
+        Map<String, JsonObject> byId = pendingResults(results);
+        List<Future> forwarded = new ArrayList<>();
+        foreign.forEach((partition, chunk) -> {
+            StringBuilder content = new StringBuilder();
+            chunk.forEach(helper -> content.append(new JsonObject()
+                    .put("id", helper.id())
+                    .put("content", helper.stringify(Lang.NTRIPLES))
+                    .put("hash", helper.hash())
+                    .encode()).append('\n'));
+            forwarded.add(routing.<JsonObject>forward(partition, p -> {
+                Promise<JsonObject> promise = Promise.promise();
+                if (create) {
+                    partition(p).importDatasets(content.toString(), BulkDatasets.NDJSON, catalogueId, createAccessURLs, promise);
+                } else {
+                    partition(p).putDatasets(content.toString(), BulkDatasets.NDJSON, catalogueId, promise);
+                }
+                return promise.future();
+            }).onComplete(ar -> {
+                if (ar.succeeded()) {
+                    ar.result().getJsonArray("datasets", new JsonArray()).stream().map(JsonObject.class::cast)
+                            .filter(remote -> byId.containsKey(remote.getString("id")))
+                            .forEach(remote -> byId.get(remote.getString("id")).mergeIn(remote));
+                } else {
+                    chunk.forEach(helper -> byId.get(helper.id()).put("status", "failed").put("message", ar.cause().getMessage()));
+                }
+            }).otherwise((JsonObject) null));
+        });
+        return CompositeFuture.all(forwarded).mapEmpty();
+    }
+
+    /**
+     * @return the result objects without a status yet, keyed by dataset id
+     */
+    private Map<String, JsonObject> pendingResults(JsonArray results) {
+        Map<String, JsonObject> byId = new HashMap<>();
+        results.stream().map(JsonObject.class::cast).filter(result -> !result.containsKey("status"))
+                .forEach(result -> byId.put(result.getString("id"), result));
+        return byId;
+    }
+
+    /**
+     * Creates or updates datasets in chunks of {@link #HASH_QUERY_BATCH}. The stored hashes of a chunk are looked up
+     * while its writes are queued, so they are current for every dataset of the chunk.
+     */
+    private Future<Void> createOrUpdateAll(String catalogueUriRef, Collection<DatasetHelper> helpers, JsonArray results, Boolean createAccessURLs) {
+        Map<String, JsonObject> byId = pendingResults(results);
+        List<DatasetHelper> all = new ArrayList<>(helpers);
+        List<List<DatasetHelper>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += HASH_QUERY_BATCH) {
+            chunks.add(all.subList(i, Math.min(all.size(), i + HASH_QUERY_BATCH)));
+        }
+        return StreamProcessor.process(chunks.iterator(), 1, chunk ->
+                routing.submit(chunk.stream().map(helper -> DatasetWrites.key(helper.id(), helper.catalogueId())).collect(Collectors.toList()), () ->
+                        getHashes(catalogueUriRef, chunk).compose(hashes -> StreamProcessor.process(chunk.iterator(), BULK_CONCURRENCY, helper -> {
+                            JsonObject result = byId.get(helper.id());
+                            JsonObject hr = hashes.getOrDefault(helper.id(), new JsonObject().put("success", false));
+                            return createOrUpdate(helper, hr, createAccessURLs).onComplete(ar -> {
                                 if (ar.succeeded()) {
-                                    datasetHelper.init(ar.result());
-                                    if (Boolean.TRUE.equals(createAccessURLs)) {
-                                        datasetHelper.setAccessURLs(dataUploadConnector);
+                                    result.put("status", ar.result().getString("status"));
+                                    if (ar.result().containsKey(HttpHeaders.LOCATION)) {
+                                        result.put("location", ar.result().getString(HttpHeaders.LOCATION));
                                     }
-                                    createOrUpdatePromise.complete();
+                                } else if ("skipped".equals(ar.cause().getMessage())) {
+                                    result.put("status", "skipped");
                                 } else {
-                                    createOrUpdatePromise.fail(ar.cause());
+                                    result.put("status", "failed").put("message", ar.cause().getMessage());
                                 }
                             });
+                        }))).onFailure(cause -> chunk.stream()
+                        .filter(helper -> !byId.get(helper.id()).containsKey("status"))
+                        .forEach(helper -> byId.get(helper.id()).put("status", "failed").put("message", cause.getMessage())))
+        );
+    }
+
+    private JsonObject bulkSummary(String catalogueId, JsonArray results) {
+        JsonObject summary = new JsonObject().put("catalogue", catalogueId).put("datasets", results);
+        results.stream().map(JsonObject.class::cast).forEach(result -> {
+            String status = result.getString("status", "failed");
+            summary.put(status, summary.getInteger(status, 0) + 1);
+        });
+        return summary;
+    }
+
+    /**
+     * Writes new datasets with one update request and does everything a single create does afterwards.
+     */
+    private Future<Void> importChunk(DCATAPUriRef catalogueSchema, List<DatasetHelper> chunk, Boolean createAccessURLs) {
+        List<Future> prepared = new ArrayList<>();
+        chunk.forEach(helper -> {
+            helper.init(helper.uriRef().substring(helper.uriRef().lastIndexOf("/") + 1));
+            if (Boolean.TRUE.equals(createAccessURLs)) {
+                helper.setAccessURLs(dataUploadConnector);
+            }
+            Future<DatasetHelper> translated = translationConfig.getBoolean("enable", false)
+                    ? translate(helper).otherwise(helper)
+                    : Future.succeededFuture(helper);
+            prepared.add(translated.map(finalHelper -> {
+                renameResources(finalHelper);
+                return finalHelper;
+            }));
+        });
+        return CompositeFuture.all(prepared).compose(all -> {
+            List<DatasetHelper> finalHelpers = all.list();
+            return bulkLoader.write(catalogueSchema.getCatalogueUriRef(), catalogueSchema.getCatalogueGraphName(), finalHelpers)
+                    .onComplete(ar -> finalHelpers.forEach(helper -> {
+                        if (graphCache != null) {
+                            graphCache.invalidate(helper.id(), helper.catalogueId(), helper.graphName());
                         }
-                    }
-                    return createOrUpdatePromise.future();
-                }).compose(v -> {
-                    Promise<DatasetHelper> translationPromise = Promise.promise();
-                    if (translationConfig.getBoolean("enable", false)) {
+                    }))
+                    .onSuccess(v -> finalHelpers.forEach(helper -> {
+                        if (hashIndex != null) {
+                            hashIndex.put(helper.catalogueUriRef(), helper.id(), helper.graphName(), helper.hash());
+                        }
+                        ChangeFeed.emit(vertx, ChangeFeed.CREATE, helper.id(), helper.catalogueId(), helper.sourceLang());
+                        if (indexConfig.getBoolean("enabled", true)) {
+                            index(helper).onFailure(cause -> logger.warn("Send dataset to index.", cause));
+                        }
+                        if (validationConfig.getBoolean("enabled", false)) {
+                            validate(helper);
+                        }
+                    }));
+        });
+    }
 
+    /**
+     * Finds the normalized dataset uriRefs which are already used in any catalogue, with one query per
+     * {@link #HASH_QUERY_BATCH} datasets.
+     */
+    private Future<Set<String>> getOccupied(List<DatasetHelper> helpers) {
+        Set<String> occupied = new HashSet<>();
+        List<Future> queries = new ArrayList<>();
+        for (int i = 0; i < helpers.size(); i += HASH_QUERY_BATCH) {
+            StringBuilder values = new StringBuilder();
+            helpers.subList(i, Math.min(helpers.size(), i + HASH_QUERY_BATCH))
+                    .forEach(helper -> values.append(" <").append(helper.uriRef()).append(">"));
+            String query = "SELECT DISTINCT ?dataset WHERE { VALUES ?dataset {" + values + " } GRAPH ?catalogue { ?catalogue <" + DCAT.dataset + "> ?dataset } }";
+            queries.add(tripleStore.select(query).onSuccess(set -> set.forEachRemaining(solution ->
+                    occupied.add(solution.getResource("dataset").getURI()))));
+        }
+        return CompositeFuture.all(queries).map(occupied);
+    }
 
-                        translateUpdate(datasetHelper, oldDataset.get()).onComplete(ar -> {
-                            DatasetHelper finalHelper = ar.succeeded() ? ar.result() : datasetHelper;
-                            translationPromise.complete(finalHelper);
-                        });
+    /**
+     * Stores a dataset whose catalogue and previous hash are known, i.e. everything of a put after the lookups.
+     *
+     * @param hr result of the hash lookup
+     */
+    private Future<JsonObject> createOrUpdate(DatasetHelper datasetHelper, JsonObject hr, Boolean createAccessURLs) {
+        String datasetId = datasetHelper.id();
+        String catalogueId = datasetHelper.catalogueId();
+        AtomicReference<DatasetHelper> oldDataset = new AtomicReference<>();
+
+        Promise<Void> createOrUpdatePromise = Promise.promise();
+        if (hr.getBoolean("success") && hr.getString("hash").equals(datasetHelper.hash())) {
+            logger.debug("hash equal, skipping");
+            createOrUpdatePromise.fail("skipped");
+        } else {
+            if (hr.getBoolean("success")) {
+                logger.debug("update");
+                String recordUriRef = hr.getString("recordUriRef");
+                datasetManager.getGraph(DCATAPUriSchema.parseUriRef(recordUriRef).getDatasetGraphName(), ar -> {
+                    if (ar.succeeded()) {
+                        datasetHelper.update(ar.result(), recordUriRef);
+                        DatasetHelper.create(datasetId,JenaUtils.write(ar.result(), Lang.NTRIPLES), Lang.NTRIPLES.getContentType().getContentType(),hr.getString("hash"),catalogueId,res-> oldDataset.set(res.result()));
+                        createOrUpdatePromise.complete();
                     } else {
-                        translationPromise.complete(datasetHelper);
+                        createOrUpdatePromise.fail(ar.cause());
                     }
-                    return translationPromise.future();
-                }).onSuccess(finalHelper -> {
-                    if (indexConfig.getBoolean("enabled", true)) {
-                        index(finalHelper).onComplete(ar -> {
-                            if (ar.failed()) {
-                                logger.warn("Send dataset to index.", ar.cause());
-                            }
-                        });
-                    }
-                    if (!finalHelper.model().containsResource(ModelFactory.createDefaultModel().createResource(finalHelper.uriRef()))) {
-                        finalHelper.model().listSubjectsWithProperty(RDF.type, DCAT.Dataset).forEachRemaining(ds -> RdfExtensionsKt.rename(ds, finalHelper.uriRef()));
-                        finalHelper.model().listSubjectsWithProperty(RDF.type, DCAT.CatalogRecord).forEachRemaining(ds -> RdfExtensionsKt.rename(ds, finalHelper.recordUriRef()));
-                    }
-                    store(finalHelper).onComplete(sr -> {
-                        if (sr.succeeded()) {
-                            tripleStore.update("INSERT DATA { GRAPH <"
-                                    + finalHelper.catalogueGraphName() + "> { <"
-                                    + finalHelper.catalogueUriRef() + "> <http://www.w3.org/ns/dcat#record> <"
-                                    + finalHelper.recordUriRef() + "> ; <http://www.w3.org/ns/dcat#dataset> <"
-                                    + finalHelper.uriRef() + "> . } }");
-                            if (validationConfig.getBoolean("enabled", false)) {
-                                validate(finalHelper);
-                            }
-                            handler.handle(Future.succeededFuture(sr.result()));
-                        } else {
-                            handler.handle(Future.failedFuture(sr.cause()));
+                });
+            } else {
+                logger.debug("create");
+                connector.findFreeNormalized(datasetHelper, new AtomicInteger(0), ar -> {
+                    if (ar.succeeded()) {
+                        datasetHelper.init(ar.result());
+                        if (Boolean.TRUE.equals(createAccessURLs)) {
+                            datasetHelper.setAccessURLs(dataUploadConnector);
                         }
-                    });
+                        createOrUpdatePromise.complete();
+                    } else {
+                        createOrUpdatePromise.fail(ar.cause());
+                    }
+                });
+            }
+        }
+
+        return createOrUpdatePromise.future().compose(v -> {
+            Promise<DatasetHelper> translationPromise = Promise.promise();
+            if (translationConfig.getBoolean("enable", false)) {
 
-                }).onFailure(throwable -> handler.handle(Future.failedFuture(throwable)));
+
+                translateUpdate(datasetHelper, oldDataset.get()).onComplete(ar -> {
+                    DatasetHelper finalHelper = ar.succeeded() ? ar.result() : datasetHelper;
+                    translationPromise.complete(finalHelper);
+                });
             } else {
-                handler.handle(Future.failedFuture(dr.cause()));
+                translationPromise.complete(datasetHelper);
             }
+            return translationPromise.future();
+        }).compose(finalHelper -> {
+            if (indexConfig.getBoolean("enabled", true)) {
+                index(finalHelper).onComplete(ar -> {
+                    if (ar.failed()) {
+                        logger.warn("Send dataset to index.", ar.cause());
+                    }
+                });
+            }
+            renameResources(finalHelper);
+            // the write completes with the catalogue link, the next write of the dataset must find its record
+            return store(finalHelper).compose(result -> catalogue(finalHelper)
+                    .onSuccess(u -> {
+                        if (hashIndex != null) {
+                            hashIndex.put(finalHelper.catalogueUriRef(), finalHelper.id(), finalHelper.graphName(), finalHelper.hash());
+                        }
+                    })
+                    .map(result)
+                    .otherwise(result)).onSuccess(result -> {
+                if (validationConfig.getBoolean("enabled", false)) {
+                    validate(finalHelper);
+                }
+            });
         });
-        return this;
     }
 
     @Override
     public DatasetsService postDataset(String datasetString, String contentType, String catalogueId, Boolean createAccessURLs, Handler<AsyncResult<JsonObject>> handler) {
 
-        // 0.  Get New Dataset Id
-        // will not work!
-        Promise<String> newDatsetIdPromise = Promise.promise();
-        connector.newDatasetId(newDatsetIdPromise);
-        newDatsetIdPromise.future().compose(newId -> {
-            // 1. Create Dataset
-            Promise<DatasetHelper> datasetPromise = Promise.promise();
-            DatasetHelper.create(newId, datasetString, contentType,
-                    null, catalogueId, datasetPromise);
-            return datasetPromise.future();
-        }).compose(dataset -> {
+        routing.routeNew(() -> {
+            // 0. New dataset id, within the partition of this instance
+            String newId = routing.newId(catalogueId);
+
+            return routing.submit(DatasetWrites.key(newId, catalogueId), () -> {
+                // 1. Create Dataset
+                Promise<DatasetHelper> datasetPromise = Promise.promise();
+                DatasetHelper.create(newId, datasetString, contentType,
+                        null, catalogueId, datasetPromise);
+                return post(datasetPromise.future(), createAccessURLs);
+            });
+        }, partition -> {
+            Promise<JsonObject> promise = Promise.promise();
+            partition(partition).postDataset(datasetString, contentType, catalogueId, createAccessURLs, promise);
+            return promise.future();
+        }).onComplete(handler);
+
+        return this;
+    }
+
+    private Future<JsonObject> post(Future<DatasetHelper> created, Boolean createAccessURLs) {
+        return created.compose(dataset -> {
             // 2. Check if catalogue exists
             // A little too late if we already count on it when determining the new id
             Promise<JsonObject> catalogueExists = Promise.promise();
@@ -344,14 +749,26 @@ public class DatasetsServiceImpl implements DatasetsService {
             Future<DatasetHelper> indexFuture = this.index(dataset);
             Future<DatasetHelper> catalogueFuture = this.catalogue(dataset);
             return CompositeFuture.all(indexFuture, catalogueFuture).map(dataset);
-        }).compose(this::store).onComplete(handler);
-
-        return this;
+        }).compose(this::store);
     }
 
 
     @Override
     public DatasetsService deleteDataset(String datasetId, String catalogueId, Handler<AsyncResult<JsonObject>> handler) {
+        String key = DatasetWrites.key(datasetId, catalogueId);
+        routing.<JsonObject>route(key, () -> {
+            Promise<JsonObject> promise = Promise.promise();
+            delete(datasetId, catalogueId, promise);
+            return promise.future();
+        }, partition -> {
+            Promise<JsonObject> promise = Promise.promise();
+            partition(partition).deleteDataset(datasetId, catalogueId, promise);
+            return promise.future();
+        }).onComplete(handler);
+        return this;
+    }
+
+    private void delete(String datasetId, String catalogueId, Handler<AsyncResult<JsonObject>> handler) {
         connector.getDatasetUriRefs(datasetId, catalogueId, ar -> {
             if (ar.succeeded()) {
                 JsonObject result = ar.result();
@@ -359,20 +776,29 @@ public class DatasetsServiceImpl implements DatasetsService {
                 DCATAPUriRef schema = DCATAPUriSchema.parseUriRef(datasetUriRef);
 
                 connector.deleteGraph(datasetUriRef, dr -> {
+                    if (graphCache != null) {
+                        graphCache.invalidate(datasetId, catalogueId, schema.getDatasetGraphName());
+                    }
+                    if (hashIndex != null) {
+                        hashIndex.remove(DCATAPUriSchema.applyFor(catalogueId).getCatalogueUriRef(), datasetId, schema.getDatasetGraphName());
+                    }
                     if (dr.failed()) {
                         handler.handle(Future.failedFuture(ar.cause()));
                     } else {
+                        ChangeFeed.emit(vertx, ChangeFeed.DELETE, schema.getId(), catalogueId, null);
                         indexService.deleteDataset(schema.getId(), ir -> {
                             if (ir.failed()) {
                                 logger.error("Remove index", ir.cause());
                             }
                         });
-                        connector.removeDatasetFromCatalogue(datasetUriRef, schema.getRecordUriRef(), res -> {
-                            if (res.failed()) {
-                                logger.error("Remove catalogue entries", ar.cause());
-                            }
-                        });
-                        handler.handle(Future.succeededFuture(new JsonObject().put("status", "deleted")));
+                        DCATAPUriRef catalogueSchema = DCATAPUriSchema.applyFor(catalogueId);
+                        catalogueLinker.unlink(catalogueSchema.getCatalogueGraphName(), catalogueSchema.getCatalogueUriRef(), datasetUriRef, schema.getRecordUriRef())
+                                .onComplete(lr -> {
+                                    if (lr.failed()) {
+                                        logger.error("Remove catalogue entries", lr.cause());
+                                    }
+                                    handler.handle(Future.succeededFuture(new JsonObject().put("status", "deleted")));
+                                });
                     }
                 });
 
@@ -382,11 +808,23 @@ public class DatasetsServiceImpl implements DatasetsService {
                 handler.handle(Future.failedFuture(ar.cause()));
             }
         });
-        return this;
     }
 
     @Override
     public DatasetsService indexDataset(String datasetId, String catalogueId, String defaultLang, Handler<AsyncResult<JsonObject>> handler) {
+        routing.route(DatasetWrites.key(datasetId, catalogueId), () -> {
+            Promise<JsonObject> promise = Promise.promise();
+            indexStored(datasetId, catalogueId, defaultLang, promise);
+            return promise.future();
+        }, partition -> {
+            Promise<JsonObject> promise = Promise.promise();
+            partition(partition).indexDataset(datasetId, catalogueId, defaultLang, promise);
+            return promise.future();
+        }).onComplete(handler);
+        return this;
+    }
+
+    private void indexStored(String datasetId, String catalogueId, String defaultLang, Handler<AsyncResult<JsonObject>> handler) {
         String contentType = "application/n-triples";
         getDataset(datasetId, catalogueId, contentType, ar -> {
             if (ar.succeeded()) {
@@ -394,7 +832,7 @@ public class DatasetsServiceImpl implements DatasetsService {
                     if (dr.succeeded()) {
                         DatasetHelper helper = dr.result();
                         JsonObject indexObject = Indexing.indexingDataset(helper.resource(), catalogueId, defaultLang);
-                        indexService.addDatasetPut(indexObject, ir -> {
+                        indexService.enqueueDataset(indexObject, ir -> {
                             if (ir.failed()) {
                                 handler.handle(Future.failedFuture(ir.cause()));
                             } else {
@@ -409,7 +847,6 @@ public class DatasetsServiceImpl implements DatasetsService {
                 handler.handle(Future.failedFuture(ar.cause()));
             }
         });
-        return this;
     }
 
     @Override
@@ -429,6 +866,16 @@ public class DatasetsServiceImpl implements DatasetsService {
         return this;
     }
 
+    /**
+     * Gives the dataset and record resources their final uriRefs, if the content uses others.
+     */
+    private void renameResources(DatasetHelper helper) {
+        if (!helper.model().containsResource(ModelFactory.createDefaultModel().createResource(helper.uriRef()))) {
+            helper.model().listSubjectsWithProperty(RDF.type, DCAT.Dataset).forEachRemaining(ds -> RdfExtensionsKt.rename(ds, helper.uriRef()));
+            helper.model().listSubjectsWithProperty(RDF.type, DCAT.CatalogRecord).forEachRemaining(ds -> RdfExtensionsKt.rename(ds, helper.recordUriRef()));
+        }
+    }
+
     private Future<DatasetHelper> translate(DatasetHelper helper) {
         Promise<DatasetHelper> promise = Promise.promise();
         translationService.initializeTranslationProcess(helper,null, promise);
@@ -441,7 +888,37 @@ public class DatasetsServiceImpl implements DatasetsService {
         return promise.future();
     }
 
+    private DatasetsService partition(int partition) {
+        return DatasetsService.createProxy(vertx, Partitions.address(SERVICE_ADDRESS, partition), FORWARD_OPTIONS);
+    }
+
+    /**
+     * Hash of a put for the check against the hash index before the content is parsed into a model. The hash is
+     * computed straight from the parser stream, unless given by the caller, and handed on to the dataset, which then
+     * does not hash its model again.
+     *
+     * @return the hash, <code>null</code> if none is given and there is no hash index or the content can not be parsed
+     */
+    private String contentHash(String content, String contentType, String hash) {
+        if (hash != null && !hash.isEmpty()) {
+            return hash;
+        }
+        if (hashIndex == null) {
+            return null;
+        }
+        try {
+            return GraphHash.hash(content.getBytes(), contentType);
+        } catch (Exception e) {
+            // the full parse reports the error
+            return null;
+        }
+    }
+
     private void getHash(DatasetHelper helper, Handler<AsyncResult<JsonObject>> handler) {
+        if (hashIndex != null && hashIndex.unchanged(helper.catalogueUriRef(), helper.id(), helper.hash())) {
+            handler.handle(Future.succeededFuture(new JsonObject().put("success", true).put("hash", helper.hash())));
+            return;
+        }
         String query = "SELECT ?hash ?record WHERE {<" + helper.catalogueUriRef() + "> <" + DCAT.record + "> ?record. ?record <" + DCTerms.identifier + "> \"" + helper.id() + "\"; <" + SPDX.checksum + ">/<" + SPDX.checksumValue + "> ?hash . }";
         tripleStore.select(query, ar -> {
             if (ar.succeeded()) {
@@ -470,12 +947,136 @@ public class DatasetsServiceImpl implements DatasetsService {
         });
     }
 
+    /**
+     * Looks up the stored hashes of many datasets of a catalogue, with one query per {@link #HASH_QUERY_BATCH} ids.
+     *
+     * @return the lookup result per dataset id, in the form of {@link #getHash}
+     */
+    private Future<Map<String, JsonObject>> getHashes(String catalogueUriRef, Collection<DatasetHelper> datasets) {
+        Map<String, JsonObject> hashes = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        datasets.forEach(helper -> {
+            if (hashIndex != null && hashIndex.unchanged(catalogueUriRef, helper.id(), helper.hash())) {
+                hashes.put(helper.id(), new JsonObject().put("success", true).put("hash", helper.hash()));
+            } else {
+                ids.add(helper.id());
+            }
+        });
+        List<Future> queries = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += HASH_QUERY_BATCH) {
+            StringBuilder values = new StringBuilder();
+            ids.subList(i, Math.min(ids.size(), i + HASH_QUERY_BATCH))
+                    .forEach(id -> values.append(" \"").append(id.replace("\\", "\\\\").replace("\"", "\\\"")).append("\""));
+            String query = "SELECT ?id ?hash ?record WHERE { VALUES ?id {" + values + " } <" + catalogueUriRef + "> <" + DCAT.record + "> ?record. ?record <" + DCTerms.identifier + "> ?id; <" + SPDX.checksum + ">/<" + SPDX.checksumValue + "> ?hash . }";
+            queries.add(tripleStore.select(query).onSuccess(set -> set.forEachRemaining(solution -> {
+                RDFNode hash = solution.get("hash");
+                JsonObject result = new JsonObject().put("success", true);
+                if (hash != null && hash.isLiteral()) {
+                    result.put("hash", hash.asLiteral().toString()).put("recordUriRef", solution.getResource("record").toString());
+                }
+                hashes.put(solution.getLiteral("id").getLexicalForm(), result);
+            })));
+        }
+        return CompositeFuture.all(queries).map(hashes);
+    }
+
+    /**
+     * Resolves the uriRef of a dataset by its original id, remembered by the graph cache if enabled.
+     */
+    private Future<String> identify(String datasetId, String catalogueId) {
+        String known = graphCache != null ? graphCache.getIdentity(datasetId, catalogueId) : null;
+        if (known != null) {
+            return Future.succeededFuture(known);
+        }
+        Promise<String> promise = Promise.promise();
+        datasetManager.identify(datasetId, catalogueId, ar -> {
+            if (ar.succeeded()) {
+                String datasetUriRef = ar.result().getFirst().getURI();
+                if (graphCache != null) {
+                    graphCache.putIdentity(datasetId, catalogueId, datasetUriRef);
+                }
+                promise.complete(datasetUriRef);
+            } else {
+                promise.fail(ar.cause());
+            }
+        });
+        return promise.future();
+    }
+
+    /**
+     * Renders a dataset graph, served from the graph cache if possible. The cache holds the rendered serializations,
+     * keyed by the serializer and the content type.
+     */
+    private Future<String> cachedGraph(String graphName, String consumes) {
+        String variant = "rendered " + consumes;
+        String cached = graphCache != null ? graphCache.get(graphName, variant) : null;
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
+        long generation = graphCache != null ? graphCache.generation() : 0;
+        Promise<Model> graphPromise = Promise.promise();
+        datasetManager.getGraph(graphName, graphPromise);
+        return graphPromise.future().map(model -> {
+            String content = Serialization.render(model, consumes);
+            if (graphCache != null) {
+                graphCache.put(graphName, variant, content, generation);
+            }
+            return content;
+        });
+    }
+
+    /**
+     * Streams a dataset graph. Turtle and N-Triples are transcoded while they are read from the triplestore, other
+     * formats need the whole graph and are sent in chunks after rendering.
+     */
+    private void streamGraph(String graphName, String consumes, EventBusStream.Sender sender) {
+        RDFFormat format = NTriplesTranscoder.streamingFormat(consumes);
+        if (format == null) {
+            cachedGraph(graphName, consumes).onSuccess(content -> sender.send(Buffer.buffer(content))).onFailure(sender::fail);
+            return;
+        }
+        String variant = "streamed " + consumes;
+        String cached = graphCache != null ? graphCache.get(graphName, variant) : null;
+        if (cached != null) {
+            sender.send(Buffer.buffer(cached));
+            return;
+        }
+        if (graphCache != null) {
+            long generation = graphCache.generation();
+            sender.capture(graphCache.maxEntryLength(), content -> graphCache.put(graphName, variant, content.toString(), generation));
+        }
+        transcode(format, sender, (sink, failed) -> connector.streamGraph(graphName, sink, failed));
+    }
+
+    private void transcode(RDFFormat format, EventBusStream.Sender sender, BiConsumer<WriteStream<Buffer>, Handler<Throwable>> source) {
+        NTriplesTranscoder transcoder = new NTriplesTranscoder(sender, format).exceptionHandler(sender::fail);
+        Promise<Void> done = Promise.promise();
+        source.accept(transcoder.input(done), done::tryFail);
+        done.future().onSuccess(v -> transcoder.end()).onFailure(sender::fail);
+    }
+
+    private void handleReadFailure(Throwable throwable, Handler<AsyncResult<JsonObject>> handler) {
+        if (throwable.getMessage() != null && throwable.getMessage().startsWith("not found")
+                || throwable instanceof ReplyException && ((ReplyException) throwable).failureCode() == 404) {
+            handler.handle(Future.succeededFuture(new JsonObject().put("status", "not found")));
+        } else {
+            handler.handle(Future.failedFuture(throwable));
+        }
+    }
+
     private Future<JsonObject> store(DatasetHelper helper) {
         Promise<JsonObject> promise = Promise.promise();
         datasetManager.setGraph(helper.graphName(), helper.model()).onComplete(ar -> {
+            if (graphCache != null) {
+                graphCache.invalidate(helper.id(), helper.catalogueId(), helper.graphName());
+            }
+            if (hashIndex != null) {
+                hashIndex.remove(helper.catalogueUriRef(), helper.id(), helper.graphName());
+            }
             if (ar.succeeded()) {
                 switch (ar.result()) {
                     case "created":
+                        ChangeFeed.emit(vertx, ChangeFeed.CREATE, helper.id(), helper.catalogueId(), helper.sourceLang());
                         promise.complete(new JsonObject()
                                 .put("status", "created")
                                 .put("id", helper.id())
@@ -483,6 +1084,7 @@ public class DatasetsServiceImpl implements DatasetsService {
                                 .put(HttpHeaders.LOCATION, helper.uriRef()));
                         break;
                     case "updated":
+                        ChangeFeed.emit(vertx, ChangeFeed.UPDATE, helper.id(), helper.catalogueId(), helper.sourceLang());
                         promise.complete(new JsonObject().put("status", "updated").put(HttpHeaders.LOCATION, helper.uriRef()));
                         break;
                     default:
@@ -496,27 +1098,16 @@ public class DatasetsServiceImpl implements DatasetsService {
     }
 
     private Future<DatasetHelper> catalogue(DatasetHelper helper) {
-        Promise<DatasetHelper> datasetInCatalogue = Promise.promise();
-        connector.addDatasetToCatalogue(helper.uriRef(), helper.recordUriRef(), helper.catalogueUriRef(), res -> {
-            if (res.succeeded()) {
-                HttpResponse<Buffer> response = res.result();
-                if (response.statusCode() == 200) {
-                    logger.debug("Catalogue entries created in {}", helper.catalogueUriRef());
-                    datasetInCatalogue.complete(helper);
-                }
-            } else {
-                logger.error("Adding catalogue entries to " + helper.catalogueUriRef() + ":", res.cause());
-                datasetInCatalogue.fail(res.cause());
-            }
-        });
-
-        return datasetInCatalogue.future();
+        return catalogueLinker.link(helper.catalogueGraphName(), helper.catalogueUriRef(), helper.uriRef(), helper.recordUriRef())
+                .onSuccess(v -> logger.debug("Catalogue entries created in {}", helper.catalogueUriRef()))
+                .onFailure(cause -> logger.error("Adding catalogue entries to " + helper.catalogueUriRef() + ":", cause))
+                .map(helper);
     }
 
     private Future<DatasetHelper> index(DatasetHelper helper) {
         Promise<DatasetHelper> datasetIndexed = Promise.promise();
         JsonObject indexMessage = Indexing.indexingDataset(helper.resource(), helper.catalogueId(), helper.sourceLang());
-        indexService.addDatasetPut(indexMessage, ar -> {
+        indexService.enqueueDataset(indexMessage, ar -> {
             if (ar.succeeded()) {
                 datasetIndexed.complete(helper);
             } else {
@@ -1,24 +1,63 @@
 package io.piveau.hub.services.datasets;
 
+import io.piveau.hub.services.distributions.DistributionsService;
+import io.piveau.hub.services.index.IndexService;
+import io.piveau.hub.services.translation.TranslationService;
+import io.piveau.hub.util.ClientProfiles;
 import io.piveau.hub.util.Constants;
 import io.piveau.hub.util.DataUploadConnector;
+import io.piveau.hub.util.DatasetWrites;
+import io.piveau.hub.util.Partitions;
 import io.piveau.hub.util.TSConnector;
+import io.piveau.hub.util.logger.PiveauLogger;
+import io.piveau.hub.util.logger.PiveauLoggerFactory;
+import io.piveau.pipe.PipeLauncher;
 import io.piveau.pipe.PiveauCluster;
 import io.piveau.json.ConfigHelper;
 import io.piveau.dcatap.TripleStore;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.piveau.hub.util.telemetry.Tracing;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.serviceproxy.ServiceBinder;
 
+/**
+ * Serves the datasets service and, if it claims one, the writes of a dataset partition, see {@link Partitions}. An
+ * instance without a partition tries to claim one every {@link #CLAIM_RETRY_INTERVAL} milliseconds, so partitions
+ * released by an undeployed or failed instance, or by a node that left the cluster, are taken over.
+ */
 public class DatasetsServiceVerticle extends AbstractVerticle {
 
+    private static final long CLAIM_RETRY_INTERVAL = 10000;
+
+    private final PiveauLogger log = PiveauLoggerFactory.getLogger(getClass());
+
+    private Partitions.Claim claim;
+    private boolean claiming;
+
+    private int partitions;
+    private TSConnector connector;
+    private TripleStore tripleStore;
+    private DataUploadConnector dataUploadConnector;
+    private PipeLauncher launcher;
+
+    /**
+     * @return the number of dataset partitions in the cluster, by default one per instance of this verticle
+     */
+    public static int partitions(JsonObject config) {
+        JsonObject scaling = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_SCALING);
+        return scaling.getInteger("datasetPartitions", scaling.getInteger("datasets", 1));
+    }
+
     @Override
     public void start(Promise<Void> startPromise) {
-        WebClient client = WebClient.create(vertx);
+        WebClient client = ClientProfiles.create(vertx, config(), ClientProfiles.TRIPLESTORE);
 
         ConfigHelper configHelper = ConfigHelper.forConfig(config());
         JsonObject conf = configHelper.forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG);
@@ -26,27 +65,111 @@ public class DatasetsServiceVerticle extends AbstractVerticle {
         JsonObject clusterConfig = configHelper.forceJsonObject(Constants.ENV_PIVEAU_CLUSTER_CONFIG);
 
         PiveauCluster.create(vertx, clusterConfig).onComplete(init -> {
-            if (init.succeeded()) {
-                CircuitBreaker breaker = CircuitBreaker.create("virtuoso-breaker", vertx, new CircuitBreakerOptions().setMaxRetries(5))
-                        .retryPolicy(count -> count * 1000L);
+            if (init.failed()) {
+                startPromise.fail(init.cause());
+                return;
+            }
+            partitions = partitions(config());
+
+            CircuitBreaker breaker = CircuitBreaker.create("virtuoso-breaker", vertx, new CircuitBreakerOptions().setMaxRetries(5))
+                    .retryPolicy(count -> count * 1000L);
+            Telemetry.monitor("datasets", breaker);
 
-                TSConnector connector = TSConnector.create(client, breaker, conf);
-                TripleStore tripleStore = new TripleStore(vertx, conf, null);
+            connector = TSConnector.create(client, breaker, conf);
+            tripleStore = new TripleStore(vertx, conf, client);
+            dataUploadConnector = DataUploadConnector.create(ClientProfiles.create(vertx, config(), ClientProfiles.DATA_UPLOAD), dataUploadConf);
+            launcher = init.result().pipeLauncher(vertx);
 
-                DataUploadConnector dataUploadConnector = DataUploadConnector.create(client, dataUploadConf);
+            Partitions.claim(vertx, DatasetsService.SERVICE_ADDRESS, partitions, cl -> {
+                claim = cl.result();
+                DatasetWrites routing = new DatasetWrites(vertx, tripleStore, partitions, claim != null ? claim.partition() : -1);
 
-                DatasetsService.create(tripleStore, connector, dataUploadConnector, config(), init.result().pipeLauncher(vertx), vertx, ready -> {
-                    if (ready.succeeded()) {
-                        new ServiceBinder(vertx).setAddress(DatasetsService.SERVICE_ADDRESS).register(DatasetsService.class, ready.result());
-                        startPromise.complete();
-                    } else {
-                        startPromise.fail(ready.cause());
+                createService(routing).compose(service -> {
+                    new ServiceBinder(vertx).setAddress(DatasetsService.SERVICE_ADDRESS).register(DatasetsService.class, service);
+                    if (claim == null) {
+                        vertx.setPeriodic(CLAIM_RETRY_INTERVAL, this::retryClaim);
+                        return Future.<Void>succeededFuture();
                     }
+                    return servePartition(service, routing);
+                }).onComplete(ar -> {
+                    if (ar.failed() && claim != null) {
+                        // stop() is not called after a failed start
+                        claim.release();
+                        claim = null;
+                    }
+                    startPromise.handle(ar);
                 });
-            } else {
-                startPromise.fail(init.cause());
+            });
+        });
+    }
+
+    private Future<DatasetsService> createService(DatasetWrites routing) {
+        Promise<DatasetsService> promise = Promise.promise();
+        DatasetsService.create(tripleStore, connector, dataUploadConnector, config(), launcher, routing, vertx, promise);
+        return promise.future().map(service -> Tracing.traced(DatasetsService.class, service));
+    }
+
+    /**
+     * Takes over a free partition with its own services, the service address stays with the services of this
+     * instance without a partition.
+     */
+    private void retryClaim(long timerId) {
+        if (claiming) {
+            return;
+        }
+        claiming = true;
+        Partitions.claim(vertx, DatasetsService.SERVICE_ADDRESS, partitions, cl -> {
+            Partitions.Claim taken = cl.result();
+            if (taken == null) {
+                claiming = false;
+                return;
             }
+            DatasetWrites routing = new DatasetWrites(vertx, tripleStore, partitions, taken.partition());
+            createService(routing).compose(service -> servePartition(service, routing)).onComplete(ar -> {
+                claiming = false;
+                if (ar.succeeded()) {
+                    claim = taken;
+                    vertx.cancelTimer(timerId);
+                    log.info("Took over dataset partition {}", taken.partition());
+                } else {
+                    taken.release();
+                    log.warn("Serving dataset partition {} failed: {}", taken.partition(), ar.cause().getMessage());
+                }
+            });
         });
     }
 
+    /**
+     * Serves the dataset writes, the distribution writes and the received translations of the claimed partition, so
+     * they are queued with the dataset writes of this instance. The partition addresses are only bound once all
+     * services are created.
+     */
+    private Future<Void> servePartition(DatasetsService service, DatasetWrites routing) {
+        int partition = routing.partition();
+        Promise<DistributionsService> distributions = Promise.promise();
+        DistributionsService.create(vertx, connector, tripleStore, IndexService.createProxy(vertx, IndexService.SERVICE_ADDRESS),
+                TranslationService.createProxy(vertx, TranslationService.SERVICE_ADDRESS), routing, distributions);
+        Promise<TranslationService> translations = Promise.promise();
+        TranslationService.create(vertx, ClientProfiles.create(vertx, config(), ClientProfiles.TRANSLATION), config(), tripleStore, routing, translations);
+
+        return CompositeFuture.all(distributions.future(), translations.future()).onSuccess(services -> {
+            new ServiceBinder(vertx)
+                    .setAddress(Partitions.address(DatasetsService.SERVICE_ADDRESS, partition))
+                    .register(DatasetsService.class, service);
+            new ServiceBinder(vertx)
+                    .setAddress(Partitions.address(DistributionsService.SERVICE_ADDRESS, partition))
+                    .register(DistributionsService.class, Tracing.traced(DistributionsService.class, distributions.future().result()));
+            new ServiceBinder(vertx)
+                    .setAddress(Partitions.address(TranslationService.SERVICE_ADDRESS, partition))
+                    .register(TranslationService.class, Tracing.traced(TranslationService.class, translations.future().result()));
+        }).mapEmpty();
+    }
+
+    @Override
+    public void stop() {
+        if (claim != null) {
+            claim.release();
+        }
+    }
+
 }
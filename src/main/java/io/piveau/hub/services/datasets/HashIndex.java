@@ -0,0 +1,234 @@
+package io.piveau.hub.services.datasets;
+
+import io.piveau.dcatap.DCATAPUriSchema;
+import io.piveau.hub.util.CatalogueCache;
+import io.piveau.hub.util.DatasetWrites;
+import io.piveau.hub.util.GraphCache;
+import io.piveau.hub.util.StreamProcessor;
+import io.piveau.hub.util.TSConnector;
+import io.piveau.vocabularies.vocabulary.SPDX;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
+import org.apache.jena.ext.com.google.common.hash.HashCode;
+import org.apache.jena.ext.com.google.common.hash.HashFunction;
+import org.apache.jena.ext.com.google.common.hash.Hashing;
+import org.apache.jena.sparql.vocabulary.FOAF;
+import org.apache.jena.vocabulary.DCAT;
+import org.apache.jena.vocabulary.DCTerms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of the stored dataset hashes per catalogue, to detect unchanged datasets without a query.
+ * <p>
+ * A catalogue is loaded with one streaming query once it was looked up <code>loadAfter</code> times, until then lookups
+ * report nothing. Only the datasets of the partition owned by this instance are kept, see {@link DatasetWrites}, so the
+ * instances of a cluster hold one copy of a catalogue between them. Stores and deletes of this instance keep a loaded
+ * catalogue up to date, including those happening while it is loaded. A catalogue is dropped whenever it is invalidated
+ * in the {@link CatalogueCache}, e.g. when it is replaced or cleared. A dataset is dropped whenever its graph is
+ * invalidated in the {@link GraphCache} by any other writer, e.g. another instance or a received translation.
+ * <p>
+ * Hashes are kept as 16 bytes, the 128 bit graph hashes as they are and any other hash digested to that size. The index
+ * is bounded by the number of datasets of the loaded catalogues, counted when a catalogue is loaded.
+ * <p>
+ * The index is only trusted for a positive match, every other case is decided by the triplestore. Loaded catalogues
+ * expire, so that changes missed otherwise are picked up eventually.
+ */
+class HashIndex {
+
+    private static final String QUERY = "SELECT ?id ?hash ?dataset WHERE { <%s> <" + DCAT.record + "> ?record . ?record <" + DCTerms.identifier + "> ?id ; <" + FOAF.primaryTopic + "> ?dataset ; <" + SPDX.checksum + ">/<" + SPDX.checksumValue + "> ?hash . }";
+
+    private static final HashFunction MURMUR = Hashing.murmur3_128();
+    private static final Pattern GRAPH_HASH = Pattern.compile("[0-9a-f]{32}");
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final TSConnector connector;
+    private final DatasetWrites routing;
+
+    private final int loadAfter;
+
+    private final Cache<String, Hashes> catalogues;
+    private final Cache<String, AtomicInteger> lookups;
+    private final Map<String, Loading> loading = new HashMap<>();
+
+    private HashIndex(Vertx vertx, TSConnector connector, DatasetWrites routing, JsonObject config, String origin) {
+        this.connector = connector;
+        this.routing = routing;
+        this.loadAfter = config.getInteger("loadAfter", 100);
+        long ttl = config.getLong("ttl", 3600000L);
+        catalogues = CacheBuilder.newBuilder()
+                .maximumWeight(config.getLong("maxDatasets", 1000000L))
+                .weigher((String catalogueUriRef, Hashes hashes) -> hashes.byId.size())
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+        lookups = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+        vertx.eventBus().<String>consumer(CatalogueCache.INVALIDATE_ADDRESS, message -> clear(message.body()));
+        vertx.eventBus().<String>consumer(GraphCache.INVALIDATE_ADDRESS, message -> {
+            // writes of this instance are already applied by put and remove
+            if (origin == null || !origin.equals(message.headers().get(GraphCache.ORIGIN_HEADER))) {
+                invalidate(message.body());
+            }
+        });
+    }
+
+    /**
+     * @param routing the partition of this instance, which decides the datasets kept
+     * @param origin  the origin of the invalidations published by the graph cache of this instance, see
+     *                {@link GraphCache#origin()}, <code>null</code> without a graph cache
+     * @return the index or <code>null</code> if disabled by <code>enabled = false</code> or if this instance owns no
+     * partition
+     */
+    static HashIndex create(Vertx vertx, TSConnector connector, DatasetWrites routing, JsonObject config, String origin) {
+        return config.getBoolean("enabled", true) && routing.partition() >= 0
+                ? new HashIndex(vertx, connector, routing, config, origin)
+                : null;
+    }
+
+    /**
+     * @return true if the dataset is known with exactly this hash. Starts loading the catalogue if it was looked up
+     * often enough.
+     */
+    boolean unchanged(String catalogueUriRef, String datasetId, String hash) {
+        Hashes hashes = catalogues.getIfPresent(catalogueUriRef);
+        if (hashes == null) {
+            AtomicInteger count = lookups.asMap().computeIfAbsent(catalogueUriRef, uriRef -> new AtomicInteger());
+            if (count.incrementAndGet() >= loadAfter) {
+                lookups.invalidate(catalogueUriRef);
+                load(catalogueUriRef);
+            }
+            return false;
+        }
+        return hash != null && Arrays.equals(digest(hash), hashes.byId.get(datasetId));
+    }
+
+    void put(String catalogueUriRef, String datasetId, String graphName, String hash) {
+        Hashes hashes = catalogues.getIfPresent(catalogueUriRef);
+        if (hashes != null) {
+            hashes.put(datasetId, graphName, hash);
+        }
+        Loading changes = loading.get(catalogueUriRef);
+        if (changes != null) {
+            changes.invalidated.remove(graphName);
+            changes.written.add(new String[]{datasetId, graphName, hash});
+        }
+    }
+
+    void remove(String catalogueUriRef, String datasetId, String graphName) {
+        put(catalogueUriRef, datasetId, graphName, null);
+    }
+
+    void clear(String catalogueUriRef) {
+        loading.remove(catalogueUriRef);
+        catalogues.invalidate(catalogueUriRef);
+    }
+
+    /**
+     * Drops the dataset stored in a graph, in whichever catalogue it is.
+     */
+    void invalidate(String graphName) {
+        if (graphName == null) {
+            return;
+        }
+        catalogues.asMap().values().forEach(hashes -> hashes.invalidate(graphName));
+        loading.values().forEach(changes -> {
+            changes.written.removeIf(change -> graphName.equals(change[1]));
+            changes.invalidated.add(graphName);
+        });
+    }
+
+    private void load(String catalogueUriRef) {
+        if (loading.containsKey(catalogueUriRef)) {
+            return;
+        }
+        String catalogueId = DCATAPUriSchema.parseUriRef(catalogueUriRef).getId();
+        Hashes hashes = new Hashes();
+        Loading changes = new Loading();
+        loading.put(catalogueUriRef, changes);
+        StreamProcessor.forEach(connector.queryStream(String.format(QUERY, catalogueUriRef)), solution -> {
+            String datasetId = solution.getLiteral("id").getLexicalForm();
+            if (routing.owns(DatasetWrites.key(datasetId, catalogueId))) {
+                hashes.put(datasetId,
+                        DCATAPUriSchema.parseUriRef(solution.getResource("dataset").getURI()).getDatasetGraphName(),
+                        solution.getLiteral("hash").getLexicalForm());
+            }
+        }).onComplete(ar -> {
+            if (loading.get(catalogueUriRef) != changes) {
+                // cleared while loading
+                return;
+            }
+            loading.remove(catalogueUriRef);
+            if (ar.succeeded()) {
+                changes.invalidated.forEach(hashes::invalidate);
+                changes.written.forEach(change -> hashes.put(change[0], change[1], change[2]));
+                log.debug("Hash index of {} loaded with {} datasets", catalogueUriRef, hashes.byId.size());
+                catalogues.put(catalogueUriRef, hashes);
+            } else {
+                log.warn("Loading hash index of {} failed: {}", catalogueUriRef, ar.cause().getMessage());
+            }
+        });
+    }
+
+    /**
+     * @return the 16 bytes kept for a hash
+     */
+    private static byte[] digest(String hash) {
+        return GRAPH_HASH.matcher(hash).matches()
+                ? HashCode.fromString(hash).asBytes()
+                : MURMUR.hashString(hash, StandardCharsets.UTF_8).asBytes();
+    }
+
+    private static class Hashes {
+
+        private final Map<String, byte[]> byId = new HashMap<>();
+        private final Map<String, String> idByGraph = new HashMap<>();
+
+        /**
+         * @param hash <code>null</code> removes the dataset
+         */
+        private void put(String datasetId, String graphName, String hash) {
+            if (hash != null) {
+                byId.put(datasetId, digest(hash));
+                idByGraph.put(graphName, datasetId);
+            } else {
+                byId.remove(datasetId);
+                idByGraph.remove(graphName, datasetId);
+            }
+        }
+
+        private void invalidate(String graphName) {
+            String datasetId = idByGraph.remove(graphName);
+            if (datasetId != null) {
+                byId.remove(datasetId);
+            }
+        }
+
+    }
+
+    /**
+     * Changes while a catalogue is loading, applied to the loaded hashes in order.
+     */
+    private static class Loading {
+
+        private final Set<String> invalidated = new HashSet<>();
+        private final List<String[]> written = new ArrayList<>();
+
+    }
+
+}
@@ -3,6 +3,7 @@ package io.piveau.hub.services.distributions;
 import io.piveau.dcatap.TripleStore;
 import io.piveau.hub.services.index.IndexService;
 import io.piveau.hub.services.translation.TranslationService;
+import io.piveau.hub.util.DatasetWrites;
 import io.piveau.hub.util.TSConnector;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.ProxyGen;
@@ -17,8 +18,8 @@ public interface DistributionsService {
     String SERVICE_ADDRESS = "io.piveau.hub.distributions.queue";
 
 
-    static DistributionsService create(TSConnector connector, TripleStore tripleStore, IndexService indexService, TranslationService translationService, Handler<AsyncResult<DistributionsService>> readyHandler) {
-        return new DistributionsServiceImpl(connector, tripleStore, indexService, translationService, readyHandler);
+    static DistributionsService create(Vertx vertx, TSConnector connector, TripleStore tripleStore, IndexService indexService, TranslationService translationService, DatasetWrites routing, Handler<AsyncResult<DistributionsService>> readyHandler) {
+        return new DistributionsServiceImpl(vertx, connector, tripleStore, indexService, translationService, routing, readyHandler);
     }
 
     static DistributionsService createProxy(Vertx vertx, String address) {
@@ -2,8 +2,12 @@ package io.piveau.hub.services.distributions;
 
 import io.piveau.dcatap.TripleStore;
 import io.piveau.hub.dataobjects.DatasetHelper;
+import io.piveau.hub.services.changes.ChangeFeed;
 import io.piveau.hub.services.index.IndexService;
 import io.piveau.hub.services.translation.TranslationService;
+import io.piveau.hub.util.DatasetWrites;
+import io.piveau.hub.util.GraphCache;
+import io.piveau.hub.util.Partitions;
 import io.piveau.hub.util.TSConnector;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
@@ -33,17 +37,23 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 public class DistributionsServiceImpl implements DistributionsService {
 
     private static final String DISTRIBUTION_QUERY = "CONSTRUCT { <%1$s> ?p ?o . ?o ?p2 ?o2 . } WHERE { GRAPH ?g { <%1$s> a <http://www.w3.org/ns/dcat#Distribution>; ?p ?o . OPTIONAL { ?o ?p2 ?o2 } } }";
 
+    private final Vertx vertx;
+
     private final TSConnector connector;
     private final TripleStore tripleStore;
     private final IndexService indexService;
     private final TranslationService translationService;
+    private final DatasetWrites routing;
 
-    DistributionsServiceImpl(TSConnector connector, TripleStore tripleStore, IndexService indexService, TranslationService translationService, Handler<AsyncResult<DistributionsService>> readyHandler) {
+    DistributionsServiceImpl(Vertx vertx, TSConnector connector, TripleStore tripleStore, IndexService indexService, TranslationService translationService, DatasetWrites routing, Handler<AsyncResult<DistributionsService>> readyHandler) {
+        this.vertx = vertx;
+        this.routing = routing;
         this.connector = connector;
         this.tripleStore = tripleStore;
 
@@ -131,6 +141,14 @@ public class DistributionsServiceImpl implements DistributionsService {
 
     @Override
     public DistributionsService postDistribution(String distribution, String datasetId, String contentType, String catalogueId, Handler<AsyncResult<JsonObject>> handler) {
+        routed(Future.succeededFuture(DatasetWrites.key(datasetId, catalogueId)),
+                local -> create(distribution, datasetId, contentType, catalogueId, local),
+                (service, remote) -> service.postDistribution(distribution, datasetId, contentType, catalogueId, remote),
+                handler);
+        return this;
+    }
+
+    private void create(String distribution, String datasetId, String contentType, String catalogueId, Handler<AsyncResult<JsonObject>> handler) {
         PiveauLogger log = PiveauLoggerFactory.getLogger(datasetId, catalogueId, DistributionsServiceImpl.class);
         Promise<JsonObject> uriPromise = Promise.promise();
         connector.getDatasetUriRefs(datasetId, catalogueId, uriPromise);
@@ -168,7 +186,6 @@ public class DistributionsServiceImpl implements DistributionsService {
 
             }
         });
-        return this;
     }
 
 
@@ -183,6 +200,18 @@ public class DistributionsServiceImpl implements DistributionsService {
      */
     @Override
     public DistributionsService putDistributionWithIdentifier(String distribution, String identifier, String contentType, Handler<AsyncResult<JsonObject>> handler) {
+        Promise<JsonObject> distributionUriPromise = Promise.promise();
+        connector.getDistributionUriRefByIdentifier(identifier, distributionUriPromise);
+        routed(distributionUriPromise.future().compose(distributionUri -> distributionUri.containsKey("distributionUriRef")
+                        ? routing.distributionKey(distributionUri.getString("distributionUriRef"))
+                        : Future.<String>succeededFuture()),
+                local -> updateWithIdentifier(distribution, identifier, contentType, local),
+                (service, remote) -> service.putDistributionWithIdentifier(distribution, identifier, contentType, remote),
+                handler);
+        return this;
+    }
+
+    private void updateWithIdentifier(String distribution, String identifier, String contentType, Handler<AsyncResult<JsonObject>> handler) {
         JsonObject responseObject = new JsonObject();
         Promise<JsonObject> distributionUriPromise = Promise.promise();
         connector.getDistributionUriRefByIdentifier(identifier, distributionUriPromise);
@@ -212,7 +241,6 @@ public class DistributionsServiceImpl implements DistributionsService {
             return graphPromise.future();
         }).onSuccess(ds->onPutSuccess(ds, handler))
                 .onFailure(err->onPutFailure(err, responseObject, handler));
-        return this;
     }
 
     /**
@@ -226,6 +254,14 @@ public class DistributionsServiceImpl implements DistributionsService {
      */
     @Override
     public DistributionsService putDistribution(String distribution, String distributionID, String contentType, Handler<AsyncResult<JsonObject>> handler) {
+        routed(routing.distributionKey(DCATAPUriSchema.applyFor(distributionID).getDistributionUriRef()),
+                local -> update(distribution, distributionID, contentType, local),
+                (service, remote) -> service.putDistribution(distribution, distributionID, contentType, remote),
+                handler);
+        return this;
+    }
+
+    private void update(String distribution, String distributionID, String contentType, Handler<AsyncResult<JsonObject>> handler) {
         String distributionUriRef = DCATAPUriSchema.applyFor(distributionID).getDistributionUriRef();
         Promise<JsonObject> graphUriPromise = Promise.promise();
         connector.getDatasetUriRefForDistribution(distributionID, graphUriPromise);
@@ -245,7 +281,6 @@ public class DistributionsServiceImpl implements DistributionsService {
             return graphPromise.future();
         }).onSuccess(ds->onPutSuccess(ds, handler))
                 .onFailure(err->onPutFailure(err, responseObject, handler));
-        return this;
     }
 
     private void onPutSuccess(DatasetHelper helper,  Handler<AsyncResult<JsonObject>> handler ){
@@ -323,6 +358,14 @@ public class DistributionsServiceImpl implements DistributionsService {
      */
     @Override
     public DistributionsService deleteDistribution(String id, Handler<AsyncResult<JsonObject>> handler) {
+        routed(routing.distributionKey(DCATAPUriSchema.applyFor(id).getDistributionUriRef()),
+                local -> remove(id, local),
+                (service, remote) -> service.deleteDistribution(id, remote),
+                handler);
+        return this;
+    }
+
+    private void remove(String id, Handler<AsyncResult<JsonObject>> handler) {
         Promise<JsonObject> graphUriPromise = Promise.promise();
         // We need to get the URI of the enveloping dataset
         connector.getDatasetUriRefForDistribution(id, graphUriPromise);
@@ -391,10 +434,28 @@ public class DistributionsServiceImpl implements DistributionsService {
                 handler.handle(Future.failedFuture(ar.cause()));
             }
         });
-        return this;
     }
 
 
+    /**
+     * Runs a write of a distribution on the datasets instance owning the partition of its dataset, see
+     * {@link DatasetWrites}.
+     *
+     * @param key the partition key of the dataset, <code>null</code> if it does not exist
+     */
+    private void routed(Future<String> key, Handler<Handler<AsyncResult<JsonObject>>> local,
+                        BiConsumer<DistributionsService, Handler<AsyncResult<JsonObject>>> remote, Handler<AsyncResult<JsonObject>> handler) {
+        key.compose(k -> routing.route(k, () -> {
+            Promise<JsonObject> promise = Promise.promise();
+            local.handle(promise);
+            return promise.future();
+        }, partition -> {
+            Promise<JsonObject> promise = Promise.promise();
+            remote.accept(DistributionsService.createProxy(vertx, Partitions.address(SERVICE_ADDRESS, partition)), promise);
+            return promise.future();
+        })).onComplete(handler);
+    }
+
     private void insertDistribution(String id, String catalogueID, String distribution, String datasetGraphName, String contentType, Handler<AsyncResult<JsonObject>> handler) {
         Promise<String> graphPromise = Promise.promise();
 
@@ -486,6 +547,7 @@ public class DistributionsServiceImpl implements DistributionsService {
         PiveauLogger log = PiveauLoggerFactory.getLogger(helper, getClass());
         log.debug("Store dataset");
         connector.putGraph(helper.graphName(), helper.model(), ar -> {
+            GraphCache.publishInvalidation(vertx, helper.graphName());
             if(ar.succeeded()) {
                 HttpResponse<Buffer> response = ar.result();
                 if(response.statusCode() == 200) {
@@ -545,8 +607,9 @@ public class DistributionsServiceImpl implements DistributionsService {
 
     private void index(DatasetHelper helper) {
         PiveauLogger log = PiveauLoggerFactory.getLogger(helper, getClass());
+        ChangeFeed.emit(vertx, ChangeFeed.UPDATE, helper.id(), helper.catalogueId(), helper.sourceLang());
         JsonObject indexMessage = Indexing.indexingDataset(helper.resource(), helper.catalogueId(), helper.sourceLang());
-        indexService.addDatasetPut(indexMessage, ar -> {
+        indexService.enqueueDataset(indexMessage, ar -> {
             if(ar.failed()) {
                 log.error("Indexing", ar.cause());
             }
@@ -2,11 +2,16 @@ package io.piveau.hub.services.distributions;
 
 
 import io.piveau.dcatap.TripleStore;
+import io.piveau.hub.services.datasets.DatasetsServiceVerticle;
 import io.piveau.hub.services.index.IndexService;
 import io.piveau.hub.services.translation.TranslationService;
+import io.piveau.hub.util.ClientProfiles;
 import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.DatasetWrites;
 import io.piveau.hub.util.TSConnector;
 import io.piveau.json.ConfigHelper;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.piveau.hub.util.telemetry.Tracing;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AbstractVerticle;
@@ -19,22 +24,26 @@ public class DistributionsServiceVerticle  extends AbstractVerticle {
 
         @Override
         public void start(Promise<Void> startPromise) {
-            WebClient client = WebClient.create(vertx);
+            WebClient client = ClientProfiles.create(vertx, config(), ClientProfiles.TRIPLESTORE);
 
             JsonObject conf = ConfigHelper.forConfig(config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG);
 
             CircuitBreaker breaker = CircuitBreaker.create("virtuoso-breaker", vertx, new CircuitBreakerOptions().setMaxRetries(5))
                     .retryPolicy(count -> count * 1000L);
+            Telemetry.monitor("distributions", breaker);
 
             TSConnector connector = TSConnector.create(client, breaker, conf);
             IndexService indexService = IndexService.createProxy(vertx, IndexService.SERVICE_ADDRESS);
             TranslationService translationService = TranslationService.createProxy(vertx, TranslationService.SERVICE_ADDRESS);
 
-            TripleStore tripleStore = new TripleStore(vertx, conf);
+            TripleStore tripleStore = new TripleStore(vertx, conf, client);
 
-            DistributionsService.create(connector, tripleStore, indexService, translationService, ready -> {
+            // writes are forwarded to the datasets instance owning the dataset partition
+            DatasetWrites routing = new DatasetWrites(vertx, tripleStore, DatasetsServiceVerticle.partitions(config()), -1);
+
+            DistributionsService.create(vertx, connector, tripleStore, indexService, translationService, routing, ready -> {
                 if (ready.succeeded()) {
-                    new ServiceBinder(vertx).setAddress(DistributionsService.SERVICE_ADDRESS).register(DistributionsService.class, ready.result());
+                    new ServiceBinder(vertx).setAddress(DistributionsService.SERVICE_ADDRESS).register(DistributionsService.class, Tracing.traced(DistributionsService.class, ready.result()));
                     startPromise.complete();
                 } else {
                     startPromise.fail(ready.cause());
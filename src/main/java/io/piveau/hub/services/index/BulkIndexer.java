@@ -0,0 +1,141 @@
+package io.piveau.hub.services.index;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Collects index documents into batches and sends them with {@link IndexService#addDatasetWithoutCB}, with a bounded
+ * number of batches in flight.
+ * <p>
+ * {@link #add} completes as soon as the document is accepted. It is delayed while all send slots are taken, which
+ * throttles the producer to the speed of the search service. The completion handler of each document is called when
+ * its batch was answered.
+ */
+public class BulkIndexer {
+
+    private final IndexService indexService;
+    private final int batchSize;
+    private final int maxInFlight;
+
+    private List<Entry> batch = new ArrayList<>();
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private final List<Promise<Void>> drained = new ArrayList<>();
+
+    private int inFlight;
+
+    private long indexed;
+    private long failed;
+
+    public BulkIndexer(IndexService indexService, int batchSize, int maxInFlight) {
+        this.indexService = indexService;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * @param document   the index document
+     * @param completion called with the outcome for this document once its batch was sent
+     * @return a future completed when the document was accepted
+     */
+    public Future<Void> add(JsonObject document, Handler<AsyncResult<Void>> completion) {
+        batch.add(new Entry(document, completion));
+        if (batch.size() >= batchSize) {
+            return send();
+        } else {
+            return Future.succeededFuture();
+        }
+    }
+
+    /**
+     * Sends the pending documents.
+     *
+     * @return a future completed when all batches were answered
+     */
+    public Future<Void> flush() {
+        if (!batch.isEmpty()) {
+            send();
+        }
+        Promise<Void> promise = Promise.promise();
+        if (inFlight == 0 && waiting.isEmpty()) {
+            promise.complete();
+        } else {
+            drained.add(promise);
+        }
+        return promise.future();
+    }
+
+    public long indexed() {
+        return indexed;
+    }
+
+    public long failed() {
+        return failed;
+    }
+
+    private Future<Void> send() {
+        List<Entry> entries = batch;
+        batch = new ArrayList<>();
+        if (inFlight < maxInFlight) {
+            dispatch(entries);
+            return Future.succeededFuture();
+        } else {
+            Promise<Void> accepted = Promise.promise();
+            waiting.add(() -> {
+                dispatch(entries);
+                accepted.complete();
+            });
+            return accepted.future();
+        }
+    }
+
+    private void dispatch(List<Entry> entries) {
+        inFlight++;
+        JsonArray datasets = new JsonArray();
+        entries.forEach(entry -> datasets.add(entry.document));
+        indexService.addDatasetWithoutCB(new JsonObject().put("datasets", datasets), ar -> {
+            if (ar.succeeded()) {
+                JsonArray results = ar.result() != null ? ar.result().getJsonArray("datasets", new JsonArray()) : new JsonArray();
+                for (int i = 0; i < entries.size(); i++) {
+                    JsonObject result = i < results.size() ? results.getJsonObject(i) : new JsonObject().put("success", false);
+                    if (result.getBoolean("success", false)) {
+                        indexed++;
+                        entries.get(i).completion.handle(Future.succeededFuture());
+                    } else {
+                        failed++;
+                        entries.get(i).completion.handle(Future.failedFuture(String.valueOf(result.getValue("message", "Indexing failed"))));
+                    }
+                }
+            } else {
+                failed += entries.size();
+                entries.forEach(entry -> entry.completion.handle(Future.failedFuture(ar.cause())));
+            }
+            inFlight--;
+            if (!waiting.isEmpty()) {
+                waiting.poll().run();
+            } else if (inFlight == 0) {
+                drained.forEach(Promise::complete);
+                drained.clear();
+            }
+        });
+    }
+
+    private static class Entry {
+        private final JsonObject document;
+        private final Handler<AsyncResult<Void>> completion;
+
+        private Entry(JsonObject document, Handler<AsyncResult<Void>> completion) {
+            this.document = document;
+            this.completion = completion;
+        }
+    }
+
+}
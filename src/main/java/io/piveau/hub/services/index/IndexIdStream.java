@@ -0,0 +1,162 @@
+package io.piveau.hub.services.index;
+
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.predicate.ResponsePredicate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Enumerates the dataset ids of a catalogue directly from Elasticsearch.
+ * <p>
+ * Pages are requested with <code>search_after</code> on the id, so there is no result window limit and only one page
+ * is held in memory. Pages are only fetched when there is demand.
+ * <p>
+ * The catalogue is matched with a phrase query, which works whether <code>catalog.id</code> is mapped as keyword or
+ * as analyzed text. As an analyzed phrase may also match other catalogue ids, e.g. <code>gov</code> within
+ * <code>gov-data</code>, only hits whose stored catalogue id is exactly the requested one are emitted.
+ */
+public class IndexIdStream implements ReadStream<String> {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final WebClient client;
+    private final String address;
+    private final String catalogueId;
+
+    private final Deque<String> buffer = new ArrayDeque<>();
+
+    private JsonArray searchAfter;
+    private boolean exhausted;
+    private boolean fetching;
+    private boolean emitting;
+    private boolean ended;
+    private long demand = Long.MAX_VALUE;
+
+    private Handler<String> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+
+    /**
+     * @param address     base address of Elasticsearch
+     * @param catalogueId the catalogue whose datasets are enumerated
+     */
+    public IndexIdStream(WebClient client, String address, String catalogueId) {
+        this.client = client;
+        this.address = address;
+        this.catalogueId = catalogueId;
+    }
+
+    @Override
+    public IndexIdStream exceptionHandler(Handler<Throwable> handler) {
+        exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public IndexIdStream handler(Handler<String> handler) {
+        this.handler = handler;
+        if (handler != null) {
+            drain();
+        }
+        return this;
+    }
+
+    @Override
+    public IndexIdStream pause() {
+        demand = 0;
+        return this;
+    }
+
+    @Override
+    public IndexIdStream resume() {
+        return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public IndexIdStream fetch(long amount) {
+        demand += amount;
+        if (demand < 0) {
+            demand = Long.MAX_VALUE;
+        }
+        drain();
+        return this;
+    }
+
+    @Override
+    public IndexIdStream endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    private void drain() {
+        if (emitting || ended) {
+            return;
+        }
+        emitting = true;
+        try {
+            while (demand > 0 && handler != null && !buffer.isEmpty()) {
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+                handler.handle(buffer.poll());
+            }
+        } finally {
+            emitting = false;
+        }
+
+        if (buffer.isEmpty()) {
+            if (exhausted) {
+                ended = true;
+                if (endHandler != null) {
+                    endHandler.handle(null);
+                }
+            } else if (!fetching && demand > 0 && handler != null) {
+                nextPage();
+            }
+        }
+    }
+
+    private void nextPage() {
+        fetching = true;
+        JsonObject query = new JsonObject()
+                .put("size", PAGE_SIZE)
+                .put("_source", new JsonArray().add("id").add("catalog.id"))
+                .put("query", new JsonObject().put("match_phrase", new JsonObject().put("catalog.id", catalogueId)))
+                .put("sort", new JsonArray().add(new JsonObject().put("id", "asc")));
+        if (searchAfter != null) {
+            query.put("search_after", searchAfter);
+        }
+
+        client.postAbs(address + "/dataset/_search")
+                .expect(ResponsePredicate.SC_OK)
+                .sendJsonObject(query, ar -> {
+                    fetching = false;
+                    if (ar.succeeded()) {
+                        JsonArray hits = ar.result().bodyAsJsonObject()
+                                .getJsonObject("hits", new JsonObject())
+                                .getJsonArray("hits", new JsonArray());
+                        hits.stream().map(JsonObject.class::cast).forEach(hit -> {
+                            searchAfter = hit.getJsonArray("sort");
+                            JsonObject source = hit.getJsonObject("_source", new JsonObject());
+                            String id = source.getString("id", hit.getString("_id"));
+                            if (id != null && catalogueId.equals(source.getJsonObject("catalog", new JsonObject()).getString("id"))) {
+                                buffer.add(id);
+                            }
+                        });
+                        exhausted = hits.size() < PAGE_SIZE || searchAfter == null;
+                        drain();
+                    } else {
+                        ended = true;
+                        if (exceptionHandler != null) {
+                            exceptionHandler.handle(ar.cause());
+                        }
+                    }
+                });
+    }
+
+}
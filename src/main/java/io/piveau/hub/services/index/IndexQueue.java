@@ -0,0 +1,222 @@
+package io.piveau.hub.services.index;
+
+import io.piveau.hub.util.Journal;
+import io.piveau.hub.util.logger.PiveauLogger;
+import io.piveau.hub.util.logger.PiveauLoggerFactory;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Write-behind queue for dataset index updates.
+ * <p>
+ * Updates are keyed by dataset id, so a later update of a pending dataset replaces the earlier one. The queue is
+ * flushed as a bulk request when it reaches the batch size or when the flush interval elapses, with at most one flush
+ * in flight. Failed items are queued again, up to a retry limit, unless they were superseded in the meantime.
+ * <p>
+ * If a journal is configured, every update is appended to it before it is acknowledged and replayed on start. The
+ * journal is compacted whenever the queue runs empty or the journal outgrows the queue, so delivery is at least once.
+ */
+public class IndexQueue {
+
+    private final PiveauLogger log = PiveauLoggerFactory.getLogger(getClass());
+
+    private final IndexService indexService;
+
+    private final int batchSize;
+    private final int maxRetries;
+
+    private final LinkedHashMap<String, JsonObject> pending = new LinkedHashMap<>();
+    private final Map<String, JsonObject> inFlight = new LinkedHashMap<>();
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final Set<String> superseded = new HashSet<>();
+
+    private Journal journal;
+
+    private long enqueued;
+    private long coalesced;
+    private long flushed;
+    private long failed;
+
+    /**
+     * @param config the <code>queue</code> object of the search service configuration
+     * @param instance the number of the index service instance within the node, see {@link Journal#path(String, int)},
+     *                 <code>-1</code> for no journal
+     */
+    IndexQueue(Vertx vertx, IndexService indexService, JsonObject config, int instance) {
+        this.indexService = indexService;
+        this.batchSize = config.getInteger("batchSize", 500);
+        this.maxRetries = config.getInteger("maxRetries", 5);
+
+        String journalPath = config.getString("journal");
+        if (journalPath != null && !journalPath.isBlank() && instance < 0) {
+            log.warn("No free journal of {} for this index instance, queue is not persistent", journalPath);
+        } else if (journalPath != null && !journalPath.isBlank()) {
+            try {
+                journal = new Journal(Journal.path(journalPath, instance), config.getBoolean("journalSync", true));
+                journal.read().forEach(entry -> {
+                    if (entry.getBoolean("deleted", false)) {
+                        pending.remove(entry.getString("id"));
+                    } else {
+                        pending.put(entry.getString("id"), entry.getJsonObject("dataset"));
+                    }
+                });
+                if (!pending.isEmpty()) {
+                    log.info("Replayed {} pending index updates from {}", pending.size(), journalPath);
+                }
+                compact();
+            } catch (IOException e) {
+                log.error("Opening index journal " + journalPath + " failed, queue is not persistent", e);
+                journal = null;
+            }
+        }
+
+        Telemetry.queue("index", this, queue -> queue.pending.size() + queue.inFlight.size());
+        vertx.setPeriodic(config.getLong("flushInterval", 1000L), id -> flush());
+    }
+
+    /**
+     * Queues an index document. Returns only after the update was journaled.
+     */
+    void enqueue(JsonObject dataset) throws IOException {
+        String id = dataset.getString("id");
+        if (journal != null) {
+            journal.append(new JsonObject().put("id", id).put("dataset", dataset));
+        }
+        enqueued++;
+        if (pending.put(id, dataset) != null) {
+            coalesced++;
+        }
+        attempts.remove(id);
+        superseded.remove(id);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+        compactIfOutgrown();
+    }
+
+    /**
+     * Drops the queued update of a deleted dataset. Returns only after the removal was journaled.
+     */
+    void remove(String id) throws IOException {
+        if (journal != null) {
+            journal.append(new JsonObject().put("id", id).put("deleted", true));
+        }
+        pending.remove(id);
+        attempts.remove(id);
+        if (inFlight.containsKey(id)) {
+            superseded.add(id);
+        }
+        compactIfOutgrown();
+    }
+
+    private void compactIfOutgrown() {
+        if (journal != null && journal.size() > 4 * Math.max(batchSize, pending.size() + inFlight.size())) {
+            compact();
+        }
+    }
+
+    JsonObject status() {
+        return new JsonObject()
+                .put("pending", pending.size())
+                .put("inFlight", inFlight.size())
+                .put("enqueued", enqueued)
+                .put("coalesced", coalesced)
+                .put("flushed", flushed)
+                .put("failed", failed)
+                .put("journal", journal != null ? journal.path().toString() : null)
+                .put("journalSize", journal != null ? journal.size() : 0);
+    }
+
+    private void flush() {
+        if (!inFlight.isEmpty() || pending.isEmpty()) {
+            return;
+        }
+
+        JsonArray datasets = new JsonArray();
+        Iterator<Map.Entry<String, JsonObject>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && datasets.size() < batchSize) {
+            Map.Entry<String, JsonObject> entry = iterator.next();
+            inFlight.put(entry.getKey(), entry.getValue());
+            datasets.add(entry.getValue());
+            iterator.remove();
+        }
+
+        indexService.addDatasetWithoutCB(new JsonObject().put("datasets", datasets), ar -> {
+            List<String> retry = new ArrayList<>();
+            if (ar.succeeded()) {
+                ar.result().getJsonArray("datasets", new JsonArray()).stream()
+                        .map(JsonObject.class::cast)
+                        .forEach(item -> {
+                            if (item.getBoolean("success", false)) {
+                                flushed++;
+                                attempts.remove(item.getString("id"));
+                            } else {
+                                log.warn("Indexing dataset {} failed: {}", item.getString("id"), item.getValue("message"));
+                                retry.add(item.getString("id"));
+                            }
+                        });
+            } else {
+                log.error("Flushing " + datasets.size() + " index updates failed", ar.cause());
+                retry.addAll(inFlight.keySet());
+            }
+            List<String> deleted = new ArrayList<>(superseded);
+            superseded.clear();
+            retry.removeAll(deleted);
+            failed += retry.size();
+            retry.forEach(id -> {
+                JsonObject dataset = inFlight.get(id);
+                if (dataset != null && !pending.containsKey(id)) {
+                    int attempt = attempts.merge(id, 1, Integer::sum);
+                    if (attempt <= maxRetries) {
+                        pending.put(id, dataset);
+                    } else {
+                        log.error("Dropping index update of dataset {} after {} attempts", id, attempt);
+                        attempts.remove(id);
+                    }
+                }
+            });
+            inFlight.clear();
+            deleted.forEach(id -> indexService.deleteDataset(id, dr -> {
+                if (dr.failed()) {
+                    log.error("Deleting the index entry of dataset " + id + " again failed", dr.cause());
+                }
+            }));
+
+            if (pending.isEmpty()) {
+                compact();
+            } else if (ar.succeeded() && retry.isEmpty()) {
+                flush();
+            }
+        });
+    }
+
+    private void compact() {
+        if (journal != null) {
+            try {
+                List<JsonObject> content = new ArrayList<>();
+                inFlight.forEach((id, dataset) -> {
+                    if (!pending.containsKey(id) && !superseded.contains(id)) {
+                        content.add(new JsonObject().put("id", id).put("dataset", dataset));
+                    }
+                });
+                pending.forEach((id, dataset) -> content.add(new JsonObject().put("id", id).put("dataset", dataset)));
+                journal.rewrite(content);
+            } catch (IOException e) {
+                log.error("Compacting index journal", e);
+            }
+        }
+    }
+
+}
@@ -16,8 +16,13 @@ import io.vertx.ext.web.client.WebClient;
 public interface IndexService {
     String SERVICE_ADDRESS = "io.piveau.hub.index.queue";
 
-    static IndexService create(WebClient client, CircuitBreaker breaker, JsonObject config, Handler<AsyncResult<IndexService>> readyHandler) {
-        return new IndexServiceImpl(client, breaker, config, readyHandler);
+    /**
+     * @param instance the number of this instance within the node, selects its queue journal, <code>-1</code> for none
+     * @param instances the number of instances within the node, the datasets are spread over their queues
+     * @param elasticsearch base address of Elasticsearch, used for batched deletes
+     */
+    static IndexService create(Vertx vertx, WebClient client, CircuitBreaker breaker, JsonObject config, int instance, int instances, String elasticsearch, Handler<AsyncResult<IndexService>> readyHandler) {
+        return new IndexServiceImpl(vertx, client, breaker, config, instance, instances, elasticsearch, readyHandler);
     }
 
     static IndexService createProxy(Vertx vertx, String address) {
@@ -33,6 +38,9 @@ public interface IndexService {
     @Fluent
     IndexService deleteDataset(String id, Handler<AsyncResult<JsonObject>> handler);
 
+    @Fluent
+    IndexService deleteDatasets(JsonArray ids, Handler<AsyncResult<JsonObject>> handler);
+
     @Fluent
     IndexService deleteCatalog(String id, Handler<AsyncResult<JsonObject>> handler);
 
@@ -48,4 +56,10 @@ public interface IndexService {
     @Fluent
     IndexService addDatasetPut(JsonObject dataset, Handler<AsyncResult<JsonObject>> handler);
 
+    @Fluent
+    IndexService enqueueDataset(JsonObject dataset, Handler<AsyncResult<JsonObject>> handler);
+
+    @Fluent
+    IndexService getQueueStatus(Handler<AsyncResult<JsonObject>> handler);
+
 }
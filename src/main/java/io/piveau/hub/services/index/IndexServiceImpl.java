@@ -1,5 +1,6 @@
 package io.piveau.hub.services.index;
 
+import io.piveau.hub.util.Partitions;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
 import io.vertx.circuitbreaker.CircuitBreaker;
@@ -11,9 +12,14 @@ import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class IndexServiceImpl implements IndexService {
 
@@ -23,120 +29,160 @@ public class IndexServiceImpl implements IndexService {
     private Integer port;
     private String url;
     private String apiKey;
+    private String elasticsearch;
 
+    private Cache<String, Boolean> knownIds;
 
-    IndexServiceImpl(WebClient client, CircuitBreaker breaker, JsonObject config, Handler<AsyncResult<IndexService>> readyHandler) {
+    private IndexQueue queue;
+
+    private int instance;
+    private IndexService[] queues;
+
+    IndexServiceImpl(Vertx vertx, WebClient client, CircuitBreaker breaker, JsonObject config, int instance, int instances, String elasticsearch, Handler<AsyncResult<IndexService>> readyHandler) {
         this.client = client;
         this.breaker = breaker;
+        this.elasticsearch = elasticsearch;
 
         this.port = config.getInteger("port", 8080);
         this.url = config.getString("url", "localhost");
         this.apiKey = config.getString("api_key", "");
 
+        int knownIdsSize = config.getInteger("known_ids_cache_size", 0);
+        if (knownIdsSize > 0) {
+            knownIds = CacheBuilder.newBuilder().maximumSize(knownIdsSize).build();
+        }
+
+        JsonObject queueConfig = config.getJsonObject("queue", new JsonObject());
+        if (queueConfig.getBoolean("enabled", true)) {
+            queue = new IndexQueue(vertx, this, queueConfig, instance);
+            this.instance = instance;
+            if (instance >= 0 && instances > 1) {
+                queues = new IndexService[instances];
+                for (int i = 0; i < instances; i++) {
+                    queues[i] = IndexService.createProxy(vertx, Partitions.address(IndexService.SERVICE_ADDRESS, i));
+                }
+            }
+        }
+
         readyHandler.handle(Future.succeededFuture(this));
     }
 
     /**
-     * Sends a dataset to the search service
+     * Sends a batch of datasets to the search service with bulk requests, without checking their existence first. The
+     * batch is sent as an update, the datasets the search service reports as not found are then sent as a create. The
+     * result contains one entry per dataset under <code>datasets</code>, in the order of the batch, each with the
+     * dataset id and its <code>success</code> flag.
      *
-     * @param dataset
+     * @param dataset object with a <code>datasets</code> array
      */
     @Override
     public IndexService addDatasetWithoutCB(JsonObject dataset, Handler<AsyncResult<JsonObject>> handler) {
+        PiveauLogger LOGGER = PiveauLoggerFactory.getLogger(getClass());
 
-        JsonObject payload = dataset;
+        JsonArray datasets = dataset.getJsonArray("datasets", new JsonArray());
+        if (datasets.isEmpty()) {
+            handler.handle(Future.succeededFuture(new JsonObject().put("datasets", new JsonArray())));
+            return this;
+        }
 
-        JsonArray putArray = new JsonArray();
-        JsonArray postArray = new JsonArray();
-
-        List<Future> existList = new ArrayList<>();
-
-        payload.getJsonArray("datasets").forEach(item -> {
-            JsonObject obj = (JsonObject) item;
-            PiveauLogger LOGGER = PiveauLoggerFactory.getDatasetLogger(obj.getString("id"),getClass());
-            Promise existPromise = Promise.promise();
-            existList.add(existPromise.future());
-            entityExists(obj.getString("id"), "datasets").onComplete(existHandler -> {
-                if (existHandler.succeeded()) {
-                    if (existHandler.result()) {
-                        putArray.add(obj);
-                        existPromise.complete();
-                    } else {
-                        postArray.add(obj);
-                        existPromise.complete();
-                    }
+        sendBulk(client.put(this.port, this.url, "/datasets"), datasets).onComplete(put -> {
+            if (put.failed()) {
+                LOGGER.error("Unable to send " + datasets.size() + " datasets to Search Service", put.cause());
+                handler.handle(Future.failedFuture(put.cause()));
+                return;
+            }
+            JsonArray results = put.result();
+            JsonArray postArray = new JsonArray();
+            for (int i = 0; i < datasets.size(); i++) {
+                if (results.getJsonObject(i).getInteger("status", 200) == 404) {
+                    postArray.add(datasets.getJsonObject(i));
+                }
+            }
+            sendBulk(client.post(this.port, this.url, "/datasets"), postArray).onComplete(post -> {
+                Map<String, JsonObject> created = new HashMap<>();
+                if (post.succeeded()) {
+                    post.result().stream().map(JsonObject.class::cast).forEach(item -> created.put(item.getString("id"), item));
                 } else {
-                    LOGGER.error("Unable to check if dataset exits" + existHandler.cause());
-                    existPromise.complete();
+                    LOGGER.error("Unable to send " + postArray.size() + " new datasets to Search Service", post.cause());
+                    postArray.stream().map(JsonObject.class::cast).forEach(obj -> created.put(obj.getString("id"),
+                            new JsonObject().put("id", obj.getString("id")).put("success", false).put("message", post.cause().getMessage())));
                 }
+                for (int i = 0; i < results.size(); i++) {
+                    JsonObject item = created.getOrDefault(results.getJsonObject(i).getString("id"), results.getJsonObject(i));
+                    results.set(i, item);
+                    if (item.getBoolean("success", false)) {
+                        markKnown(item.getString("id"));
+                    }
+                }
+                handler.handle(Future.succeededFuture(new JsonObject().put("datasets", results)));
             });
         });
+        return this;
+    }
 
-        // LOGGER.info(payload.encodePrettily());
-        PiveauLogger LOGGER = PiveauLoggerFactory.getLogger(getClass());
-
-        CompositeFuture.all(existList).onComplete(ar -> {
-            if (ar.succeeded()) {
-
-                JsonObject putDatasets = new JsonObject();
-                JsonObject postDatasets = new JsonObject();
-
-                putDatasets.put("datasets", putArray);
-                postDatasets.put("datasets", postArray);
-
-
-                if (putArray.size() != 0) {
-                    HttpRequest<Buffer> putRequest = client.put(this.port, this.url, "/datasets")
-                            .putHeader("Authorization", this.apiKey)
-                            .putHeader("Content-Type", "application/json");
-
-                    breaker.execute(promise -> putRequest.sendJsonObject(putDatasets, ar2 -> {
-                        if (ar2.succeeded()) {
-                            promise.complete();
-                        } else {
-                            LOGGER.error("Unable to send dataset to Search Service. ", ar2.cause());
-                            promise.fail(ar2.cause());
-                        }
-                    })).onComplete(ar2 -> {
-                        if (ar2.succeeded()) {
-                            handler.handle(Future.succeededFuture());
-                        } else {
-                            LOGGER.error("Unable to send dataset to Search Service");
-                            handler.handle(Future.failedFuture(ar2.cause()));
-                        }
-                    });
-
-                }
+    /**
+     * @return the results of the sent datasets, see {@link #itemResults(JsonArray, HttpResponse)}
+     */
+    private Future<JsonArray> sendBulk(HttpRequest<Buffer> request, JsonArray datasets) {
+        if (datasets.isEmpty()) {
+            return Future.succeededFuture(new JsonArray());
+        }
+        request.putHeader("Authorization", this.apiKey)
+                .putHeader("Content-Type", "application/json")
+                .expect(ResponsePredicate.SC_SUCCESS);
+        return breaker.<HttpResponse<Buffer>>execute(promise -> request.sendJsonObject(new JsonObject().put("datasets", datasets), promise))
+                .map(response -> itemResults(datasets, response));
+    }
 
-                if (postArray.size() != 0) {
-                    HttpRequest<Buffer> postRequest = client.post(this.port, this.url, "/datasets")
-                            .putHeader("Authorization", this.apiKey)
-                            .putHeader("Content-Type", "application/json");
+    /**
+     * Maps the bulk response to one result per sent dataset. Items the search service does not report on, or a
+     * response that can not be read, count as failed, so they are retried rather than lost.
+     */
+    private JsonArray itemResults(JsonArray datasets, HttpResponse<Buffer> response) {
+        Map<String, JsonObject> reported = new HashMap<>();
+        String unreported = "Not reported by the search service";
+        try {
+            JsonObject body = response.bodyAsJsonObject();
+            Object result = body != null ? body.getValue("result") : null;
+            if (result instanceof JsonArray) {
+                ((JsonArray) result).stream()
+                        .filter(JsonObject.class::isInstance)
+                        .map(JsonObject.class::cast)
+                        .filter(item -> item.containsKey("id"))
+                        .forEach(item -> reported.put(item.getString("id"), item));
+            }
+        } catch (Exception e) {
+            unreported = "Unreadable response of the search service: " + e.getMessage();
+        }
 
-                    breaker.execute(promise -> postRequest.sendJsonObject(postDatasets, ar2 -> {
-                        if (ar2.succeeded()) {
-                            promise.complete();
-                        } else {
-                            LOGGER.error(ar2.cause().getMessage());
-                            promise.fail(ar2.cause());
-                        }
-                    })).onComplete(ar2 -> {
-                        if (ar2.succeeded()) {
-                            handler.handle(Future.succeededFuture());
-                        } else {
-                            LOGGER.error("Unable to send dataset to Search Service");
-                            handler.handle(Future.failedFuture(ar2.cause()));
-                        }
-                    });
-                }
+        JsonArray results = new JsonArray();
+        for (Object obj : datasets) {
+            String id = ((JsonObject) obj).getString("id");
+            JsonObject item = reported.get(id);
+            JsonObject itemResult = new JsonObject().put("id", id);
+            if (item == null) {
+                itemResult.put("success", false).put("message", unreported);
             } else {
-                handler.handle(Future.failedFuture(ar.cause()));
+                int status = item.getInteger("status", 200);
+                itemResult.put("success", item.getBoolean("success", status >= 200 && status < 300)).put("status", status);
+                if (item.containsKey("message")) {
+                    itemResult.put("message", item.getValue("message"));
+                }
             }
+            results.add(itemResult);
+        }
+        return results;
+    }
 
-        });
-        return this;
+    private boolean isKnown(String id) {
+        return knownIds != null && id != null && knownIds.getIfPresent(id) != null;
     }
 
+    private void markKnown(String id) {
+        if (knownIds != null && id != null) {
+            knownIds.put(id, Boolean.TRUE);
+        }
+    }
 
     /**
      * Sends a dataset to the search service
@@ -149,7 +195,9 @@ public class IndexServiceImpl implements IndexService {
 
         // LOGGER.info(payload.encodePrettily());
 
-        Future<Boolean> datasetExists = entityExists(payload.getString("id"), "datasets");
+        Future<Boolean> datasetExists = isKnown(payload.getString("id"))
+                ? Future.succeededFuture(true)
+                : entityExists(payload.getString("id"), "datasets");
 
         datasetExists.onComplete(ar -> {
             if (ar.succeeded()) {
@@ -161,6 +209,7 @@ public class IndexServiceImpl implements IndexService {
                     breaker.execute(promise -> request.sendJsonObject(payload, ar2 -> {
                         if (ar2.succeeded()) {
                             if (ar2.result().statusCode() == 200) {
+                                markKnown(payload.getString("id"));
                                 promise.complete();
                             } else {
                                 promise.fail(ar2.result().bodyAsString());
@@ -183,6 +232,7 @@ public class IndexServiceImpl implements IndexService {
                     breaker.execute(promise -> request.sendJsonObject(payload, ar2 -> {
                         if (ar2.succeeded()) {
                             if (ar2.result().statusCode() == 201) {
+                                markKnown(payload.getString("id"));
                                 promise.complete();
                             } else {
                                 promise.fail(ar2.result().bodyAsString());
@@ -226,6 +276,7 @@ public class IndexServiceImpl implements IndexService {
             if (ar.succeeded()) {
                 JsonObject result = ar.result().bodyAsJsonObject();
                 if (result.getBoolean("success")) {
+                    markKnown(dataset.getString("id"));
                     handler.handle(Future.succeededFuture());
                 } else {
                     handler.handle(Future.failedFuture(result.getJsonObject("result").encodePrettily()));
@@ -237,10 +288,91 @@ public class IndexServiceImpl implements IndexService {
         return this;
     }
 
+    /**
+     * @return the number of the instance of this node whose queue holds the updates of a dataset
+     */
+    private int queueOf(String datasetId) {
+        return queues != null ? Partitions.partition(datasetId, queues.length) : instance;
+    }
+
+    /**
+     * Hands a dataset over to the write-behind queue. Falls back to {@link #addDatasetPut} if the queue is disabled.
+     * <p>
+     * Every dataset has one queue per node, selected by a hash of its id, so its updates are coalesced and kept in
+     * order. Updates for another queue are forwarded to its instance, or queued here if it is not running.
+     *
+     * @param dataset the index document
+     */
+    @Override
+    public IndexService enqueueDataset(JsonObject dataset, Handler<AsyncResult<JsonObject>> handler) {
+        if (dataset.isEmpty()) {
+            handler.handle(Future.failedFuture("Empty index object"));
+        } else if (queue == null) {
+            addDatasetPut(dataset, handler);
+        } else if (queueOf(dataset.getString("id", "")) != instance) {
+            queues[queueOf(dataset.getString("id", ""))].enqueueDataset(dataset, ar -> {
+                if (ar.failed() && Partitions.unclaimed(ar.cause())) {
+                    enqueueLocal(dataset, handler);
+                } else {
+                    handler.handle(ar);
+                }
+            });
+        } else {
+            enqueueLocal(dataset, handler);
+        }
+        return this;
+    }
+
+    private void enqueueLocal(JsonObject dataset, Handler<AsyncResult<JsonObject>> handler) {
+        try {
+            queue.enqueue(dataset);
+            handler.handle(Future.succeededFuture());
+        } catch (IOException e) {
+            handler.handle(Future.failedFuture(e));
+        }
+    }
+
+    @Override
+    public IndexService getQueueStatus(Handler<AsyncResult<JsonObject>> handler) {
+        if (queue != null) {
+            handler.handle(Future.succeededFuture(queue.status().put("enabled", true)));
+        } else {
+            handler.handle(Future.succeededFuture(new JsonObject().put("enabled", false)));
+        }
+        return this;
+    }
+
+    /**
+     * Deletes a dataset on the instance holding its queue, see {@link #enqueueDataset(JsonObject, Handler)}.
+     */
     @Override
     public IndexService deleteDataset(String datasetId, Handler<AsyncResult<JsonObject>> handler) {
+        if (queue != null && queueOf(datasetId) != instance) {
+            queues[queueOf(datasetId)].deleteDataset(datasetId, ar -> {
+                if (ar.failed() && Partitions.unclaimed(ar.cause())) {
+                    deleteLocal(datasetId, handler);
+                } else {
+                    handler.handle(ar);
+                }
+            });
+        } else {
+            deleteLocal(datasetId, handler);
+        }
+        return this;
+    }
+
+    private void deleteLocal(String datasetId, Handler<AsyncResult<JsonObject>> handler) {
         PiveauLogger LOGGER = PiveauLoggerFactory.getDatasetLogger(datasetId,getClass());
 
+        if (queue != null) {
+            try {
+                queue.remove(datasetId);
+            } catch (IOException e) {
+                handler.handle(Future.failedFuture(e));
+                return;
+            }
+        }
+
         HttpRequest<Buffer> request = client.delete(this.port, this.url, "/datasets/" + datasetId)
                 .putHeader("Authorization", this.apiKey)
                 .putHeader("Content-Type", "application/json")
@@ -249,15 +381,98 @@ public class IndexServiceImpl implements IndexService {
         request.send(ar -> {
             if (ar.succeeded()) {
                 LOGGER.debug("Successfully deleted dataset from Search Service with id " + datasetId);
+                if (knownIds != null) {
+                    knownIds.invalidate(datasetId);
+                }
                 handler.handle(Future.succeededFuture());
             } else {
                 LOGGER.error("Unable to delete dataset from Search Service");
                 handler.handle(Future.failedFuture(ar.cause()));
             }
         });
+    }
+
+    /**
+     * Deletes a batch of datasets with one Elasticsearch bulk request per queue holding them. Pending queue entries of
+     * the datasets are dropped first, like in {@link #deleteDataset(String, Handler)}. Datasets failing to delete are
+     * skipped.
+     *
+     * @param ids the dataset ids
+     * @param handler the number of deleted datasets under <code>deleted</code>
+     */
+    @Override
+    public IndexService deleteDatasets(JsonArray ids, Handler<AsyncResult<JsonObject>> handler) {
+        Map<Integer, JsonArray> byQueue = new HashMap<>();
+        ids.forEach(id -> byQueue.computeIfAbsent(queue != null ? queueOf(id.toString()) : instance, q -> new JsonArray()).add(id));
+
+        List<Future> deletes = new ArrayList<>();
+        byQueue.forEach((q, batch) -> {
+            Promise<JsonObject> promise = Promise.promise();
+            if (q == instance) {
+                deleteLocal(batch, promise);
+            } else {
+                queues[q].deleteDatasets(batch, ar -> {
+                    if (ar.failed() && Partitions.unclaimed(ar.cause())) {
+                        deleteLocal(batch, promise);
+                    } else {
+                        promise.handle(ar);
+                    }
+                });
+            }
+            deletes.add(promise.future());
+        });
+        CompositeFuture.all(deletes).onComplete(ar -> {
+            if (ar.succeeded()) {
+                int deleted = deletes.stream().mapToInt(f -> ((JsonObject) f.result()).getInteger("deleted", 0)).sum();
+                handler.handle(Future.succeededFuture(new JsonObject().put("deleted", deleted)));
+            } else {
+                handler.handle(Future.failedFuture(ar.cause()));
+            }
+        });
         return this;
     }
 
+    private void deleteLocal(JsonArray ids, Handler<AsyncResult<JsonObject>> handler) {
+        PiveauLogger LOGGER = PiveauLoggerFactory.getLogger(getClass());
+        Buffer body = Buffer.buffer();
+        for (Object id : ids) {
+            if (queue != null) {
+                try {
+                    queue.remove(id.toString());
+                } catch (IOException e) {
+                    handler.handle(Future.failedFuture(e));
+                    return;
+                }
+            }
+            body.appendString(new JsonObject()
+                    .put("delete", new JsonObject().put("_index", "dataset").put("_id", id.toString()))
+                    .encode()).appendString("\n");
+        }
+
+        HttpRequest<Buffer> request = client.postAbs(elasticsearch + "/_bulk")
+                .putHeader("Content-Type", "application/x-ndjson")
+                .expect(ResponsePredicate.SC_SUCCESS);
+        breaker.<HttpResponse<Buffer>>execute(promise -> request.sendBuffer(body, promise)).onComplete(ar -> {
+            if (ar.succeeded()) {
+                int deleted = 0;
+                JsonArray items = ar.result().bodyAsJsonObject().getJsonArray("items", new JsonArray());
+                for (Object obj : items) {
+                    JsonObject item = ((JsonObject) obj).getJsonObject("delete", new JsonObject());
+                    if (knownIds != null) {
+                        knownIds.invalidate(item.getString("_id", ""));
+                    }
+                    if (item.getInteger("status", 500) == 200) {
+                        deleted++;
+                    }
+                }
+                handler.handle(Future.succeededFuture(new JsonObject().put("deleted", deleted)));
+            } else {
+                LOGGER.error("Unable to delete " + ids.size() + " datasets from Elasticsearch", ar.cause());
+                handler.handle(Future.failedFuture(ar.cause()));
+            }
+        });
+    }
+
     @Override
     public IndexService listAllDatasets(int pageLimit, int currentPage, Handler<AsyncResult<JsonObject>> handler) {
         PiveauLogger LOGGER = PiveauLoggerFactory.getLogger(getClass());
@@ -1,8 +1,12 @@
 package io.piveau.hub.services.index;
 
+import io.piveau.hub.util.ClientProfiles;
 import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.Partitions;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
 import io.piveau.json.ConfigHelper;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.piveau.hub.util.telemetry.Tracing;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AbstractVerticle;
@@ -13,27 +17,49 @@ import io.vertx.serviceproxy.ServiceBinder;
 
 public class IndexServiceVerticle extends AbstractVerticle {
 
+    private static final String JOURNAL_SLOT = "io.piveau.hub.index.journal";
 
+    private Partitions.Claim slot;
 
     @Override
     public void start(Promise<Void> startPromise) {
         PiveauLoggerFactory.getLogger(getClass()).info("Starting IndexService Verticle");
 
         JsonObject conf = ConfigHelper.forConfig(config()).forceJsonObject(Constants.ENV_PIVEAU_HUB_SEARCH_SERVICE);
-        WebClient client = WebClient.create(vertx);
+        WebClient client = ClientProfiles.create(vertx, config(), ClientProfiles.SEARCH);
 
         CircuitBreaker breaker = CircuitBreaker.create("index-breaker", vertx, new CircuitBreakerOptions()
                 .setMaxRetries(0).setTimeout(100000L))
                 .retryPolicy(count -> count * 1000L);
+        Telemetry.monitor("index", breaker);
 
-        IndexService.create(client, breaker, conf, ready -> {
-            if (ready.succeeded()) {
-                new ServiceBinder(vertx).setAddress(IndexService.SERVICE_ADDRESS).register(IndexService.class, ready.result());
-                startPromise.complete();
-            } else {
-                startPromise.fail(ready.cause());
-            }
+        String elasticsearch = config().getString(Constants.ENV_PIVEAU_HUB_ELASTICSEARCH_ADDRESS, "http://elasticsearch:9200");
+
+        // every instance of this node gets its own queue journal
+        int instances = ConfigHelper.forConfig(config()).forceJsonObject(Constants.ENV_PIVEAU_HUB_SCALING).getInteger("index", 1);
+        Partitions.claimLocal(vertx, JOURNAL_SLOT, instances, cl -> {
+            slot = cl.result();
+            IndexService.create(vertx, client, breaker, conf, slot != null ? slot.partition() : -1, instances, elasticsearch, ready -> {
+                if (ready.succeeded()) {
+                    IndexService service = Tracing.traced(IndexService.class, ready.result());
+                    new ServiceBinder(vertx).setAddress(IndexService.SERVICE_ADDRESS).register(IndexService.class, service);
+                    if (slot != null) {
+                        // the queue of this instance, for updates forwarded by the other instances of the node
+                        new ServiceBinder(vertx).setAddress(Partitions.address(IndexService.SERVICE_ADDRESS, slot.partition())).registerLocal(IndexService.class, service);
+                    }
+                    startPromise.complete();
+                } else {
+                    startPromise.fail(ready.cause());
+                }
+            });
         });
     }
 
+    @Override
+    public void stop() {
+        if (slot != null) {
+            slot.release();
+        }
+    }
+
 }
@@ -4,6 +4,7 @@ import io.piveau.hub.util.Constants;
 import io.piveau.pipe.PiveauCluster;
 import io.piveau.json.ConfigHelper;
 import io.piveau.dcatap.TripleStore;
+import io.piveau.hub.util.telemetry.Tracing;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
@@ -22,7 +23,7 @@ public class MetricsServiceVerticle extends AbstractVerticle {
                 .onSuccess(cluster ->
                         MetricsService.create(tripleStore, config(), cluster.pipeLauncher(vertx), ready -> {
                             if (ready.succeeded()) {
-                                new ServiceBinder(vertx).setAddress(MetricsService.SERVICE_ADDRESS).register(MetricsService.class, ready.result());
+                                new ServiceBinder(vertx).setAddress(MetricsService.SERVICE_ADDRESS).register(MetricsService.class, Tracing.traced(MetricsService.class, ready.result()));
                                 startPromise.complete();
                             } else {
                                 startPromise.fail(ready.cause());
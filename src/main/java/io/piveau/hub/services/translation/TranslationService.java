@@ -2,6 +2,7 @@ package io.piveau.hub.services.translation;
 
 import io.piveau.hub.dataobjects.DatasetHelper;
 import io.piveau.dcatap.TripleStore;
+import io.piveau.hub.util.DatasetWrites;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.ProxyGen;
 import io.vertx.core.AsyncResult;
@@ -16,9 +17,9 @@ public interface TranslationService {
 
     // Required static methods
     // based on the documentation (https://github.com/vert-x3/vertx-service-proxy)
-    static TranslationService create(Vertx vertx, WebClient client, JsonObject config, TripleStore tripleStore,
+    static TranslationService create(Vertx vertx, WebClient client, JsonObject config, TripleStore tripleStore, DatasetWrites routing,
                                      Handler<AsyncResult<TranslationService>> readyHandler) {
-        return new TranslationServiceImpl(vertx, client, config, tripleStore, readyHandler);
+        return new TranslationServiceImpl(vertx, client, config, tripleStore, routing, readyHandler);
     }
 
     static TranslationService createProxy(Vertx vertx, String address) {
@@ -5,8 +5,12 @@ import io.piveau.dcatap.DCATAPUriSchema;
 import io.piveau.dcatap.DatasetManager;
 import io.piveau.dcatap.TripleStore;
 import io.piveau.hub.dataobjects.DatasetHelper;
+import io.piveau.hub.services.changes.ChangeFeed;
 import io.piveau.hub.services.index.IndexService;
 import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.DatasetWrites;
+import io.piveau.hub.util.GraphCache;
+import io.piveau.hub.util.Partitions;
 import io.piveau.indexing.Indexing;
 import io.piveau.json.ConfigHelper;
 import io.piveau.utils.Piveau;
@@ -16,6 +20,7 @@ import io.piveau.vocabularies.vocabulary.EDP;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
@@ -46,6 +51,8 @@ public class TranslationServiceImpl implements TranslationService {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private final Vertx vertx;
+
     private final JsonObject callbackParameters;
 
     private final List<String> translationLanguages;
@@ -54,6 +61,8 @@ public class TranslationServiceImpl implements TranslationService {
     private final TripleStore tripleStore;
     private final IndexService indexService;
 
+    private final DatasetWrites routing;
+
     private final HttpRequest<Buffer> translationServiceRequest;
 
     private final PiveauContext moduleContext;
@@ -63,8 +72,10 @@ public class TranslationServiceImpl implements TranslationService {
             WebClient client,
             JsonObject config,
             TripleStore tripleStore,
+            DatasetWrites routing,
             Handler<AsyncResult<TranslationService>> readyHandler) {
 
+        this.vertx = vertx;
         JsonObject translationConfig = ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_TRANSLATION_SERVICE);
         translationLanguages = translationConfig.getJsonArray("accepted_languages").getList();
 
@@ -81,6 +92,7 @@ public class TranslationServiceImpl implements TranslationService {
         datasetManager = tripleStore.getDatasetManager();
         this.tripleStore = tripleStore;
         this.indexService = IndexService.createProxy(vertx, IndexService.SERVICE_ADDRESS);
+        this.routing = routing;
 
         moduleContext = new PiveauContext("hub", "Translation");
 
@@ -128,9 +140,26 @@ public class TranslationServiceImpl implements TranslationService {
 
     @Override
     public TranslationService receiveTranslation(JsonObject translation, Handler<AsyncResult<JsonObject>> asyncHandler) {
+        DCATAPUriRef uriRef = DCATAPUriSchema.applyFor(translation.getString("id"));
+        routing.datasetKey(uriRef.getDatasetUriRef())
+                .compose(key -> routing.<JsonObject>route(key, () -> {
+                    Promise<JsonObject> promise = Promise.promise();
+                    storeTranslation(translation, uriRef, promise);
+                    return promise.future();
+                }, partition -> {
+                    Promise<JsonObject> promise = Promise.promise();
+                    TranslationService.createProxy(vertx, Partitions.address(SERVICE_ADDRESS, partition))
+                            .receiveTranslation(translation, promise);
+                    return promise.future();
+                }))
+                .onComplete(asyncHandler);
+
+        return this;
+    }
+
+    private void storeTranslation(JsonObject translation, DCATAPUriRef uriRef, Handler<AsyncResult<JsonObject>> asyncHandler) {
         PiveauContext resourceContext = moduleContext.extend(translation.getString("id"));
         resourceContext.log().debug("Incoming translation: {}", translation.encodePrettily());
-        DCATAPUriRef uriRef = DCATAPUriSchema.applyFor(translation.getString("id"));
         datasetManager.getGraph(uriRef.getDatasetGraphName(), ar -> {
             if(ar.succeeded()) {
 
@@ -159,8 +188,6 @@ public class TranslationServiceImpl implements TranslationService {
                 asyncHandler.handle(Future.failedFuture(ar.cause()));
             }
         });
-
-        return this;
     }
 
     private void addTranslationsToModel(Resource resource, JsonObject translations, String originalLanguage) {
@@ -225,6 +252,7 @@ public class TranslationServiceImpl implements TranslationService {
 
     private void sendTranslationToStore(DCATAPUriRef uriRef, Model model) {
         datasetManager.setGraph(uriRef.getDatasetGraphName(), model, ar -> {
+            GraphCache.publishInvalidation(vertx, uriRef.getDatasetGraphName());
             if(ar.succeeded()) {
                 log.debug("Dataset updated with translation information in store successful.");
             } else {
@@ -244,7 +272,8 @@ public class TranslationServiceImpl implements TranslationService {
                         RDFNode l = solution.get("l");
                         String language = Languages.INSTANCE.iso6391Code(Languages.INSTANCE.getConcept(l.asResource()));
                         String id = DCATAPUriSchema.parseUriRef(c.asResource().getURI()).getId();
-                        indexService.addDatasetPut(Indexing.indexingDataset(resource, id, language), ir -> {
+                        ChangeFeed.emit(vertx, ChangeFeed.UPDATE, DCATAPUriSchema.parseUriRef(resource.getURI()).getId(), id, language);
+                        indexService.enqueueDataset(Indexing.indexingDataset(resource, id, language), ir -> {
                             if(ir.succeeded()) {
                                 log.debug("Successfully send to Index Service");
                             } else {
@@ -259,7 +288,8 @@ public class TranslationServiceImpl implements TranslationService {
                 }
             });
         } else {
-            indexService.addDatasetPut(Indexing.indexingDataset(resource, catalogueId, defaultLanguage), ir -> {
+            ChangeFeed.emit(vertx, ChangeFeed.UPDATE, DCATAPUriSchema.parseUriRef(resource.getURI()).getId(), catalogueId, defaultLanguage);
+            indexService.enqueueDataset(Indexing.indexingDataset(resource, catalogueId, defaultLanguage), ir -> {
                 if(ir.succeeded()) {
                     log.debug("Successfully send to Index Service");
                 } else {
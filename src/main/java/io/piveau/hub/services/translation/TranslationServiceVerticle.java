@@ -1,12 +1,15 @@
 package io.piveau.hub.services.translation;
 
+import io.piveau.hub.services.datasets.DatasetsServiceVerticle;
+import io.piveau.hub.util.ClientProfiles;
 import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.DatasetWrites;
 import io.piveau.json.ConfigHelper;
 import io.piveau.dcatap.TripleStore;
+import io.piveau.hub.util.telemetry.Tracing;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.WebClient;
 import io.vertx.serviceproxy.ServiceBinder;
 
 public class TranslationServiceVerticle extends AbstractVerticle {
@@ -15,11 +18,13 @@ public class TranslationServiceVerticle extends AbstractVerticle {
     public void start(Promise<Void> startPromise) {
         JsonObject conf = ConfigHelper.forConfig(config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG);
         TripleStore tripleStore = new TripleStore(vertx, conf, null);
-        TranslationService.create(vertx, WebClient.create(vertx), config(), tripleStore, readyHandler -> {
+        // received translations are forwarded to the datasets instance owning the dataset partition
+        DatasetWrites routing = new DatasetWrites(vertx, tripleStore, DatasetsServiceVerticle.partitions(config()), -1);
+        TranslationService.create(vertx, ClientProfiles.create(vertx, config(), ClientProfiles.TRANSLATION), config(), tripleStore, routing, readyHandler -> {
             if (readyHandler.succeeded()) {
                 new ServiceBinder(vertx)
                         .setAddress(TranslationService.SERVICE_ADDRESS)
-                        .register(TranslationService.class, readyHandler.result());
+                        .register(TranslationService.class, Tracing.traced(TranslationService.class, readyHandler.result()));
                 startPromise.complete();
             } else if (readyHandler.failed()) {
                 startPromise.fail(readyHandler.cause());
@@ -0,0 +1,47 @@
+package io.piveau.hub.shell;
+
+import io.piveau.hub.services.changes.ChangeFeed;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.CommandLine;
+import io.vertx.core.cli.Option;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+
+public class ChangesCommand {
+
+    private static final long REINDEX_TIMEOUT = 60 * 60 * 1000L;
+
+    private Command command;
+
+    private ChangesCommand(Vertx vertx) {
+        command = CommandBuilder.command(
+                CLI.create("changes")
+                        .setDescription("Shows the state of the change feed or reindexes the datasets changed since the last pass.")
+                        .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
+                        .addOption(new Option().setFlag(true).setArgName("reindex").setShortName("r").setLongName("reindex"))
+        ).processHandler(process -> {
+            CommandLine commandLine = process.commandLine();
+            boolean reindex = commandLine.isFlagEnabled("reindex");
+            String address = reindex ? ChangeFeed.REINDEX_ADDRESS : ChangeFeed.STATUS_ADDRESS;
+            if (reindex) {
+                process.write("Reindexing changed datasets...\n");
+            }
+            vertx.eventBus().<JsonObject>request(address, new JsonObject(), new DeliveryOptions().setSendTimeout(REINDEX_TIMEOUT), ar -> {
+                if (ar.succeeded()) {
+                    process.write(ar.result().body().encodePrettily() + "\n");
+                } else {
+                    process.write("Change feed not available: " + ar.cause().getMessage() + "\n");
+                }
+                process.end();
+            });
+        }).build(vertx);
+    }
+
+    public static Command create(Vertx vertx) {
+        return new ChangesCommand(vertx).command;
+    }
+
+}
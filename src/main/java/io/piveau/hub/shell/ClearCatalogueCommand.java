@@ -1,15 +1,17 @@
 package io.piveau.hub.shell;
 
 import io.piveau.hub.services.index.IndexService;
+import io.piveau.hub.util.CatalogueCache;
+import io.piveau.hub.util.ClientProfiles;
 import io.piveau.hub.util.Constants;
-import io.piveau.dcatap.CatalogueManager;
+import io.piveau.hub.util.GraphCache;
+import io.piveau.hub.util.StreamProcessor;
+import io.piveau.hub.util.TSConnector;
 import io.piveau.json.ConfigHelper;
 import io.piveau.dcatap.DatasetManager;
 import io.piveau.dcatap.TripleStore;
 import io.piveau.dcatap.DCATAPUriRef;
 import io.piveau.dcatap.DCATAPUriSchema;
-import io.vertx.core.CompositeFuture;
-import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.cli.Argument;
@@ -20,30 +22,29 @@ import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandProcess;
 import kotlin.Unit;
-import org.apache.jena.ext.com.google.common.collect.Lists;
-import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.RDFNode;
-import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.vocabulary.DCAT;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ClearCatalogueCommand {
 
+    private static final String DELETE_DATA = "DELETE DATA { GRAPH <%s> {<%s> <http://www.w3.org/ns/dcat#dataset> <%s> ; <http://www.w3.org/ns/dcat#record> <%s> . } }";
+
+    private static final int CONCURRENCY = 50;
+
     private Command command;
 
     private IndexService indexService;
 
     private TripleStore tripleStore;
-    private CatalogueManager catalogueManager;
     private DatasetManager datasetManager;
+    private TSConnector connector;
 
     private ClearCatalogueCommand(Vertx vertx) {
         indexService = IndexService.createProxy(vertx, IndexService.SERVICE_ADDRESS);
         tripleStore = new TripleStore(vertx, ConfigHelper.forConfig(vertx.getOrCreateContext().config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG), null);
-        catalogueManager = tripleStore.getCatalogueManager();
         datasetManager = tripleStore.getDatasetManager();
+        connector = TSConnector.create(ClientProfiles.create(vertx, vertx.getOrCreateContext().config(), ClientProfiles.TRIPLESTORE), null, ConfigHelper.forConfig(vertx.getOrCreateContext().config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG));
 
         command = CommandBuilder.command(
                 CLI.create("clear")
@@ -70,72 +71,52 @@ public class ClearCatalogueCommand {
 
         process.write("Start clearing catalogue " + catalogueSchema.getId() + (keepIndex ? ", keeping index.\n" : "\n"));
 
-        catalogueManager.get(catalogueId).onComplete(ar -> {
-            if (ar.succeeded()) {
-                Model catalogueModel = ar.result();
-                Resource catalogue = catalogueModel.getResource(catalogueSchema.getCatalogueUriRef());
-
-                List<Resource> datasets = catalogueModel.listObjectsOfProperty(DCAT.dataset).mapWith(RDFNode::asResource).toList();
-                process.write("Found " + datasets.size() + " datasets\n");
-
-                List<List<Resource>> partitions = Lists.partition(datasets, 1000);
-                Promise<Void> partitionsPromise = Promise.promise();
-                nextPartition(catalogue, partitions, 0, process, partitionsPromise);
-                partitionsPromise.future().onComplete(pr -> {
-                    if (pr.succeeded()) {
-                        catalogueManager.set(catalogueId, catalogueModel).onComplete(gr -> {});
-                        process.write("Catalogue " + catalogueId + " cleared.\n");
-                    } else {
-                        process.write("Clear catalogue failed: " + pr.cause().getMessage() + "\n");
+        AtomicInteger counter = new AtomicInteger();
+        StreamProcessor.process(connector.streamCatalogueMembers(catalogueSchema.getCatalogueUriRef(), DCAT.dataset), CONCURRENCY, dataset -> {
+            DCATAPUriRef datasetSchema = DCATAPUriSchema.parseUriRef(dataset.getURI());
+            Promise<Void> datasetPromise = Promise.promise();
+            datasetManager.deleteGraph(datasetSchema.getDatasetGraphName(), dr -> {
+                GraphCache.publishInvalidation(process.vertx(), datasetSchema.getDatasetGraphName());
+                if (dr.succeeded()) {
+                    process.write("Dataset " + datasetSchema.getId() + " removed from triple store\n");
+                    counter.incrementAndGet();
+
+                    tripleStore.deleteGraph(datasetSchema.getMetricsGraphName());
+
+                    if (!keepIndex) {
+                        indexService.deleteDataset(datasetSchema.getId(), ir -> {
+                            if (ir.failed()) {
+                                process.write("Dataset " + datasetSchema.getId() + " could not be removed from index: " + ir.cause().getMessage() + "\n");
+                            }
+                        });
                     }
-                    process.end();
-                });
-            } else {
-                process.write("Can't get catalogue " + catalogueId + ": " + ar.cause().getMessage() + "\n");
-            }
-        });
-
-    }
 
-    private void nextPartition(Resource catalogue, List<List<Resource>> partitions, int index, CommandProcess process, Promise<Void> promise) {
-        if (index >= partitions.size()) {
-            process.write("No more partitions\n");
-            promise.complete();
-        } else {
-            List<Future<Void>> futures = new ArrayList<>();
-            List<Resource> partition = partitions.get(index);
-            partition.forEach(dataset -> {
-                DCATAPUriRef datasetSchema = DCATAPUriSchema.parseUriRef(dataset.asResource().getURI());
-                Promise<Void> datasetPromise = Promise.promise();
-                futures.add(datasetPromise.future());
-                datasetManager.deleteGraph(datasetSchema.getDatasetGraphName(), dr -> {
-                    if (dr.succeeded()) {
-                        process.write("Dataset " + datasetSchema.getId() + " removed from triple store\n");
-
-                        tripleStore.deleteGraph(datasetSchema.getMetricsGraphName());
-
-                        if (!process.commandLine().isFlagEnabled("keepIndex")) {
-                            indexService.deleteDataset(datasetSchema.getId(), ir -> {
-                                if (ir.failed()) {
-                                    process.write("Dataset " + datasetSchema.getId() + " could not be removed from index: " + ir.cause().getMessage() + "\n");
+                    tripleStore.update(String.format(DELETE_DATA, catalogueSchema.getCatalogueGraphName(), catalogueSchema.getCatalogueUriRef(), datasetSchema.getDatasetUriRef(), datasetSchema.getRecordUriRef()))
+                            .onComplete(ur -> {
+                                if (ur.succeeded()) {
+                                    datasetPromise.complete();
+                                } else {
+                                    process.write("Dataset " + datasetSchema.getId() + " could not be removed from catalogue: " + ur.cause().getMessage() + "\n");
+                                    datasetPromise.fail(ur.cause());
                                 }
                             });
-                        }
-
-                        datasetPromise.complete();
-                    } else {
-                        datasetPromise.fail(dr.cause());
-                    }
-                    return Unit.INSTANCE;
-                });
-                Model catalogueModel = catalogue.getModel();
-                catalogueModel
-                        .remove(catalogue, DCAT.dataset, catalogueModel.createResource(datasetSchema.getDatasetUriRef()))
-                        .remove(catalogue, DCAT.record, catalogueModel.createResource(datasetSchema.getRecordUriRef()));
+                } else {
+                    process.write("Dataset " + datasetSchema.getId() + " could not be removed from triple store: " + dr.cause().getMessage() + "\n");
+                    datasetPromise.fail(dr.cause());
+                }
+                return Unit.INSTANCE;
             });
-            CompositeFuture.join(new ArrayList<>(futures)).onComplete(cf ->
-                nextPartition(catalogue, partitions, index + 1, process, promise));
-        }
+            return datasetPromise.future();
+        }).onComplete(pr -> {
+            CatalogueCache.invalidate(process.vertx(), catalogueSchema.getCatalogueUriRef());
+            GraphCache.publishIdentityInvalidation(process.vertx(), null, catalogueSchema.getId());
+            if (pr.succeeded()) {
+                process.write("Catalogue " + catalogueId + " cleared, " + counter.get() + " datasets removed.\n");
+            } else {
+                process.write("Clear catalogue failed: " + pr.cause().getMessage() + "\n");
+            }
+            process.end();
+        });
     }
 
 }
@@ -0,0 +1,36 @@
+package io.piveau.hub.shell;
+
+import io.piveau.hub.util.GraphCache;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.Option;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+
+public class GraphCacheCommand {
+
+    private Command command;
+
+    private GraphCacheCommand(Vertx vertx) {
+        command = CommandBuilder.command(
+                CLI.create("graphcache")
+                        .setDescription("Shows size and hit rate of the dataset graph cache.")
+                        .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
+        ).processHandler(process ->
+                vertx.eventBus().<JsonObject>request(GraphCache.STATUS_ADDRESS, new JsonObject(), ar -> {
+                    if (ar.succeeded()) {
+                        process.write(ar.result().body().encodePrettily() + "\n");
+                    } else {
+                        process.write("Graph cache not available: " + ar.cause().getMessage() + "\n");
+                    }
+                    process.end();
+                })
+        ).build(vertx);
+    }
+
+    public static Command create(Vertx vertx) {
+        return new GraphCacheCommand(vertx).command;
+    }
+
+}
@@ -0,0 +1,368 @@
+package io.piveau.hub.shell;
+
+import io.piveau.hub.services.datasets.BulkDatasets;
+import io.piveau.hub.services.datasets.DatasetsService;
+import io.piveau.hub.util.Constants;
+import io.piveau.json.ConfigHelper;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.Argument;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.CommandLine;
+import io.vertx.core.cli.Option;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.command.CommandProcess;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+
+import java.io.StringWriter;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Imports a file chunk by chunk. The file is streamed, every {@link #chunkSize} datasets are sent as NDJSON to the
+ * import of the datasets service, with at most {@link #concurrency} chunks in flight.
+ * <p>
+ * The graphs of a N-Quads or TriG file are read one after the other, so all quads of a graph have to be contiguous.
+ * A graph name showing up again after another graph is reported as failed.
+ */
+public class ImportCommand {
+
+    private static final long TIMEOUT = 6 * 60 * 60 * 1000L;
+
+    private Command command;
+
+    private DatasetsService datasetsService;
+
+    private final int chunkSize;
+    private final int concurrency;
+
+    private ImportCommand(Vertx vertx) {
+        datasetsService = DatasetsService.createProxy(vertx, DatasetsService.SERVICE_ADDRESS, new DeliveryOptions().setSendTimeout(TIMEOUT));
+
+        JsonObject importConfig = ConfigHelper.forConfig(vertx.getOrCreateContext().config()).forceJsonObject(Constants.ENV_PIVEAU_HUB_BULK_IMPORT);
+        chunkSize = importConfig.getInteger("chunkSize", 100);
+        concurrency = importConfig.getInteger("concurrency", 2);
+
+        command = CommandBuilder.command(
+                CLI.create("import")
+                        .setDescription("Imports a file of datasets into a catalogue, writing new datasets in chunks.")
+                        .addArgument(
+                                new Argument()
+                                        .setIndex(0)
+                                        .setArgName("catalogueId")
+                                        .setRequired(true)
+                                        .setDescription("The id of the target catalogue."))
+                        .addArgument(
+                                new Argument()
+                                        .setIndex(1)
+                                        .setArgName("file")
+                                        .setRequired(true)
+                                        .setDescription("N-Quads, TriG or NDJSON file, each graph or line one dataset."))
+                        .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
+                        .addOption(new Option().setArgName("contentType").setShortName("t").setLongName("contentType")
+                                .setDescription("Content type of the file, derived from the file extension if omitted."))
+                        .addOption(new Option().setFlag(true).setArgName("verbose").setShortName("v").setLongName("verbose"))
+        ).processHandler(process -> {
+            CommandLine commandLine = process.commandLine();
+            importFile(vertx, process, commandLine.getArgumentValue(0), commandLine.getArgumentValue(1));
+        }).build(vertx);
+    }
+
+    public static Command create(Vertx vertx) {
+        return new ImportCommand(vertx).command;
+    }
+
+    private void importFile(Vertx vertx, CommandProcess process, String catalogueId, String file) {
+        String contentType = process.commandLine().getOptionValue("contentType");
+        if (contentType == null) {
+            contentType = contentType(file);
+        }
+        if (contentType == null) {
+            process.write("Unknown file type of " + file + ", please provide a content type.\n").end();
+            return;
+        }
+        Summary summary = new Summary(catalogueId, process.commandLine().isFlagEnabled("verbose"));
+
+        process.write("Start importing " + file + " into " + catalogueId + "\n");
+        if (BulkDatasets.NDJSON.equals(contentType)) {
+            importLines(vertx, process, file, summary);
+        } else {
+            Lang lang = RDFLanguages.contentTypeToLang(contentType);
+            if (lang == null || !RDFLanguages.isQuads(lang)) {
+                process.write("Unsupported content type " + contentType + "\n").end();
+                return;
+            }
+            importGraphs(vertx, process, file, lang, summary);
+        }
+    }
+
+    /**
+     * Streams a NDJSON file line by line, pausing the file while {@link #concurrency} chunks are in flight.
+     */
+    private void importLines(Vertx vertx, CommandProcess process, String file, Summary summary) {
+        vertx.fileSystem().open(file, new OpenOptions().setRead(true).setWrite(false).setCreate(false), or -> {
+            if (or.failed()) {
+                process.write("Reading " + file + " failed: " + or.cause().getMessage() + "\n").end();
+                return;
+            }
+            AsyncFile asyncFile = or.result();
+            RecordParser parser = RecordParser.newDelimited("\n", asyncFile);
+            Chunk[] chunk = {new Chunk()};
+            int[] inFlight = {0};
+            boolean[] ended = {false};
+            boolean[] finished = {false};
+
+            Runnable finish = () -> {
+                if (ended[0] && inFlight[0] == 0 && !finished[0]) {
+                    finished[0] = true;
+                    asyncFile.close();
+                    process.write(summary.result().encodePrettily() + "\n").end();
+                }
+            };
+            Runnable send = () -> {
+                Chunk full = chunk[0];
+                chunk[0] = new Chunk();
+                if (++inFlight[0] >= concurrency) {
+                    parser.pause();
+                }
+                send(process, full, summary, () -> {
+                    inFlight[0]--;
+                    if (!ended[0]) {
+                        parser.resume();
+                    }
+                    finish.run();
+                });
+            };
+
+            parser.handler(record -> {
+                String line = record.toString().trim();
+                if (!line.isEmpty()) {
+                    chunk[0].add(lineId(line, summary.lines++), line);
+                    if (chunk[0].size() >= chunkSize) {
+                        send.run();
+                    }
+                }
+            });
+            parser.exceptionHandler(cause -> {
+                process.write("Reading " + file + " failed: " + cause.getMessage() + "\n");
+                ended[0] = true;
+                finish.run();
+            });
+            parser.endHandler(v -> {
+                ended[0] = true;
+                if (chunk[0].size() > 0) {
+                    send.run();
+                } else {
+                    finish.run();
+                }
+            });
+        });
+    }
+
+    /**
+     * Streams a N-Quads or TriG file graph by graph on a worker thread, blocking the parser while
+     * {@link #concurrency} chunks are in flight. Every graph is sent as one NDJSON line with N-Triples content.
+     */
+    private void importGraphs(Vertx vertx, CommandProcess process, String file, Lang lang, Summary summary) {
+        Context context = vertx.getOrCreateContext();
+        Semaphore slots = new Semaphore(concurrency);
+
+        vertx.executeBlocking(promise -> {
+            GraphSink sink = new GraphSink(chunk -> {
+                slots.acquireUninterruptibly();
+                context.runOnContext(v -> send(process, chunk, summary, slots::release));
+            }, (name, message) -> context.runOnContext(v -> summary.failed(name, message)));
+            try {
+                RDFParser.source(Paths.get(file)).lang(lang).base(BulkDatasets.BASE).parse(sink);
+                promise.complete();
+            } catch (Exception e) {
+                promise.fail(e);
+            } finally {
+                // wait for the chunks in flight
+                slots.acquireUninterruptibly(concurrency);
+            }
+        }, false, ar -> {
+            if (ar.failed()) {
+                process.write("Reading " + file + " failed: " + ar.cause().getMessage() + "\n");
+            }
+            process.write(summary.result().encodePrettily() + "\n").end();
+        });
+    }
+
+    private void send(CommandProcess process, Chunk chunk, Summary summary, Runnable done) {
+        datasetsService.importDatasets(chunk.content.toString(), BulkDatasets.NDJSON, summary.catalogueId, false, ar -> {
+            if (ar.succeeded()) {
+                summary.add(ar.result());
+            } else {
+                chunk.ids.forEach(id -> summary.failed(id, ar.cause().getMessage()));
+            }
+            process.write(summary.progress());
+            done.run();
+        });
+    }
+
+    private static String lineId(String line, int index) {
+        try {
+            return new JsonObject(line).getString("id", "line " + (index + 1));
+        } catch (Exception e) {
+            return "line " + (index + 1);
+        }
+    }
+
+    private static String contentType(String file) {
+        String name = file.toLowerCase();
+        if (name.endsWith(".nq")) {
+            return "application/n-quads";
+        } else if (name.endsWith(".trig")) {
+            return "application/trig";
+        } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return BulkDatasets.NDJSON;
+        } else {
+            return null;
+        }
+    }
+
+    private static class Chunk {
+        private final StringBuilder content = new StringBuilder();
+        private final List<String> ids = new ArrayList<>();
+
+        private void add(String id, String line) {
+            ids.add(id);
+            content.append(line).append('\n');
+        }
+
+        private int size() {
+            return ids.size();
+        }
+    }
+
+    /**
+     * Collects the quads of one graph at a time and hands over a chunk whenever {@link #chunkSize} graphs are
+     * complete. Triples of the default graph are ignored, like by the bulk upload.
+     */
+    private class GraphSink extends StreamRDFBase {
+        private final Consumer<Chunk> chunks;
+        private final BiConsumer<String, String> failures;
+        private final Set<String> seen = new HashSet<>();
+
+        private Chunk chunk = new Chunk();
+        private String name;
+        private Graph graph;
+
+        private GraphSink(Consumer<Chunk> chunks, BiConsumer<String, String> failures) {
+            this.chunks = chunks;
+            this.failures = failures;
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            if (quad.isDefaultGraph()) {
+                return;
+            }
+            String graphName = quad.getGraph().getURI();
+            if (!graphName.equals(name)) {
+                flushGraph();
+                name = graphName;
+                graph = GraphFactory.createDefaultGraph();
+            }
+            graph.add(quad.asTriple());
+        }
+
+        @Override
+        public void finish() {
+            flushGraph();
+            if (chunk.size() > 0) {
+                chunks.accept(chunk);
+                chunk = new Chunk();
+            }
+        }
+
+        private void flushGraph() {
+            if (name == null) {
+                return;
+            }
+            String id = BulkDatasets.datasetId(name);
+            if (id == null) {
+                failures.accept(name, "No dataset id in graph name");
+            } else if (!seen.add(name)) {
+                failures.accept(id, "Graph " + name + " is not contiguous in the file");
+            } else {
+                StringWriter content = new StringWriter();
+                RDFDataMgr.write(content, graph, Lang.NTRIPLES);
+                chunk.add(id, new JsonObject().put("id", id).put("content", content.toString()).encode());
+                if (chunk.size() >= chunkSize) {
+                    chunks.accept(chunk);
+                    chunk = new Chunk();
+                }
+            }
+            name = null;
+            graph = null;
+        }
+    }
+
+    /**
+     * Sums up the results of all chunks, only used from the context of the command.
+     */
+    private static class Summary {
+        private final String catalogueId;
+        private final boolean verbose;
+        private final JsonObject counts = new JsonObject();
+        private final JsonArray datasets = new JsonArray();
+        private int lines;
+
+        private Summary(String catalogueId, boolean verbose) {
+            this.catalogueId = catalogueId;
+            this.verbose = verbose;
+        }
+
+        private void add(JsonObject result) {
+            result.getJsonArray("datasets", new JsonArray()).stream().map(JsonObject.class::cast).forEach(dataset -> {
+                String status = dataset.getString("status", "failed");
+                counts.put(status, counts.getInteger(status, 0) + 1);
+                if (verbose) {
+                    datasets.add(dataset);
+                }
+            });
+        }
+
+        private void failed(String id, String message) {
+            add(new JsonObject().put("datasets", new JsonArray().add(new JsonObject()
+                    .put("id", id)
+                    .put("status", "failed")
+                    .put("message", message))));
+        }
+
+        private String progress() {
+            return counts.stream().mapToInt(entry -> (Integer) entry.getValue()).sum() + " datasets processed\n";
+        }
+
+        private JsonObject result() {
+            JsonObject result = new JsonObject().put("catalogue", catalogueId).mergeIn(counts);
+            if (verbose) {
+                result.put("datasets", datasets);
+            }
+            return result;
+        }
+    }
+
+}
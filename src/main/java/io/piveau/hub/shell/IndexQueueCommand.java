@@ -0,0 +1,39 @@
+package io.piveau.hub.shell;
+
+import io.piveau.hub.services.index.IndexService;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.Option;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+
+public class IndexQueueCommand {
+
+    private Command command;
+
+    private IndexService indexService;
+
+    private IndexQueueCommand(Vertx vertx) {
+        indexService = IndexService.createProxy(vertx, IndexService.SERVICE_ADDRESS);
+
+        command = CommandBuilder.command(
+                CLI.create("indexqueue")
+                        .setDescription("Shows the state of the write-behind index queue.")
+                        .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
+        ).processHandler(process ->
+                indexService.getQueueStatus(ar -> {
+                    if (ar.succeeded()) {
+                        process.write(ar.result().encodePrettily() + "\n");
+                    } else {
+                        process.write("Can't get index queue status: " + ar.cause().getMessage() + "\n");
+                    }
+                    process.end();
+                })
+        ).build(vertx);
+    }
+
+    public static Command create(Vertx vertx) {
+        return new IndexQueueCommand(vertx).command;
+    }
+
+}
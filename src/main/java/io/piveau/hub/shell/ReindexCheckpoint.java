@@ -0,0 +1,208 @@
+package io.piveau.hub.shell;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress of a reindex run, persisted as json so that an interrupted run can be resumed.
+ * <p>
+ * Datasets are enumerated in the order of their uriRef and processed concurrently, so the checkpoint of a catalogue
+ * is the last uriRef up to which every dataset has been completed. Resuming from it repeats at most the datasets of
+ * the last window. Datasets that failed are recorded per catalogue instead, the cursor moves past them and a resumed
+ * run retries them first. A catalogue with failed datasets is not finished.
+ */
+class ReindexCheckpoint {
+
+    private static final long SAVE_INTERVAL = 5000;
+
+    private final Vertx vertx;
+    private final String path;
+
+    private JsonObject state = new JsonObject()
+            .put("cursors", new JsonObject())
+            .put("failed", new JsonObject())
+            .put("finished", new JsonArray());
+
+    private long lastSave;
+    private boolean saving;
+    private boolean dirty;
+
+    /**
+     * @param path the checkpoint file, <code>null</code> for no persistence
+     */
+    ReindexCheckpoint(Vertx vertx, String path) {
+        this.vertx = vertx;
+        this.path = path;
+    }
+
+    /**
+     * Reads a previous checkpoint, if there is one.
+     */
+    Future<ReindexCheckpoint> load() {
+        Promise<ReindexCheckpoint> promise = Promise.promise();
+        if (path == null) {
+            promise.complete(this);
+        } else {
+            vertx.fileSystem().exists(path, er -> {
+                if (er.succeeded() && er.result()) {
+                    vertx.fileSystem().readFile(path, ar -> {
+                        if (ar.succeeded()) {
+                            try {
+                                state = ar.result().toJsonObject();
+                                if (!state.containsKey("failed")) {
+                                    state.put("failed", new JsonObject());
+                                }
+                                promise.complete(this);
+                            } catch (Exception e) {
+                                promise.fail(e);
+                            }
+                        } else {
+                            promise.fail(ar.cause());
+                        }
+                    });
+                } else {
+                    promise.complete(this);
+                }
+            });
+        }
+        return promise.future();
+    }
+
+    boolean isFinished(String catalogueId) {
+        return state.getJsonArray("finished").contains(catalogueId);
+    }
+
+    String cursor(String catalogueId) {
+        return state.getJsonObject("cursors").getString(catalogueId);
+    }
+
+    /**
+     * Takes the datasets of a catalogue that failed in a previous run. They are recorded again if they fail again.
+     */
+    List<String> takeFailed(String catalogueId) {
+        JsonArray failed = (JsonArray) state.getJsonObject("failed").remove(catalogueId);
+        List<String> uriRefs = new ArrayList<>();
+        if (failed != null) {
+            failed.forEach(uriRef -> uriRefs.add((String) uriRef));
+        }
+        return uriRefs;
+    }
+
+    Tracker track(String catalogueId) {
+        return new Tracker(catalogueId);
+    }
+
+    void finish(String catalogueId) {
+        state.getJsonObject("cursors").remove(catalogueId);
+        state.getJsonArray("finished").add(catalogueId);
+        save(true);
+    }
+
+    /**
+     * Removes the checkpoint file after a completed run.
+     */
+    Future<Void> clear() {
+        Promise<Void> promise = Promise.promise();
+        if (path == null) {
+            promise.complete();
+        } else {
+            vertx.fileSystem().delete(path, ar -> promise.complete());
+        }
+        return promise.future();
+    }
+
+    private void save(boolean force) {
+        if (path == null) {
+            return;
+        }
+        if (saving) {
+            dirty = true;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (!force && now - lastSave < SAVE_INTERVAL) {
+            dirty = true;
+            return;
+        }
+        saving = true;
+        dirty = false;
+        lastSave = now;
+        vertx.fileSystem().writeFile(path, Buffer.buffer(state.encodePrettily()), ar -> {
+            saving = false;
+            if (dirty) {
+                save(true);
+            }
+        });
+    }
+
+    /**
+     * Tracks the datasets of one catalogue in enumeration order. Datasets retried from a previous run are not started,
+     * they only count as succeeded or failed.
+     */
+    class Tracker {
+
+        private final String catalogueId;
+        private final LinkedHashMap<String, Boolean> window = new LinkedHashMap<>();
+
+        private int failures;
+
+        private Tracker(String catalogueId) {
+            this.catalogueId = catalogueId;
+        }
+
+        void started(String uriRef) {
+            window.put(uriRef, false);
+        }
+
+        void succeeded(String uriRef) {
+            advance(uriRef);
+        }
+
+        void failed(String uriRef) {
+            failures++;
+            JsonObject failed = state.getJsonObject("failed");
+            if (!failed.containsKey(catalogueId)) {
+                failed.put(catalogueId, new JsonArray());
+            }
+            failed.getJsonArray(catalogueId).add(uriRef);
+            advance(uriRef);
+            save(false);
+        }
+
+        /**
+         * @return the number of datasets failed in this run
+         */
+        int failures() {
+            return failures;
+        }
+
+        private void advance(String uriRef) {
+            window.replace(uriRef, true);
+            String cursor = null;
+            Iterator<Map.Entry<String, Boolean>> iterator = window.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Boolean> entry = iterator.next();
+                if (!entry.getValue()) {
+                    break;
+                }
+                cursor = entry.getKey();
+                iterator.remove();
+            }
+            if (cursor != null) {
+                state.getJsonObject("cursors").put(catalogueId, cursor);
+                save(false);
+            }
+        }
+    }
+
+}
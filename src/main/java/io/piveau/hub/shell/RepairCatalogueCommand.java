@@ -1,14 +1,16 @@
 package io.piveau.hub.shell;
 
+import io.piveau.hub.util.CatalogueCache;
+import io.piveau.hub.util.CatalogueMembership;
+import io.piveau.hub.util.ClientProfiles;
 import io.piveau.hub.util.Constants;
-import io.piveau.dcatap.CatalogueManager;
+import io.piveau.hub.util.StreamProcessor;
+import io.piveau.hub.util.TSConnector;
 import io.piveau.json.ConfigHelper;
 import io.piveau.dcatap.TripleStore;
 import io.piveau.dcatap.DCATAPUriRef;
 import io.piveau.dcatap.DCATAPUriSchema;
-import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
-import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.cli.Argument;
 import io.vertx.core.cli.CLI;
@@ -17,13 +19,9 @@ import io.vertx.core.cli.Option;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandProcess;
-import org.apache.jena.ext.com.google.common.collect.Lists;
-import org.apache.jena.rdf.model.RDFNode;
-import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.vocabulary.DCAT;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RepairCatalogueCommand {
 
@@ -31,14 +29,16 @@ public class RepairCatalogueCommand {
     private static final String INSERT_RECORD_DATA = "INSERT DATA { GRAPH <%s> { <%s> <http://www.w3.org/ns/dcat#record> <%s> . } }";
     private static final String DELETE_RECORD_DATA = "DELETE DATA { GRAPH <%s> { <%s> <http://www.w3.org/ns/dcat#record> <%s> . } }";
 
+    private static final int CONCURRENCY = 50;
+
     private Command command;
 
     private TripleStore tripleStore;
-    private CatalogueManager catalogueManager;
+    private TSConnector connector;
 
     private RepairCatalogueCommand(Vertx vertx) {
         tripleStore = new TripleStore(vertx, ConfigHelper.forConfig(vertx.getOrCreateContext().config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG), null);
-        catalogueManager = tripleStore.getCatalogueManager();
+        connector = TSConnector.create(ClientProfiles.create(vertx, vertx.getOrCreateContext().config(), ClientProfiles.TRIPLESTORE), null, ConfigHelper.forConfig(vertx.getOrCreateContext().config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG));
 
         command = CommandBuilder.command(
                 CLI.create("repair")
@@ -61,76 +61,42 @@ public class RepairCatalogueCommand {
 
     private void repairCatalogue(CommandProcess process, String catalogueId) {
         DCATAPUriRef catalogueSchema = DCATAPUriSchema.applyFor(catalogueId);
+        String graphName = catalogueSchema.getCatalogueGraphName();
+        String catalogueUriRef = catalogueSchema.getCatalogueUriRef();
 
         process.write("Start repairing catalogue " + catalogueSchema.getId() + "\n");
 
-        catalogueManager.get(catalogueId)
-                .onSuccess(catalogueModel -> {
-                    Resource catalogue = catalogueModel.getResource(catalogueSchema.getCatalogueUriRef());
-
-                    List<Resource> datasets = catalogueModel.listObjectsOfProperty(DCAT.dataset).mapWith(RDFNode::asResource).toList();
-                    process.write("Found " + datasets.size() + " datasets\n");
-
-                    List<List<Resource>> partitions = Lists.partition(datasets, 1000);
-                    Promise<Void> partitionsPromise = Promise.promise();
-                    nextPartition(catalogue, partitions, 0, process, partitionsPromise);
-                    partitionsPromise.future().onSuccess(v -> {
-                        List<String> recordList = catalogueModel.listObjectsOfProperty(DCAT.record)
-                                .mapWith(node -> DCATAPUriSchema.parseUriRef(node.asResource().getURI()).getId()).toList();
-                        List<String> datasetList = catalogueModel.listObjectsOfProperty(DCAT.dataset)
-                                .mapWith(node -> DCATAPUriSchema.parseUriRef(node.asResource().getURI()).getId()).toList();
-
-                        recordList.removeAll(datasetList);
-                        recordList.forEach(id -> {
-                            Resource record = catalogueModel.getResource(DCATAPUriSchema.applyFor(id).getRecordUriRef());
-                            catalogueModel.remove(catalogue, DCAT.record, record);
-                        });
-
-                        catalogueManager.set(catalogueId, catalogueModel).onSuccess(s -> {
-                            process.write("Repairing catalogue finished\n").end();
-                        }).onFailure(cause -> {
-                            process.write("Catalogue update failed\n").end();
-                        });
-                    }).onFailure(cause -> {
-                        process.write("Repairing catalogue failed: " + cause.getMessage() + "\n").end();
-                    });
-                }).onFailure(cause -> {
-                    process.write("Can't get catalogue " + catalogueId + ": " + cause.getMessage() + "\n").end();
-                });
-    }
-
-    private void nextPartition(Resource catalogue, List<List<Resource>> partitions, int index, CommandProcess process, Promise<Void> promise) {
-        if (index >= partitions.size()) {
-            process.write("No more partitions\n");
-            promise.complete();
-        } else {
-            List<Future<Void>> futures = new ArrayList<>();
-            List<Resource> partition = partitions.get(index);
-            partition.forEach(dataset -> {
-                DCATAPUriRef datasetSchema = DCATAPUriSchema.parseUriRef(dataset.getURI());
-                Promise<Void> datasetPromise = Promise.promise();
-                futures.add(datasetPromise.future());
-
-                tripleStore.getDatasetManager().existGraph(dataset.getURI()).onSuccess(exists -> {
-                    if (exists) {
-                        if (!catalogue.hasProperty(DCAT.record, catalogue.getModel().getResource(datasetSchema.getRecordUriRef()))) {
-                            catalogue.addProperty(DCAT.record, catalogue.getModel().getResource(datasetSchema.getDatasetUriRef()));
-                        }
-                    } else {
-                        catalogue.getModel().removeAll(catalogue, DCAT.record, catalogue.getModel().getResource(datasetSchema.getRecordUriRef()));
-                        catalogue.getModel().removeAll(catalogue, DCAT.dataset, catalogue.getModel().getResource(datasetSchema.getDatasetUriRef()));
-                    }
-                    datasetPromise.complete();
-                }).onFailure(cause -> {
-                    process.write("Checking dataset existence failed: " + cause.getMessage() + "\n");
-                    datasetPromise.fail(cause);
-                });
-                // do more here repairing
-//                tripleStore.deleteGraph(datasetSchema.getValidationGraphName());
+        CatalogueMembership.Builder datasetIds = CatalogueMembership.builder();
+        AtomicInteger counter = new AtomicInteger();
+
+        StreamProcessor.process(connector.streamCatalogueMembers(catalogueUriRef, DCAT.dataset), CONCURRENCY, dataset -> {
+            DCATAPUriRef datasetSchema = DCATAPUriSchema.parseUriRef(dataset.getURI());
+            if (counter.incrementAndGet() % 1000 == 0) {
+                process.write("Checked " + counter.get() + " datasets\n");
+            }
+            return tripleStore.getDatasetManager().existGraph(dataset.getURI()).compose(exists -> {
+                if (exists) {
+                    datasetIds.add(datasetSchema.getId());
+                    return tripleStore.update(String.format(INSERT_RECORD_DATA, graphName, catalogueUriRef, datasetSchema.getRecordUriRef()));
+                } else {
+                    return tripleStore.update(String.format(DELETE_DATA, graphName, catalogueUriRef, datasetSchema.getDatasetUriRef(), datasetSchema.getRecordUriRef()));
+                }
+            }).onFailure(cause -> process.write("Repairing dataset " + datasetSchema.getId() + " failed: " + cause.getMessage() + "\n"));
+        }).compose(v -> {
+            process.write("Checked " + counter.get() + " datasets\n");
+            CatalogueMembership existing = datasetIds.build();
+            return StreamProcessor.process(connector.streamCatalogueMembers(catalogueUriRef, DCAT.record), CONCURRENCY, record -> {
+                DCATAPUriRef recordSchema = DCATAPUriSchema.parseUriRef(record.getURI());
+                if (existing.contains(recordSchema.getId())) {
+                    return Future.succeededFuture();
+                } else {
+                    return tripleStore.update(String.format(DELETE_RECORD_DATA, graphName, catalogueUriRef, record.getURI()))
+                            .onFailure(cause -> process.write("Removing record " + recordSchema.getId() + " failed: " + cause.getMessage() + "\n"));
+                }
             });
-            CompositeFuture.join(new ArrayList<>(futures)).onComplete(cf ->
-                    nextPartition(catalogue, partitions, index + 1, process, promise));
-        }
+        }).onComplete(ar -> CatalogueCache.invalidate(process.vertx(), catalogueUriRef))
+                .onSuccess(v -> process.write("Repairing catalogue finished\n").end())
+                .onFailure(cause -> process.write("Repairing catalogue failed: " + cause.getMessage() + "\n").end());
     }
 
 }
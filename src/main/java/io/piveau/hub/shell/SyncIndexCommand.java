@@ -1,13 +1,17 @@
 package io.piveau.hub.shell;
 
 import io.piveau.dcatap.*;
+import io.piveau.hub.services.index.BulkIndexer;
+import io.piveau.hub.services.index.IndexIdStream;
 import io.piveau.hub.services.index.IndexService;
+import io.piveau.hub.util.CatalogueMembership;
 import io.piveau.hub.util.Constants;
+import io.piveau.hub.util.StreamProcessor;
+import io.piveau.hub.util.TSConnector;
 import io.piveau.indexing.Indexing;
 import io.piveau.json.ConfigHelper;
 import io.piveau.utils.*;
 import io.vertx.core.*;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.cli.Argument;
 import io.vertx.core.cli.CLI;
 import io.vertx.core.cli.Option;
@@ -16,11 +20,8 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandProcess;
-import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.WebClient;
-import org.apache.jena.ext.com.google.common.collect.Lists;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.vocabulary.DCAT;
 
@@ -32,11 +33,14 @@ import java.util.stream.Collectors;
 
 public class SyncIndexCommand {
 
+    private static final int DELETE_BATCH_SIZE = 100;
+
     private IndexService indexService;
 
     private TripleStore tripleStore;
     private CatalogueManager catalogueManager;
     private DatasetManager datasetManager;
+    private TSConnector connector;
 
     private Command command;
 
@@ -56,6 +60,7 @@ public class SyncIndexCommand {
         tripleStore = new TripleStore(vertx, ConfigHelper.forConfig(vertx.getOrCreateContext().config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG), client);
         catalogueManager = tripleStore.getCatalogueManager();
         datasetManager = tripleStore.getDatasetManager();
+        connector = TSConnector.create(client, null, ConfigHelper.forConfig(vertx.getOrCreateContext().config()).forceJsonObject(Constants.ENV_PIVEAU_TRIPLESTORE_CONFIG));
 
         command = CommandBuilder.command(
                 CLI.create("sync")
@@ -77,7 +82,28 @@ public class SyncIndexCommand {
                                         .setShortName("p")
                                         .setLongName("partitionSize")
                                         .setDefaultValue("1000")
-                                        .setDescription("Page size for partitioning datasets."))
+                                        .setDescription("Number of datasets fetched and converted concurrently."))
+                        .addOption(
+                                new Option()
+                                        .setArgName("catalogues")
+                                        .setShortName("c")
+                                        .setLongName("catalogues")
+                                        .setDefaultValue("1")
+                                        .setDescription("Number of catalogues indexed concurrently."))
+                        .addOption(
+                                new Option()
+                                        .setArgName("bulkSize")
+                                        .setShortName("b")
+                                        .setLongName("bulkSize")
+                                        .setDefaultValue("100")
+                                        .setDescription("Number of datasets per bulk index request."))
+                        .addOption(
+                                new Option()
+                                        .setArgName("checkpoint")
+                                        .setShortName("k")
+                                        .setLongName("checkpoint")
+                                        .setDefaultValue("")
+                                        .setDescription("File to record the progress in. An existing checkpoint is resumed."))
                         .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
                         .addOption(new Option().setFlag(true).setArgName("verbose").setShortName("v").setLongName("verbose"))
                         .addOption(new Option().setFlag(true).setArgName("amountOnly").setShortName("a").setLongName("amountOnly")))
@@ -107,46 +133,97 @@ public class SyncIndexCommand {
         String exclude = process.commandLine().getOptionValue("exclude");
         List<String> excludeCatalogues = exclude.isBlank() ? Collections.emptyList() : Arrays.stream(exclude.split(",")).map(s -> DCATAPUriSchema.applyFor(s).getCatalogueUriRef()).collect(Collectors.toList());
         uriRefs.removeAll(excludeCatalogues);
-        if (!uriRefs.isEmpty()) {
-            Promise<Void> promise = Promise.promise();
-            reduceCatalogues(uriRefs, process, promise);
-            promise.future().onComplete(v -> {
-                process.write("Reindexing all catalogues finished. Overall duration " + Duration.between(start, Instant.now()) + "\n");
+
+        String checkpointFile = process.commandLine().getOptionValue("checkpoint");
+        ReindexCheckpoint checkpoint = new ReindexCheckpoint(process.vertx(), checkpointFile.isBlank() ? null : checkpointFile);
+        checkpoint.load().onComplete(cr -> {
+            if (cr.failed()) {
+                process.write("Reading checkpoint " + checkpointFile + " failed: " + cr.cause().getMessage() + "\n");
                 process.end();
+                return;
+            }
+            uriRefs.removeIf(uriRef -> {
+                DCATAPUriRef schema = DCATAPUriSchema.parseUriRef(uriRef);
+                if (checkpoint.isFinished(schema.getId())) {
+                    process.write("Skipping " + schema.getId() + ", already finished according to checkpoint.\n");
+                    return true;
+                }
+                return false;
             });
-        } else {
-            process.write("No catalogues for indexing.\n");
-            process.end();
-        }
+            if (!uriRefs.isEmpty()) {
+                int parallel = Integer.parseInt(process.commandLine().getOptionValue("catalogues"));
+                Deque<String> queue = new ArrayDeque<>(uriRefs);
+                List<Future> lanes = new ArrayList<>();
+                for (int i = 0; i < Math.max(1, Math.min(parallel, uriRefs.size())); i++) {
+                    Promise<Void> lane = Promise.promise();
+                    lanes.add(lane.future());
+                    reduceCatalogues(queue, checkpoint, process, false, lane);
+                }
+                CompositeFuture.join(lanes).onComplete(v -> {
+                    process.write("Reindexing all catalogues finished. Overall duration " + Duration.between(start, Instant.now()) + "\n");
+                    if (v.succeeded()) {
+                        checkpoint.clear().onComplete(c -> process.end());
+                    } else {
+                        if (!checkpointFile.isBlank()) {
+                            process.write("Some catalogues failed, keeping checkpoint " + checkpointFile + " to resume them.\n");
+                        }
+                        process.end();
+                    }
+                });
+            } else {
+                process.write("No catalogues for indexing.\n");
+                process.end();
+            }
+        });
     }
 
-    private void reduceCatalogues(List<String> catalogues, CommandProcess process, Promise<Void> promise) {
-        String catalogue = catalogues.remove(0);
+    /**
+     * Indexes catalogues from the queue one after another. The lane fails at the end if any of its catalogues failed.
+     */
+    private void reduceCatalogues(Deque<String> catalogues, ReindexCheckpoint checkpoint, CommandProcess process, boolean failed, Promise<Void> promise) {
+        String catalogue = catalogues.poll();
+        if (catalogue == null) {
+            if (failed) {
+                promise.fail("Reindexing of at least one catalogue failed");
+            } else {
+                promise.complete();
+            }
+            return;
+        }
         DCATAPUriRef schema = DCATAPUriSchema.parseUriRef(catalogue);
         process.write("Start indexing " + schema.getId() + "\n");
-        syncCatalogue(schema, process, ic -> {
+        syncCatalogue(schema, checkpoint, process, ic -> {
             if (ic.succeeded()) {
+                checkpoint.finish(schema.getId());
                 process.write("Reindex of " + schema.getId() + " finished. Duration " + ic.result().toString() + "\n");
             } else {
                 process.write("Reindex of " + schema.getId() + " failed: " + ic.cause().getMessage() + "\n");
             }
-            if (catalogues.isEmpty()) {
-                promise.complete();
-            } else {
-                reduceCatalogues(catalogues, process, promise);
-            }
+            reduceCatalogues(catalogues, checkpoint, process, failed || ic.failed(), promise);
         });
     }
 
-    private void syncCatalogue(DCATAPUriRef catalogueRef, CommandProcess process, Handler<AsyncResult<Duration>> handler) {
+    private void syncCatalogue(DCATAPUriRef catalogueRef, ReindexCheckpoint checkpoint, CommandProcess process, Handler<AsyncResult<Duration>> handler) {
         Instant start = Instant.now();
 
         int chunk = Integer.parseInt(process.commandLine().getOptionValue("partitionSize"));
+        int bulkSize = Integer.parseInt(process.commandLine().getOptionValue("bulkSize"));
         boolean verbose = process.commandLine().isFlagEnabled("verbose");
 
         boolean amountOnly = process.commandLine().isFlagEnabled("amountOnly");
 
-        String queryCatalogue = "CONSTRUCT { ?s ?p ?o } WHERE { GRAPH <" + catalogueRef.getCatalogueGraphName() + "> { ?s ?p ?o MINUS { ?s <" + DCAT.record + "> ?o } } }";
+        String resumeAfter = checkpoint.cursor(catalogueRef.getId());
+        if (resumeAfter != null) {
+            process.write("Resuming " + catalogueRef.getId() + " after " + resumeAfter + "\n");
+        }
+        List<String> retries = checkpoint.takeFailed(catalogueRef.getId());
+        if (!retries.isEmpty()) {
+            process.write("Retrying " + retries.size() + " failed datasets of " + catalogueRef.getId() + "\n");
+        }
+
+        CatalogueMembership.Builder storeList = CatalogueMembership.builder();
+
+        String queryCatalogue = "CONSTRUCT { ?s ?p ?o } WHERE { GRAPH <" + catalogueRef.getCatalogueGraphName() + "> { ?s ?p ?o MINUS { ?s <" + DCAT.record + "> ?o } MINUS { ?s <" + DCAT.dataset + "> ?o } } }";
         tripleStore.construct(queryCatalogue).onComplete(ar -> {
             if (ar.succeeded()) {
                 Model catalogueModel = ar.result();
@@ -154,7 +231,8 @@ public class SyncIndexCommand {
                 if (catalogueModel.isEmpty()) {
                     cataloguePromise.fail("No such catalogue.");
                 } else if (amountOnly) {
-                    cataloguePromise.complete();
+                    StreamProcessor.forEach(connector.streamCatalogueMembers(catalogueRef.getCatalogueUriRef(), DCAT.dataset),
+                            dataset -> storeList.add(DCATAPUriSchema.parseUriRef(dataset.getURI()).getId())).onComplete(cataloguePromise);
                 } else {
                     Promise<Void> indexPromise = Promise.promise();
                     indexService.addCatalog(Indexing.indexingCatalogue(catalogueModel.getResource(catalogueRef.getCatalogueUriRef())), cr -> {
@@ -167,15 +245,44 @@ public class SyncIndexCommand {
                         }
                     });
                     indexPromise.future().compose(v -> {
-                        Promise<Void> promise = Promise.promise();
-                        List<RDFNode> datasets = catalogueModel.listObjectsOfProperty(DCAT.dataset).toList();
-                        process.write("Start indexing " + datasets.size() + " datasets...\n");
-                        List<List<RDFNode>> partitions = Lists.partition(datasets, chunk);
-                        if (verbose) {
-                            process.write("Index datasets in " + partitions.size() + " partitions\n");
-                        }
-                        reducePartitions(catalogueRef, partitions, process, promise);
-                        return promise.future();
+                        process.write("Start indexing datasets...\n");
+                        BulkIndexer indexer = new BulkIndexer(indexService, bulkSize, 2);
+                        ReindexCheckpoint.Tracker tracker = checkpoint.track(catalogueRef.getId());
+                        Handler<AsyncResult<Void>> count = ir -> {
+                            AtomicInteger counter = process.session().get("syncIndexCounter");
+                            int counted = counter.incrementAndGet();
+                            if (!verbose && counted % bulkSize == 0) {
+                                process.write("\rIndexed " + counted);
+                            }
+                        };
+                        return StreamProcessor.process(retries.iterator(), chunk, datasetUri ->
+                                indexDataset(catalogueRef, datasetUri, indexer, process, ir -> {
+                                    if (ir.succeeded()) {
+                                        tracker.succeeded(datasetUri);
+                                    } else {
+                                        tracker.failed(datasetUri);
+                                    }
+                                    count.handle(ir);
+                                })
+                        ).compose(r -> StreamProcessor.process(connector.streamCatalogueMembers(catalogueRef.getCatalogueUriRef(), DCAT.dataset, resumeAfter), chunk, dataset -> {
+                            String datasetUri = dataset.getURI();
+                            storeList.add(DCATAPUriSchema.parseUriRef(datasetUri).getId());
+                            tracker.started(datasetUri);
+                            return indexDataset(catalogueRef, datasetUri, indexer, process, ir -> {
+                                if (ir.succeeded()) {
+                                    tracker.succeeded(datasetUri);
+                                } else {
+                                    tracker.failed(datasetUri);
+                                }
+                                count.handle(ir);
+                            });
+                        })).compose(s -> indexer.flush()).compose(s -> {
+                            if (tracker.failures() > 0) {
+                                process.write("\n" + tracker.failures() + " datasets of " + catalogueRef.getId() + " could not be indexed.\n");
+                                return Future.failedFuture(tracker.failures() + " datasets could not be indexed");
+                            }
+                            return Future.succeededFuture();
+                        });
                     }).onComplete(v -> {
                         if (v.succeeded()) {
                             process.write("\nIndexing datasets finished.\n");
@@ -186,28 +293,21 @@ public class SyncIndexCommand {
                     });
                 }
                 cataloguePromise.future().onComplete(v -> {
-                    if (v.succeeded()) {
-                        getIndexDatasetIds(catalogueRef.getId(), il -> {
-                            if (il.succeeded()) {
-                                Set<String> indexList = il.result();
-                                Set<String> storeList = catalogueModel.listObjectsOfProperty(DCAT.dataset).toSet().stream().map(node -> DCATAPUriSchema.parseUriRef(node.asResource().getURI()).getId()).collect(Collectors.toSet());
-                                indexList.removeAll(storeList);
-                                process.write("Number of obsolete datasets in " + catalogueRef.getId() + " index: " + indexList.size() + "\n");
-                                indexList.forEach(id -> {
-                                    indexService.deleteDataset(id, dr -> {
-                                        if (dr.failed()) {
-                                            process.write(dr.cause().getMessage());
-                                        }
-                                    });
-                                });
+                    if (v.failed()) {
+                        handler.handle(Future.failedFuture(v.cause()));
+                    } else if (resumeAfter != null) {
+                        process.write("Skipping removal of obsolete datasets in " + catalogueRef.getId() + " index for a resumed catalogue.\n");
+                        handler.handle(Future.succeededFuture(Duration.between(start, Instant.now())));
+                    } else {
+                        removeObsoleteDatasets(catalogueRef.getId(), storeList.build()).onComplete(rr -> {
+                            if (rr.succeeded()) {
+                                process.write("Number of obsolete datasets removed from " + catalogueRef.getId() + " index: " + rr.result() + "\n");
                                 handler.handle(Future.succeededFuture(Duration.between(start, Instant.now())));
                             } else {
-                                process.write(il.cause().getMessage());
-                                handler.handle(Future.failedFuture(il.cause()));
+                                process.write("Removing obsolete datasets from " + catalogueRef.getId() + " index failed: " + rr.cause().getMessage() + "\n");
+                                handler.handle(Future.failedFuture(rr.cause()));
                             }
                         });
-                    } else {
-                        handler.handle(Future.failedFuture(v.cause()));
                     }
                 });
             } else {
@@ -216,118 +316,120 @@ public class SyncIndexCommand {
         });
     }
 
-    private void reducePartitions(DCATAPUriRef catalogueSchema, List<List<RDFNode>> partitions, CommandProcess process, Promise<Void> promise) {
+    /**
+     * Fetches and converts a dataset and hands it to the bulk indexer.
+     *
+     * @param completion called when the dataset is finally processed, i.e. indexed, removed or failed
+     * @return a future completed when the dataset was accepted by the indexer
+     */
+    private Future<Void> indexDataset(DCATAPUriRef catalogueSchema, String datasetUri, BulkIndexer indexer, CommandProcess process, Handler<AsyncResult<Void>> completion) {
         boolean verbose = process.commandLine().isFlagEnabled("verbose");
-
-        if (partitions.isEmpty()) {
+        if (verbose) {
+            process.write("Index dataset " + datasetUri + "\n");
+        }
+        DCATAPUriRef datasetSchema = DCATAPUriSchema.parseUriRef(datasetUri);
+        return datasetManager.getGraph(datasetUri).<Void>compose(dataset -> {
             if (verbose) {
-                process.write("No more partitions\n");
+                process.write("Dataset " + datasetUri + " fetched successfully\n");
             }
-            promise.complete();
-        } else {
-            List<Future> futures = new ArrayList<>();
-            List<RDFNode> partition = partitions.get(0);
-            partition.forEach(node -> {
-                if (node.isURIResource()) {
-                    String datasetUri = node.asResource().getURI();
-                    if (verbose) {
-                        process.write("Index dataset " + datasetUri + "\n");
+            if (dataset.isEmpty()) {
+                // remove from catalogue...
+                String deleteQuery = "DELETE DATA { GRAPH <" + catalogueSchema.getCatalogueGraphName() + ">"
+                        + "{ <" + catalogueSchema.getCatalogueUriRef() + "> <" + DCAT.dataset + "> "
+                        + "<" + datasetUri + "> ; <" + DCAT.record + "> <" + datasetSchema.getRecordUriRef() + "> } }";
+                indexService.deleteDataset(datasetSchema.getId(), ir -> {
+                    if (ir.succeeded()) {
+                        process.write("\nDataset " + datasetUri + " removed from index.\n");
+                    } else {
+                        process.write("\nCould not remove " + datasetUri + " from index: " + ir.cause().getMessage() + "\n");
                     }
-                    Promise<Void> datasetPromise = Promise.promise();
-                    futures.add(datasetPromise.future());
-                    datasetManager.getGraph(node.asResource().getURI()).onComplete(dr -> {
-                        if (dr.succeeded()) {
-                            if (verbose) {
-                                process.write("Dataset " + datasetUri + " fetched successfully\n");
-                            }
-                            Model dataset = dr.result();
-                            if (dataset.isEmpty()) {
-                                // remove from catalogue...
-                                String deleteQuery = "DELETE DATA { GRAPH <" + catalogueSchema.getCatalogueGraphName() + ">"
-                                        + "{ <" + catalogueSchema.getCatalogueUriRef() + "> <" + DCAT.dataset + "> "
-                                        + "<" + datasetUri + "> ; <" + DCAT.record + "> <" + DCATAPUriSchema.parseUriRef(datasetUri).getRecordUriRef() + "> } }";
-                                tripleStore.update(deleteQuery).onComplete(rr -> {
-                                    if (rr.succeeded()) {
-                                        process.write("\nDataset " + datasetUri + " removed from catalogue.\n");
-                                        datasetPromise.complete();
-                                    } else {
-                                        process.write("\nCould not remove " + datasetUri + " from catalogue: " + rr.cause().getMessage() + "\n");
-                                        datasetPromise.fail(rr.cause());
-                                    }
-                                });
-                                indexService.deleteDataset(datasetUri, ir -> {
-                                    if (ir.succeeded()) {
-                                        process.write("\nDataset " + datasetUri + " removed from index.\n");
-                                    } else {
-                                        process.write("\nCould not remove " + datasetUri + " from index: " + ir.cause().getMessage() + "\n");
-                                    }
-                                });
-                            } else {
-                                try {
-                                    JsonObject indexInfo = Indexing.indexingDataset(dataset.getResource(datasetUri), catalogueSchema.getId(), "de");
-                                    if (!indexInfo.isEmpty()) {
-                                        if (verbose) {
-                                            process.write("Index info for " + datasetUri + " generated successfully\n");
-                                        }
-                                        indexService.addDatasetPut(indexInfo, ir -> {
-                                            if (ir.failed()) {
-                                                process.write("\nSent indexed dataset " + datasetUri + " failed: " + indexInfo.encodePrettily() + " - " + ir.cause() + "\n");
-                                                datasetPromise.fail(ir.cause());
-                                            } else {
-                                                if (verbose) {
-                                                    process.write("Dataset " + datasetUri + " indexed successfully\n");
-                                                }
-                                                datasetPromise.complete();
-                                            }
-                                        });
-                                    } else {
-                                        if (verbose) {
-                                            process.write("Index info for " + datasetUri + " was empty!\n");
-                                        }
-                                        datasetPromise.fail("Index info for " + datasetUri + " was empty!");
-                                    }
-                                } catch (Exception e) {
-                                    if (verbose) {
-                                        process.write("Indexing dataset " + datasetUri + " failed (" + e.getMessage() + "): " + JenaUtils.write(dataset, Lang.TURTLE) + "\n");
-                                    } else {
-                                        process.write("\nIndexing dataset " + datasetUri + " failed: " + e.getMessage() + "\n");
-                                    }
-                                    datasetPromise.fail(e);
-                                }
-                            }
-                        } else {
-                            process.write("\nFailed to fetch " + datasetUri + ": " + dr.cause().getMessage() + "\n");
-                            datasetPromise.fail(dr.cause());
-                        }
-                    });
+                });
+                return tripleStore.update(deleteQuery).<Void>map(r -> {
+                    process.write("\nDataset " + datasetUri + " removed from catalogue.\n");
+                    completion.handle(Future.succeededFuture());
+                    return null;
+                });
+            }
+            Promise<JsonObject> converted = Promise.promise();
+            process.vertx().<JsonObject>executeBlocking(promise ->
+                    promise.complete(Indexing.indexingDataset(dataset.getResource(datasetUri), catalogueSchema.getId(), "de")), false, converted);
+            return converted.future().<Void>compose(indexInfo -> {
+                if (indexInfo.isEmpty()) {
+                    return Future.failedFuture("Index info for " + datasetUri + " was empty!");
                 }
-            });
-            CompositeFuture.join(futures).onComplete(cf -> {
-                if (!verbose) {
-                    AtomicInteger counter = process.session().get("syncIndexCounter");
-                    process.write("\rIndexed " + counter.addAndGet(partition.size()));
+                if (verbose) {
+                    process.write("Index info for " + datasetUri + " generated successfully\n");
+                }
+                return indexer.add(indexInfo, ir -> {
+                    if (ir.failed()) {
+                        process.write("\nSent indexed dataset " + datasetUri + " failed: " + ir.cause().getMessage() + "\n");
+                    } else if (verbose) {
+                        process.write("Dataset " + datasetUri + " indexed successfully\n");
+                    }
+                    completion.handle(ir);
+                });
+            }).onFailure(cause -> {
+                if (verbose) {
+                    process.write("Indexing dataset " + datasetUri + " failed (" + cause.getMessage() + "): " + JenaUtils.write(dataset, Lang.TURTLE) + "\n");
                 }
-                reducePartitions(catalogueSchema, partitions.subList(1, partitions.size()), process, promise);
             });
-        }
+        }).onFailure(cause -> {
+            process.write("\nProcessing " + datasetUri + " failed: " + cause.getMessage() + "\n");
+            completion.handle(Future.failedFuture(cause));
+        });
     }
 
-    private void getIndexDatasetIds(String catalogueId, Handler<AsyncResult<Set<String>>> handler) {
-        HttpRequest<Buffer> request = client.getAbs(ELASTICSEARCH_ADDRESS + "/dataset/_search")
-                .addQueryParam("q", "catalog.id:" + catalogueId)
-                .addQueryParam("_source_includes", "id")
-                .addQueryParam("size", "250000");
+    /**
+     * Streams the ids of a catalogue from the index and removes all ids unknown to the triple store in batches.
+     *
+     * @return a future with the number of removed datasets
+     */
+    private Future<Integer> removeObsoleteDatasets(String catalogueId, CatalogueMembership storeIds) {
+        Promise<Integer> promise = Promise.promise();
+        AtomicInteger removed = new AtomicInteger();
+        List<String> batch = new ArrayList<>();
 
-        request.send(ar -> {
-            if (ar.succeeded()) {
-                JsonObject result = ar.result().bodyAsJsonObject();
-                JsonArray hits = result.getJsonObject("hits", new JsonObject()).getJsonArray("hits", new JsonArray());
-                Set<String> ids = hits.stream().map(obj -> ((JsonObject) obj).getJsonObject("_source").getString("id")).collect(Collectors.toSet());
-                handler.handle(Future.succeededFuture(ids));
-            } else {
-                handler.handle(Future.failedFuture(ar.cause()));
-            }
-        });
+        IndexIdStream stream = new IndexIdStream(client, ELASTICSEARCH_ADDRESS, catalogueId);
+        stream.exceptionHandler(promise::tryFail)
+                .endHandler(v -> deleteFromIndex(batch).onComplete(dr -> {
+                    if (dr.succeeded()) {
+                        promise.tryComplete(removed.addAndGet(dr.result()));
+                    } else {
+                        promise.tryFail(dr.cause());
+                    }
+                }))
+                .handler(id -> {
+                    if (!storeIds.contains(id)) {
+                        batch.add(id);
+                        if (batch.size() >= DELETE_BATCH_SIZE) {
+                            List<String> ids = new ArrayList<>(batch);
+                            batch.clear();
+                            stream.pause();
+                            deleteFromIndex(ids).onComplete(dr -> {
+                                if (dr.succeeded()) {
+                                    removed.addAndGet(dr.result());
+                                    stream.resume();
+                                } else {
+                                    promise.tryFail(dr.cause());
+                                }
+                            });
+                        }
+                    }
+                });
+        return promise.future();
+    }
+
+    /**
+     * Deletes a batch with one bulk request through the index service, which also drops pending queue entries of the
+     * datasets.
+     */
+    private Future<Integer> deleteFromIndex(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(0);
+        }
+        Promise<JsonObject> promise = Promise.promise();
+        indexService.deleteDatasets(new JsonArray(ids), promise);
+        return promise.future().map(result -> result.getInteger("deleted", 0));
     }
 
 }
@@ -0,0 +1,167 @@
+package io.piveau.hub.util;
+
+import io.piveau.dcatap.DCATAPUriSchema;
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of catalogue descriptors, i.e. id, type, language and whether the catalogue exists at all.
+ * <p>
+ * Used by {@link TSConnector#catalogueExists}. Entries expire after a time to live, a missing catalogue is remembered
+ * for a shorter time. Writers of a catalogue call {@link #invalidate}, which is published to all nodes. With
+ * <code>shared</code> enabled, loaded descriptors are published as well, so that one lookup serves the whole cluster.
+ * A shared descriptor carries the time its lookup started and is dropped if the catalogue was invalidated on this node
+ * since then, allowing for {@link #CLOCK_SKEW} between the nodes.
+ */
+public class CatalogueCache {
+
+    public static final String INVALIDATE_ADDRESS = "io.piveau.hub.cataloguecache.invalidate";
+    public static final String SHARE_ADDRESS = "io.piveau.hub.cataloguecache.share";
+
+    private static final long CLOCK_SKEW = 1000;
+
+    private static volatile CatalogueCache instance;
+
+    private final Vertx vertx;
+    private final String node = UUID.randomUUID().toString();
+
+    private final Cache<String, Entry> entries;
+    // time of the last invalidation per catalogue
+    private final Cache<String, Long> invalidated;
+    private final long missingTtl;
+    private final boolean shared;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private CatalogueCache(Vertx vertx, JsonObject config) {
+        this.vertx = vertx;
+        missingTtl = config.getLong("missingTtl", 5000L);
+        shared = config.getBoolean("shared", false);
+        entries = CacheBuilder.newBuilder()
+                .maximumSize(config.getLong("maxSize", 10000L))
+                .expireAfterWrite(config.getLong("ttl", 300000L), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        invalidated = CacheBuilder.newBuilder()
+                .maximumSize(config.getLong("maxSize", 10000L))
+                .expireAfterWrite(config.getLong("ttl", 300000L), TimeUnit.MILLISECONDS)
+                .build();
+        Telemetry.cache("catalogues", entries);
+
+        vertx.eventBus().<String>consumer(INVALIDATE_ADDRESS, message -> evict(message.body()));
+        if (shared) {
+            vertx.eventBus().<JsonObject>consumer(SHARE_ADDRESS, message -> {
+                JsonObject body = message.body();
+                String uriRef = body.getString("uriRef");
+                Long invalidatedAt = invalidated.getIfPresent(uriRef);
+                if (!node.equals(body.getString("node"))
+                        && (invalidatedAt == null || body.getLong("loaded", 0L) > invalidatedAt + CLOCK_SKEW)) {
+                    entries.put(uriRef, new Entry(body.getJsonObject("info"), Long.MAX_VALUE));
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates the cache of this process, unless disabled by <code>enabled = false</code>.
+     */
+    public static synchronized CatalogueCache init(Vertx vertx, JsonObject config) {
+        if (instance == null && config.getBoolean("enabled", true)) {
+            instance = new CatalogueCache(vertx, config);
+        }
+        return instance;
+    }
+
+    /**
+     * @return the cache of this process or <code>null</code> if there is none
+     */
+    public static CatalogueCache instance() {
+        return instance;
+    }
+
+    /**
+     * @return the descriptor of an existing catalogue, an empty object for a missing catalogue, or <code>null</code>
+     * if unknown
+     */
+    public JsonObject get(String catalogueUriRef) {
+        Entry entry = entries.getIfPresent(catalogueUriRef);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.info == null) {
+            if (System.currentTimeMillis() > entry.expires) {
+                entries.invalidate(catalogueUriRef);
+                return null;
+            }
+            return new JsonObject();
+        }
+        return entry.info.copy();
+    }
+
+    /**
+     * @return the current invalidation generation, to be taken before querying the store
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * @param loaded the time the lookup of the descriptor started, taken with the generation
+     */
+    public void put(String catalogueUriRef, JsonObject info, long generation, long loaded) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+        JsonObject descriptor = info.copy().put("id", DCATAPUriSchema.parseUriRef(catalogueUriRef).getId());
+        entries.put(catalogueUriRef, new Entry(descriptor, Long.MAX_VALUE));
+        if (shared) {
+            vertx.eventBus().publish(SHARE_ADDRESS, new JsonObject()
+                    .put("node", node)
+                    .put("uriRef", catalogueUriRef)
+                    .put("loaded", loaded)
+                    .put("info", descriptor));
+        }
+    }
+
+    public void putMissing(String catalogueUriRef, long generation) {
+        if (generation == this.generation.get()) {
+            entries.put(catalogueUriRef, new Entry(null, System.currentTimeMillis() + missingTtl));
+        }
+    }
+
+    /**
+     * Drops a catalogue on all nodes.
+     */
+    public static void invalidate(Vertx vertx, String catalogueUriRef) {
+        if (instance != null) {
+            instance.evict(catalogueUriRef);
+        }
+        vertx.eventBus().publish(INVALIDATE_ADDRESS, catalogueUriRef);
+    }
+
+    private void evict(String catalogueUriRef) {
+        if (catalogueUriRef != null) {
+            generation.incrementAndGet();
+            invalidated.put(catalogueUriRef, System.currentTimeMillis());
+            entries.invalidate(catalogueUriRef);
+        }
+    }
+
+    private static class Entry {
+        private final JsonObject info;
+        private final long expires;
+
+        private Entry(JsonObject info, long expires) {
+            this.info = info;
+            this.expires = expires;
+        }
+    }
+
+}
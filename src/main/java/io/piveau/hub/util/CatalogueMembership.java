@@ -0,0 +1,339 @@
+package io.piveau.hub.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted set of the member ids of a catalogue, e.g. dataset ids, stored front coded in one byte array.
+ * <p>
+ * Ids are kept as UTF-8 in byte order. Every {@link #BLOCK_SIZE}th id is stored in full, the others as the length of
+ * the prefix shared with their predecessor plus the remaining suffix. As the ids of a catalogue share long prefixes,
+ * an id typically needs a few bytes. Lookups binary search the block heads and scan one block, iteration and
+ * differences decode sequentially, none of them creates more than the returned strings.
+ */
+public class CatalogueMembership implements Iterable<String> {
+
+    static final int BLOCK_SIZE = 16;
+
+    private final byte[] data;
+    private final int[] blocks;
+    private final int size;
+
+    private CatalogueMembership(byte[] data, int[] blocks, int size) {
+        this.data = data;
+        this.blocks = blocks;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of bytes used for the ids
+     */
+    public int byteSize() {
+        return data.length + blocks.length * Integer.BYTES;
+    }
+
+    public boolean contains(String id) {
+        if (size == 0) {
+            return false;
+        }
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+
+        // last block whose head is <= key
+        int low = 0;
+        int high = blocks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (compareHead(mid, key) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        Cursor cursor = new Cursor(this, low);
+        int remaining = Math.min(BLOCK_SIZE, size - low * BLOCK_SIZE);
+        for (int i = 0; i < remaining; i++) {
+            cursor.next();
+            int cmp = compare(cursor.current, cursor.length, key, key.length);
+            if (cmp == 0) {
+                return true;
+            } else if (cmp > 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private final Cursor cursor = new Cursor(CatalogueMembership.this, 0);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public String next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if (index % BLOCK_SIZE == 0) {
+                    cursor.seek(index / BLOCK_SIZE);
+                }
+                index++;
+                cursor.next();
+                return new String(cursor.current, 0, cursor.length, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * @return the ids of this set which are not in <code>other</code>, in order
+     */
+    public Iterator<String> difference(CatalogueMembership other) {
+        return new Iterator<String>() {
+            private final Cursor mine = new Cursor(CatalogueMembership.this, 0);
+            private final Cursor theirs = new Cursor(other, 0);
+            private int myIndex;
+            private int theirIndex;
+            private boolean theirValid;
+            private String pending;
+
+            @Override
+            public boolean hasNext() {
+                while (pending == null && myIndex < size) {
+                    if (myIndex % BLOCK_SIZE == 0) {
+                        mine.seek(myIndex / BLOCK_SIZE);
+                    }
+                    myIndex++;
+                    mine.next();
+                    int cmp = advanceTheirs();
+                    if (cmp != 0) {
+                        pending = new String(mine.current, 0, mine.length, StandardCharsets.UTF_8);
+                    }
+                }
+                return pending != null;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String next = pending;
+                pending = null;
+                return next;
+            }
+
+            // moves the other cursor to the first id >= the current id of this set and compares both
+            private int advanceTheirs() {
+                while (true) {
+                    if (theirValid) {
+                        int cmp = compare(theirs.current, theirs.length, mine.current, mine.length);
+                        if (cmp >= 0) {
+                            return cmp;
+                        }
+                    }
+                    if (theirIndex >= other.size) {
+                        return 1;
+                    }
+                    if (theirIndex % BLOCK_SIZE == 0) {
+                        theirs.seek(theirIndex / BLOCK_SIZE);
+                    }
+                    theirIndex++;
+                    theirs.next();
+                    theirValid = true;
+                }
+            }
+        };
+    }
+
+    private int compareHead(int block, byte[] key) {
+        int position = blocks[block];
+        int[] varint = readVarint(data, position);
+        return compare(data, position + varint[1], varint[0], key, 0, key.length);
+    }
+
+    /**
+     * Sequential decoder, reusing one buffer for the current id.
+     */
+    private static class Cursor {
+        private final CatalogueMembership set;
+        private int position;
+        private boolean head;
+        private byte[] current = new byte[64];
+        private int length;
+
+        private Cursor(CatalogueMembership set, int block) {
+            this.set = set;
+            seek(block);
+        }
+
+        private void seek(int block) {
+            position = block < set.blocks.length ? set.blocks[block] : set.data.length;
+            head = true;
+        }
+
+        private void next() {
+            byte[] bytes = set.data;
+            int shared = 0;
+            if (!head) {
+                int[] prefix = readVarint(bytes, position);
+                shared = prefix[0];
+                position += prefix[1];
+            }
+            head = false;
+            int[] suffix = readVarint(bytes, position);
+            position += suffix[1];
+            length = shared + suffix[0];
+            if (current.length < length) {
+                current = Arrays.copyOf(current, Math.max(length, current.length * 2));
+            }
+            System.arraycopy(bytes, position, current, shared, suffix[0]);
+            position += suffix[0];
+        }
+    }
+
+    /**
+     * Collects ids. Ids added in ascending order are encoded right away, otherwise they are sorted on {@link #build()}.
+     */
+    public static class Builder {
+
+        private final List<byte[]> unsorted = new ArrayList<>();
+        private boolean sorted = true;
+
+        private byte[] data = new byte[1024];
+        private int position;
+        private int[] blocks = new int[64];
+        private int size;
+        private byte[] previous;
+
+        private Builder() {
+        }
+
+        public Builder add(String id) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (sorted && previous != null) {
+                int cmp = compare(previous, previous.length, bytes, bytes.length);
+                if (cmp == 0) {
+                    return this;
+                } else if (cmp > 0) {
+                    sorted = false;
+                }
+            }
+            if (sorted) {
+                append(bytes);
+            } else {
+                unsorted.add(bytes);
+            }
+            return this;
+        }
+
+        public CatalogueMembership build() {
+            if (!sorted) {
+                List<byte[]> all = new ArrayList<>(size + unsorted.size());
+                new CatalogueMembership(data, Arrays.copyOf(blocks, (size + BLOCK_SIZE - 1) / BLOCK_SIZE), size)
+                        .forEach(id -> all.add(id.getBytes(StandardCharsets.UTF_8)));
+                all.addAll(unsorted);
+                all.sort((a, b) -> compare(a, a.length, b, b.length));
+
+                unsorted.clear();
+                data = new byte[Math.max(1024, data.length)];
+                position = 0;
+                size = 0;
+                previous = null;
+                sorted = true;
+                all.forEach(bytes -> {
+                    if (previous == null || compare(previous, previous.length, bytes, bytes.length) != 0) {
+                        append(bytes);
+                    }
+                });
+            }
+            return new CatalogueMembership(Arrays.copyOf(data, position), Arrays.copyOf(blocks, (size + BLOCK_SIZE - 1) / BLOCK_SIZE), size);
+        }
+
+        private void append(byte[] bytes) {
+            int shared = 0;
+            if (size % BLOCK_SIZE == 0) {
+                if (size / BLOCK_SIZE == blocks.length) {
+                    blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                }
+                blocks[size / BLOCK_SIZE] = position;
+            } else {
+                int max = Math.min(previous.length, bytes.length);
+                while (shared < max && previous[shared] == bytes[shared]) {
+                    shared++;
+                }
+                writeVarint(shared);
+            }
+            writeVarint(bytes.length - shared);
+            ensure(bytes.length - shared);
+            System.arraycopy(bytes, shared, data, position, bytes.length - shared);
+            position += bytes.length - shared;
+            previous = bytes;
+            size++;
+        }
+
+        private void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[position++] = (byte) value;
+        }
+
+        private void ensure(int length) {
+            if (position + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(position + length, data.length * 2));
+            }
+        }
+    }
+
+    /**
+     * @return the value and the number of bytes read
+     */
+    private static int[] readVarint(byte[] bytes, int position) {
+        int value = 0;
+        int shift = 0;
+        int read = 0;
+        byte b;
+        do {
+            b = bytes[position + read++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return new int[]{value, read};
+    }
+
+    private static int compare(byte[] a, int aLength, byte[] b, int bLength) {
+        return compare(a, 0, aLength, b, 0, bLength);
+    }
+
+    private static int compare(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int max = Math.min(aLength, bLength);
+        for (int i = 0; i < max; i++) {
+            int cmp = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return aLength - bLength;
+    }
+
+}
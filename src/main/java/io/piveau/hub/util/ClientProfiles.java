@@ -0,0 +1,108 @@
+package io.piveau.hub.util;
+
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.piveau.hub.util.telemetry.Tracing;
+import io.piveau.json.ConfigHelper;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.ext.web.client.impl.WebClientInternal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Creates web clients tuned per backend.
+ * <p>
+ * Every backend has a profile with defaults fitting its traffic, which can be overridden with
+ * <code>PIVEAU_HUB_HTTP_CLIENTS.&lt;profile&gt;</code>. Supported keys are <code>maxPoolSize</code>,
+ * <code>maxWaitQueueSize</code>, <code>keepAlive</code>, <code>keepAliveTimeout</code>, <code>pipelining</code>,
+ * <code>pipeliningLimit</code>, <code>http2</code> (cleartext HTTP/2 with upgrade), <code>http2MaxPoolSize</code>,
+ * <code>http2MultiplexingLimit</code>, <code>compression</code> (accept gzip responses), <code>connectTimeout</code> and
+ * <code>idleTimeout</code> (seconds).
+ * <p>
+ * The requests of every client are measured per profile and traced, see {@link Telemetry#requests(String)} and
+ * {@link Tracing#requests(String)}.
+ */
+public class ClientProfiles {
+
+    public static final String TRIPLESTORE = "triplestore";
+    public static final String SEARCH = "search";
+    public static final String DATA_UPLOAD = "dataupload";
+    public static final String TRANSLATION = "translation";
+
+    private static final JsonObject DEFAULTS = new JsonObject()
+            .put(TRIPLESTORE, new JsonObject()
+                    .put("maxPoolSize", 32)
+                    .put("keepAlive", true)
+                    .put("keepAliveTimeout", 60)
+                    .put("compression", true))
+            .put(SEARCH, new JsonObject()
+                    .put("maxPoolSize", 16)
+                    .put("keepAlive", true)
+                    .put("compression", true))
+            .put(DATA_UPLOAD, new JsonObject()
+                    .put("maxPoolSize", 8)
+                    .put("keepAlive", true))
+            .put(TRANSLATION, new JsonObject()
+                    .put("maxPoolSize", 8)
+                    .put("keepAlive", true)
+                    .put("compression", true));
+
+    private ClientProfiles() {
+    }
+
+    /**
+     * @param config the verticle configuration
+     * @param profile the backend profile, unknown profiles get the Vert.x defaults plus their configuration
+     */
+    public static WebClient create(Vertx vertx, JsonObject config, String profile) {
+        WebClient client = WebClient.create(vertx, options(config, profile));
+        ((WebClientInternal) client)
+                .addInterceptor(Telemetry.requests(profile))
+                .addInterceptor(Tracing.requests(profile));
+        return client;
+    }
+
+    public static WebClientOptions options(JsonObject config, String profile) {
+        JsonObject settings = DEFAULTS.getJsonObject(profile, new JsonObject()).copy()
+                .mergeIn(ConfigHelper.forConfig(config).forceJsonObject(Constants.ENV_PIVEAU_HUB_HTTP_CLIENTS).getJsonObject(profile, new JsonObject()));
+
+        WebClientOptions options = new WebClientOptions();
+        options.setMaxPoolSize(settings.getInteger("maxPoolSize", options.getMaxPoolSize()))
+                .setMaxWaitQueueSize(settings.getInteger("maxWaitQueueSize", options.getMaxWaitQueueSize()))
+                .setKeepAlive(settings.getBoolean("keepAlive", options.isKeepAlive()))
+                .setKeepAliveTimeout(settings.getInteger("keepAliveTimeout", options.getKeepAliveTimeout()))
+                .setPipelining(settings.getBoolean("pipelining", options.isPipelining()))
+                .setPipeliningLimit(settings.getInteger("pipeliningLimit", options.getPipeliningLimit()))
+                .setTryUseCompression(settings.getBoolean("compression", options.isTryUseCompression()))
+                .setConnectTimeout(settings.getInteger("connectTimeout", options.getConnectTimeout()))
+                .setIdleTimeout(settings.getInteger("idleTimeout", options.getIdleTimeout()));
+        if (settings.getBoolean("http2", false)) {
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                    .setHttp2ClearTextUpgrade(true)
+                    .setHttp2MaxPoolSize(settings.getInteger("http2MaxPoolSize", options.getHttp2MaxPoolSize()))
+                    .setHttp2MultiplexingLimit(settings.getInteger("http2MultiplexingLimit", options.getHttp2MultiplexingLimit()));
+        }
+        return options;
+    }
+
+    /**
+     * Compresses a request body, to be sent with <code>Content-Encoding: gzip</code>.
+     */
+    public static Buffer gzip(Buffer buffer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(buffer.length() / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(buffer.getBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Buffer.buffer(out.toByteArray());
+    }
+
+}
@@ -25,6 +25,26 @@ final public class Constants {
 
     static public final String ENV_PIVEAU_CLUSTER_CONFIG ="PIVEAU_CLUSTER_CONFIG";
 
+    static public final String ENV_PIVEAU_HUB_CHANGE_FEED = "PIVEAU_HUB_CHANGE_FEED";
+
+    static public final String ENV_PIVEAU_HUB_GRAPH_CACHE = "PIVEAU_HUB_GRAPH_CACHE";
+
+    static public final String ENV_PIVEAU_HUB_CATALOGUE_CACHE = "PIVEAU_HUB_CATALOGUE_CACHE";
+
+    static public final String ENV_PIVEAU_HUB_HASH_INDEX = "PIVEAU_HUB_HASH_INDEX";
+
+    static public final String ENV_PIVEAU_HUB_BULK_IMPORT = "PIVEAU_HUB_BULK_IMPORT";
+
+    static public final String ENV_PIVEAU_HUB_CATALOGUE_LINKS = "PIVEAU_HUB_CATALOGUE_LINKS";
+
+    static public final String ENV_PIVEAU_HUB_HTTP_CLIENTS = "PIVEAU_HUB_HTTP_CLIENTS";
+
+    static public final String ENV_PIVEAU_HUB_METRICS = "PIVEAU_HUB_METRICS";
+
+    static public final String ENV_PIVEAU_HUB_TRACING = "PIVEAU_HUB_TRACING";
+
+    static public final String ENV_PIVEAU_HUB_SCALING = "PIVEAU_HUB_SCALING";
+
     public static final List<String> ALLOWED_CONTENT_TYPES = Collections.unmodifiableList(Arrays.asList(
         "application/rdf+xml",
         "application/ld+json",
@@ -0,0 +1,192 @@
+package io.piveau.hub.util;
+
+import io.piveau.dcatap.DCATAPUriSchema;
+import io.piveau.dcatap.TripleStore;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.sparql.vocabulary.FOAF;
+import org.apache.jena.vocabulary.DCAT;
+import org.apache.jena.vocabulary.DCTerms;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Routes every write of a dataset, including its distributions and translations, to the datasets instance owning the
+ * dataset partition, see {@link Partitions}. The partition key is the catalogue id and the original dataset id.
+ * <p>
+ * The datasets instance owning a partition serves the datasets, distributions and translation services on the
+ * partition addresses, all sharing one instance of this class. Any other service instance forwards the write. A write
+ * to a partition without an instance is retried for {@link #UNCLAIMED_TIMEOUT} milliseconds, e.g. while the owner is
+ * redeployed, and then fails with <code>503</code>.
+ * <p>
+ * The owner runs the writes of one dataset one after the other with a {@link KeyedTaskQueue}, whichever service
+ * received them.
+ * <p>
+ * Not thread safe, an instance is used from the context of one verticle.
+ */
+public class DatasetWrites {
+
+    private static final long RETRY_INTERVAL = 1000;
+    private static final long UNCLAIMED_TIMEOUT = 30000;
+
+    private static final String KEY_QUERY = "SELECT ?catalogue ?identifier WHERE { %s GRAPH ?c { ?catalogue <" + DCAT.record + "> ?record } GRAPH ?r { ?record <" + FOAF.primaryTopic + "> ?dataset ; <" + DCTerms.identifier + "> ?identifier } } LIMIT 1";
+
+    private final Vertx vertx;
+    private final TripleStore tripleStore;
+
+    private final int partitions;
+    private final int partition;
+
+    private final KeyedTaskQueue queue = new KeyedTaskQueue();
+
+    /**
+     * @param partitions the number of dataset partitions in the cluster
+     * @param partition the partition owned by this instance, <code>-1</code> if none
+     */
+    public DatasetWrites(Vertx vertx, TripleStore tripleStore, int partitions, int partition) {
+        this.vertx = vertx;
+        this.tripleStore = tripleStore;
+        this.partitions = Math.max(1, partitions);
+        this.partition = partition;
+    }
+
+    public static String key(String datasetId, String catalogueId) {
+        return catalogueId + "/" + datasetId;
+    }
+
+    /**
+     * @return the partition owned by this instance, <code>-1</code> if none
+     */
+    public int partition() {
+        return partition;
+    }
+
+    public int partition(String key) {
+        return Partitions.partition(key, partitions);
+    }
+
+    public boolean owns(String key) {
+        return partition >= 0 && partition(key) == partition;
+    }
+
+    /**
+     * @return a new dataset id in a partition owned by this instance, or any new id if this instance owns none
+     */
+    public String newId(String catalogueId) {
+        String id = UUID.randomUUID().toString();
+        while (partition >= 0 && !owns(key(id, catalogueId))) {
+            id = UUID.randomUUID().toString();
+        }
+        return id;
+    }
+
+    /**
+     * @return the number of local writes not completed yet, running or waiting
+     */
+    public int pending() {
+        return queue.pending();
+    }
+
+    /**
+     * Runs a write locally, queued behind the writes of the same key, if this instance owns the partition of the key.
+     * Without a key, e.g. of a dataset that does not exist, it runs locally right away. Otherwise it is sent to the
+     * owner.
+     *
+     * @param remote sends the write to the service instance of the given partition
+     */
+    public <T> Future<T> route(String key, Supplier<Future<T>> local, Function<Integer, Future<T>> remote) {
+        if (key == null) {
+            return local.get();
+        }
+        if (owns(key)) {
+            return queue.submit(key, local);
+        }
+        return forward(partition(key), remote);
+    }
+
+    /**
+     * Queues a local write of a dataset of this instance, see {@link KeyedTaskQueue#submit(String, Supplier)}.
+     */
+    public <T> Future<T> submit(String key, Supplier<Future<T>> write) {
+        return queue.submit(key, write);
+    }
+
+    /**
+     * Queues a local write of datasets of this instance, see {@link KeyedTaskQueue#submit(Collection, Supplier)}.
+     */
+    public <T> Future<T> submit(Collection<String> keys, Supplier<Future<T>> write) {
+        return queue.submit(keys, write);
+    }
+
+    /**
+     * Runs the creation of a new dataset locally if this instance owns a partition, see {@link #newId(String)}, and
+     * sends it to the owner of any partition otherwise.
+     */
+    public <T> Future<T> routeNew(Supplier<Future<T>> local, Function<Integer, Future<T>> remote) {
+        if (partition >= 0) {
+            return local.get();
+        }
+        return forward(ThreadLocalRandom.current().nextInt(partitions), remote);
+    }
+
+    /**
+     * Sends a write to the service instance of a partition, waiting for an instance to claim the partition.
+     */
+    public <T> Future<T> forward(int partition, Function<Integer, Future<T>> remote) {
+        Promise<T> promise = Promise.promise();
+        forward(partition, remote, System.currentTimeMillis() + UNCLAIMED_TIMEOUT, promise);
+        return promise.future();
+    }
+
+    private <T> void forward(int partition, Function<Integer, Future<T>> remote, long deadline, Promise<T> promise) {
+        remote.apply(partition).onComplete(ar -> {
+            if (ar.failed() && Partitions.unclaimed(ar.cause())) {
+                if (System.currentTimeMillis() < deadline) {
+                    vertx.setTimer(RETRY_INTERVAL, id -> forward(partition, remote, deadline, promise));
+                } else {
+                    promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, 503, "No instance serves dataset partition " + partition));
+                }
+            } else {
+                promise.handle(ar);
+            }
+        });
+    }
+
+    /**
+     * Looks up the partition key of a dataset by its uriRef.
+     *
+     * @return the key, <code>null</code> if the dataset does not exist
+     */
+    public Future<String> datasetKey(String datasetUriRef) {
+        return lookup("VALUES ?dataset { <" + datasetUriRef + "> }");
+    }
+
+    /**
+     * Looks up the partition key of the dataset of a distribution.
+     *
+     * @return the key, <code>null</code> if the distribution does not exist
+     */
+    public Future<String> distributionKey(String distributionUriRef) {
+        return lookup("GRAPH ?g { ?dataset <" + DCAT.distribution + "> <" + distributionUriRef + "> }");
+    }
+
+    private Future<String> lookup(String pattern) {
+        return tripleStore.select(String.format(KEY_QUERY, pattern)).map(set -> {
+            if (!set.hasNext()) {
+                return null;
+            }
+            QuerySolution solution = set.next();
+            String catalogueId = DCATAPUriSchema.parseUriRef(solution.getResource("catalogue").getURI()).getId();
+            return key(solution.getLiteral("identifier").getString(), catalogueId);
+        });
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.piveau.hub.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP Digest authentication (RFC 2617) with a cached server nonce.
+ * <p>
+ * After the first challenge every request is authenticated up front with the same nonce and an incremented nonce
+ * count, so a request is sent only once. A new challenge, e.g. with <code>stale=true</code> when the server retired
+ * the nonce, replaces the cached one. Supports the algorithms <code>MD5</code> and <code>MD5-sess</code>, with
+ * <code>qop=auth</code> or without qop.
+ */
+public class DigestSession {
+
+    private static final Pattern PARAMETER = Pattern.compile("(\\w+)\\s*=\\s*(?:\"((?:[^\"\\\\]|\\\\.)*)\"|([^,\\s]*))");
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String username;
+    private final String password;
+
+    private volatile Challenge challenge;
+
+    public DigestSession(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Takes a new challenge from a <code>WWW-Authenticate</code> header.
+     *
+     * @return true if the header is a digest challenge
+     */
+    public boolean update(String authenticate) {
+        Challenge parsed = Challenge.parse(authenticate);
+        if (parsed != null) {
+            challenge = parsed;
+        }
+        return parsed != null;
+    }
+
+    /**
+     * @return the <code>Authorization</code> header for the next request or <code>null</code> if there was no
+     * challenge yet
+     */
+    public String authorization(String method, String digestUri) {
+        byte[] bytes = new byte[8];
+        RANDOM.nextBytes(bytes);
+        return authorization(method, digestUri, hex(bytes));
+    }
+
+    /**
+     * Same as {@link #authorization(String, String)} with a given client nonce.
+     */
+    public String authorization(String method, String digestUri, String cnonce) {
+        Challenge current = challenge;
+        if (current == null) {
+            return null;
+        }
+
+        String ha1 = md5(username + ":" + current.realm + ":" + password);
+        boolean qop = current.qopAuth;
+        String nc = qop ? String.format("%08x", current.nonceCount.incrementAndGet()) : null;
+        if ("MD5-sess".equalsIgnoreCase(current.algorithm)) {
+            ha1 = md5(ha1 + ":" + current.nonce + ":" + cnonce);
+        }
+        String ha2 = md5(method + ":" + digestUri);
+        String response = qop
+                ? md5(ha1 + ":" + current.nonce + ":" + nc + ":" + cnonce + ":auth:" + ha2)
+                : md5(ha1 + ":" + current.nonce + ":" + ha2);
+
+        StringBuilder header = new StringBuilder("Digest username=\"").append(username)
+                .append("\", realm=\"").append(current.realm)
+                .append("\", nonce=\"").append(current.nonce)
+                .append("\", uri=\"").append(digestUri)
+                .append("\", response=\"").append(response).append("\"");
+        if (current.algorithm != null) {
+            header.append(", algorithm=").append(current.algorithm);
+        }
+        if (current.opaque != null) {
+            header.append(", opaque=\"").append(current.opaque).append("\"");
+        }
+        if (qop) {
+            header.append(", qop=auth, nc=").append(nc).append(", cnonce=\"").append(cnonce).append("\"");
+        }
+        return header.toString();
+    }
+
+    private static String md5(String value) {
+        try {
+            return hex(MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static class Challenge {
+        private final String realm;
+        private final String nonce;
+        private final String opaque;
+        private final String algorithm;
+        private final boolean qopAuth;
+        private final AtomicInteger nonceCount = new AtomicInteger();
+
+        private Challenge(Map<String, String> parameters) {
+            realm = parameters.getOrDefault("realm", "");
+            nonce = parameters.get("nonce");
+            opaque = parameters.get("opaque");
+            algorithm = parameters.get("algorithm");
+            String qop = parameters.get("qop");
+            qopAuth = qop != null && Arrays.stream(qop.split(",")).anyMatch(value -> value.trim().equalsIgnoreCase("auth"));
+        }
+
+        private static Challenge parse(String authenticate) {
+            if (authenticate == null || !authenticate.trim().toLowerCase(Locale.ROOT).startsWith("digest ")) {
+                return null;
+            }
+            Map<String, String> parameters = new HashMap<>();
+            Matcher matcher = PARAMETER.matcher(authenticate.trim().substring(7));
+            while (matcher.find()) {
+                String value = matcher.group(2) != null ? matcher.group(2).replaceAll("\\\\(.)", "$1") : matcher.group(3);
+                parameters.put(matcher.group(1).toLowerCase(Locale.ROOT), value);
+            }
+            return parameters.containsKey("nonce") ? new Challenge(parameters) : null;
+        }
+    }
+
+}
@@ -0,0 +1,365 @@
+package io.piveau.hub.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Chunked transfer of a response body over the event bus, from a service to the handler writing the HTTP response.
+ * <p>
+ * The handler registers a {@link Receiver} on a unique address and passes the address to the service, which writes
+ * the body into a {@link Sender}. Every chunk is a request, answered as soon as the HTTP response accepts more data.
+ * The sender keeps at most {@link #WINDOW} chunks unanswered, so a slow client pauses the service side instead of
+ * piling up chunks in memory.
+ * <p>
+ * A failure reported before the first chunk becomes the status of the response, e.g. a 404. Later failures reset the
+ * connection, as the status is already sent. A receiver waiting longer than {@link #IDLE_TIMEOUT} milliseconds for the
+ * next chunk, e.g. because the service died, fails the response the same way with <code>504</code>.
+ */
+public final class EventBusStream {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int WINDOW = 4;
+
+    private static final long IDLE_TIMEOUT = 120000;
+
+    private static final String ADDRESS_PREFIX = "io.piveau.hub.stream.";
+
+    private static final String END = "stream.end";
+    private static final String ERROR = "stream.error";
+    private static final String STATUS = "stream.status";
+
+    private static final DeliveryOptions CHUNK_OPTIONS = new DeliveryOptions().setSendTimeout(60000);
+
+    private EventBusStream() {
+    }
+
+    /**
+     * Registers a receiver writing into the response. The content type is to be set before.
+     *
+     * @return the receiver, as soon as it is registered
+     */
+    public static Future<Receiver> receive(Vertx vertx, HttpServerResponse response) {
+        Receiver receiver = new Receiver(vertx, response);
+        Promise<Receiver> promise = Promise.promise();
+        receiver.consumer.completionHandler(ar -> {
+            if (ar.succeeded()) {
+                promise.complete(receiver);
+            } else {
+                promise.fail(ar.cause());
+            }
+        });
+        return promise.future();
+    }
+
+    /**
+     * Streams the body of a response from a service.
+     *
+     * @param call calls the service with the address of the receiver
+     */
+    public static void respond(Vertx vertx, RoutingContext context, String contentType, BiConsumer<String, Handler<AsyncResult<JsonObject>>> call) {
+        HttpServerResponse response = context.response().putHeader(HttpHeaders.CONTENT_TYPE, contentType);
+        receive(vertx, response).onComplete(rr -> {
+            if (rr.failed()) {
+                response.setStatusCode(500).end(String.valueOf(rr.cause().getMessage()));
+                return;
+            }
+            Receiver receiver = rr.result();
+            call.accept(receiver.address(), ar -> {
+                if (ar.failed()) {
+                    receiver.cancel();
+                    response.setStatusCode(500).end(String.valueOf(ar.cause().getMessage()));
+                }
+            });
+        });
+    }
+
+    public static Sender sender(Vertx vertx, String address) {
+        return new Sender(vertx.eventBus(), address);
+    }
+
+    /**
+     * @return the HTTP status for a failure, taken from a reply exception or a message starting with the status
+     */
+    static int status(Throwable cause) {
+        if (cause instanceof ReplyException && ((ReplyException) cause).failureCode() >= 400) {
+            return ((ReplyException) cause).failureCode();
+        }
+        String message = cause.getMessage();
+        if (message != null && (message.startsWith("404") || message.startsWith("not found"))) {
+            return 404;
+        }
+        return 500;
+    }
+
+    public static class Receiver {
+
+        private final Vertx vertx;
+        private final HttpServerResponse response;
+        private final MessageConsumer<Buffer> consumer;
+
+        // chunks written while the response was full, answered on drain
+        private final Deque<Message<Buffer>> waiting = new ArrayDeque<>();
+
+        private boolean closed;
+        private long idleTimer;
+
+        private Receiver(Vertx vertx, HttpServerResponse response) {
+            this.vertx = vertx;
+            this.response = response;
+            response.setChunked(true);
+            consumer = vertx.eventBus().consumer(ADDRESS_PREFIX + UUID.randomUUID(), this::handle);
+            response.closeHandler(v -> {
+                closed = true;
+                waiting.forEach(message -> message.fail(499, "Client closed the connection"));
+                waiting.clear();
+                stop();
+            });
+            idleTimer = vertx.setTimer(IDLE_TIMEOUT, this::idle);
+        }
+
+        public String address() {
+            return consumer.address();
+        }
+
+        /**
+         * Stops receiving, when the service did not start the transfer. The response is left to the caller.
+         */
+        public void cancel() {
+            stop();
+        }
+
+        private void stop() {
+            vertx.cancelTimer(idleTimer);
+            consumer.unregister();
+        }
+
+        /**
+         * Fails the response if no chunk came in time, unless the chunks are waiting for the client.
+         */
+        private void idle(long timerId) {
+            if (closed) {
+                return;
+            }
+            if (!waiting.isEmpty()) {
+                idleTimer = vertx.setTimer(IDLE_TIMEOUT, this::idle);
+                return;
+            }
+            closed = true;
+            stop();
+            if (!response.headWritten()) {
+                response.setChunked(false).setStatusCode(504).end("No response from the service");
+            } else {
+                response.reset();
+            }
+        }
+
+        private void handle(Message<Buffer> message) {
+            if (closed) {
+                message.fail(499, "Client closed the connection");
+                return;
+            }
+            vertx.cancelTimer(idleTimer);
+            idleTimer = vertx.setTimer(IDLE_TIMEOUT, this::idle);
+            if (message.headers().contains(ERROR)) {
+                stop();
+                if (!response.headWritten()) {
+                    response.setChunked(false)
+                            .setStatusCode(Integer.parseInt(message.headers().get(STATUS)))
+                            .end(message.headers().get(ERROR));
+                } else {
+                    response.reset();
+                }
+            } else if (message.headers().contains(END)) {
+                stop();
+                response.end();
+            } else {
+                response.write(message.body());
+                if (response.writeQueueFull()) {
+                    waiting.add(message);
+                    response.drainHandler(v -> {
+                        while (!waiting.isEmpty()) {
+                            waiting.poll().reply(null);
+                        }
+                    });
+                } else {
+                    message.reply(null);
+                }
+            }
+        }
+    }
+
+    public static class Sender implements WriteStream<Buffer> {
+
+        private final EventBus eventBus;
+        private final String address;
+
+        private int pending;
+        private boolean failed;
+        private boolean ended;
+
+        private long captureLimit;
+        private Buffer captured;
+        private Handler<Buffer> captureHandler;
+
+        private Handler<Void> drainHandler;
+        private Handler<Throwable> exceptionHandler;
+
+        private Sender(EventBus eventBus, String address) {
+            this.eventBus = eventBus;
+            this.address = address;
+        }
+
+        /**
+         * Keeps a copy of the body up to <code>limit</code> bytes, handed over when the body is complete, e.g. for a
+         * cache. Bodies exceeding the limit are not kept.
+         */
+        public Sender capture(long limit, Handler<Buffer> handler) {
+            captureLimit = limit;
+            captured = Buffer.buffer();
+            captureHandler = handler;
+            return this;
+        }
+
+        /**
+         * Writes a complete body in chunks and ends the transfer.
+         */
+        public void send(Buffer content) {
+            send(content, 0);
+        }
+
+        private void send(Buffer content, int position) {
+            int offset = position;
+            while (offset < content.length() && !writeQueueFull()) {
+                int next = Math.min(content.length(), offset + CHUNK_SIZE);
+                write(content.getBuffer(offset, next));
+                offset = next;
+            }
+            if (offset < content.length()) {
+                int resume = offset;
+                drainHandler(v -> send(content, resume));
+            } else {
+                end();
+            }
+        }
+
+        /**
+         * Ends the transfer with a failure, which the receiver turns into the status of the response if possible.
+         */
+        public void fail(Throwable cause) {
+            if (failed || ended) {
+                return;
+            }
+            failed = true;
+            captured = null;
+            eventBus.send(address, null, new DeliveryOptions()
+                    .addHeader(ERROR, String.valueOf(cause.getMessage()))
+                    .addHeader(STATUS, String.valueOf(status(cause))));
+        }
+
+        @Override
+        public Sender exceptionHandler(Handler<Throwable> handler) {
+            exceptionHandler = handler;
+            return this;
+        }
+
+        @Override
+        public Sender write(Buffer data) {
+            return write(data, null);
+        }
+
+        @Override
+        public Sender write(Buffer data, Handler<AsyncResult<Void>> handler) {
+            if (failed || ended) {
+                // the receiver is gone, the rest of the body is dropped
+                if (handler != null) {
+                    handler.handle(Future.succeededFuture());
+                }
+                return this;
+            }
+            if (captured != null) {
+                if (captured.length() + data.length() <= captureLimit) {
+                    captured.appendBuffer(data);
+                } else {
+                    captured = null;
+                }
+            }
+            pending++;
+            eventBus.<Void>request(address, data, CHUNK_OPTIONS, ar -> {
+                pending--;
+                if (ar.failed() && !failed) {
+                    failed = true;
+                    captured = null;
+                    if (exceptionHandler != null) {
+                        exceptionHandler.handle(ar.cause());
+                    }
+                }
+                if (handler != null) {
+                    handler.handle(ar.mapEmpty());
+                }
+                if (drainHandler != null && !writeQueueFull()) {
+                    Handler<Void> drained = drainHandler;
+                    drainHandler = null;
+                    drained.handle(null);
+                }
+            });
+            return this;
+        }
+
+        @Override
+        public void end() {
+            end((Handler<AsyncResult<Void>>) null);
+        }
+
+        @Override
+        public void end(Handler<AsyncResult<Void>> handler) {
+            if (!failed && !ended) {
+                ended = true;
+                eventBus.send(address, null, new DeliveryOptions().addHeader(END, "true"));
+                if (captured != null) {
+                    captureHandler.handle(captured);
+                    captured = null;
+                }
+            }
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+        }
+
+        @Override
+        public Sender setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            return !failed && pending >= WINDOW;
+        }
+
+        @Override
+        public Sender drainHandler(Handler<Void> handler) {
+            drainHandler = handler;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+package io.piveau.hub.util;
+
+import io.piveau.hub.util.telemetry.Telemetry;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
+import org.apache.jena.ext.com.google.common.cache.CacheStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of serialized graphs, keyed by graph name and a variant, e.g. the content type.
+ * <p>
+ * All variants of a graph are held in one entry, so a write invalidates them together. The weight of an entry is the
+ * number of characters of its serializations. Invalidations are published on {@link #INVALIDATE_ADDRESS}, which keeps
+ * the caches of all instances consistent. A read started before an invalidation does not populate the cache, see
+ * {@link #generation()}.
+ * <p>
+ * Dataset identities, i.e. the graph of an original dataset id within a catalogue, are dropped on all instances with a
+ * message on {@link #IDENTITY_ADDRESS}, carrying the <code>catalogueId</code> and the <code>datasetId</code>. Without a
+ * <code>datasetId</code> all identities of the catalogue are dropped, e.g. when the catalogue is deleted.
+ */
+public class GraphCache {
+
+    public static final String INVALIDATE_ADDRESS = "io.piveau.hub.graphcache.invalidate";
+    public static final String IDENTITY_ADDRESS = "io.piveau.hub.graphcache.identity.invalidate";
+    public static final String STATUS_ADDRESS = "io.piveau.hub.graphcache.status";
+    public static final String ORIGIN_HEADER = "origin";
+
+    private final Vertx vertx;
+    private final String origin = UUID.randomUUID().toString();
+
+    private final Cache<String, Map<String, String>> graphs;
+    private final Cache<String, String> identities;
+
+    private final long maxWeight;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private GraphCache(Vertx vertx, JsonObject config) {
+        this.vertx = vertx;
+        maxWeight = config.getLong("maxSize", 64L * 1024 * 1024);
+        long expireAfterWrite = config.getLong("expireAfterWrite", 600000L);
+
+        graphs = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .<String, Map<String, String>>weigher((graph, variants) ->
+                        variants.values().stream().mapToInt(String::length).sum())
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        identities = CacheBuilder.newBuilder()
+                .maximumSize(config.getLong("maxIdentities", 100000L))
+                .expireAfterWrite(config.getLong("identityExpireAfterWrite", 3600000L), TimeUnit.MILLISECONDS)
+                .build();
+
+        Telemetry.cache("graphs", graphs);
+
+        vertx.eventBus().<String>consumer(INVALIDATE_ADDRESS, message -> evict(message.body()));
+        vertx.eventBus().<JsonObject>consumer(IDENTITY_ADDRESS, message ->
+                evictIdentity(message.body().getString("datasetId"), message.body().getString("catalogueId")));
+        vertx.eventBus().consumer(STATUS_ADDRESS, message -> message.reply(stats()));
+    }
+
+    /**
+     * @param config the graph cache configuration, <code>null</code> or <code>enabled = false</code> for no cache
+     * @return the cache or <code>null</code> if disabled
+     */
+    public static GraphCache create(Vertx vertx, JsonObject config) {
+        if (config == null || !config.getBoolean("enabled", true)) {
+            return null;
+        }
+        return new GraphCache(vertx, config);
+    }
+
+    public String get(String graphName, String variant) {
+        Map<String, String> variants = graphs.getIfPresent(graphName);
+        String content = variants != null ? variants.get(variant) : null;
+        if (content != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return content;
+    }
+
+    /**
+     * @return the current invalidation generation, to be taken before reading a graph from the store
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * @return the length of the largest serialization the cache takes
+     */
+    public long maxEntryLength() {
+        return maxWeight / 16;
+    }
+
+    /**
+     * Adds a serialization, unless the cache was invalidated since <code>generation</code> was taken.
+     */
+    public void put(String graphName, String variant, String content, long generation) {
+        if (content == null || content.length() > maxEntryLength() || generation != this.generation.get()) {
+            return;
+        }
+        Map<String, String> variants = new HashMap<>();
+        Map<String, String> current = graphs.getIfPresent(graphName);
+        if (current != null) {
+            variants.putAll(current);
+        }
+        variants.put(variant, content);
+        graphs.put(graphName, variants);
+    }
+
+    /**
+     * Remembers the graph name of a dataset identified by its original id within a catalogue.
+     */
+    public void putIdentity(String datasetId, String catalogueId, String graphName) {
+        identities.put(identityKey(datasetId, catalogueId), graphName);
+    }
+
+    public String getIdentity(String datasetId, String catalogueId) {
+        return identities.getIfPresent(identityKey(datasetId, catalogueId));
+    }
+
+    /**
+     * @return the value of the {@link #ORIGIN_HEADER} of the invalidations published by this cache
+     */
+    public String origin() {
+        return origin;
+    }
+
+    /**
+     * Drops all serializations of a graph here and in all other instances.
+     */
+    public void invalidate(String graphName) {
+        evict(graphName);
+        vertx.eventBus().publish(INVALIDATE_ADDRESS, graphName, new DeliveryOptions().addHeader(ORIGIN_HEADER, origin));
+    }
+
+    /**
+     * Drops a dataset identity and its graph here and in all other instances, used when the dataset is deleted.
+     */
+    public void invalidate(String datasetId, String catalogueId, String graphName) {
+        evictIdentity(datasetId, catalogueId);
+        publishIdentityInvalidation(vertx, datasetId, catalogueId);
+        invalidate(graphName);
+    }
+
+    public JsonObject stats() {
+        CacheStats stats = graphs.stats();
+        long weight = graphs.asMap().values().stream()
+                .mapToLong(variants -> variants.values().stream().mapToLong(String::length).sum())
+                .sum();
+        return new JsonObject()
+                .put("graphs", graphs.size())
+                .put("identities", identities.size())
+                .put("weight", weight)
+                .put("maxWeight", maxWeight)
+                .put("hits", hits.get())
+                .put("misses", misses.get())
+                .put("hitRate", hits.get() + misses.get() == 0 ? 0.0 : (double) hits.get() / (hits.get() + misses.get()))
+                .put("evictions", stats.evictionCount());
+    }
+
+    private void evict(String graphName) {
+        if (graphName != null) {
+            generation.incrementAndGet();
+            graphs.invalidate(graphName);
+        }
+    }
+
+    private void evictIdentity(String datasetId, String catalogueId) {
+        if (catalogueId == null) {
+            return;
+        }
+        if (datasetId != null) {
+            identities.invalidate(identityKey(datasetId, catalogueId));
+        } else {
+            String prefix = identityKey("", catalogueId);
+            identities.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private static String identityKey(String datasetId, String catalogueId) {
+        return catalogueId + "\u0000" + datasetId;
+    }
+
+    /**
+     * Publishes an invalidation without a local cache instance, for writers in other verticles.
+     */
+    public static void publishInvalidation(Vertx vertx, String graphName) {
+        vertx.eventBus().publish(INVALIDATE_ADDRESS, graphName);
+    }
+
+    /**
+     * Publishes the invalidation of a dataset identity, or of all identities of a catalogue if <code>datasetId</code>
+     * is <code>null</code>.
+     */
+    public static void publishIdentityInvalidation(Vertx vertx, String datasetId, String catalogueId) {
+        vertx.eventBus().publish(IDENTITY_ADDRESS, new JsonObject()
+                .put("catalogueId", catalogueId)
+                .put("datasetId", datasetId));
+    }
+
+}
@@ -0,0 +1,196 @@
+package io.piveau.hub.util;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only journal of json objects, one object per line.
+ * <p>
+ * All operations are blocking and meant to be used from worker verticles. A torn last line, left by a crash in the
+ * middle of an append, is skipped when reading.
+ * <p>
+ * With <code>sync</code>, every append is forced to the storage device before it returns, so acknowledged entries
+ * survive a crash of the machine. Without, they survive a crash of the process only.
+ */
+public class Journal implements Closeable {
+
+    private final Path path;
+    private final boolean sync;
+
+    private FileChannel channel;
+
+    private int entries;
+
+    public Journal(Path path) throws IOException {
+        this(path, true);
+    }
+
+    /**
+     * The journal file of one of several instances configured with the same path. The first instance keeps the path,
+     * the others append their number, e.g. <code>index.journal.1</code>.
+     */
+    public static Path path(String path, int instance) {
+        return Paths.get(instance == 0 ? path : path + "." + instance);
+    }
+
+    public Journal(Path path, boolean sync) throws IOException {
+        this.path = path;
+        this.sync = sync;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        read(0, (position, entry) -> entries++);
+        channel = open();
+    }
+
+    /**
+     * @return all readable entries in the order they were appended
+     */
+    public List<JsonObject> read() throws IOException {
+        List<JsonObject> result = new ArrayList<>();
+        read(0, (position, entry) -> result.add(entry));
+        return result;
+    }
+
+    /**
+     * Reads the entries from a byte offset on, one at a time.
+     *
+     * @param offset   the offset of an entry, e.g. passed to the consumer before, <code>0</code> for all entries
+     * @param consumer takes the offset and the entry of every readable entry, in the order they were appended
+     * @return the offset after the last complete entry
+     */
+    public long read(long offset, BiConsumer<Long, JsonObject> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long start = offset <= Files.size(path) ? offset : 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            long skipped = 0;
+            while (skipped < start) {
+                skipped += in.skip(start - skipped);
+            }
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = start;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String text = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                if (!text.isBlank()) {
+                    JsonObject entry = null;
+                    try {
+                        entry = new JsonObject(text);
+                    } catch (DecodeException e) {
+                        // torn write
+                    }
+                    if (entry != null) {
+                        consumer.accept(start, entry);
+                    }
+                }
+                start = position;
+            }
+            // an unterminated last line is a torn write
+            return start;
+        }
+    }
+
+    public void append(JsonObject entry) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((entry.encode() + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        entries++;
+    }
+
+    /**
+     * Atomically replaces the journal content, used to compact it.
+     */
+    public void rewrite(Collection<JsonObject> content) throws IOException {
+        channel.close();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter tmpWriter = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (JsonObject entry : content) {
+                tmpWriter.write(entry.encode());
+                tmpWriter.newLine();
+            }
+        }
+        if (sync) {
+            try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                tmpChannel.force(true);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        entries = content.size();
+        channel = open();
+    }
+
+    /**
+     * Drops all entries before a byte offset, see {@link #read(long, BiConsumer)}, by copying the rest of the file.
+     */
+    public void truncate(long offset) throws IOException {
+        channel.close();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = source.size();
+            long position = Math.min(offset, size);
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+            if (sync) {
+                target.force(true);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        entries = 0;
+        read(0, (position, entry) -> entries++);
+        channel = open();
+    }
+
+    /**
+     * @return number of entries in the journal, including superseded ones
+     */
+    public int size() {
+        return entries;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+}
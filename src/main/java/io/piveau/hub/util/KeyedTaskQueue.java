@@ -0,0 +1,88 @@
+package io.piveau.hub.util;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous tasks in order per key, e.g. all writes of one dataset, while tasks of different keys run in
+ * parallel. A task starts when the previous task of its key is completed, whether succeeded or failed.
+ * <p>
+ * Only keys with tasks in flight are kept. The queue is not thread safe, it is meant to be used from the context of
+ * one verticle.
+ */
+public class KeyedTaskQueue {
+
+    private final Map<String, Future<?>> tails = new HashMap<>();
+
+    private int pending;
+
+    /**
+     * @return a future completed with the result of the task, after all tasks submitted before for the same key
+     */
+    public <T> Future<T> submit(String key, Supplier<Future<T>> task) {
+        return submit(Collections.singleton(key), task);
+    }
+
+    /**
+     * Runs a task holding several keys, e.g. a bulk write of many datasets.
+     *
+     * @return a future completed with the result of the task, after all tasks submitted before for any of the keys
+     */
+    public <T> Future<T> submit(Collection<String> keys, Supplier<Future<T>> task) {
+        Set<String> distinct = new LinkedHashSet<>(keys);
+        Promise<T> promise = Promise.promise();
+        Future<T> result = promise.future();
+        List<Future> previous = new ArrayList<>();
+        distinct.forEach(key -> {
+            Future<?> tail = tails.put(key, result);
+            if (tail != null) {
+                previous.add(tail);
+            }
+        });
+        pending++;
+        result.onComplete(ar -> {
+            pending--;
+            distinct.forEach(key -> tails.remove(key, result));
+        });
+        if (previous.isEmpty()) {
+            run(task, promise);
+        } else {
+            CompositeFuture.join(previous).onComplete(ar -> run(task, promise));
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of submitted tasks not completed yet, running or waiting
+     */
+    public int pending() {
+        return pending;
+    }
+
+    /**
+     * @return the number of keys with tasks in flight
+     */
+    public int keys() {
+        return tails.size();
+    }
+
+    private <T> void run(Supplier<Future<T>> task, Promise<T> promise) {
+        try {
+            task.get().onComplete(promise);
+        } catch (Exception e) {
+            promise.fail(e);
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+package io.piveau.hub.util;
+
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.rdf.model.RDFNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Function;
+
+/**
+ * Cursor based enumeration of a single SPARQL variable.
+ * <p>
+ * Instead of paging with LIMIT/OFFSET, every page is selected with a filter on the string value of the last
+ * seen binding, so the triple store never has to skip an already delivered prefix. Pages are only fetched
+ * when there is demand and each page is consumed as a stream, so the current page is paused as long as the
+ * consumer does not keep up.
+ *
+ * @param <T> the type emitted by the stream
+ */
+public class KeysetStream<T> implements ReadStream<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 10000;
+
+    private final TSConnector connector;
+    private final String variable;
+    private final String pattern;
+    private final int pageSize;
+    private final Function<RDFNode, T> mapper;
+
+    private final Deque<T> buffer = new ArrayDeque<>();
+
+    private String cursor;
+    private boolean exhausted;
+    private ReadStream<QuerySolution> page;
+    private boolean emitting;
+    private boolean ended;
+    private long demand = Long.MAX_VALUE;
+
+    private Handler<T> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+
+    /**
+     * @param connector the connector used for the page selects
+     * @param variable  the variable name without leading question mark
+     * @param pattern   a group graph pattern binding the variable, without surrounding braces
+     * @param pageSize  number of bindings per page
+     * @param mapper    maps a binding to the emitted item, a <code>null</code> result skips the binding
+     */
+    KeysetStream(TSConnector connector, String variable, String pattern, int pageSize, Function<RDFNode, T> mapper) {
+        this.connector = connector;
+        this.variable = variable;
+        this.pattern = pattern;
+        this.pageSize = pageSize;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Skips all bindings up to and including the given string value. Must be called before the stream is consumed.
+     */
+    KeysetStream<T> startAfter(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    @Override
+    public KeysetStream<T> exceptionHandler(Handler<Throwable> handler) {
+        exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public KeysetStream<T> handler(Handler<T> handler) {
+        this.handler = handler;
+        if (handler != null) {
+            drain();
+        }
+        return this;
+    }
+
+    @Override
+    public KeysetStream<T> pause() {
+        demand = 0;
+        return this;
+    }
+
+    @Override
+    public KeysetStream<T> resume() {
+        return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public KeysetStream<T> fetch(long amount) {
+        demand += amount;
+        if (demand < 0) {
+            demand = Long.MAX_VALUE;
+        }
+        drain();
+        return this;
+    }
+
+    @Override
+    public KeysetStream<T> endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    private void drain() {
+        if (emitting || ended) {
+            return;
+        }
+        emitting = true;
+        try {
+            while (demand > 0 && handler != null && !buffer.isEmpty()) {
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+                handler.handle(buffer.poll());
+            }
+        } finally {
+            emitting = false;
+        }
+
+        if (ended) {
+            return;
+        }
+        if (!buffer.isEmpty() || demand == 0 || handler == null) {
+            if (page != null) {
+                page.pause();
+            }
+        } else if (page != null) {
+            page.resume();
+        } else if (exhausted) {
+            ended = true;
+            if (endHandler != null) {
+                endHandler.handle(null);
+            }
+        } else {
+            nextPage();
+        }
+    }
+
+    private void nextPage() {
+        int[] count = new int[1];
+        page = connector.queryStream(pageQuery());
+        page.exceptionHandler(cause -> {
+            page = null;
+            ended = true;
+            buffer.clear();
+            if (exceptionHandler != null) {
+                exceptionHandler.handle(cause);
+            }
+        }).endHandler(v -> {
+            page = null;
+            exhausted = count[0] < pageSize;
+            drain();
+        }).handler(solution -> {
+            RDFNode node = solution.get(variable);
+            count[0]++;
+            if (node != null) {
+                cursor = node.isLiteral() ? node.asLiteral().getLexicalForm() : node.toString();
+                T item = mapper.apply(node);
+                if (item != null) {
+                    buffer.add(item);
+                    drain();
+                }
+            }
+        });
+    }
+
+    private String pageQuery() {
+        StringBuilder query = new StringBuilder("SELECT DISTINCT ?").append(variable).append(" WHERE { ").append(pattern);
+        if (cursor != null) {
+            query.append(" FILTER(STR(?").append(variable).append(") > \"").append(escape(cursor)).append("\")");
+        }
+        return query.append(" } ORDER BY STR(?").append(variable).append(") LIMIT ").append(pageSize).toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+}
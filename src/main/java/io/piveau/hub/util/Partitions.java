@@ -0,0 +1,107 @@
+package io.piveau.hub.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.shareddata.Lock;
+
+/**
+ * Partitioning of a service address by key, e.g. by dataset, so that all requests for one key go to the same service
+ * instance and are handled in order, while different keys are spread over all instances.
+ * <p>
+ * Every service instance claims one free partition with a lock of the shared data, which is cluster wide when the hub
+ * runs clustered. The instance keeps the lock as long as it is deployed and listens on the partition address in
+ * addition to the service address. Instances left without a partition only serve the service address, they may claim a
+ * partition again later.
+ * <p>
+ * All partitions are requested at once, the first lock acquired is kept and any later one released right away, so an
+ * instance only waits for the claim timeout if all partitions are taken.
+ */
+public final class Partitions {
+
+    private static final long CLAIM_TIMEOUT = 5000;
+
+    private Partitions() {
+    }
+
+    public static String address(String address, int partition) {
+        return address + ".partition." + partition;
+    }
+
+    public static int partition(String key, int partitions) {
+        return Math.floorMod(key.hashCode(), partitions);
+    }
+
+    /**
+     * @return true if the failure is a request to a partition without an instance
+     */
+    public static boolean unclaimed(Throwable cause) {
+        return cause instanceof ReplyException && ((ReplyException) cause).failureType() == ReplyFailure.NO_HANDLERS;
+    }
+
+    /**
+     * Claims a free partition of an address, cluster wide.
+     *
+     * @param handler the claimed partition and its lock, or <code>null</code> if all partitions are taken
+     */
+    public static void claim(Vertx vertx, String address, int partitions, Handler<AsyncResult<Claim>> handler) {
+        claim(vertx, address, partitions, false, handler);
+    }
+
+    /**
+     * Claims a free slot of a name within this node, e.g. for a file of the local file system.
+     *
+     * @param handler the claimed slot and its lock, or <code>null</code> if all slots are taken
+     */
+    public static void claimLocal(Vertx vertx, String name, int slots, Handler<AsyncResult<Claim>> handler) {
+        claim(vertx, name, slots, true, handler);
+    }
+
+    private static void claim(Vertx vertx, String address, int partitions, boolean local, Handler<AsyncResult<Claim>> handler) {
+        Promise<Claim> promise = Promise.promise();
+        int[] remaining = {partitions};
+        for (int i = 0; i < partitions; i++) {
+            int partition = i;
+            Handler<AsyncResult<Lock>> locked = ar -> {
+                if (ar.succeeded() && !promise.tryComplete(new Claim(partition, ar.result()))) {
+                    ar.result().release();
+                }
+                if (--remaining[0] == 0) {
+                    promise.tryComplete();
+                }
+            };
+            if (local) {
+                vertx.sharedData().getLocalLockWithTimeout(address(address, partition), CLAIM_TIMEOUT, locked);
+            } else {
+                vertx.sharedData().getLockWithTimeout(address(address, partition), CLAIM_TIMEOUT, locked);
+            }
+        }
+        if (partitions <= 0) {
+            promise.tryComplete();
+        }
+        promise.future().onComplete(handler);
+    }
+
+    public static class Claim {
+
+        private final int partition;
+        private final Lock lock;
+
+        private Claim(int partition, Lock lock) {
+            this.partition = partition;
+            this.lock = lock;
+        }
+
+        public int partition() {
+            return partition;
+        }
+
+        public void release() {
+            lock.release();
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+package io.piveau.hub.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.JsonEvent;
+import io.vertx.core.parsetools.JsonParser;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.QuerySolutionMap;
+import org.apache.jena.rdf.model.AnonId;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Incremental parser for SPARQL query results in JSON format.
+ * <p>
+ * Response chunks are written into the {@link #sink()} as they arrive and every binding is emitted as a
+ * {@link QuerySolution} as soon as it is complete. The sink reports a full write queue when the consumer does not keep
+ * up, so a piped HTTP response is paused instead of being buffered.
+ */
+public class SparqlResultStream implements ReadStream<QuerySolution> {
+
+    private static final int HIGH_WATER_MARK = 1024;
+
+    private final JsonParser parser = JsonParser.newParser();
+
+    private final Model nodes = ModelFactory.createDefaultModel();
+
+    private final Deque<QuerySolution> queue = new ArrayDeque<>();
+
+    private final Sink sink = new Sink();
+
+    private boolean inBindings;
+    private boolean completed;
+    private boolean emitting;
+    private boolean ended;
+    private long demand = Long.MAX_VALUE;
+
+    private Handler<QuerySolution> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+
+    public SparqlResultStream() {
+        parser.handler(this::handleEvent);
+        parser.exceptionHandler(this::fail);
+    }
+
+    /**
+     * @return the write side, receiving the raw response body
+     */
+    public WriteStream<Buffer> sink() {
+        return sink;
+    }
+
+    /**
+     * Terminates the stream with an error, e.g. when the request itself failed.
+     */
+    public void fail(Throwable cause) {
+        if (!ended) {
+            ended = true;
+            queue.clear();
+            if (exceptionHandler != null) {
+                exceptionHandler.handle(cause);
+            }
+        }
+    }
+
+    @Override
+    public SparqlResultStream exceptionHandler(Handler<Throwable> handler) {
+        exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public SparqlResultStream handler(Handler<QuerySolution> handler) {
+        this.handler = handler;
+        if (handler != null) {
+            drain();
+        }
+        return this;
+    }
+
+    @Override
+    public SparqlResultStream pause() {
+        demand = 0;
+        return this;
+    }
+
+    @Override
+    public SparqlResultStream resume() {
+        return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public SparqlResultStream fetch(long amount) {
+        demand += amount;
+        if (demand < 0) {
+            demand = Long.MAX_VALUE;
+        }
+        drain();
+        return this;
+    }
+
+    @Override
+    public SparqlResultStream endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    private void handleEvent(JsonEvent event) {
+        switch (event.type()) {
+            case START_ARRAY:
+                if ("bindings".equals(event.fieldName())) {
+                    inBindings = true;
+                    parser.objectValueMode();
+                }
+                break;
+            case VALUE:
+                if (inBindings && event.isObject()) {
+                    queue.add(toSolution(event.objectValue()));
+                }
+                break;
+            case END_ARRAY:
+                if (inBindings) {
+                    inBindings = false;
+                    parser.objectEventMode();
+                }
+                break;
+            default:
+        }
+    }
+
+    private void drain() {
+        if (emitting) {
+            return;
+        }
+        emitting = true;
+        try {
+            while (!ended && demand > 0 && handler != null && !queue.isEmpty()) {
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+                handler.handle(queue.poll());
+            }
+        } finally {
+            emitting = false;
+        }
+
+        if (!ended && completed && queue.isEmpty()) {
+            ended = true;
+            if (endHandler != null) {
+                endHandler.handle(null);
+            }
+        } else if (sink.drainPending && queue.size() <= HIGH_WATER_MARK / 2) {
+            sink.drainPending = false;
+            if (sink.drainHandler != null) {
+                sink.drainHandler.handle(null);
+            }
+        }
+    }
+
+    private QuerySolution toSolution(JsonObject binding) {
+        QuerySolutionMap solution = new QuerySolutionMap();
+        binding.forEach(entry -> {
+            if (entry.getValue() instanceof JsonObject) {
+                solution.add(entry.getKey(), toNode((JsonObject) entry.getValue()));
+            }
+        });
+        return solution;
+    }
+
+    private RDFNode toNode(JsonObject term) {
+        String value = term.getString("value", "");
+        switch (term.getString("type", "literal")) {
+            case "uri":
+                return nodes.createResource(value);
+            case "bnode":
+                return nodes.createResource(AnonId.create(value));
+            default:
+                if (term.containsKey("xml:lang")) {
+                    return nodes.createLiteral(value, term.getString("xml:lang"));
+                } else if (term.containsKey("datatype")) {
+                    return nodes.createTypedLiteral(value, TypeMapper.getInstance().getSafeTypeByName(term.getString("datatype")));
+                } else {
+                    return nodes.createLiteral(value);
+                }
+        }
+    }
+
+    private class Sink implements WriteStream<Buffer> {
+
+        private Handler<Void> drainHandler;
+        private boolean drainPending;
+
+        @Override
+        public Sink exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public Sink write(Buffer data) {
+            return write(data, null);
+        }
+
+        @Override
+        public Sink write(Buffer data, Handler<AsyncResult<Void>> handler) {
+            if (!ended) {
+                parser.handle(data);
+                drain();
+            }
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+            return this;
+        }
+
+        @Override
+        public void end() {
+            end((Handler<AsyncResult<Void>>) null);
+        }
+
+        @Override
+        public void end(Handler<AsyncResult<Void>> handler) {
+            if (!ended) {
+                parser.end();
+                completed = true;
+                drain();
+            }
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+        }
+
+        @Override
+        public Sink setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            if (queue.size() >= HIGH_WATER_MARK) {
+                drainPending = true;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Sink drainHandler(Handler<Void> handler) {
+            drainHandler = handler;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package io.piveau.hub.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Helpers for consuming {@link ReadStream}s with bounded memory.
+ */
+public final class StreamProcessor {
+
+    private StreamProcessor() {
+    }
+
+    /**
+     * Consumes all items of a stream synchronously.
+     *
+     * @return a future completed when the stream ended, failed when the stream reported an exception
+     */
+    public static <T> Future<Void> forEach(ReadStream<T> stream, Handler<T> consumer) {
+        Promise<Void> promise = Promise.promise();
+        stream.exceptionHandler(promise::tryFail)
+                .endHandler(v -> promise.tryComplete())
+                .handler(item -> {
+                    try {
+                        consumer.handle(item);
+                    } catch (Exception e) {
+                        stream.handler(null);
+                        promise.tryFail(e);
+                    }
+                });
+        return promise.future();
+    }
+
+    /**
+     * Runs an asynchronous task for every item of a stream, with at most <code>concurrency</code> tasks in flight.
+     * The stream is paused while the limit is reached. Failing tasks do not abort the processing, they are expected
+     * to report their failure themselves.
+     *
+     * @return a future completed when the stream ended and all tasks are finished
+     */
+    public static <T> Future<Void> process(ReadStream<T> stream, int concurrency, Function<T, Future<?>> task) {
+        Promise<Void> promise = Promise.promise();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicBoolean ended = new AtomicBoolean();
+
+        stream.exceptionHandler(promise::tryFail)
+                .endHandler(v -> {
+                    ended.set(true);
+                    if (inFlight.get() == 0) {
+                        promise.tryComplete();
+                    }
+                })
+                .handler(item -> {
+                    if (inFlight.incrementAndGet() >= concurrency) {
+                        stream.pause();
+                    }
+                    Future<?> future;
+                    try {
+                        future = task.apply(item);
+                    } catch (Exception e) {
+                        future = Future.failedFuture(e);
+                    }
+                    future.onComplete(ar -> {
+                        int remaining = inFlight.decrementAndGet();
+                        if (ended.get()) {
+                            if (remaining == 0) {
+                                promise.tryComplete();
+                            }
+                        } else if (remaining == concurrency - 1) {
+                            stream.resume();
+                        }
+                    });
+                });
+        return promise.future();
+    }
+
+    /**
+     * Runs an asynchronous task for every element of an iterator, with at most <code>concurrency</code> tasks in
+     * flight. Failing tasks do not abort the processing.
+     * <p>
+     * Tasks returning a completed future are followed by the next element in a loop, only a task completing later
+     * continues from its completion, so long runs of completed tasks do not grow the stack.
+     *
+     * @return a future completed when all tasks are finished
+     */
+    public static <T> Future<Void> process(Iterator<T> iterator, int concurrency, Function<T, Future<?>> task) {
+        Promise<Void> promise = Promise.promise();
+        AtomicInteger inFlight = new AtomicInteger();
+        for (int i = 0; i < Math.max(1, concurrency); i++) {
+            next(iterator, inFlight, task, promise);
+        }
+        return promise.future();
+    }
+
+    private static <T> void next(Iterator<T> iterator, AtomicInteger inFlight, Function<T, Future<?>> task, Promise<Void> promise) {
+        while (iterator.hasNext()) {
+            Future<?> future;
+            try {
+                future = task.apply(iterator.next());
+            } catch (Exception e) {
+                future = Future.failedFuture(e);
+            }
+            if (!future.isComplete()) {
+                inFlight.incrementAndGet();
+                future.onComplete(ar -> {
+                    inFlight.decrementAndGet();
+                    next(iterator, inFlight, task, promise);
+                });
+                return;
+            }
+        }
+        if (inFlight.get() == 0) {
+            promise.tryComplete();
+        }
+    }
+
+}
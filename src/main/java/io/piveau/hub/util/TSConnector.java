@@ -3,7 +3,8 @@ package io.piveau.hub.util;
 import io.piveau.hub.dataobjects.DatasetHelper;
 import io.piveau.hub.util.logger.PiveauLogger;
 import io.piveau.hub.util.logger.PiveauLoggerFactory;
-import io.piveau.utils.DigestAuth;
+import io.piveau.hub.util.rdf.Serialization;
+import io.piveau.hub.util.telemetry.Telemetry;
 import io.piveau.utils.JenaUtils;
 import io.piveau.dcatap.DCATAPUriSchema;
 import io.piveau.vocabularies.Concept;
@@ -16,9 +17,14 @@ import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.predicate.ResponsePredicate;
+import io.vertx.ext.web.client.predicate.ResponsePredicateResult;
+import io.vertx.ext.web.codec.BodyCodec;
 import org.apache.jena.arq.querybuilder.ConstructBuilder;
 import org.apache.jena.arq.querybuilder.WhereBuilder;
 import org.apache.jena.query.QuerySolution;
@@ -33,6 +39,9 @@ import org.apache.jena.vocabulary.RDF;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -51,6 +60,10 @@ public class TSConnector {
 
     private CircuitBreaker breaker;
 
+    private final boolean compressRequests;
+
+    private final DigestSession digest;
+
     public static TSConnector create(WebClient client, CircuitBreaker breaker, JsonObject config) {
         return new TSConnector(client, breaker, config);
     }
@@ -64,6 +77,8 @@ public class TSConnector {
         this.dataEndpoint = config.getString("graphAuthEndpoint", "/sparql-graph-crud-auth");
         this.queryEndpoint = config.getString("queryEndpoint", "/sparql");
         this.updateEndpoint = config.getString("queryAuthEndpoint", "/sparql-auth");
+        this.compressRequests = config.getBoolean("compressRequests", false);
+        this.digest = new DigestSession(username, password);
     }
 
     public void getDistribution(String uriRef, String accept, Handler<AsyncResult<String>> handler) {
@@ -85,8 +100,7 @@ public class TSConnector {
                 if (response.statusCode() == 200) {
                     if (accept != null && accept.equals("application/ld+json")) {
                         // transform back to json-ld from n-triples
-                        Model model = JenaUtils.read(ar.result().bodyAsString().getBytes(), "application/n-triples");
-                        handler.handle(Future.succeededFuture(JenaUtils.write(model, RDFFormat.JSONLD_FLATTEN_PRETTY)));
+                        handler.handle(Future.succeededFuture(Serialization.convert(response.body(), RDFFormat.JSONLD_FLATTEN_PRETTY)));
                     } else {
                         handler.handle(Future.succeededFuture(ar.result().bodyAsString()));
                     }
@@ -294,8 +308,7 @@ public class TSConnector {
             if (ar.succeeded()) {
                 if (accept != null && accept.equals("application/ld+json")) {
                     // transform back to json-ld from application/n-triples
-                    Model model = JenaUtils.read(ar.result().bodyAsString().getBytes(), "application/n-triples");
-                    handler.handle(Future.succeededFuture(JenaUtils.write(model, "application/ld+json")));
+                    handler.handle(Future.succeededFuture(Serialization.convert(ar.result().body(), RDFFormat.JSONLD)));
                 } else {
 
                     handler.handle(Future.succeededFuture(ar.result().bodyAsString()));
@@ -307,15 +320,20 @@ public class TSConnector {
     }
 
     public void putGraph(String graphName, Model model, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
+        Telemetry.call(ClientProfiles.TRIPLESTORE, "putGraph", graphName, h -> sendGraph(graphName, model, h), handler);
+    }
+
+    private void sendGraph(String graphName, Model model, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
         HttpRequest<Buffer> request = client
                 .putAbs(uri + dataEndpoint)
                 .putHeader("Content-Type", "application/n-triples")
                 .addQueryParam("graph", graphName);
+        preAuthenticate(request, HttpMethod.PUT);
 
-        String output = JenaUtils.write(model, Lang.NTRIPLES);
+        Buffer output = body(request, Buffer.buffer(JenaUtils.write(model, Lang.NTRIPLES)));
 
         if (breaker != null) {
-            breaker.<HttpResponse<Buffer>>execute(promise -> sendBuffer(request, HttpMethod.PUT, Buffer.buffer(output), promise))
+            breaker.<HttpResponse<Buffer>>execute(promise -> sendBuffer(request, HttpMethod.PUT, output, promise))
                     .onComplete(ar -> {
                         if (ar.succeeded()) {
                             handler.handle(Future.succeededFuture(ar.result()));
@@ -325,7 +343,7 @@ public class TSConnector {
                     });
         } else {
             Promise<HttpResponse<Buffer>> promise = Promise.promise();
-            sendBuffer(request, HttpMethod.PUT, Buffer.buffer(output), promise);
+            sendBuffer(request, HttpMethod.PUT, output, promise);
             promise.future().onComplete(ar -> {
                 if (ar.succeeded()) {
                     handler.handle(Future.succeededFuture(ar.result()));
@@ -337,10 +355,15 @@ public class TSConnector {
     }
 
     public void deleteGraph(String graphName, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
+        Telemetry.call(ClientProfiles.TRIPLESTORE, "deleteGraph", graphName, h -> removeGraph(graphName, h), handler);
+    }
+
+    private void removeGraph(String graphName, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
         PiveauLogger log = PiveauLoggerFactory.getLogger(getClass());
         HttpRequest<Buffer> request = client
                 .deleteAbs(uri + dataEndpoint)
                 .addQueryParam("graph", graphName);
+        preAuthenticate(request, HttpMethod.DELETE);
 
         Promise<HttpResponse<Buffer>> responsePromise = Promise.promise();
 
@@ -358,6 +381,21 @@ public class TSConnector {
     }
 
     public void catalogueExists(String catalogueUriRef, Handler<AsyncResult<JsonObject>> handler) {
+        CatalogueCache cache = CatalogueCache.instance();
+        if (cache != null) {
+            JsonObject cached = cache.get(catalogueUriRef);
+            if (cached != null) {
+                if (cached.isEmpty()) {
+                    handler.handle(Future.failedFuture("Catalogue does not exist or has no type and lang"));
+                } else {
+                    handler.handle(Future.succeededFuture(cached));
+                }
+                return;
+            }
+        }
+        long generation = cache != null ? cache.generation() : 0;
+        long loaded = System.currentTimeMillis();
+
         String query = "SELECT ?type ?lang WHERE { GRAPH <" + catalogueUriRef + "> { <" + catalogueUriRef + "> <" + DCTerms.type + "> ?type; <" + DCTerms.language + "> ?lang . } }";
         query(query, "application/json", ar -> {
             if (ar.succeeded()) {
@@ -380,8 +418,14 @@ public class TSConnector {
                                 info.put("lang", langCode);
                             }
                         }
+                        if (cache != null) {
+                            cache.put(catalogueUriRef, info, generation, loaded);
+                        }
                         handler.handle(Future.succeededFuture(info));
                     } else {
+                        if (cache != null) {
+                            cache.putMissing(catalogueUriRef, generation);
+                        }
                         handler.handle(Future.failedFuture("Catalogue does not exist or has no type and lang"));
                     }
                 } else {
@@ -393,44 +437,6 @@ public class TSConnector {
         });
     }
 
-    public void addDatasetToCatalogue(String datasetUri, String recordUri, String catalogueUri, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
-        String query = "DELETE  { GRAPH <" + catalogueUri + "> {\n" +
-                "?d <" + DCAT.dataset + "> <" + datasetUri + ">. \n" +
-                "?r <" + DCAT.record + "> <" + recordUri + "> . } }\n" +
-                "WHERE { GRAPH <" + catalogueUri + "> {\n" +
-                "?d <" + DCAT.dataset + "> <" + datasetUri + ">. \n" +
-                "?r  <" + DCAT.record + "> <" + recordUri + "> . } };\n" +
-                "\n" +
-                "INSERT Data { GRAPH <" + catalogueUri + ">  \n" +
-                "{ <" + catalogueUri + ">  <" + DCAT.dataset + "> <" + datasetUri + ">; \n" +
-                "<" + DCAT.record + "> <" + recordUri + "> . } }";
-
-        update(query, "application/json", ar -> {
-            if (ar.succeeded()) {
-                handler.handle(Future.succeededFuture(ar.result()));
-            } else {
-                handler.handle(Future.failedFuture(ar.cause()));
-            }
-        });
-    }
-
-    public void removeDatasetFromCatalogue(String datasetUri, String recordUri, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
-        String catalogueQuery = "SELECT DISTINCT ?catalogue { GRAPH ?catalogue { ?s <" + DCAT.dataset + "> <" + datasetUri + "> } }";
-        PiveauLogger log = PiveauLoggerFactory.getDatasetLogger(DCATAPUriSchema.parseUriRef(datasetUri).getId(), getClass());
-        query(catalogueQuery, "application/json", ar -> {
-            if (ar.succeeded()) {
-                ResultSet set = ResultSetFactory.fromJSON(new ByteArrayInputStream(ar.result().body().getBytes()));
-                set.forEachRemaining(cat -> {
-                    Resource catRes = cat.getResource("catalogue");
-                    String query = "DELETE DATA { GRAPH <" + catRes + "> { <" + catRes + "> <" + DCAT.dataset + "> <" + datasetUri + ">; <" + DCAT.record + "> <" + recordUri + ">. } }";
-                    update(query, null, handler);
-                });
-            } else {
-                log.error("Remove catalogue entries", ar.cause());
-            }
-        });
-    }
-
     public void listCatalogs(String accept, Integer limit, Integer offset, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
         String query = "SELECT DISTINCT ?g { GRAPH ?g { ?g <" + RDF.type + "> <" + DCAT.Catalog + "> } } LIMIT " + (limit != null ? limit : 100);
         if (offset != null) {
@@ -490,229 +496,66 @@ public class TSConnector {
     }
 
     public void listDatasetSources(String catalogueUriRef, Handler<AsyncResult<JsonArray>> handler) {
-
-        boolean isNotNull = catalogueUriRef != null;
-        String cat = isNotNull && DCATAPUriSchema.parseUriRef(catalogueUriRef) != null ? DCATAPUriSchema.parseUriRef(catalogueUriRef).getId() : null;
-        PiveauLogger log = PiveauLoggerFactory.getCatalogueLogger(cat, getClass());
-
-
-        catalogueUriRef = catalogueUriRef != null ? "<" + catalogueUriRef + ">" : "?c";
-
-        String queryCount = "select (count(distinct ?i) as ?count) where {GRAPH " + catalogueUriRef + " { " + catalogueUriRef + " <" + DCAT.record + "> ?r .} GRAPH ?g { ?r <" + DCTerms.identifier + "> ?i }}";
-        String tempQuery = "select distinct ?s where {GRAPH " + catalogueUriRef + " { " + catalogueUriRef + " <" + DCAT.record + "> ?r .} GRAPH ?g { ?r <" + DCTerms.identifier + "> ?s }}";
-
-        final String query = tempQuery;
-        log.debug("catalogue: {}", catalogueUriRef);
-        log.debug("LIST SOURCES QUERY STRING: {}", tempQuery);
-        log.debug("COUNT SOURCES QUERY STRING: {}", queryCount);
-
-        query(queryCount, "application/json", ar -> {
+        JsonArray jsonArray = new JsonArray();
+        StreamProcessor.forEach(streamDatasetSources(catalogueUriRef), jsonArray::add).onComplete(ar -> {
             if (ar.succeeded()) {
-                InputStream is = new ByteArrayInputStream(ar.result().body().getBytes());
-                ResultSet resultSet = ResultSetFactory.fromJSON(is);
-
-                JsonArray jsonArray = new JsonArray();
-
-                resultSet.forEachRemaining(querySolution -> {
-                    try {
-                        Literal subject = querySolution.getLiteral("count");
-                        if (subject != null) {
-                            log.debug("SOURCES COUNT SOLUTION: {}", subject.getInt());
-                            enumSourceIds(subject.getInt(), null, query, jsonArray, handler);
-                        } else {
-                            log.warn("Subject is null");
-                            handler.handle(Future.failedFuture("could not find IDs"));
-                        }
-                    } catch (ClassCastException cce) {
-                        log.warn("could not cast {} to literal", querySolution.get("s").toString());
-                    } catch (Exception e) {
-                        log.error("error while traversing resultSet: ", e);
-                    }
-                });
+                handler.handle(Future.succeededFuture(jsonArray));
             } else {
                 handler.handle(Future.failedFuture(ar.cause()));
             }
         });
     }
 
-    private void enumSourceIds(Integer count, Integer place, String query, JsonArray jsonArray, Handler<AsyncResult<JsonArray>> handler) {
-        PiveauLogger log = PiveauLoggerFactory.getLogger(getClass());
-        String tempQuery = query;
-        if (count > 10000) {
-            tempQuery += " LIMIT 10000";
-        }
-
-        if (place != null) {
-            tempQuery += " OFFSET " + place;
-        }
+    /**
+     * Streams the source identifiers of all datasets of a catalogue, or of all catalogues if no catalogue is given.
+     *
+     * @param catalogueUriRef the catalogue uriRef or <code>null</code>
+     * @return a stream of identifiers, ordered by their string value
+     */
+    public ReadStream<String> streamDatasetSources(String catalogueUriRef) {
+        String catalogue = catalogueUriRef != null ? "<" + catalogueUriRef + ">" : "?c";
+        String pattern = "GRAPH " + catalogue + " { " + catalogue + " <" + DCAT.record + "> ?r . } GRAPH ?g { ?r <" + DCTerms.identifier + "> ?s }";
+        return new KeysetStream<>(this, "s", pattern, KeysetStream.DEFAULT_PAGE_SIZE, node -> node.isLiteral() ? node.asLiteral().getLexicalForm() : null);
+    }
 
-        query(tempQuery, "application/json", ar -> {
-            if (ar.succeeded()) {
-                InputStream is = new ByteArrayInputStream(ar.result().body().getBytes());
-                ResultSet resultSet = ResultSetFactory.fromJSON(is);
-                resultSet.forEachRemaining(querySolution -> {
-                    RDFNode subject = querySolution.get("s");
-                    if (subject != null && subject.isLiteral()) {
-                        jsonArray.add(subject.asLiteral().toString());
-                    } else {
-                        log.warn("No subject found");
-                    }
-                });
+    /**
+     * Streams all objects of a catalogue property, typically {@link DCAT#dataset} or {@link DCAT#record}.
+     *
+     * @param catalogueUriRef the catalogue uriRef, which is also the name of the catalogue graph
+     * @param property        the linking property
+     * @return a stream of resources, ordered by their uriRef
+     */
+    public ReadStream<Resource> streamCatalogueMembers(String catalogueUriRef, Property property) {
+        return streamCatalogueMembers(catalogueUriRef, property, null);
+    }
 
-                if (place == null && count > 10000) {
-                    enumSourceIds(count, 10000, query, jsonArray, handler);
-                } else if (place != null && count > place) {
-                    enumSourceIds(count, place + 10000, query, jsonArray, handler);
-                } else {
-                    log.debug("RETURNing IDS: {}", jsonArray.encodePrettily());
-                    handler.handle(Future.succeededFuture(jsonArray));
-                }
-            } else {
-                handler.handle(Future.failedFuture(ar.cause()));
-            }
-        });
+    /**
+     * Streams the objects of a catalogue property, continuing after a previously seen member.
+     *
+     * @param catalogueUriRef the catalogue uriRef, which is also the name of the catalogue graph
+     * @param property        the linking property
+     * @param after           uriRef of the last member already processed, or <code>null</code> to start at the beginning
+     * @return a stream of resources, ordered by their uriRef
+     */
+    public ReadStream<Resource> streamCatalogueMembers(String catalogueUriRef, Property property, String after) {
+        String pattern = "GRAPH <" + catalogueUriRef + "> { <" + catalogueUriRef + "> <" + property + "> ?member }";
+        return new KeysetStream<>(this, "member", pattern, KeysetStream.DEFAULT_PAGE_SIZE, node -> node.isURIResource() ? node.asResource() : null)
+                .startAfter(after);
     }
 
     public void getDatasetsAndRecords(String catalogue, Handler<AsyncResult<Map<String, List<Resource>>>> handler) {
-        PiveauLogger log = PiveauLoggerFactory.getCatalogueLogger(DCATAPUriSchema.parseUriRef(catalogue).getId(), getClass());
-        String datasetQuery = "SELECT DISTINCT ?dataset  \n" +
-                "{ \n" +
-                "\tGRAPH  <" + catalogue + "> \n" +
-                "\t{ \n" +
-                "\t\t<" + catalogue + "> <" + DCAT.dataset + "> ?dataset.\n" +
-                "\t\t\n" +
-                "\t} \n" +
-                "}";
-
-        String recordQuery = "SELECT DISTINCT ?record \n" +
-                "{ \n" +
-                "\tGRAPH  <" + catalogue + "> \n" +
-                "\t{ \n" +
-                "\t\t<" + catalogue + "> <" + DCAT.record + "> ?record.\n" +
-                "\t\t\n" +
-                "\t} \n" +
-                "}";
-
-
-        String datasetCountQuery = "SELECT (count(DISTINCT ?ds) as ?count) { GRAPH  <" + catalogue + "> { <" + catalogue + "> <" + DCAT.dataset + "> ?ds.} }";
-        String recordCountQuery = "SELECT (count(DISTINCT ?ds) as ?count) { GRAPH  <" + catalogue + "> { <" + catalogue + "> <" + DCAT.record + "> ?ds.} }";
-
-        Promise<List<Resource>> dsPromise = Promise.promise();
-        Promise<List<Resource>> rsPromise = Promise.promise();
         Map<String, List<Resource>> resourceList = new HashMap<>();
         resourceList.put("dataset", new ArrayList<>());
         resourceList.put("record", new ArrayList<>());
 
-        //get datasets
-        //log.info("datasetCountQuery: {}", datasetCountQuery);
-        query(datasetCountQuery, "application/json", ar -> {
-            if (ar.succeeded()) {
-                InputStream is = new ByteArrayInputStream(ar.result().body().getBytes());
-                ResultSet resultSet = ResultSetFactory.fromJSON(is);
-                resultSet.forEachRemaining(querySolution -> {
-                    try {
-                        Literal subject = querySolution.getLiteral("count");
-                        if (subject != null) {
-                            log.debug("Counted ds: {}", subject.getInt());
-                            enumResources(subject.getInt(), 0, datasetQuery, "dataset", resourceList.get("dataset"), dsPromise);
-                        } else {
-                            log.warn("subject is null");
-                            dsPromise.handle(Future.failedFuture("could not find IDs"));
-                        }
-                    } catch (ClassCastException cce) {
-                        log.warn("could not cast {} to literal", querySolution.get("s").toString());
-                    } catch (Exception e) {
-                        log.error("error while traversing resultSet: ", e);
-                    }
-                });
-            } else {
-                dsPromise.handle(Future.failedFuture(ar.cause()));
-                if (ar.result() != null && ar.result().body() != null) {
-                    log.error(ar.result().bodyAsString());
-                }
-            }
-        });
+        Future<Void> datasets = StreamProcessor.forEach(streamCatalogueMembers(catalogue, DCAT.dataset), resourceList.get("dataset")::add);
+        Future<Void> records = StreamProcessor.forEach(streamCatalogueMembers(catalogue, DCAT.record), resourceList.get("record")::add);
 
-        //get records
-        query(recordCountQuery, "application/json", ar -> {
+        CompositeFuture.all(datasets, records).onComplete(ar -> {
             if (ar.succeeded()) {
-                InputStream is = new ByteArrayInputStream(ar.result().body().getBytes());
-                ResultSet resultSet = ResultSetFactory.fromJSON(is);
-                resultSet.forEachRemaining(querySolution -> {
-                    try {
-                        Literal subject = querySolution.getLiteral("count");
-                        if (subject != null) {
-                            log.debug("Counted rs: {}", subject.getInt());
-                            enumResources(subject.getInt(), 0, recordQuery, "record", resourceList.get("record"), rsPromise);
-                        } else {
-                            log.warn("subject is null");
-                            rsPromise.handle(Future.failedFuture("could not find IDs"));
-                        }
-                    } catch (ClassCastException cce) {
-                        log.warn("could not cast {} to literal", querySolution.get("s").toString());
-                    } catch (Exception e) {
-                        log.error("error while traversing resultSet: ", e);
-                    }
-                });
-            } else {
-                rsPromise.handle(Future.failedFuture(ar.cause()));
-                if (ar.result() != null && ar.result().body() != null) {
-                    log.error(ar.result().bodyAsString());
-                }
-            }
-        });
-
-        CompositeFuture.all(dsPromise.future(), rsPromise.future()).onComplete(cohandler -> {
-            if (cohandler.succeeded()) {
                 handler.handle(Future.succeededFuture(resourceList));
             } else {
-                handler.handle(Future.failedFuture(cohandler.cause()));
-            }
-        });
-
-
-    }
-
-
-    private void enumResources(Integer count, Integer offset, String query, String varName, List<Resource> resourceList, Handler<AsyncResult<List<Resource>>> handler) {
-        PiveauLogger log = PiveauLoggerFactory.getLogger(getClass());
-        String tempQuery = query;
-        if (count > 10000) {
-            tempQuery += " LIMIT 10000";
-        }
-
-        if (offset > 0) {
-            tempQuery += " OFFSET " + offset;
-        }
-        query(tempQuery, "application/json", ar -> {
-            if (ar.succeeded()) {
-                ResultSet resultSet = ResultSetFactory.fromJSON(new ByteArrayInputStream(ar.result().body().getBytes()));
-
-                resultSet.forEachRemaining(querySolution -> {
-                    try {
-
-                        Resource subject = querySolution.getResource(varName);
-                        if (subject != null) {
-
-                            resourceList.add(subject);
-                        } else {
-                            log.warn("subject is null");
-                        }
-
-
-                    } catch (ClassCastException cce) {
-                        log.warn("could not cast {} to literal", querySolution.get("s").toString());
-                    } catch (Exception e) {
-                        log.error("error while traversing resultSet: ", e);
-                    }
-                });
-
-                if ((offset + 10000) < count) {
-                    enumResources(count, offset + 10000, query, varName, resourceList, handler);
-                } else {
-                    handler.handle(Future.succeededFuture(resourceList));
-                }
-            } else {
+                PiveauLoggerFactory.getCatalogueLogger(DCATAPUriSchema.parseUriRef(catalogue).getId(), getClass()).error("Enumerating catalogue members", ar.cause());
                 handler.handle(Future.failedFuture(ar.cause()));
             }
         });
@@ -765,14 +608,18 @@ public class TSConnector {
     }
 
     private void sendBuffer(HttpRequest<Buffer> request, HttpMethod method, Buffer buffer, Promise<HttpResponse<Buffer>> promise) {
+        sendBuffer(request, method, buffer, promise, false);
+    }
+
+    private void sendBuffer(HttpRequest<Buffer> request, HttpMethod method, Buffer buffer, Promise<HttpResponse<Buffer>> promise, boolean challenged) {
         request.sendBuffer(buffer, ar -> {
             if (ar.succeeded()) {
                 HttpResponse<Buffer> response = ar.result();
-                if (response.statusCode() == 401) {
-                    String authenticate = DigestAuth.authenticate(response.getHeader("WWW-Authenticate"), uri, method.name(), username, password);
+                if (response.statusCode() == 401 && !challenged) {
+                    String authenticate = challenged(response, method);
                     if (authenticate != null) {
                         request.putHeader("Authorization", authenticate);
-                        sendBuffer(request, method, buffer, promise);
+                        sendBuffer(request, method, buffer, promise, true);
                     } else {
                         promise.fail("Could not authenticate");
                     }
@@ -788,6 +635,10 @@ public class TSConnector {
     }
 
     public void query(HttpRequest<Buffer> request, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
+        Telemetry.call(ClientProfiles.TRIPLESTORE, "query", request.queryParams().get("query"), h -> execute(request, h), handler);
+    }
+
+    private void execute(HttpRequest<Buffer> request, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
         if (breaker != null) {
             breaker.<HttpResponse<Buffer>>execute(promise -> send(request, HttpMethod.GET, promise))
                     .onSuccess(response -> handler.handle(Future.succeededFuture(response)))
@@ -802,14 +653,18 @@ public class TSConnector {
     }
 
     private void send(HttpRequest<Buffer> request, HttpMethod method, Promise<HttpResponse<Buffer>> promise) {
+        send(request, method, promise, false);
+    }
+
+    private void send(HttpRequest<Buffer> request, HttpMethod method, Promise<HttpResponse<Buffer>> promise, boolean challenged) {
         request.send(ar -> {
             if (ar.succeeded()) {
                 HttpResponse<Buffer> response = ar.result();
-                if (response.statusCode() == 401) {
-                    String authenticate = DigestAuth.authenticate(response.getHeader("WWW-Authenticate"), uri, method.name(), username, password);
+                if (response.statusCode() == 401 && !challenged) {
+                    String authenticate = challenged(response, method);
                     if (authenticate != null) {
                         request.putHeader("Authorization", authenticate);
-                        send(request, method, promise);
+                        send(request, method, promise, true);
                     } else {
                         promise.fail("Could not authenticate");
                     }
@@ -824,6 +679,36 @@ public class TSConnector {
         });
     }
 
+    /**
+     * Adds digest credentials with the cached nonce, saving the 401 round trip and the second upload of the body. If
+     * the nonce went stale, the store answers with a new challenge and the request is repeated once.
+     */
+    private void preAuthenticate(HttpRequest<Buffer> request, HttpMethod method) {
+        String authenticate = digest.authorization(method.name(), uri);
+        if (authenticate != null) {
+            request.putHeader("Authorization", authenticate);
+        }
+    }
+
+    private String challenged(HttpResponse<Buffer> response, HttpMethod method) {
+        return challenged(response.getHeader("WWW-Authenticate"), method);
+    }
+
+    private String challenged(String authenticate, HttpMethod method) {
+        return digest.update(authenticate) ? digest.authorization(method.name(), uri) : null;
+    }
+
+    /**
+     * Compresses larger request bodies if <code>compressRequests</code> is enabled.
+     */
+    private Buffer body(HttpRequest<Buffer> request, Buffer buffer) {
+        if (compressRequests && buffer.length() > 1024) {
+            request.putHeader("Content-Encoding", "gzip");
+            return ClientProfiles.gzip(buffer);
+        }
+        return buffer;
+    }
+
     public void query(String query, String accept, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
         HttpRequest<Buffer> request = client
                 .getAbs(uri + queryEndpoint)
@@ -834,6 +719,115 @@ public class TSConnector {
         query(request, handler);
     }
 
+    /**
+     * Runs a select query and emits the solutions while the response is still being received. The response body is
+     * never buffered as a whole, the connection is paused while the consumer does not keep up.
+     * <p>
+     * The request is not guarded by the circuit breaker, as its duration depends on the consumer.
+     *
+     * @param query the select query
+     * @return a stream of solutions
+     */
+    public ReadStream<QuerySolution> queryStream(String query) {
+        SparqlResultStream stream = new SparqlResultStream();
+        HttpRequest<Buffer> request = client
+                .getAbs(uri + queryEndpoint)
+                .addQueryParam("query", query)
+                .putHeader("Accept", "application/sparql-results+json");
+        sendStream(request, stream.sink(), stream::fail);
+        return stream;
+    }
+
+    /**
+     * Pipes a graph as N-Triples into a write stream, which is ended with the response. Like
+     * {@link #queryStream(String)}, the response is never buffered as a whole and not guarded by the circuit breaker.
+     *
+     * @param graphName the graph name
+     * @param sink      receives the N-Triples
+     * @param failed    called if the request fails, e.g. with a 404 if the graph does not exist
+     */
+    public void streamGraph(String graphName, WriteStream<Buffer> sink, Handler<Throwable> failed) {
+        HttpRequest<Buffer> request = client
+                .getAbs(uri + dataEndpoint)
+                .addQueryParam("graph", graphName)
+                .putHeader("Accept", "application/n-triples");
+        sendStream(request, sink, failed);
+    }
+
+    /**
+     * Pipes the result of a construct query as N-Triples into a write stream, see {@link #streamGraph}.
+     */
+    public void streamConstruct(String query, WriteStream<Buffer> sink, Handler<Throwable> failed) {
+        HttpRequest<Buffer> request = client
+                .getAbs(uri + queryEndpoint)
+                .addQueryParam("query", query)
+                .putHeader("Accept", "application/n-triples");
+        sendStream(request, sink, failed);
+    }
+
+    private void sendStream(HttpRequest<Buffer> request, WriteStream<Buffer> sink, Handler<Throwable> failed) {
+        String[] challenge = new String[1];
+        request.copy()
+                .expect(ResponsePredicate.create(response -> {
+                    if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                        return ResponsePredicateResult.success();
+                    } else if (response.statusCode() == 401) {
+                        challenge[0] = response.getHeader("WWW-Authenticate");
+                    }
+                    return ResponsePredicateResult.failure(response.statusCode() + " - " + response.statusMessage());
+                }))
+                .as(BodyCodec.pipe(sink))
+                .send(ar -> {
+                    if (ar.failed()) {
+                        String authenticate = challenge[0] != null && !request.headers().contains("Authorization")
+                                ? challenged(challenge[0], HttpMethod.GET)
+                                : null;
+                        if (authenticate != null) {
+                            request.putHeader("Authorization", authenticate);
+                            sendStream(request, sink, failed);
+                        } else {
+                            failed.handle(ar.cause());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Sends an update in the body of a form POST instead of the query string, for updates carrying data, e.g. a bulk
+     * <code>INSERT DATA</code> with many graphs.
+     *
+     * @param update the update request
+     * @param handler the response
+     */
+    public void postUpdate(String update, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
+        Telemetry.call(ClientProfiles.TRIPLESTORE, "postUpdate", update, h -> sendUpdate(update, h), handler);
+    }
+
+    private void sendUpdate(String update, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
+        HttpRequest<Buffer> request = client
+                .postAbs(uri + updateEndpoint)
+                .putHeader("Content-Type", "application/x-www-form-urlencoded");
+
+        preAuthenticate(request, HttpMethod.POST);
+
+        Buffer body;
+        try {
+            body = body(request, Buffer.buffer("query=" + URLEncoder.encode(update, StandardCharsets.UTF_8.name())));
+        } catch (UnsupportedEncodingException e) {
+            handler.handle(Future.failedFuture(e));
+            return;
+        }
+
+        if (breaker != null) {
+            breaker.<HttpResponse<Buffer>>execute(promise -> sendBuffer(request, HttpMethod.POST, body, promise))
+                    .onComplete(handler);
+        } else {
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            sendBuffer(request, HttpMethod.POST, body, promise);
+            promise.future().onComplete(handler);
+        }
+    }
+
     public void update(String update, String accept, Handler<AsyncResult<HttpResponse<Buffer>>> handler) {
         HttpRequest<Buffer> request = client
                 .getAbs(uri + updateEndpoint)
@@ -841,7 +835,8 @@ public class TSConnector {
         if (accept != null) {
             request.putHeader("Accept", accept);
         }
-        query(request, handler);
+        preAuthenticate(request, HttpMethod.GET);
+        Telemetry.call(ClientProfiles.TRIPLESTORE, "update", update, h -> execute(request, h), handler);
     }
 
 }
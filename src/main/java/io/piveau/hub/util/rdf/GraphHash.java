@@ -0,0 +1,201 @@
+package io.piveau.hub.util.rdf;
+
+import org.apache.jena.ext.com.google.common.hash.HashCode;
+import org.apache.jena.ext.com.google.common.hash.HashFunction;
+import org.apache.jena.ext.com.google.common.hash.Hasher;
+import org.apache.jena.ext.com.google.common.hash.Hashing;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.core.Quad;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order independent 128 bit hash of a graph, computed from a stream of triples, e.g. straight from the parser.
+ * <p>
+ * Every distinct triple is hashed on its own and the hashes are added up, so neither the order of the triples nor
+ * duplicates matter. Blank nodes get labels from their neighbourhood: starting with the same label for all of them,
+ * the labels are refined by the labels and terms around each blank node until the partition is stable. Graphs that
+ * differ only in the blank node labels of the serialisation therefore get the same hash.
+ * <p>
+ * Triples are passed on to the wrapped stream, so one parse can build a graph and hash it.
+ */
+public class GraphHash extends StreamRDFWrapper {
+
+    private static final HashFunction MURMUR = Hashing.murmur3_128();
+
+    private static final HashCode BLANK = MURMUR.hashString("_:", StandardCharsets.UTF_8);
+
+    private final Set<HashCode> seen = new HashSet<>();
+    private final Set<Triple> blankTriples = new HashSet<>();
+
+    private long high;
+    private long low;
+
+    public GraphHash() {
+        this(StreamRDFLib.sinkNull());
+    }
+
+    public GraphHash(StreamRDF other) {
+        super(other);
+    }
+
+    public static String hash(Model model) {
+        GraphHash graphHash = new GraphHash();
+        model.getGraph().find().forEachRemaining(graphHash::include);
+        return graphHash.value();
+    }
+
+    /**
+     * Parses the content into the hash only, no model is built.
+     */
+    public static String hash(byte[] content, String contentType) {
+        Lang lang = RDFLanguages.contentTypeToLang(contentType.split(";")[0].trim());
+        if (lang == null) {
+            throw new IllegalArgumentException("Unsupported content type " + contentType);
+        }
+        GraphHash graphHash = new GraphHash();
+        RDFParser.source(new ByteArrayInputStream(content)).lang(lang).parse(graphHash);
+        return graphHash.value();
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        include(triple);
+        super.triple(triple);
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        include(quad.asTriple());
+        super.quad(quad);
+    }
+
+    /**
+     * @return the hash of all triples so far as hex string
+     */
+    public String value() {
+        long[] sum = {high, low};
+        Map<Node, HashCode> labels = labels();
+        blankTriples.forEach(triple -> add(sum, MURMUR.newHasher()
+                .putBytes(term(triple.getSubject(), labels).asBytes())
+                .putBytes(term(triple.getPredicate(), labels).asBytes())
+                .putBytes(term(triple.getObject(), labels).asBytes())
+                .hash()));
+        return String.format("%016x%016x", sum[0], sum[1]);
+    }
+
+    private void include(Triple triple) {
+        if (triple.getSubject().isBlank() || triple.getObject().isBlank()) {
+            blankTriples.add(triple);
+        } else {
+            HashCode code = MURMUR.newHasher()
+                    .putBytes(term(triple.getSubject()).asBytes())
+                    .putBytes(term(triple.getPredicate()).asBytes())
+                    .putBytes(term(triple.getObject()).asBytes())
+                    .hash();
+            if (seen.add(code)) {
+                long[] sum = {high, low};
+                add(sum, code);
+                high = sum[0];
+                low = sum[1];
+            }
+        }
+    }
+
+    /**
+     * Refines the labels of the blank nodes by the sum of their incoming and outgoing edges, until the number of
+     * distinct labels does not grow anymore.
+     */
+    private Map<Node, HashCode> labels() {
+        Map<Node, HashCode> labels = new HashMap<>();
+        for (Triple triple : blankTriples) {
+            if (triple.getSubject().isBlank()) {
+                labels.put(triple.getSubject(), BLANK);
+            }
+            if (triple.getObject().isBlank()) {
+                labels.put(triple.getObject(), BLANK);
+            }
+        }
+
+        int classes = 1;
+        for (int round = 0; round < labels.size(); round++) {
+            Map<Node, long[]> edges = new HashMap<>();
+            for (Triple triple : blankTriples) {
+                HashCode predicate = term(triple.getPredicate());
+                if (triple.getSubject().isBlank()) {
+                    add(edges.computeIfAbsent(triple.getSubject(), node -> new long[2]), MURMUR.newHasher()
+                            .putByte((byte) '>').putBytes(predicate.asBytes()).putBytes(term(triple.getObject(), labels).asBytes())
+                            .hash());
+                }
+                if (triple.getObject().isBlank()) {
+                    add(edges.computeIfAbsent(triple.getObject(), node -> new long[2]), MURMUR.newHasher()
+                            .putByte((byte) '<').putBytes(predicate.asBytes()).putBytes(term(triple.getSubject(), labels).asBytes())
+                            .hash());
+                }
+            }
+            Map<Node, HashCode> refined = new HashMap<>();
+            labels.forEach((node, label) -> {
+                long[] sum = edges.get(node);
+                refined.put(node, MURMUR.newHasher().putBytes(label.asBytes()).putLong(sum[0]).putLong(sum[1]).hash());
+            });
+            int refinedClasses = new HashSet<>(refined.values()).size();
+            labels = refined;
+            if (refinedClasses == classes) {
+                break;
+            }
+            classes = refinedClasses;
+        }
+        return labels;
+    }
+
+    private static HashCode term(Node node, Map<Node, HashCode> labels) {
+        return node.isBlank() ? labels.get(node) : term(node);
+    }
+
+    private static HashCode term(Node node) {
+        Hasher hasher = MURMUR.newHasher();
+        if (node.isURI()) {
+            put(hasher.putByte((byte) 'U'), node.getURI());
+        } else if (node.isLiteral()) {
+            put(hasher.putByte((byte) 'L'), node.getLiteralLexicalForm());
+            put(hasher, node.getLiteralDatatypeURI());
+            put(hasher, node.getLiteralLanguage());
+        } else {
+            put(hasher.putByte((byte) 'O'), node.toString());
+        }
+        return hasher.hash();
+    }
+
+    private static void put(Hasher hasher, String value) {
+        String text = value != null ? value : "";
+        hasher.putInt(text.length()).putString(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 128 bit addition of a hash code to a sum of high and low word.
+     */
+    private static void add(long[] sum, HashCode code) {
+        ByteBuffer buffer = ByteBuffer.wrap(code.asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long addLow = buffer.getLong(0);
+        long addHigh = buffer.getLong(8);
+        long newLow = sum[1] + addLow;
+        sum[0] += addHigh + (Long.compareUnsigned(newLow, sum[1]) < 0 ? 1 : 0);
+        sum[1] = newLow;
+    }
+
+}
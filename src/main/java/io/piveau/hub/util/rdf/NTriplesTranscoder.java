@@ -0,0 +1,262 @@
+package io.piveau.hub.util.rdf;
+
+import io.piveau.dcatap.Prefixes;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.riot.system.SyntaxLabels;
+import org.apache.jena.shared.PrefixMapping;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+
+/**
+ * Rewrites N-Triples into another format with a streaming RDF writer, chunk by chunk, e.g. a graph as it comes from
+ * the triplestore into Turtle with the DCAT-AP prefixes. Only complete lines are parsed, blank node labels are kept
+ * across chunks. More triples can be added between the inputs, e.g. the members of a catalogue.
+ * <p>
+ * The output goes to the target in chunks, the backpressure of the target is passed on to the inputs. Nothing is
+ * written before the first chunk is complete, so an empty result can still be reported as not found.
+ */
+public class NTriplesTranscoder {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final WriteStream<Buffer> target;
+    private final ChunkOutputStream out = new ChunkOutputStream();
+    private final StreamRDF writer;
+    private final StreamRDF triples;
+    private final LabelToNode labels = SyntaxLabels.createLabelToNode();
+
+    private long count;
+    private boolean failed;
+    private Handler<Throwable> exceptionHandler;
+
+    public NTriplesTranscoder(WriteStream<Buffer> target, RDFFormat format) {
+        this.target = target;
+        writer = StreamRDFWriter.getWriterStream(out, format);
+        writer.start();
+        if (format.getLang() == Lang.TURTLE) {
+            PrefixMapping prefixes = PrefixMapping.Factory.create().setNsPrefixes(Prefixes.DCATAP_PREFIXES);
+            prefixes.getNsPrefixMap().forEach(writer::prefix);
+        }
+        // the parser must neither start nor finish the writer
+        triples = new StreamRDFWrapper(writer) {
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void finish() {
+            }
+
+            @Override
+            public void base(String base) {
+            }
+
+            @Override
+            public void prefix(String prefix, String iri) {
+            }
+
+            @Override
+            public void triple(Triple triple) {
+                count++;
+                super.triple(triple);
+            }
+        };
+    }
+
+    /**
+     * @return the streaming format for a content type, or <code>null</code> if the content type needs the whole graph
+     */
+    public static RDFFormat streamingFormat(String contentType) {
+        Lang lang = contentType != null ? RDFLanguages.contentTypeToLang(contentType) : null;
+        if (lang == Lang.TURTLE) {
+            return RDFFormat.TURTLE_BLOCKS;
+        } else if (lang == Lang.NTRIPLES) {
+            return RDFFormat.NTRIPLES;
+        }
+        return null;
+    }
+
+    public NTriplesTranscoder exceptionHandler(Handler<Throwable> handler) {
+        exceptionHandler = handler;
+        return this;
+    }
+
+    /**
+     * @param done completed when the input is ended, the output is not ended by it
+     * @return the write side for one N-Triples body
+     */
+    public WriteStream<Buffer> input(Promise<Void> done) {
+        return new Input(done);
+    }
+
+    public void triple(Triple triple) {
+        if (!failed) {
+            triples.triple(triple);
+        }
+    }
+
+    /**
+     * Finishes the output and ends the target. Without any triple, the transcoder fails with not found instead.
+     */
+    public void end() {
+        if (failed) {
+            return;
+        }
+        if (count == 0) {
+            fail(new IllegalStateException("not found"));
+            return;
+        }
+        writer.finish();
+        out.flushChunk();
+        target.end();
+    }
+
+    public boolean writeQueueFull() {
+        return target.writeQueueFull();
+    }
+
+    public NTriplesTranscoder drainHandler(Handler<Void> handler) {
+        target.drainHandler(handler);
+        return this;
+    }
+
+    private void parse(byte[] lines) {
+        try {
+            RDFParser.source(new ByteArrayInputStream(lines)).lang(Lang.NTRIPLES).labelToNode(labels).parse(triples);
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        failed = true;
+        if (exceptionHandler != null) {
+            exceptionHandler.handle(cause);
+        }
+    }
+
+    private class Input implements WriteStream<Buffer> {
+
+        private final Promise<Void> done;
+        private Buffer pending = Buffer.buffer();
+
+        private Input(Promise<Void> done) {
+            this.done = done;
+        }
+
+        @Override
+        public Input exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public Input write(Buffer data) {
+            return write(data, null);
+        }
+
+        @Override
+        public Input write(Buffer data, Handler<AsyncResult<Void>> handler) {
+            if (!failed) {
+                pending.appendBuffer(data);
+                int end = lastLineEnd(pending);
+                if (end >= 0) {
+                    parse(pending.getBytes(0, end + 1));
+                    pending = pending.getBuffer(end + 1, pending.length());
+                }
+            }
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+            return this;
+        }
+
+        @Override
+        public void end() {
+            end((Handler<AsyncResult<Void>>) null);
+        }
+
+        @Override
+        public void end(Handler<AsyncResult<Void>> handler) {
+            if (!failed && pending.length() > 0) {
+                parse(pending.getBytes());
+            }
+            pending = Buffer.buffer();
+            done.tryComplete();
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+        }
+
+        @Override
+        public Input setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            return target.writeQueueFull();
+        }
+
+        @Override
+        public Input drainHandler(Handler<Void> handler) {
+            target.drainHandler(handler);
+            return this;
+        }
+
+        private int lastLineEnd(Buffer buffer) {
+            for (int i = buffer.length() - 1; i >= 0; i--) {
+                if (buffer.getByte(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Collects the writer output and passes it on in chunks.
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        private Buffer chunk = Buffer.buffer(CHUNK_SIZE);
+
+        @Override
+        public void write(int b) {
+            chunk.appendByte((byte) b);
+            if (chunk.length() >= CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            chunk.appendBytes(b, off, len);
+            if (chunk.length() >= CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk() {
+            if (chunk.length() > 0) {
+                target.write(chunk);
+                chunk = Buffer.buffer(CHUNK_SIZE);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.piveau.hub.util.rdf;
+
+import io.piveau.dcatap.Prefixes;
+import io.piveau.utils.JenaUtils;
+import io.vertx.core.buffer.Buffer;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.graph.GraphFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+/**
+ * Serializations of graphs as they are sent in responses.
+ * <p>
+ * Turtle is rendered prefix-compacted with the DCAT-AP prefixes, so a rendered serialization can be cached and served
+ * as it is, without parsing it again.
+ * <p>
+ * Between instances, graphs are sent as RDF Thrift, which is more compact than N-Triples and read without parsing
+ * terms from text.
+ */
+public final class Serialization {
+
+    private Serialization() {
+    }
+
+    public static String render(Model model, String contentType) {
+        if (contentType != null && RDFLanguages.contentTypeToLang(contentType) == Lang.TURTLE) {
+            model.setNsPrefixes(Prefixes.DCATAP_PREFIXES);
+            StringWriter out = new StringWriter();
+            RDFDataMgr.write(out, model, RDFFormat.TURTLE);
+            return out.toString();
+        }
+        return JenaUtils.write(model, contentType);
+    }
+
+    /**
+     * Converts N-Triples as returned by the triplestore, e.g. to JSON-LD, which the triplestore does not render
+     * properly. The triples are parsed from the response buffer into a plain graph.
+     */
+    public static String convert(Buffer ntriples, RDFFormat format) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        RDFParser.source(new ByteArrayInputStream(ntriples.getBytes())).lang(Lang.NTRIPLES).parse(graph);
+        StringWriter out = new StringWriter();
+        RDFDataMgr.write(out, graph, format);
+        return out.toString();
+    }
+
+    /**
+     * Appends the graph as RDF Thrift, prefixed with its length.
+     */
+    public static void appendBinary(Buffer buffer, Model model) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFDataMgr.write(out, model, RDFFormat.RDF_THRIFT);
+        buffer.appendInt(out.size()).appendBytes(out.toByteArray());
+    }
+
+    /**
+     * Reads a graph appended by {@link #appendBinary(Buffer, Model)} at the position.
+     */
+    public static Model readBinary(Buffer buffer, int pos) {
+        int length = buffer.getInt(pos);
+        Model model = ModelFactory.createDefaultModel();
+        RDFParser.source(new ByteArrayInputStream(buffer.getBytes(pos + 4, pos + 4 + length)))
+                .lang(Lang.RDFTHRIFT)
+                .parse(model.getGraph());
+        return model;
+    }
+
+}
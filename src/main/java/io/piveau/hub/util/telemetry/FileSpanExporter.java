@@ -0,0 +1,64 @@
+package io.piveau.hub.util.telemetry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Appends spans as JSON lines in the Zipkin v2 format to a file. Writing happens on a thread of its own.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final String serviceName;
+    private final BufferedWriter writer;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "span-file-exporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FileSpanExporter(Path path, String serviceName) throws IOException {
+        this.serviceName = serviceName;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void export(Span span) {
+        String line = span.toJson(serviceName).encode();
+        executor.execute(() -> {
+            try {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                log.error("Writing span", e);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.execute(() -> {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.error("Closing span file", e);
+            }
+        });
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,39 @@
+package io.piveau.hub.util.telemetry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the latest spans in memory, for tests and for inspecting traces from the shell.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final Deque<Span> spans = new ArrayDeque<>();
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        if (spans.size() >= capacity) {
+            spans.removeFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * @return the kept spans in the order they ended
+     */
+    public synchronized List<Span> spans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+
+}
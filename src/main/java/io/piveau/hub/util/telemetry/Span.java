@@ -0,0 +1,120 @@
+package io.piveau.hub.util.telemetry;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timed operation of a trace. Ended spans of sampled traces are handed to the exporter of {@link Tracing}.
+ */
+public class Span {
+
+    public static final String SERVER = "SERVER";
+    public static final String CLIENT = "CLIENT";
+    public static final String INTERNAL = "INTERNAL";
+
+    /**
+     * Span used while tracing is disabled, it records nothing.
+     */
+    static final Span NOOP = new Span(null, null, "noop", INTERNAL);
+
+    private static final int MAX_TAG_LENGTH = 1024;
+
+    private final SpanContext context;
+    private final String parentId;
+    private final String kind;
+    private final long timestamp = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    private final long started = System.nanoTime();
+    private final JsonObject tags = new JsonObject();
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+    private volatile String name;
+    private volatile long duration;
+
+    Span(SpanContext context, String parentId, String name, String kind) {
+        this.context = context;
+        this.parentId = parentId;
+        this.name = name;
+        this.kind = kind;
+    }
+
+    /**
+     * @return the context to propagate or <code>null</code> for the no-op span
+     */
+    public SpanContext context() {
+        return context;
+    }
+
+    public Span name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Adds a tag, long values are cut off. Tags with a <code>null</code> value are skipped.
+     */
+    public Span tag(String key, Object value) {
+        if (this != NOOP && value != null) {
+            String text = value.toString();
+            synchronized (tags) {
+                tags.put(key, text.length() > MAX_TAG_LENGTH ? text.substring(0, MAX_TAG_LENGTH) + "..." : text);
+            }
+        }
+        return this;
+    }
+
+    public void end() {
+        end(null);
+    }
+
+    /**
+     * Ends the span, marked as failed if a cause is given. Only the first call counts.
+     */
+    public void end(Throwable cause) {
+        if (this == NOOP || !ended.compareAndSet(false, true)) {
+            return;
+        }
+        duration = Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        if (cause != null) {
+            tag("error", cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName());
+        }
+        if (context.sampled()) {
+            Tracing.export(this);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String parentId() {
+        return parentId;
+    }
+
+    /**
+     * @return the span in the Zipkin v2 JSON format
+     */
+    public JsonObject toJson(String serviceName) {
+        JsonObject json = new JsonObject()
+                .put("traceId", context.traceId())
+                .put("id", context.spanId())
+                .put("name", name)
+                .put("timestamp", timestamp)
+                .put("duration", duration)
+                .put("localEndpoint", new JsonObject().put("serviceName", serviceName));
+        if (parentId != null) {
+            json.put("parentId", parentId);
+        }
+        if (!INTERNAL.equals(kind)) {
+            json.put("kind", kind);
+        }
+        synchronized (tags) {
+            if (!tags.isEmpty()) {
+                json.put("tags", tags.copy());
+            }
+        }
+        return json;
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.piveau.hub.util.telemetry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Identity of a span as propagated in the W3C <code>traceparent</code> header, e.g.
+ * <code>00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01</code>.
+ */
+public final class SpanContext {
+
+    private static final Pattern TRACEPARENT = Pattern.compile("[0-9a-f]{2}-[0-9a-f]{32}-[0-9a-f]{16}-[0-9a-f]{2}");
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    SpanContext(String traceId, String spanId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * @return the context of the header or <code>null</code> if it is missing or malformed
+     */
+    public static SpanContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        String value = traceparent.trim().toLowerCase();
+        if (!TRACEPARENT.matcher(value).matches() || value.startsWith("ff")) {
+            return null;
+        }
+        String traceId = value.substring(3, 35);
+        String spanId = value.substring(36, 52);
+        if (traceId.chars().allMatch(c -> c == '0') || spanId.chars().allMatch(c -> c == '0')) {
+            return null;
+        }
+        return new SpanContext(traceId, spanId, (Integer.parseInt(value.substring(53), 16) & 1) == 1);
+    }
+
+    static SpanContext root(boolean sampled) {
+        return new SpanContext(randomId(16), randomId(8), sampled);
+    }
+
+    SpanContext child() {
+        return new SpanContext(traceId, randomId(8), sampled);
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public String spanId() {
+        return spanId;
+    }
+
+    public boolean sampled() {
+        return sampled;
+    }
+
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    @Override
+    public String toString() {
+        return traceparent();
+    }
+
+    private static String randomId(int bytes) {
+        StringBuilder id = new StringBuilder(bytes * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < bytes; i++) {
+            int b = random.nextInt(256);
+            id.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return id.toString();
+    }
+
+}
@@ -0,0 +1,13 @@
+package io.piveau.hub.util.telemetry;
+
+/**
+ * Receives the ended spans of sampled traces. Called from any thread, must not block.
+ */
+public interface SpanExporter {
+
+    void export(Span span);
+
+    default void close() {
+    }
+
+}
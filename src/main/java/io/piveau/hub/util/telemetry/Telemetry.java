@@ -0,0 +1,182 @@
+package io.piveau.hub.util.telemetry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.client.impl.HttpContext;
+import org.apache.jena.ext.com.google.common.cache.Cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Process wide metrics of the hub, scraped by Prometheus from <code>/prometheus</code>.
+ * <p>
+ * Records the latency of every API operation, of the calls to the triplestore, search, data upload and translation
+ * backends, the state of the circuit breakers and the size of the internal queues and caches. If the hub is started
+ * with {@link io.piveau.hub.HubLauncher}, the Vert.x metrics (event bus, HTTP server and client pools) are published
+ * by the same registry.
+ * <p>
+ * Breakers, queues and caches are registered once per verticle instance. The instances of the same name are told apart
+ * by an <code>instance</code> tag, numbered in the order of registration.
+ */
+public final class Telemetry {
+
+    private static final PrometheusMeterRegistry REGISTRY = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    private static final String SAMPLE = "telemetry.sample";
+
+    private static final Duration MIN_LATENCY = Duration.ofMillis(1);
+    private static final Duration MAX_LATENCY = Duration.ofMinutes(1);
+
+    private static final Map<String, AtomicInteger> INSTANCES = new ConcurrentHashMap<>();
+
+    private Telemetry() {
+    }
+
+    public static MeterRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Measures an API operation from the invocation of its handler until the response is written.
+     */
+    public static Handler<RoutingContext> timed(String operationId, Handler<RoutingContext> handler) {
+        return context -> {
+            Timer.Sample sample = Timer.start(REGISTRY);
+            context.addBodyEndHandler(v -> sample.stop(latency("hub.http.server.requests", Tags.of(
+                    "operation", operationId,
+                    "method", context.request().rawMethod(),
+                    "status", String.valueOf(context.response().getStatusCode())))));
+            handler.handle(context);
+        };
+    }
+
+    /**
+     * Measures and traces a backend call from its start until the handler is called, including retries of the
+     * circuit breaker. The call runs within its span, the handler with the context of the caller.
+     *
+     * @param backend the backend, e.g. <code>triplestore</code>
+     * @param operation the kind of call, e.g. <code>query</code>
+     * @param statement the query or graph, tagged to the span, may be <code>null</code>
+     * @param call starts the call and reports to the given handler
+     */
+    public static <T> void call(String backend, String operation, String statement, Handler<Handler<AsyncResult<T>>> call, Handler<AsyncResult<T>> handler) {
+        Timer.Sample sample = Timer.start(REGISTRY);
+        Span span = Tracing.start(backend + " " + operation, Span.CLIENT).tag("db.statement", statement);
+        Handler<AsyncResult<T>> resumed = Tracing.resume(handler);
+        try (Tracing.Scope ignored = Tracing.activate(span.context())) {
+            call.handle(ar -> {
+                sample.stop(latency("hub.backend.calls", Tags.of(
+                        "backend", backend,
+                        "operation", operation,
+                        "outcome", ar.succeeded() ? "success" : "failure")));
+                span.end(ar.failed() ? ar.cause() : null);
+                resumed.handle(ar);
+            });
+        }
+    }
+
+    /**
+     * Web client interceptor measuring every single HTTP request to a backend, from its preparation until the response
+     * is dispatched.
+     */
+    public static Handler<HttpContext<?>> requests(String backend) {
+        return context -> {
+            switch (context.phase()) {
+                case PREPARE_REQUEST:
+                    context.set(SAMPLE, Timer.start(REGISTRY));
+                    break;
+                case DISPATCH_RESPONSE:
+                    stop(context, backend, String.valueOf(context.response().statusCode()));
+                    break;
+                case FAILURE:
+                    stop(context, backend, "failure");
+                    break;
+                default:
+            }
+            context.next();
+        };
+    }
+
+    /**
+     * Publishes the state of a circuit breaker, <code>0</code> closed, <code>1</code> half open and <code>2</code>
+     * open, and counts its openings.
+     *
+     * @param service the service owning the breaker, breakers of different services may share a name
+     */
+    public static void monitor(String service, CircuitBreaker breaker) {
+        Tags tags = Tags.of("breaker", breaker.name(), "service", service, "instance", instance("breaker." + breaker.name() + "." + service));
+        Gauge.builder("hub.circuitbreaker.state", breaker, cb -> cb.state().ordinal())
+                .tags(tags)
+                .strongReference(true)
+                .register(REGISTRY);
+        breaker.openHandler(v -> REGISTRY.counter("hub.circuitbreaker.opened", tags).increment());
+    }
+
+    /**
+     * Publishes the number of waiting items of an internal queue.
+     */
+    public static <T> void queue(String queue, T state, ToDoubleFunction<T> depth) {
+        Gauge.builder("hub.queue.depth", state, depth)
+                .tag("queue", queue)
+                .tag("instance", instance("queue." + queue))
+                .register(REGISTRY);
+    }
+
+    /**
+     * Publishes the size, hits, misses and evictions of a cache. The cache has to record its statistics.
+     */
+    public static void cache(String name, Cache<?, ?> cache) {
+        Tags tags = Tags.of("cache", name, "instance", instance("cache." + name));
+        Gauge.builder("hub.cache.size", cache, Cache::size).tags(tags).register(REGISTRY);
+        FunctionCounter.builder("hub.cache.requests", cache, c -> c.stats().hitCount())
+                .tags(tags).tag("result", "hit").register(REGISTRY);
+        FunctionCounter.builder("hub.cache.requests", cache, c -> c.stats().missCount())
+                .tags(tags).tag("result", "miss").register(REGISTRY);
+        FunctionCounter.builder("hub.cache.evictions", cache, c -> c.stats().evictionCount())
+                .tags(tags).register(REGISTRY);
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format.
+     */
+    public static void scrape(RoutingContext context) {
+        context.response()
+                .putHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
+                .end(REGISTRY.scrape());
+    }
+
+    private static String instance(String meter) {
+        return String.valueOf(INSTANCES.computeIfAbsent(meter, key -> new AtomicInteger()).getAndIncrement());
+    }
+
+    private static void stop(HttpContext<?> context, String backend, String status) {
+        Timer.Sample sample = context.get(SAMPLE);
+        if (sample != null) {
+            sample.stop(latency("hub.backend.requests", Tags.of("backend", backend, "status", status)));
+            context.set(SAMPLE, null);
+        }
+    }
+
+    private static Timer latency(String name, Tags tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_LATENCY)
+                .maximumExpectedValue(MAX_LATENCY)
+                .register(REGISTRY);
+    }
+
+}
@@ -0,0 +1,288 @@
+package io.piveau.hub.util.telemetry;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryContext;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.client.impl.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Process wide tracing of requests through the API, the service proxies and the backends.
+ * <p>
+ * The trace context is propagated with the W3C <code>traceparent</code> header, in incoming and outgoing HTTP requests
+ * and in event bus messages. Within a thread, the context of the running span is the current context. As Vert.x 3 has
+ * no context propagation of its own, asynchronous callbacks get the current context back only where they are resumed
+ * explicitly, see {@link #resume(Handler)}. Event bus consumers get it from the message.
+ * <p>
+ * Spans are created for every API operation, every service proxy method, every triplestore operation and every
+ * backend HTTP request. Ended spans of sampled traces go to the configured {@link SpanExporter}.
+ */
+public final class Tracing {
+
+    public static final String TRACEPARENT = "traceparent";
+
+    private static final Logger log = LoggerFactory.getLogger(Tracing.class);
+
+    private static final String SPAN = "tracing.span";
+
+    private static final ThreadLocal<SpanContext> CURRENT = new ThreadLocal<>();
+
+    private static final Scope NOOP_SCOPE = () -> {
+    };
+
+    private static volatile SpanExporter exporter;
+    private static volatile double sampleRate = 1.0;
+
+    private Tracing() {
+    }
+
+    /**
+     * Enables tracing for this process, unless disabled by <code>enabled = false</code>. The configuration selects the
+     * exporter (<code>file</code>, <code>zipkin</code> or <code>memory</code>) and the sample rate of new traces.
+     */
+    public static synchronized void init(Vertx vertx, JsonObject config) {
+        if (exporter != null || !config.getBoolean("enabled", false)) {
+            return;
+        }
+        String serviceName = config.getString("serviceName", "piveau-hub");
+        SpanExporter spanExporter;
+        switch (config.getString("exporter", "file")) {
+            case "zipkin":
+                spanExporter = new ZipkinSpanExporter(vertx, config.getString("url", "http://localhost:9411/api/v2/spans"), serviceName, config.getLong("flushInterval", 1000L));
+                break;
+            case "memory":
+                spanExporter = new InMemorySpanExporter(config.getInteger("capacity", 10000));
+                break;
+            default:
+                try {
+                    spanExporter = new FileSpanExporter(Paths.get(config.getString("path", "traces/spans.jsonl")), serviceName);
+                } catch (IOException e) {
+                    log.error("Opening span file failed, tracing is disabled", e);
+                    return;
+                }
+        }
+        vertx.eventBus()
+                .addOutboundInterceptor(Tracing::outbound)
+                .addInboundInterceptor(Tracing::inbound);
+        enable(spanExporter, config.getDouble("sampleRate", 1.0));
+    }
+
+    /**
+     * Enables tracing with the given exporter, e.g. an {@link InMemorySpanExporter} in tests.
+     *
+     * @param rate the fraction of new traces that is recorded, propagated traces keep their decision
+     */
+    public static synchronized void enable(SpanExporter spanExporter, double rate) {
+        sampleRate = rate;
+        exporter = spanExporter;
+    }
+
+    public static synchronized void disable() {
+        if (exporter != null) {
+            exporter.close();
+            exporter = null;
+        }
+        CURRENT.remove();
+    }
+
+    public static boolean enabled() {
+        return exporter != null;
+    }
+
+    /**
+     * @return the context of the running span in this thread or <code>null</code>
+     */
+    public static SpanContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts a span as child of the current context or as a new trace.
+     */
+    public static Span start(String name, String kind) {
+        return start(name, kind, CURRENT.get());
+    }
+
+    public static Span start(String name, String kind, SpanContext parent) {
+        if (exporter == null) {
+            return Span.NOOP;
+        }
+        if (parent == null) {
+            return new Span(SpanContext.root(ThreadLocalRandom.current().nextDouble() < sampleRate), null, name, kind);
+        }
+        return new Span(parent.child(), parent.spanId(), name, kind);
+    }
+
+    /**
+     * Makes a context the current one until the scope is closed, which restores the previous one.
+     */
+    public static Scope activate(SpanContext context) {
+        if (exporter == null) {
+            return NOOP_SCOPE;
+        }
+        SpanContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Wraps a callback, so that it runs with the context current at the time of wrapping.
+     */
+    public static <T> Handler<AsyncResult<T>> resume(Handler<AsyncResult<T>> handler) {
+        SpanContext context = CURRENT.get();
+        if (context == null) {
+            return handler;
+        }
+        return ar -> {
+            try (Scope ignored = activate(context)) {
+                handler.handle(ar);
+            }
+        };
+    }
+
+    /**
+     * Traces an API operation as server span, continuing the trace of an incoming <code>traceparent</code> header.
+     */
+    public static Handler<RoutingContext> traced(String operationId, Handler<RoutingContext> handler) {
+        return context -> {
+            if (exporter == null) {
+                handler.handle(context);
+                return;
+            }
+            Span span = start(operationId, Span.SERVER, SpanContext.parse(context.request().getHeader(TRACEPARENT)))
+                    .tag("http.method", context.request().rawMethod())
+                    .tag("http.path", context.request().path());
+            context.addBodyEndHandler(v -> {
+                int status = context.response().getStatusCode();
+                span.tag("http.status_code", status);
+                span.end(status >= 500 ? new RuntimeException(context.response().getStatusMessage()) : null);
+            });
+            try (Scope ignored = activate(span.context())) {
+                handler.handle(context);
+            }
+        };
+    }
+
+    /**
+     * Traces every method of a service implementation that reports its result to a handler as the last argument. To be
+     * registered with the service binder instead of the implementation.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T traced(Class<T> type, T service) {
+        String prefix = type.getSimpleName() + ".";
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            int last = args != null ? args.length - 1 : -1;
+            if (exporter == null || last < 0 || !(args[last] instanceof Handler)) {
+                return invoke(service, method, args);
+            }
+            SpanContext caller = CURRENT.get();
+            Span span = start(prefix + method.getName(), Span.SERVER, caller);
+            Handler<AsyncResult<Object>> handler = (Handler<AsyncResult<Object>>) args[last];
+            args[last] = (Handler<AsyncResult<Object>>) ar -> {
+                span.end(ar.failed() ? ar.cause() : null);
+                try (Scope ignored = activate(caller)) {
+                    handler.handle(ar);
+                }
+            };
+            try (Scope ignored = activate(span.context())) {
+                return invoke(service, method, args);
+            }
+        });
+    }
+
+    /**
+     * Web client interceptor creating a client span for every request made within a trace and passing on its context.
+     */
+    public static Handler<HttpContext<?>> requests(String backend) {
+        return context -> {
+            switch (context.phase()) {
+                case PREPARE_REQUEST:
+                    SpanContext current = CURRENT.get();
+                    if (current != null) {
+                        Span span = start(backend, Span.CLIENT, current);
+                        context.request().putHeader(TRACEPARENT, span.context().traceparent());
+                        context.set(SPAN, span);
+                    }
+                    break;
+                case DISPATCH_RESPONSE:
+                    Span responded = context.get(SPAN);
+                    if (responded != null) {
+                        responded.tag("http.status_code", context.response().statusCode()).end();
+                    }
+                    break;
+                case FAILURE:
+                    Span failed = context.get(SPAN);
+                    if (failed != null) {
+                        failed.end(context.failure());
+                    }
+                    break;
+                default:
+            }
+            context.next();
+        };
+    }
+
+    static void export(Span span) {
+        SpanExporter current = exporter;
+        if (current != null) {
+            try {
+                current.export(span);
+            } catch (RuntimeException e) {
+                log.warn("Exporting span failed", e);
+            }
+        }
+    }
+
+    private static Object invoke(Object service, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(service, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> void outbound(DeliveryContext<T> context) {
+        SpanContext current = CURRENT.get();
+        if (current != null && !context.message().headers().contains(TRACEPARENT)) {
+            context.message().headers().add(TRACEPARENT, current.traceparent());
+        }
+        context.next();
+    }
+
+    private static <T> void inbound(DeliveryContext<T> context) {
+        SpanContext remote = SpanContext.parse(context.message().headers().get(TRACEPARENT));
+        if (remote == null) {
+            context.next();
+            return;
+        }
+        try (Scope ignored = activate(remote)) {
+            context.next();
+        }
+    }
+
+    /**
+     * Scope of a current context, closing it restores the previous context.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+}
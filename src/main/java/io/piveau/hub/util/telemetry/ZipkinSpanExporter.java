@@ -0,0 +1,82 @@
+package io.piveau.hub.util.telemetry;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.web.client.WebClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends spans in batches to the v2 span endpoint of a Zipkin compatible collector, e.g.
+ * <code>http://zipkin:9411/api/v2/spans</code>. Spans exceeding the buffer between two flushes are dropped.
+ */
+public class ZipkinSpanExporter implements SpanExporter {
+
+    private static final int MAX_BUFFERED = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final WebClient client;
+    private final String url;
+    private final String serviceName;
+    private final long timerId;
+    private final Vertx vertx;
+
+    private List<Span> buffer = new ArrayList<>();
+    private long dropped;
+
+    public ZipkinSpanExporter(Vertx vertx, String url, String serviceName, long flushInterval) {
+        this.vertx = vertx;
+        // a plain client, its own requests are not traced
+        this.client = WebClient.create(vertx);
+        this.url = url;
+        this.serviceName = serviceName;
+        timerId = vertx.setPeriodic(flushInterval, id -> flush());
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        if (buffer.size() < MAX_BUFFERED) {
+            buffer.add(span);
+        } else {
+            dropped++;
+        }
+    }
+
+    @Override
+    public void close() {
+        vertx.cancelTimer(timerId);
+        flush();
+    }
+
+    private void flush() {
+        List<Span> spans;
+        long lost;
+        synchronized (this) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            spans = buffer;
+            buffer = new ArrayList<>();
+            lost = dropped;
+            dropped = 0;
+        }
+        if (lost > 0) {
+            log.warn("Dropped {} spans, the exporter does not keep up", lost);
+        }
+
+        JsonArray body = new JsonArray();
+        spans.forEach(span -> body.add(span.toJson(serviceName)));
+        client.postAbs(url).sendJson(body, ar -> {
+            if (ar.failed()) {
+                log.warn("Sending {} spans to {} failed: {}", spans.size(), url, ar.cause().getMessage());
+            } else if (ar.result().statusCode() >= 300) {
+                log.warn("Sending {} spans to {} failed: {}", spans.size(), url, ar.result().statusCode());
+            }
+        });
+    }
+
+}
@@ -36,6 +36,10 @@ class ShellVerticle : CoroutineVerticle() {
             .registerCommand(ClearCatalogueCommand.create(vertx))
             .registerCommand(RepairCatalogueCommand.create(vertx))
             .registerCommand(LaunchCatalogueCommand.create(vertx))
+            .registerCommand(IndexQueueCommand.create(vertx))
+            .registerCommand(ChangesCommand.create(vertx))
+            .registerCommand(GraphCacheCommand.create(vertx))
+            .registerCommand(ImportCommand.create(vertx))
     }
 
 }
@@ -0,0 +1,56 @@
+package io.piveau.hub;
+
+import io.piveau.hub.services.datasets.BulkDatasets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the bulk dataset parsing")
+class BulkDatasetsTest {
+
+    @Test
+    @DisplayName("Mapping graph names to dataset ids")
+    void datasetIdTest() {
+        assertEquals("air-quality", BulkDatasets.datasetId("https://example.org/datasets/air-quality"));
+        assertEquals("air-quality", BulkDatasets.datasetId("https://example.org/datasets#air-quality"));
+        assertEquals("air-quality", BulkDatasets.datasetId("urn:dataset:air-quality"));
+        assertEquals("air quality", BulkDatasets.datasetId("https://example.org/datasets/air%20quality"));
+        assertNull(BulkDatasets.datasetId("https://example.org/datasets/"));
+    }
+
+    @Test
+    @DisplayName("Splitting N-Quads into datasets")
+    void nquadsTest() {
+        String content = "<https://example.org/d1> <http://purl.org/dc/terms/title> \"One\" <https://example.org/datasets/one> .\n" +
+                "<urn:d2> <http://purl.org/dc/terms/title> \"Two\" <urn:dataset:two> .\n" +
+                "<https://example.org/d3> <http://purl.org/dc/terms/title> \"Three\" <https://example.org/datasets/> .\n";
+        List<BulkDatasets.Entry> entries = BulkDatasets.parse(content, "application/n-quads");
+
+        assertEquals(Set.of("one", "two"), entries.stream()
+                .filter(entry -> entry.error() == null)
+                .map(BulkDatasets.Entry::id)
+                .collect(Collectors.toSet()));
+        assertEquals(1, entries.stream().filter(entry -> entry.error() != null).count());
+        entries.stream().filter(entry -> entry.error() == null).forEach(entry -> assertEquals(1, entry.model().size()));
+    }
+
+    @Test
+    @DisplayName("Splitting TriG with relative graph names into datasets")
+    void trigTest() {
+        String content = "@prefix dct: <http://purl.org/dc/terms/> .\n" +
+                "<air-quality> { <https://example.org/d1> dct:title \"Air quality\" . }\n" +
+                "<https://example.org/datasets/water> { <https://example.org/d2> dct:title \"Water\" . }\n";
+        List<BulkDatasets.Entry> entries = BulkDatasets.parse(content, "application/trig");
+
+        assertEquals(Set.of("air-quality", "water"), entries.stream()
+                .map(BulkDatasets.Entry::id)
+                .collect(Collectors.toSet()));
+        entries.forEach(entry -> assertNull(entry.error()));
+    }
+
+}
@@ -0,0 +1,71 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.CatalogueMembership;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the catalogue membership set")
+class CatalogueMembershipTest {
+
+    @Test
+    @DisplayName("Looking up sorted ids")
+    void containsTest() {
+        CatalogueMembership.Builder builder = CatalogueMembership.builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.add(String.format("dataset-%04d", i * 2));
+        }
+        CatalogueMembership membership = builder.build();
+
+        assertEquals(1000, membership.size());
+        assertTrue(membership.contains("dataset-0000"));
+        assertTrue(membership.contains("dataset-1998"));
+        assertTrue(membership.contains("dataset-0512"));
+        assertFalse(membership.contains("dataset-0513"));
+        assertFalse(membership.contains("dataset-2000"));
+        assertFalse(membership.contains("dataset"));
+        assertFalse(membership.contains(""));
+        assertFalse(CatalogueMembership.builder().build().contains("dataset-0000"));
+    }
+
+    @Test
+    @DisplayName("Iterating unsorted ids with duplicates")
+    void iteratorTest() {
+        CatalogueMembership membership = CatalogueMembership.builder()
+                .add("b").add("a-ü").add("c").add("a").add("b").add("a-z")
+                .build();
+
+        List<String> ids = new ArrayList<>();
+        membership.forEach(ids::add);
+        assertEquals(Arrays.asList("a", "a-z", "a-ü", "b", "c"), ids);
+        assertTrue(membership.contains("a-ü"));
+    }
+
+    @Test
+    @DisplayName("Computing the difference of two sets")
+    void differenceTest() {
+        CatalogueMembership.Builder index = CatalogueMembership.builder();
+        CatalogueMembership.Builder store = CatalogueMembership.builder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String id = String.format("dataset-%03d", i);
+            index.add(id);
+            if (i % 3 == 0) {
+                expected.add(id);
+            } else {
+                store.add(id);
+            }
+        }
+        store.add("dataset-999");
+
+        List<String> obsolete = new ArrayList<>();
+        index.build().difference(store.build()).forEachRemaining(obsolete::add);
+        assertEquals(expected, obsolete);
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.piveau.hub;
+
+import io.piveau.dcatap.DCATAPUriSchema;
+import io.piveau.hub.dataobjects.DatasetHelper;
+import io.piveau.hub.services.DatasetHelperMessageCodec;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the dataset helper message codec")
+class DatasetHelperMessageCodecTest {
+
+    private static final String TURTLE = "@prefix dcat: <http://www.w3.org/ns/dcat#> .\n" +
+            "@prefix dct: <http://purl.org/dc/terms/> .\n" +
+            "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+            "<https://example.org/dataset> a dcat:Dataset ;\n" +
+            "    dct:title \"Test dataset\"@en, \"Testdatensatz\"@de ;\n" +
+            "    dct:publisher [ a foaf:Organization ; foaf:name \"Agency\" ] .\n";
+
+    @BeforeAll
+    static void setUp() {
+        DCATAPUriSchema.INSTANCE.setConfig(new JsonObject().put("baseUri", "https://piveau.io/"));
+    }
+
+    @Test
+    @DisplayName("Sending a dataset helper over the wire")
+    void wireTest() {
+        Promise<DatasetHelper> promise = Promise.promise();
+        DatasetHelper.create("test-dataset", TURTLE, "text/turtle", null, "test-catalogue", promise);
+        DatasetHelper helper = promise.future().result();
+        helper.sourceLang("en");
+
+        DatasetHelperMessageCodec codec = new DatasetHelperMessageCodec();
+        Buffer buffer = Buffer.buffer("header");
+        codec.encodeToWire(buffer, helper);
+        DatasetHelper decoded = codec.decodeFromWire(6, buffer);
+
+        assertEquals(helper.id(), decoded.id());
+        assertEquals(helper.hash(), decoded.hash());
+        assertEquals(helper.catalogueId(), decoded.catalogueId());
+        assertNull(decoded.sourceType());
+        assertEquals("en", decoded.sourceLang());
+        assertEquals(helper.graphName(), decoded.graphName());
+        assertTrue(helper.model().isIsomorphicWith(decoded.model()));
+    }
+
+    @Test
+    @DisplayName("Keeping a normalized id differing from the original id")
+    void normalizedIdTest() {
+        Promise<DatasetHelper> promise = Promise.promise();
+        DatasetHelper.create("test-dataset", TURTLE, "text/turtle", null, "test-catalogue", promise);
+        DatasetHelper helper = promise.future().result();
+        helper.init("test-dataset_1");
+
+        DatasetHelperMessageCodec codec = new DatasetHelperMessageCodec();
+        Buffer buffer = Buffer.buffer();
+        codec.encodeToWire(buffer, helper);
+        DatasetHelper decoded = codec.decodeFromWire(0, buffer);
+
+        assertEquals("test-dataset", decoded.id());
+        assertNotEquals(DCATAPUriSchema.applyFor("test-dataset").getDatasetUriRef(), decoded.uriRef());
+        assertEquals(helper.uriRef(), decoded.uriRef());
+        assertEquals(helper.graphName(), decoded.graphName());
+        assertEquals(helper.recordUriRef(), decoded.recordUriRef());
+
+        DatasetHelper fromJson = new DatasetHelper(helper.toJson());
+        assertEquals(helper.uriRef(), fromJson.uriRef());
+    }
+
+}
@@ -0,0 +1,51 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.DigestSession;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the digest session")
+class DigestSessionTest {
+
+    private static final String CHALLENGE = "Digest realm=\"testrealm@host.com\", qop=\"auth,auth-int\", nonce=\"dcd98b7102dd2f0e8b11d0f600bfb0c093\", opaque=\"5ccc069c403ebaf9f0171e9517f40e41\"";
+
+    @Test
+    @DisplayName("Authorizing with the example of RFC 2617")
+    void rfcExampleTest() {
+        DigestSession session = new DigestSession("Mufasa", "Circle Of Life");
+        assertNull(session.authorization("GET", "/dir/index.html"));
+        assertTrue(session.update(CHALLENGE));
+
+        String authorization = session.authorization("GET", "/dir/index.html", "0a4f113b");
+        assertTrue(authorization.contains("response=\"6629fae49393a05397450978507c4ef1\""));
+        assertTrue(authorization.contains("nc=00000001"));
+        assertTrue(authorization.contains("opaque=\"5ccc069c403ebaf9f0171e9517f40e41\""));
+    }
+
+    @Test
+    @DisplayName("Reusing the nonce with an incremented count")
+    void nonceCountTest() {
+        DigestSession session = new DigestSession("Mufasa", "Circle Of Life");
+        session.update(CHALLENGE);
+
+        assertTrue(session.authorization("PUT", "/sparql-graph-crud-auth").contains("nc=00000001"));
+        assertTrue(session.authorization("PUT", "/sparql-graph-crud-auth").contains("nc=00000002"));
+
+        session.update("Digest realm=\"testrealm@host.com\", qop=\"auth\", nonce=\"fresh\", stale=true");
+        String authorization = session.authorization("PUT", "/sparql-graph-crud-auth");
+        assertTrue(authorization.contains("nonce=\"fresh\""));
+        assertTrue(authorization.contains("nc=00000001"));
+    }
+
+    @Test
+    @DisplayName("Ignoring other challenges")
+    void otherSchemeTest() {
+        DigestSession session = new DigestSession("user", "secret");
+        assertFalse(session.update("Basic realm=\"virtuoso\""));
+        assertFalse(session.update(null));
+        assertNull(session.authorization("GET", "/sparql-auth"));
+    }
+
+}
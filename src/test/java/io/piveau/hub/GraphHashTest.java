@@ -0,0 +1,56 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.rdf.GraphHash;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the graph hash")
+class GraphHashTest {
+
+    private static final String TURTLE = "@prefix dcat: <http://www.w3.org/ns/dcat#> .\n" +
+            "@prefix dct: <http://purl.org/dc/terms/> .\n" +
+            "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+            "<https://example.org/dataset> a dcat:Dataset ;\n" +
+            "    dct:title \"Test dataset\"@en ;\n" +
+            "    dct:publisher [ a foaf:Organization ; foaf:name \"Agency\" ] ;\n" +
+            "    dcat:contactPoint [ foaf:name \"Team\" ] .\n";
+
+    private static final String NTRIPLES = "_:c <http://xmlns.com/foaf/0.1/name> \"Team\" .\n" +
+            "<https://example.org/dataset> <http://www.w3.org/ns/dcat#contactPoint> _:c .\n" +
+            "_:p <http://xmlns.com/foaf/0.1/name> \"Agency\" .\n" +
+            "<https://example.org/dataset> <http://purl.org/dc/terms/title> \"Test dataset\"@en .\n" +
+            "_:p <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://xmlns.com/foaf/0.1/Organization> .\n" +
+            "<https://example.org/dataset> <http://purl.org/dc/terms/publisher> _:p .\n" +
+            "<https://example.org/dataset> <http://purl.org/dc/terms/title> \"Test dataset\"@en .\n" +
+            "<https://example.org/dataset> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/ns/dcat#Dataset> .\n";
+
+    @Test
+    @DisplayName("Hashing independent of format, order and blank node labels")
+    void independentTest() {
+        String hash = GraphHash.hash(TURTLE.getBytes(), "text/turtle");
+        assertEquals(hash, GraphHash.hash(NTRIPLES.getBytes(), "application/n-triples"));
+        assertEquals(hash, GraphHash.hash(TURTLE.getBytes(), "text/turtle; charset=utf-8"));
+
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(NTRIPLES.getBytes()), Lang.NTRIPLES);
+        assertEquals(hash, GraphHash.hash(model));
+    }
+
+    @Test
+    @DisplayName("Hashing changes")
+    void changeTest() {
+        String hash = GraphHash.hash(TURTLE.getBytes(), "text/turtle");
+        assertNotEquals(hash, GraphHash.hash(TURTLE.replace("Test dataset", "Changed dataset").getBytes(), "text/turtle"));
+        // the names of the blank nodes swapped
+        assertNotEquals(hash, GraphHash.hash(TURTLE.replace("\"Agency\"", "\"X\"").replace("\"Team\"", "\"Agency\"").replace("\"X\"", "\"Team\"").getBytes(), "text/turtle"));
+    }
+
+}
@@ -0,0 +1,103 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.KeyedTaskQueue;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the keyed task queue")
+class KeyedTaskQueueTest {
+
+    @Test
+    @DisplayName("Running tasks of one key in order and of different keys in parallel")
+    void orderTest() {
+        KeyedTaskQueue queue = new KeyedTaskQueue();
+        List<String> started = new ArrayList<>();
+        Promise<String> first = Promise.promise();
+        Promise<String> second = Promise.promise();
+        Promise<String> other = Promise.promise();
+
+        Future<String> firstResult = queue.submit("a", () -> {
+            started.add("first");
+            return first.future();
+        });
+        Future<String> secondResult = queue.submit("a", () -> {
+            started.add("second");
+            return second.future();
+        });
+        queue.submit("b", () -> {
+            started.add("other");
+            return other.future();
+        });
+
+        assertEquals(List.of("first", "other"), started);
+        assertEquals(3, queue.pending());
+        assertEquals(2, queue.keys());
+
+        first.fail("failed");
+        assertTrue(firstResult.failed());
+        assertEquals(List.of("first", "other", "second"), started);
+
+        second.complete("done");
+        other.complete("done");
+        assertEquals("done", secondResult.result());
+        assertEquals(0, queue.pending());
+        assertEquals(0, queue.keys());
+    }
+
+    @Test
+    @DisplayName("Running a task of several keys after the tasks of all its keys")
+    void multipleKeysTest() {
+        KeyedTaskQueue queue = new KeyedTaskQueue();
+        List<String> started = new ArrayList<>();
+        Promise<String> first = Promise.promise();
+        Promise<String> second = Promise.promise();
+        Promise<String> bulk = Promise.promise();
+
+        queue.submit("a", () -> {
+            started.add("first");
+            return first.future();
+        });
+        queue.submit("b", () -> {
+            started.add("second");
+            return second.future();
+        });
+        queue.submit(List.of("a", "b", "b"), () -> {
+            started.add("bulk");
+            return bulk.future();
+        });
+        queue.submit("b", () -> {
+            started.add("after");
+            return Future.succeededFuture("done");
+        });
+
+        first.complete("done");
+        assertEquals(List.of("first", "second"), started);
+        second.fail("failed");
+        assertEquals(List.of("first", "second", "bulk"), started);
+
+        bulk.complete("done");
+        assertEquals(List.of("first", "second", "bulk", "after"), started);
+        assertEquals(0, queue.pending());
+        assertEquals(0, queue.keys());
+    }
+
+    @Test
+    @DisplayName("Failing a task throwing an exception")
+    void exceptionTest() {
+        KeyedTaskQueue queue = new KeyedTaskQueue();
+        Future<String> result = queue.submit("a", () -> {
+            throw new IllegalStateException("broken");
+        });
+        assertTrue(result.failed());
+        assertEquals("broken", result.cause().getMessage());
+        assertEquals(0, queue.keys());
+    }
+
+}
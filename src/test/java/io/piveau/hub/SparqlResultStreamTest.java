@@ -0,0 +1,87 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.SparqlResultStream;
+import io.vertx.core.buffer.Buffer;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.vocabulary.XSD;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the streaming sparql result parser")
+class SparqlResultStreamTest {
+
+    private static final String RESULT = "{ \"head\": { \"link\": [], \"vars\": [\"s\", \"o\"] },"
+            + " \"results\": { \"distinct\": false, \"ordered\": true, \"bindings\": ["
+            + "{ \"s\": { \"type\": \"uri\", \"value\": \"https://piveau.io/set/data/test-1\" }, \"o\": { \"type\": \"literal\", \"xml:lang\": \"en\", \"value\": \"Test [1]\" } },"
+            + "{ \"s\": { \"type\": \"bnode\", \"value\": \"b0\" }, \"o\": { \"type\": \"typed-literal\", \"datatype\": \"http://www.w3.org/2001/XMLSchema#integer\", \"value\": \"42\" } },"
+            + "{ \"s\": { \"type\": \"uri\", \"value\": \"https://piveau.io/set/data/test-3\" } }"
+            + " ] } }";
+
+    @Test
+    @DisplayName("Parsing a result delivered in small chunks")
+    void parseChunks() {
+        SparqlResultStream stream = new SparqlResultStream();
+        List<QuerySolution> solutions = new ArrayList<>();
+        AtomicBoolean ended = new AtomicBoolean();
+        stream.endHandler(v -> ended.set(true)).handler(solutions::add);
+
+        Buffer body = Buffer.buffer(RESULT);
+        for (int i = 0; i < body.length(); i += 7) {
+            stream.sink().write(body.getBuffer(i, Math.min(i + 7, body.length())));
+        }
+        assertFalse(ended.get());
+        stream.sink().end();
+
+        assertTrue(ended.get());
+        assertEquals(3, solutions.size());
+        assertEquals("https://piveau.io/set/data/test-1", solutions.get(0).getResource("s").getURI());
+        assertEquals("en", solutions.get(0).getLiteral("o").getLanguage());
+        assertEquals("Test [1]", solutions.get(0).getLiteral("o").getLexicalForm());
+        assertTrue(solutions.get(1).getResource("s").isAnon());
+        assertEquals(XSD.integer.getURI(), solutions.get(1).getLiteral("o").getDatatypeURI());
+        assertEquals(42, solutions.get(1).getLiteral("o").getInt());
+        assertNull(solutions.get(2).get("o"));
+    }
+
+    @Test
+    @DisplayName("Holding back solutions while paused")
+    void backpressure() {
+        SparqlResultStream stream = new SparqlResultStream();
+        List<QuerySolution> solutions = new ArrayList<>();
+        AtomicBoolean ended = new AtomicBoolean();
+        stream.pause().endHandler(v -> ended.set(true)).handler(solutions::add);
+
+        stream.sink().write(Buffer.buffer(RESULT));
+        stream.sink().end();
+        assertTrue(solutions.isEmpty());
+
+        stream.fetch(1);
+        assertEquals(1, solutions.size());
+        assertFalse(ended.get());
+
+        stream.resume();
+        assertEquals(3, solutions.size());
+        assertTrue(ended.get());
+    }
+
+    @Test
+    @DisplayName("Reporting malformed results")
+    void malformed() {
+        SparqlResultStream stream = new SparqlResultStream();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        stream.exceptionHandler(failure::set).handler(solution -> {});
+
+        stream.sink().write(Buffer.buffer("{ \"results\": { \"bindings\": [ { \"s\": "));
+        stream.sink().end();
+
+        assertNotNull(failure.get());
+    }
+
+}
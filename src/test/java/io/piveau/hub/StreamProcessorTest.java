@@ -0,0 +1,51 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.StreamProcessor;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the stream processor")
+class StreamProcessorTest {
+
+    @Test
+    @DisplayName("Processing 100000 already completed tasks without growing the stack")
+    void completedTasksTest() {
+        AtomicInteger processed = new AtomicInteger();
+        Future<Void> result = StreamProcessor.process(IntStream.range(0, 100000).iterator(), 8, i -> {
+            processed.incrementAndGet();
+            return i % 2 == 0 ? Future.succeededFuture() : Future.failedFuture("failed");
+        });
+        assertTrue(result.succeeded());
+        assertEquals(100000, processed.get());
+    }
+
+    @Test
+    @DisplayName("Keeping at most the given number of pending tasks in flight")
+    void concurrencyTest() {
+        List<Promise<Void>> pending = new ArrayList<>();
+        Future<Void> result = StreamProcessor.process(IntStream.range(0, 10).iterator(), 3, i -> {
+            Promise<Void> promise = Promise.promise();
+            pending.add(promise);
+            return promise.future();
+        });
+        assertEquals(3, pending.size());
+
+        pending.get(0).complete();
+        assertEquals(4, pending.size());
+        for (int i = 1; i < 10; i++) {
+            pending.get(i).complete();
+        }
+        assertEquals(10, pending.size());
+        assertTrue(result.succeeded());
+    }
+
+}
@@ -0,0 +1,115 @@
+package io.piveau.hub;
+
+import io.piveau.hub.util.telemetry.InMemorySpanExporter;
+import io.piveau.hub.util.telemetry.Span;
+import io.piveau.hub.util.telemetry.SpanContext;
+import io.piveau.hub.util.telemetry.Tracing;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testing the tracing")
+class TracingTest {
+
+    public interface Greeter {
+        void greet(String name, Handler<AsyncResult<String>> handler);
+    }
+
+    private final InMemorySpanExporter exporter = new InMemorySpanExporter(100);
+
+    @BeforeEach
+    void setUp() {
+        Tracing.enable(exporter, 1.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Tracing.disable();
+    }
+
+    @Test
+    @DisplayName("Parsing and writing the traceparent header")
+    void traceparentTest() {
+        String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+        SpanContext context = SpanContext.parse(traceparent);
+        assertNotNull(context);
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.traceId());
+        assertEquals("00f067aa0ba902b7", context.spanId());
+        assertTrue(context.sampled());
+        assertEquals(traceparent, context.traceparent());
+
+        assertFalse(SpanContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00").sampled());
+        assertNull(SpanContext.parse(null));
+        assertNull(SpanContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7"));
+        assertNull(SpanContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+    }
+
+    @Test
+    @DisplayName("Nesting spans of the current context")
+    void nestingTest() {
+        Span root = Tracing.start("root", Span.SERVER);
+        try (Tracing.Scope ignored = Tracing.activate(root.context())) {
+            Tracing.start("child", Span.CLIENT).tag("db.statement", "ASK {}").end();
+        }
+        assertNull(Tracing.current());
+        root.end();
+
+        List<Span> spans = exporter.spans();
+        assertEquals(2, spans.size());
+        assertEquals("child", spans.get(0).name());
+        assertEquals(root.context().spanId(), spans.get(0).parentId());
+        assertEquals(root.context().traceId(), spans.get(0).context().traceId());
+        assertNull(spans.get(1).parentId());
+        assertEquals("ASK {}", spans.get(0).toJson("hub").getJsonObject("tags").getString("db.statement"));
+    }
+
+    @Test
+    @DisplayName("Tracing the methods of a service")
+    void serviceTest() {
+        Greeter greeter = Tracing.traced(Greeter.class, (name, handler) -> {
+            Tracing.start("lookup", Span.INTERNAL).end();
+            handler.handle(Future.succeededFuture("Hello " + name));
+        });
+
+        SpanContext remote = SpanContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        AtomicReference<SpanContext> resumed = new AtomicReference<>();
+        try (Tracing.Scope ignored = Tracing.activate(remote)) {
+            greeter.greet("hub", ar -> {
+                assertEquals("Hello hub", ar.result());
+                resumed.set(Tracing.current());
+            });
+        }
+
+        assertSame(remote, resumed.get());
+        List<Span> spans = exporter.spans();
+        assertEquals(2, spans.size());
+        Span method = spans.get(1);
+        assertEquals("Greeter.greet", method.name());
+        assertEquals("00f067aa0ba902b7", method.parentId());
+        assertEquals(method.context().spanId(), spans.get(0).parentId());
+    }
+
+    @Test
+    @DisplayName("Dropping unsampled traces")
+    void samplingTest() {
+        Tracing.enable(exporter, 0.0);
+        Span root = Tracing.start("root", Span.SERVER);
+        try (Tracing.Scope ignored = Tracing.activate(root.context())) {
+            Tracing.start("child", Span.CLIENT).end();
+        }
+        root.end();
+
+        assertFalse(root.context().sampled());
+        assertTrue(exporter.spans().isEmpty());
+    }
+
+}